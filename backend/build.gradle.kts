@@ -2,6 +2,7 @@ plugins {
     java
     id("org.springframework.boot") version "3.4.1"
     id("io.spring.dependency-management") version "1.1.7"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "com.linkwave"
@@ -35,6 +36,7 @@ dependencies {
     implementation("org.springframework.session:spring-session-data-redis")
     implementation("org.springframework.boot:spring-boot-starter-websocket")
     implementation("org.springframework.kafka:spring-kafka")
+    implementation("com.github.ben-manes.caffeine:caffeine")
     
     // Database
     runtimeOnly("org.postgresql:postgresql")
@@ -49,12 +51,29 @@ dependencies {
     testImplementation("org.springframework.kafka:spring-kafka-test")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
     testRuntimeOnly("com.h2database:h2")
+
+    // Benchmarks (src/jmh/java)
+    jmhRuntimeOnly("org.postgresql:postgresql")
 }
 
 tasks.withType<Test> {
     useJUnitPlatform()
 }
 
+// Microbenchmarks (src/jmh/java): ./gradlew jmh -Pjmh.includes=<regex>
+// The gc profiler reports gc.alloc.rate.norm (bytes allocated per operation).
+// Iteration counts are set per benchmark with @Warmup/@Measurement.
+jmh {
+    jmhVersion = "1.37"
+    profilers.add("gc")
+    fork = 1
+    project.findProperty("jmh.includes")?.let { includes.add(it.toString()) }
+}
+
+tasks.named<Jar>("jmhJar") {
+    isZip64 = true
+}
+
 tasks.named<org.springframework.boot.gradle.tasks.bundling.BootJar>("bootJar") {
     enabled = true
 }
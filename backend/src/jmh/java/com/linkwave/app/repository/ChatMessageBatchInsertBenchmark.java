@@ -0,0 +1,134 @@
+package com.linkwave.app.repository;
+
+import com.linkwave.app.domain.chat.ChatMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chat message persistence throughput (messages/s) by batch size.
+ * 
+ * Each invocation persists MESSAGES messages in chunks of batchSize, one
+ * transaction per chunk, as the batch consumer does per poll. batchSize=1
+ * approximates the old per-record path (without its room SELECT).
+ * 
+ * Defaults to in-memory H2. For numbers that include network round trips,
+ * run the jar against PostgreSQL (createSchema=false to reuse the
+ * application's tables; the room row must then exist):
+ *   java -jar build/libs/*-jmh.jar ChatMessageBatchInsertBenchmark \
+ *     -p jdbcUrl='jdbc:postgresql://localhost:5432/linkwave?reWriteBatchedInserts=true' \
+ *     -p driverClassName=org.postgresql.Driver -p username=linkwave -p password=changeme
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+public class ChatMessageBatchInsertBenchmark {
+
+    private static final int MESSAGES = 1000;
+    private static final String ROOM_ID = "bench-room";
+
+    @Param({"1", "10", "100", "500"})
+    public int batchSize;
+
+    @Param("jdbc:h2:mem:bench;MODE=PostgreSQL;DB_CLOSE_DELAY=-1")
+    public String jdbcUrl;
+
+    @Param("org.h2.Driver")
+    public String driverClassName;
+
+    @Param("sa")
+    public String username;
+
+    @Param("")
+    public String password;
+
+    @Param("true")
+    public boolean createSchema;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private ChatMessageJdbcRepository repository;
+    private List<List<ChatMessage>> chunks;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dataSource = new SingleConnectionDataSource(jdbcUrl, username, password, true);
+        dataSource.setDriverClassName(driverClassName);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        if (createSchema) {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS chat_messages");
+            jdbcTemplate.execute("DROP TABLE IF EXISTS chat_rooms");
+            jdbcTemplate.execute("CREATE TABLE chat_rooms (id VARCHAR(36) PRIMARY KEY)");
+            jdbcTemplate.execute("CREATE TABLE chat_messages (id VARCHAR(36) PRIMARY KEY, "
+                    + "room_id VARCHAR(36) NOT NULL REFERENCES chat_rooms(id), sender_phone VARCHAR(20) NOT NULL, "
+                    + "body TEXT NOT NULL, sent_at TIMESTAMP NOT NULL, delivered_at TIMESTAMP, "
+                    + "read_at TIMESTAMP, ttl_days INT)");
+            jdbcTemplate.update("INSERT INTO chat_rooms (id) VALUES (?)", ROOM_ID);
+        }
+        repository = new ChatMessageJdbcRepository(jdbcTemplate);
+    }
+
+    @Setup(Level.Invocation)
+    public void nextMessages() {
+        chunks = new ArrayList<>();
+        List<ChatMessage> chunk = new ArrayList<>(batchSize);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < MESSAGES; i++) {
+            chunk.add(new ChatMessage(UUID.randomUUID().toString(), ROOM_ID, "+14155551111",
+                    "Benchmark message body " + i, now + i, 7));
+            if (chunk.size() == batchSize) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(batchSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearMessages() {
+        // Keep the table (and the in-memory heap) from growing across iterations
+        if (createSchema) {
+            jdbcTemplate.execute("TRUNCATE TABLE chat_messages");
+        } else {
+            jdbcTemplate.update("DELETE FROM chat_messages WHERE room_id = ?", ROOM_ID);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void persist() {
+        for (List<ChatMessage> chunk : chunks) {
+            transactionTemplate.executeWithoutResult(status -> repository.insertAll(chunk));
+        }
+    }
+}
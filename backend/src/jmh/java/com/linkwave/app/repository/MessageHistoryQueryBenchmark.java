@@ -0,0 +1,171 @@
+package com.linkwave.app.repository;
+
+import com.linkwave.app.controller.chat.ChatRoomController.MessageResponse;
+import com.linkwave.app.domain.chat.ChatMessage;
+import com.linkwave.app.domain.chat.ChatMessageEntity;
+import com.linkwave.app.domain.chat.ChatMessageView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of loading one history page (pages/s and bytes allocated per page).
+ *
+ * Compares the previous read path - managed ChatMessageEntity rows mapped
+ * to MessageResponse through the LAZY room association - with the
+ * ChatMessageView projection queries of ChatMessageRepository. Both run the
+ * same keyset query from the middle of a MESSAGES-row room, and the
+ * persistence context is cleared after each page as it would be at the end
+ * of a request. Rows/s = pages/s x pageSize.
+ *
+ * Creates (and drops) the schema through Hibernate, so point it only at a
+ * scratch database. Defaults to in-memory H2; for PostgreSQL:
+ *   java -jar build/libs/*-jmh.jar MessageHistoryQueryBenchmark -prof gc \
+ *     -p jdbcUrl='jdbc:postgresql://localhost:5432/linkwave_bench' \
+ *     -p driverClassName=org.postgresql.Driver -p username=linkwave -p password=changeme
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class MessageHistoryQueryBenchmark {
+
+    private static final int MESSAGES = 10_000;
+    private static final String ROOM_ID = "bench-room";
+
+    // Previous ChatMessageRepository query, returning managed entities
+    private static final String ENTITY_QUERY = """
+            SELECT m FROM ChatMessageEntity m
+            WHERE m.room.id = :roomId
+              AND m.sentAt <= :sentAt
+              AND (m.sentAt < :sentAt OR m.id < :id)
+            ORDER BY m.sentAt DESC, m.id DESC
+            """;
+
+    @Param({"50"})
+    public int pageSize;
+
+    @Param("jdbc:h2:mem:bench;MODE=PostgreSQL;DB_CLOSE_DELAY=-1")
+    public String jdbcUrl;
+
+    @Param("org.h2.Driver")
+    public String driverClassName;
+
+    @Param("sa")
+    public String username;
+
+    @Param("")
+    public String password;
+
+    private SingleConnectionDataSource dataSource;
+    private EntityManagerFactory entityManagerFactory;
+    private EntityManager entityManager;
+    private ChatMessageRepository repository;
+    private Instant cursorSentAt;
+    private String cursorId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new SingleConnectionDataSource(jdbcUrl, username, password, true);
+        dataSource.setDriverClassName(driverClassName);
+
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("com.linkwave.app.domain");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "create-drop"));
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO chat_rooms (id, room_type, name, created_at, updated_at) "
+                + "VALUES (?, 'GROUP', 'Bench', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)", ROOM_ID);
+        List<ChatMessage> messages = new ArrayList<>(MESSAGES);
+        long start = System.currentTimeMillis() - MESSAGES * 1000L;
+        for (int i = 0; i < MESSAGES; i++) {
+            messages.add(new ChatMessage(String.format("msg-%08d", i), ROOM_ID, "+14155551111",
+                    "Benchmark message body " + i, start + i * 1000L, 7));
+        }
+        try {
+            new ChatMessageJdbcRepository(jdbcTemplate).insertAll(messages);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to seed messages", e);
+        }
+
+        // Scroll-back position halfway through the room
+        ChatMessage middle = messages.get(MESSAGES / 2);
+        cursorSentAt = Instant.ofEpochMilli(middle.getSentAt());
+        cursorId = middle.getMessageId();
+
+        entityManager = entityManagerFactory.createEntityManager();
+        repository = new JpaRepositoryFactory(entityManager).getRepository(ChatMessageRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManager.close();
+        entityManagerFactory.close();
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public List<MessageResponse> entityPage() {
+        List<ChatMessageEntity> rows = entityManager.createQuery(ENTITY_QUERY, ChatMessageEntity.class)
+                .setParameter("roomId", ROOM_ID)
+                .setParameter("sentAt", cursorSentAt)
+                .setParameter("id", cursorId)
+                .setMaxResults(pageSize + 1)
+                .getResultList();
+        List<MessageResponse> page = rows.stream()
+                .limit(pageSize)
+                .map(msg -> new MessageResponse(
+                        msg.getId(),
+                        msg.getRoom().getId(),
+                        msg.getSenderPhone(),
+                        msg.getBody(),
+                        msg.getSentAt().toEpochMilli()))
+                .toList();
+        entityManager.clear();
+        return page;
+    }
+
+    @Benchmark
+    public List<MessageResponse> projectionPage() {
+        List<ChatMessageView> rows = repository.findBefore(ROOM_ID, cursorSentAt, cursorId, Limit.of(pageSize + 1));
+        List<MessageResponse> page = rows.stream()
+                .limit(pageSize)
+                .map(msg -> new MessageResponse(
+                        msg.id(),
+                        msg.roomId(),
+                        msg.senderPhone(),
+                        msg.body(),
+                        msg.sentAt().toEpochMilli()))
+                .toList();
+        entityManager.clear();
+        return page;
+    }
+}
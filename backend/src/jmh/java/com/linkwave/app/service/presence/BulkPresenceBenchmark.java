@@ -0,0 +1,111 @@
+package com.linkwave.app.service.presence;
+
+import com.linkwave.app.config.PresenceHeartbeatConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of one bulk presence lookup against contact list size.
+ *
+ * sequential is the previous getUsersPresence: one EXISTS round trip per
+ * user. batched is getUsersPresenceMetadata, which also returns lastSeen,
+ * with one Lua read (TYPE + HMGET per key) per chunk of 500. Half of the
+ * users are online.
+ * The gap grows with listSize and with the network distance to Redis, so
+ * run it against a Redis on another host to see production-like numbers.
+ *
+ * Writes linkwave:presence:bench-* keys and deletes them afterwards:
+ *   java -jar build/libs/*-jmh.jar BulkPresenceBenchmark -p redisHost=localhost -p redisPort=6379
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BulkPresenceBenchmark {
+
+    private static final String PRESENCE_KEY_PREFIX = "linkwave:presence:";
+
+    @Param({"10", "100", "300", "1000", "5000"})
+    public int listSize;
+
+    @Param("localhost")
+    public String redisHost;
+
+    @Param("6379")
+    public int redisPort;
+
+    @Param("")
+    public String redisPassword;
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private PresenceService presenceService;
+    private List<String> userIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(redisHost, redisPort);
+        if (!redisPassword.isEmpty()) {
+            config.setPassword(redisPassword);
+        }
+        connectionFactory = new LettuceConnectionFactory(config);
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        presenceService = new PresenceService(redisTemplate, new PresenceHeartbeatConfig(), new SimpleMeterRegistry());
+
+        userIds = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            String userId = "bench-" + i;
+            userIds.add(userId);
+            if (i % 2 == 0) {
+                presenceService.markOnline(userId);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        List<String> keys = new ArrayList<>(userIds.size());
+        for (String userId : userIds) {
+            keys.add(PRESENCE_KEY_PREFIX + userId);
+        }
+        redisTemplate.delete(keys);
+        presenceService.shutdown();
+        connectionFactory.destroy();
+    }
+
+    @Benchmark
+    public Map<String, Boolean> sequential() {
+        Map<String, Boolean> presence = new HashMap<>();
+        for (String userId : userIds) {
+            presence.put(userId, Boolean.TRUE.equals(redisTemplate.hasKey(PRESENCE_KEY_PREFIX + userId)));
+        }
+        return presence;
+    }
+
+    @Benchmark
+    public Object batched() {
+        return presenceService.getUsersPresenceMetadata(userIds);
+    }
+}
@@ -0,0 +1,84 @@
+package com.linkwave.app.service.presence;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heartbeat rate limiting under contention from many socket threads.
+ *
+ * limiter is HeartbeatRateLimiter. synchronizedMap is the smallest
+ * thread-safe version of the previous HashMap (get, compare, put under one
+ * lock) and, like it, never forgets a user. Users are picked at random from
+ * a pool of userCount; windowMs=1 accepts nearly every heartbeat so most
+ * calls write, the default 20s window makes nearly every call a rejected
+ * read.
+ *
+ *   java -jar build/libs/*-jmh.jar HeartbeatRateLimiterBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+public class HeartbeatRateLimiterBenchmark {
+
+    @Param({"1000", "100000"})
+    public int userCount;
+
+    @Param({"1", "20000"})
+    public long windowMs;
+
+    private String[] userIds;
+    private HeartbeatRateLimiter limiter;
+    private Map<String, Long> synchronizedMap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userIds = new String[userCount];
+        for (int i = 0; i < userCount; i++) {
+            userIds[i] = "+1415" + (5_000_000 + i);
+        }
+        limiter = new HeartbeatRateLimiter(windowMs);
+        synchronizedMap = Collections.synchronizedMap(new HashMap<>());
+    }
+
+    @Benchmark
+    public boolean limiter() {
+        return limiter.tryAcquire(randomUser(), System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public boolean synchronizedMap() {
+        String userId = randomUser();
+        long now = System.currentTimeMillis();
+        synchronized (synchronizedMap) {
+            Long last = synchronizedMap.get(userId);
+            if (last != null && now - last < windowMs) {
+                return false;
+            }
+            synchronizedMap.put(userId, now);
+            return true;
+        }
+    }
+
+    private String randomUser() {
+        return userIds[ThreadLocalRandom.current().nextInt(userIds.length)];
+    }
+}
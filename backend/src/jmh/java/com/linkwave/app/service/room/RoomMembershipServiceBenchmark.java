@@ -0,0 +1,98 @@
+package com.linkwave.app.service.room;
+
+import com.linkwave.app.config.RoomMembershipCacheConfig;
+import com.linkwave.app.repository.ChatMemberRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Membership checks per second through the cached RoomMembershipService.
+ * 
+ * Each check picks a random room and a random member or non-member, as
+ * typing.start, read.up_to and chat.send do. The repository is a stub that
+ * answers from memory after a simulated 200 µs round trip, so the score
+ * reflects cache hits once warm; lower cacheRooms below rooms to see the
+ * cost of misses.
+ * 
+ * Run with: ./gradlew jmh -Pjmh.includes=RoomMembershipServiceBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Threads(4)
+public class RoomMembershipServiceBenchmark {
+
+    private static final long DB_CALL_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    @Param({"1000"})
+    public int rooms;
+
+    @Param({"200"})
+    public int membersPerRoom;
+
+    @Param({"100000", "100"})
+    public long cacheRooms;
+
+    private RoomMembershipService service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ChatMemberRepository repository = (ChatMemberRepository) Proxy.newProxyInstance(
+                ChatMemberRepository.class.getClassLoader(),
+                new Class<?>[] { ChatMemberRepository.class },
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("findPhoneNumbersByRoomId")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    long deadline = System.nanoTime() + DB_CALL_NANOS;
+                    while (System.nanoTime() < deadline) {
+                        Thread.onSpinWait();
+                    }
+                    return members((String) args[0]);
+                });
+
+        RoomMembershipCacheConfig config = new RoomMembershipCacheConfig();
+        config.setMaxRooms(cacheRooms);
+        service = new RoomMembershipService(repository, config, new SimpleMeterRegistry());
+    }
+
+    private List<String> members(String roomId) {
+        List<String> members = new ArrayList<>(membersPerRoom);
+        for (int i = 0; i < membersPerRoom; i++) {
+            members.add(phone(roomId.hashCode() + i));
+        }
+        return members;
+    }
+
+    private static String phone(int n) {
+        return "+1415" + String.format("%07d", Math.floorMod(n, 10_000_000));
+    }
+
+    @Benchmark
+    public boolean isUserInRoom() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String roomId = "room-" + random.nextInt(rooms);
+        // Half the checks hit a member, half a non-member
+        int offset = random.nextBoolean() ? random.nextInt(membersPerRoom) : membersPerRoom + random.nextInt(1000);
+        return service.isUserInRoom(phone(roomId.hashCode() + offset), roomId);
+    }
+}
@@ -0,0 +1,102 @@
+package com.linkwave.app.service.typing;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of clearing one session's typing state on disconnect, against the
+ * number of rooms with someone typing.
+ *
+ * indexed is TypingStateManager.clearUserTyping followed by a typing.start
+ * that puts the state back. fullScan reproduces the previous cleanup on an
+ * equally sized map: removeIf over every room's set plus a startsWith sweep
+ * of every rate-limit key. Each room has one typer with its own session.
+ *
+ *   java -jar build/libs/*-jmh.jar TypingDisconnectBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TypingDisconnectBenchmark {
+
+    @Param({"1000", "100000"})
+    public int activeRooms;
+
+    private TypingStateManager typingStateManager;
+    private Map<String, Set<String>> scanRoomState;
+    private Map<String, Long> scanRateLimits;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        typingStateManager = new TypingStateManager();
+        scanRoomState = new ConcurrentHashMap<>();
+        scanRateLimits = new ConcurrentHashMap<>();
+
+        for (int i = 0; i < activeRooms; i++) {
+            typingStateManager.markTypingStart(roomId(i), userId(i), sessionId(i));
+
+            Set<String> typers = ConcurrentHashMap.newKeySet();
+            typers.add(userId(i) + "|" + sessionId(i));
+            scanRoomState.put(roomId(i), typers);
+            scanRateLimits.put(userId(i) + ":" + roomId(i), System.currentTimeMillis());
+        }
+    }
+
+    @Benchmark
+    public List<String> indexed() {
+        int i = ThreadLocalRandom.current().nextInt(activeRooms);
+        List<String> affected = typingStateManager.clearUserTyping(userId(i), sessionId(i));
+        typingStateManager.markTypingStart(roomId(i), userId(i), sessionId(i));
+        return affected;
+    }
+
+    @Benchmark
+    public List<String> fullScan() {
+        int i = ThreadLocalRandom.current().nextInt(activeRooms);
+        String typer = userId(i) + "|" + sessionId(i);
+        String rateLimitPrefix = userId(i) + ":";
+
+        List<String> affected = new ArrayList<>();
+        for (Map.Entry<String, Set<String>> entry : scanRoomState.entrySet()) {
+            if (entry.getValue().removeIf(typer::equals)) {
+                affected.add(entry.getKey());
+            }
+        }
+        scanRateLimits.keySet().removeIf(key -> key.startsWith(rateLimitPrefix));
+
+        scanRoomState.get(roomId(i)).add(typer);
+        scanRateLimits.put(rateLimitPrefix + roomId(i), System.currentTimeMillis());
+        return affected;
+    }
+
+    private static String roomId(int i) {
+        return "room-" + i;
+    }
+
+    private static String userId(int i) {
+        return "+1415" + (5_000_000 + i);
+    }
+
+    private static String sessionId(int i) {
+        return "session-" + i;
+    }
+}
@@ -0,0 +1,149 @@
+package com.linkwave.app.service.typing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkwave.app.config.NodeConfig;
+import com.linkwave.app.config.TypingConfig;
+import com.linkwave.app.domain.typing.TypingEvent.TypingAction;
+import com.linkwave.app.service.websocket.OutboundFrameType;
+import com.linkwave.app.service.websocket.RoomFanoutEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Typing frames broadcast to a busy room against typing changes handed in.
+ *
+ * 20 typers in one room each start or stop typing at random, one thread
+ * per typer. The score is changes per second; the frames counter is
+ * typing.update (or, with legacyPerUserEvents, typing.event) frames per
+ * second. With rosters frames stay near 1000 / rosterIntervalMs however
+ * fast the changes come; legacy events send one frame per change.
+ * Broadcasts are counted, not delivered.
+ *
+ *   java -jar build/libs/*-jmh.jar TypingRosterBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(20)
+public class TypingRosterBenchmark {
+
+    private static final String ROOM = "bench-room";
+
+    @Param({"false", "true"})
+    public boolean legacyPerUserEvents;
+
+    @Param({"200", "500"})
+    public long rosterIntervalMs;
+
+    private TypingStateManager typingStateManager;
+    private TypingBroadcaster broadcaster;
+    private final LongAdder frames = new LongAdder();
+
+    /**
+     * RoomFanoutEngine that only counts broadcasts.
+     */
+    private final class CountingFanout extends RoomFanoutEngine {
+
+        CountingFanout() {
+            super(null, null, null, new SimpleMeterRegistry());
+        }
+
+        @Override
+        public int broadcast(String roomId, TextMessage frame, OutboundFrameType type, String excludeUserId) {
+            frames.increment();
+            return 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        TypingConfig config = new TypingConfig();
+        config.setLegacyPerUserEvents(legacyPerUserEvents);
+        config.setRosterIntervalMs(rosterIntervalMs);
+        NodeConfig nodeConfig = new NodeConfig();
+        nodeConfig.setId("bench-node");
+
+        typingStateManager = new TypingStateManager();
+        broadcaster = new TypingBroadcaster(config, typingStateManager, new CountingFanout(), nodeConfig,
+                new ObjectMapper(), new SimpleMeterRegistry());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        broadcaster.shutdown();
+        typingStateManager.shutdown();
+    }
+
+    /**
+     * Frames broadcast during the iteration, recorded once by the first thread.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Frames {
+
+        public long frames;
+
+        private boolean recorder;
+        private long framesAtStart;
+
+        @Setup(Level.Iteration)
+        public void start(TypingRosterBenchmark benchmark, ThreadParams threadParams) {
+            frames = 0;
+            recorder = threadParams.getThreadIndex() == 0;
+            framesAtStart = benchmark.frames.sum();
+        }
+
+        @TearDown(Level.Iteration)
+        public void stop(TypingRosterBenchmark benchmark) {
+            if (recorder) {
+                frames = benchmark.frames.sum() - framesAtStart;
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Typer {
+
+        String userId;
+        String sessionId;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams threadParams) {
+            userId = "+1415" + (5_550_000 + threadParams.getThreadIndex());
+            sessionId = "session-" + threadParams.getThreadIndex();
+        }
+    }
+
+    @Benchmark
+    public void typingChange(Typer typer, Frames frames) {
+        if (ThreadLocalRandom.current().nextBoolean()) {
+            if (typingStateManager.markTypingStart(ROOM, typer.userId, typer.sessionId)) {
+                broadcaster.typingChanged(ROOM, typer.userId, TypingAction.START);
+            }
+        } else {
+            typingStateManager.markTypingStop(ROOM, typer.userId, typer.sessionId);
+            broadcaster.typingChanged(ROOM, typer.userId, TypingAction.STOP);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.linkwave.app.service.websocket;
+
+import com.linkwave.app.config.WsDispatchConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Latency of cheap events (ping) while other sessions send blocking events
+ * (read.up_to with a simulated 2 ms database call), with and without
+ * virtual-thread dispatch.
+ * 
+ * Two platform threads stand in for the container's WebSocket I/O threads.
+ * Each benchmark thread is a client session that waits for its event to be
+ * handled before sending the next one.
+ * 
+ * Run with: ./gradlew jmh -Pjmh.includes=SessionEventDispatcherBenchmark
+ * Compare the p0.99 sample of mixed:ping between virtualThreads=false and true.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SessionEventDispatcherBenchmark {
+
+    private static final long DB_CALL_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final int IO_THREADS = 2;
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    private ExecutorService ioThreads;
+    private SessionEventDispatcher dispatcher;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        WsDispatchConfig config = new WsDispatchConfig();
+        config.setVirtualThreads(virtualThreads);
+        dispatcher = new SessionEventDispatcher(config, new SimpleMeterRegistry());
+        ioThreads = Executors.newFixedThreadPool(IO_THREADS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ioThreads.shutdownNow();
+        dispatcher.shutdown();
+    }
+
+    @State(Scope.Thread)
+    public static class ClientSession {
+        private static final AtomicInteger ids = new AtomicInteger();
+        final String sessionId = "session-" + ids.incrementAndGet();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(4)
+    public void ping() throws Exception {
+        // Inline handler: only waits for a free I/O thread
+        CompletableFuture.runAsync(() -> { }, ioThreads).get();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(4)
+    public void readUpTo(ClientSession client) throws Exception {
+        CompletableFuture<Void> handled = new CompletableFuture<>();
+        ioThreads.execute(() -> dispatcher.dispatch(client.sessionId, () -> {
+            LockSupport.parkNanos(DB_CALL_NANOS);
+            handled.complete(null);
+        }));
+        handled.get();
+    }
+}
@@ -0,0 +1,73 @@
+package com.linkwave.app.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkwave.app.domain.websocket.InboundEvent;
+import com.linkwave.app.domain.websocket.WsMessageEnvelope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inbound frame decoding: tree-based parsing vs the streaming decoder.
+ * 
+ * Run with: ./gradlew jmh -Pjmh.includes=InboundEventDecoderBenchmark
+ * Compare gc.alloc.rate.norm (bytes allocated per frame) between the two
+ * benchmarks for each frame type.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class InboundEventDecoderBenchmark {
+
+    @Param({"chat.send", "typing.start", "read.up_to", "presence.heartbeat"})
+    public String event;
+
+    private ObjectMapper objectMapper;
+    private InboundEventDecoder decoder;
+    private String frame;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        decoder = new InboundEventDecoder(objectMapper);
+        frame = switch (event) {
+            case "chat.send" -> "{\"event\":\"chat.send\",\"to\":\"8f14e45f-ceea-467f-a1a3-7b5c2e6d9f01\","
+                    + "\"payload\":{\"body\":\"Hey, are we still on for lunch tomorrow at noon?\"}}";
+            case "typing.start" -> "{\"event\":\"typing.start\",\"roomId\":\"8f14e45f-ceea-467f-a1a3-7b5c2e6d9f01\"}";
+            case "read.up_to" -> "{\"event\":\"read.up_to\",\"roomId\":\"8f14e45f-ceea-467f-a1a3-7b5c2e6d9f01\","
+                    + "\"messageId\":\"c9f0f895-fb98-4b91-9d2a-0e5f6a7b8c9d\"}";
+            default -> "{\"event\":\"presence.heartbeat\"}";
+        };
+    }
+
+    /**
+     * Previous path: readTree for every frame, plus treeToValue for chat.send.
+     */
+    @Benchmark
+    public Object treeParse() throws Exception {
+        JsonNode jsonNode = objectMapper.readTree(frame);
+        String type = jsonNode.has("event") ? jsonNode.get("event").asText() : null;
+        if ("chat.send".equals(type)) {
+            WsMessageEnvelope envelope = objectMapper.treeToValue(jsonNode, WsMessageEnvelope.class);
+            return envelope.getPayload().get("body").asText();
+        }
+        return jsonNode;
+    }
+
+    @Benchmark
+    public InboundEvent streamingDecode() throws Exception {
+        return decoder.decode(frame);
+    }
+}
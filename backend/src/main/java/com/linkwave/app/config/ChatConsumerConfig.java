@@ -0,0 +1,187 @@
+package com.linkwave.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the chat.messages consumer pipelines.
+ * Values are loaded from application.yml or environment variables.
+ *
+ * Two independent consumer groups read the topic:
+ * - delivery: one group per node, fans messages out to local clients
+ * - persistence: one group per cluster, batches messages into Postgres
+ */
+@Configuration
+@ConfigurationProperties(prefix = "linkwave.kafka.chat-consumer")
+public class ChatConsumerConfig {
+
+    private final Delivery delivery = new Delivery();
+
+    private final Persistence persistence = new Persistence();
+
+    public Delivery getDelivery() {
+        return delivery;
+    }
+
+    public Persistence getPersistence() {
+        return persistence;
+    }
+
+    public static class Delivery {
+
+        /**
+         * Group id prefix; the node id is appended so every node receives
+         * every message for its own connected users. The group commits no
+         * offsets, so the broker removes it once the node is gone.
+         */
+        private String groupIdPrefix = "linkwave-chat-delivery";
+
+        /**
+         * Listener threads for the delivery group.
+         */
+        private int concurrency = 1;
+
+        /**
+         * Records older than this are not pushed to clients (e.g. after a
+         * node restart); clients recover them from history instead.
+         */
+        private long maxAgeMs = 30000;
+
+        public String getGroupIdPrefix() {
+            return groupIdPrefix;
+        }
+
+        public void setGroupIdPrefix(String groupIdPrefix) {
+            this.groupIdPrefix = groupIdPrefix;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        public long getMaxAgeMs() {
+            return maxAgeMs;
+        }
+
+        public void setMaxAgeMs(long maxAgeMs) {
+            this.maxAgeMs = maxAgeMs;
+        }
+    }
+
+    public static class Persistence {
+
+        /**
+         * Group id shared by all nodes, so each message is stored once.
+         */
+        private String groupId = "linkwave-chat-persistence";
+
+        /**
+         * Listener threads for the persistence group (at most one per partition).
+         */
+        private int concurrency = 3;
+
+        /**
+         * Maximum number of records handed to the listener per poll
+         * (max.poll.records), persisted in one transaction.
+         */
+        private int batchSize = 500;
+
+        /**
+         * Longest the broker holds a fetch while waiting for minBytes of data
+         * (fetch.max.wait.ms). Bounds the latency added by batching.
+         */
+        private int maxWaitMs = 100;
+
+        /**
+         * Data the broker accumulates before answering a fetch (fetch.min.bytes).
+         * 1 returns as soon as any record is available; raise it to build
+         * larger batches at the cost of up to maxWaitMs extra latency.
+         */
+        private int minBytes = 1;
+
+        /**
+         * Retries of a failed batch before its records are published to
+         * deadLetterTopic.
+         */
+        private int retryAttempts = 5;
+
+        /**
+         * Initial delay between batch retries, doubled on each attempt.
+         */
+        private long retryBackoffMs = 500;
+
+        /**
+         * Topic receiving records that still failed to persist after
+         * retryAttempts, for inspection and replay.
+         */
+        private String deadLetterTopic = "chat.messages-dlt";
+
+        public String getGroupId() {
+            return groupId;
+        }
+
+        public void setGroupId(String groupId) {
+            this.groupId = groupId;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxWaitMs() {
+            return maxWaitMs;
+        }
+
+        public void setMaxWaitMs(int maxWaitMs) {
+            this.maxWaitMs = maxWaitMs;
+        }
+
+        public int getMinBytes() {
+            return minBytes;
+        }
+
+        public void setMinBytes(int minBytes) {
+            this.minBytes = minBytes;
+        }
+
+        public int getRetryAttempts() {
+            return retryAttempts;
+        }
+
+        public void setRetryAttempts(int retryAttempts) {
+            this.retryAttempts = retryAttempts;
+        }
+
+        public long getRetryBackoffMs() {
+            return retryBackoffMs;
+        }
+
+        public void setRetryBackoffMs(long retryBackoffMs) {
+            this.retryBackoffMs = retryBackoffMs;
+        }
+
+        public String getDeadLetterTopic() {
+            return deadLetterTopic;
+        }
+
+        public void setDeadLetterTopic(String deadLetterTopic) {
+            this.deadLetterTopic = deadLetterTopic;
+        }
+    }
+}
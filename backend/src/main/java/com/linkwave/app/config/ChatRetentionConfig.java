@@ -0,0 +1,124 @@
+package com.linkwave.app.config;
+
+import com.linkwave.app.domain.chat.ChatMessage;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Configuration properties for chat message retention and the
+ * time-partitioned chat_messages table (PostgreSQL only).
+ * Values are loaded from application.yml or environment variables.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "linkwave.chat.retention")
+public class ChatRetentionConfig {
+
+    /**
+     * Whether chat_messages is partitioned and expired messages are removed.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Width of each sent_at range partition.
+     */
+    private PartitionInterval partitionInterval = PartitionInterval.DAILY;
+
+    /**
+     * Number of future partitions kept created ahead of the current one.
+     */
+    private int premakePartitions = 7;
+
+    /**
+     * Retention for messages without a ttlDays override. Partitions are
+     * dropped whole once every message in them is past this age.
+     */
+    private int defaultTtlDays = ChatMessage.DEFAULT_TTL_DAYS;
+
+    /**
+     * Rows removed per statement (and transaction) on the batched delete path.
+     */
+    private int deleteBatchSize = 5000;
+
+    /**
+     * Minutes between maintenance runs (one also runs at startup).
+     */
+    private long maintenanceIntervalMinutes = 60;
+
+    public enum PartitionInterval {
+        DAILY,   // One partition per UTC day
+        WEEKLY;  // One partition per ISO week (Monday 00:00 UTC)
+
+        /**
+         * Start of the partition containing the given instant.
+         */
+        public Instant floor(Instant instant) {
+            ZonedDateTime day = instant.atZone(ZoneOffset.UTC).truncatedTo(ChronoUnit.DAYS);
+            if (this == WEEKLY) {
+                day = day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            }
+            return day.toInstant();
+        }
+
+        /**
+         * Start of the partition following the one that starts at the given instant.
+         */
+        public Instant next(Instant partitionStart) {
+            return partitionStart.plus(this == WEEKLY ? 7 : 1, ChronoUnit.DAYS);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public PartitionInterval getPartitionInterval() {
+        return partitionInterval;
+    }
+
+    public void setPartitionInterval(PartitionInterval partitionInterval) {
+        this.partitionInterval = partitionInterval;
+    }
+
+    public int getPremakePartitions() {
+        return premakePartitions;
+    }
+
+    public void setPremakePartitions(int premakePartitions) {
+        this.premakePartitions = premakePartitions;
+    }
+
+    public int getDefaultTtlDays() {
+        return defaultTtlDays;
+    }
+
+    public void setDefaultTtlDays(int defaultTtlDays) {
+        this.defaultTtlDays = defaultTtlDays;
+    }
+
+    public int getDeleteBatchSize() {
+        return deleteBatchSize;
+    }
+
+    public void setDeleteBatchSize(int deleteBatchSize) {
+        this.deleteBatchSize = deleteBatchSize;
+    }
+
+    public long getMaintenanceIntervalMinutes() {
+        return maintenanceIntervalMinutes;
+    }
+
+    public void setMaintenanceIntervalMinutes(long maintenanceIntervalMinutes) {
+        this.maintenanceIntervalMinutes = maintenanceIntervalMinutes;
+    }
+}
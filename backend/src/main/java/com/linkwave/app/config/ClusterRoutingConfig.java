@@ -0,0 +1,82 @@
+package com.linkwave.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for routing WebSocket frames between nodes.
+ * Values are loaded from application.yml or environment variables.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "linkwave.cluster.routing")
+public class ClusterRoutingConfig {
+
+    /**
+     * Forward room broadcasts to members connected to other nodes. When
+     * disabled every node only delivers to its own sessions.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Lifetime of a user -> node registration. Registrations of a node that
+     * stops renewing them (crash, network split) disappear after this long.
+     */
+    private long registryTtlSeconds = 60;
+
+    /**
+     * Interval at which this node renews the registrations of its users.
+     * Must be well below the registry TTL.
+     */
+    private long renewIntervalSeconds = 20;
+
+    /**
+     * Window in which frames for the same remote node are collected into one
+     * published batch. 0 publishes every frame at once.
+     */
+    private long batchWindowMs = 10;
+
+    /**
+     * Maximum number of frames published in one batch.
+     */
+    private int maxBatchSize = 500;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getRegistryTtlSeconds() {
+        return registryTtlSeconds;
+    }
+
+    public void setRegistryTtlSeconds(long registryTtlSeconds) {
+        this.registryTtlSeconds = registryTtlSeconds;
+    }
+
+    public long getRenewIntervalSeconds() {
+        return renewIntervalSeconds;
+    }
+
+    public void setRenewIntervalSeconds(long renewIntervalSeconds) {
+        this.renewIntervalSeconds = renewIntervalSeconds;
+    }
+
+    public long getBatchWindowMs() {
+        return batchWindowMs;
+    }
+
+    public void setBatchWindowMs(long batchWindowMs) {
+        this.batchWindowMs = batchWindowMs;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+}
@@ -1,8 +1,10 @@
 package com.linkwave.app.config;
 
 import com.linkwave.app.domain.chat.ChatMessage;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,11 +13,16 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
 import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.util.backoff.FixedBackOff;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -25,12 +32,18 @@ import java.util.Map;
  * 
  * Phase D: Room-based messaging with Kafka
  * - Producer: Publishes ChatMessage to chat.messages
- * - Consumer: Receives ChatMessage for persistence and delivery
+ * - Consumers: independent delivery (per node) and persistence (per cluster)
+ *   groups, so database latency never delays real-time delivery
  * - Partition strategy: By roomId for message ordering within rooms
  * - Replication factor: 1 (local learning environment)
  * 
+ * Offsets are committed by the listener containers, never by the consumer
+ * itself (enable.auto.commit=false): an auto-commit during a retry backoff
+ * could otherwise commit a batch that was never persisted.
+ * 
  * Topics:
  * - chat.messages: Main chat message stream
+ * - chat.messages-dlt: persistence batches that still failed after retries
  */
 @Configuration
 @EnableKafka
@@ -39,8 +52,15 @@ public class KafkaConfig {
     @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
     private String bootstrapServers;
 
-    @Value("${spring.kafka.consumer.group-id:linkwave-chat-delivery}")
-    private String consumerGroupId;
+    private final ChatConsumerConfig chatConsumerConfig;
+    private final NodeConfig nodeConfig;
+    private final MeterRegistry meterRegistry;
+
+    public KafkaConfig(ChatConsumerConfig chatConsumerConfig, NodeConfig nodeConfig, MeterRegistry meterRegistry) {
+        this.chatConsumerConfig = chatConsumerConfig;
+        this.nodeConfig = nodeConfig;
+        this.meterRegistry = meterRegistry;
+    }
 
     /**
      * Kafka producer configuration.
@@ -72,37 +92,115 @@ public class KafkaConfig {
     }
 
     /**
-     * Kafka consumer configuration.
-     * Consumer group for delivery pipeline (future C4).
+     * Delivery consumer: one group per node, so every node sees every
+     * message and pushes it to its own connected users.
+     * Starts from the latest offset - missed messages come from history.
+     * 
+     * The group never commits offsets (see the container factory), so the
+     * broker deletes it as soon as its last member leaves. A node id that
+     * changes on every restart (e.g. ${HOSTNAME} of a Deployment pod)
+     * therefore leaves no orphaned groups or offsets behind.
+     */
+    @Bean
+    public ConsumerFactory<String, ChatMessage> chatDeliveryConsumerFactory() {
+        ChatConsumerConfig.Delivery delivery = chatConsumerConfig.getDelivery();
+        Map<String, Object> config = baseConsumerConfig(
+                delivery.getGroupIdPrefix() + "-" + nodeConfig.getId(), "latest");
+
+        // Hand records over as soon as they arrive
+        config.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, 1);
+
+        return consumerFactory(config);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, ChatMessage> chatDeliveryKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, ChatMessage> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(chatDeliveryConsumerFactory());
+        factory.setConcurrency(chatConsumerConfig.getDelivery().getConcurrency());
+
+        // Real-time only - a record that fails is logged and skipped, never retried
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(0L, 0L)));
+
+        // Never acknowledged, so nothing is committed and the group is dropped with the node
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+
+        return factory;
+    }
+
+    /**
+     * Persistence consumer: one group for the cluster, so each message is
+     * stored once. Receives a whole poll at a time and may lag behind
+     * delivery without affecting it.
      */
     @Bean
-    public ConsumerFactory<String, ChatMessage> chatMessageConsumerFactory() {
+    public ConsumerFactory<String, ChatMessage> chatPersistenceConsumerFactory() {
+        ChatConsumerConfig.Persistence persistence = chatConsumerConfig.getPersistence();
+        Map<String, Object> config = baseConsumerConfig(persistence.getGroupId(), "earliest");
+
+        // Batch sizing: one poll is persisted as one JDBC batch
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, persistence.getBatchSize());
+        config.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, persistence.getMaxWaitMs());
+        config.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, persistence.getMinBytes());
+
+        return consumerFactory(config);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, ChatMessage> chatPersistenceKafkaListenerContainerFactory() {
+        ChatConsumerConfig.Persistence persistence = chatConsumerConfig.getPersistence();
+        ConcurrentKafkaListenerContainerFactory<String, ChatMessage> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(chatPersistenceConsumerFactory());
+        factory.setConcurrency(persistence.getConcurrency());
+        factory.setBatchListener(true);
+
+        // Offsets are committed only after the listener returns for the whole batch
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+
+        // Inserts are idempotent, so a failed batch is retried with backoff
+        // and then published to the dead letter topic, keeping the source
+        // partition. If publishing fails too the batch is retried again, so
+        // a message is never committed without being stored or dead-lettered.
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(persistence.getRetryAttempts());
+        backOff.setInitialInterval(persistence.getRetryBackoffMs());
+        backOff.setMultiplier(2.0);
+        backOff.setMaxInterval(30000L);
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(chatMessageKafkaTemplate(),
+                (record, e) -> new TopicPartition(persistence.getDeadLetterTopic(), record.partition()));
+        factory.setCommonErrorHandler(new DefaultErrorHandler(recoverer, backOff));
+
+        return factory;
+    }
+
+    private Map<String, Object> baseConsumerConfig(String groupId, String autoOffsetReset) {
         Map<String, Object> config = new HashMap<>();
         config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        config.put(ConsumerConfig.GROUP_ID_CONFIG, consumerGroupId);
+        config.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        config.put(ConsumerConfig.CLIENT_ID_CONFIG, groupId);
         config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+
+        // Undeserializable records reach the listener as null values instead
+        // of failing the poll forever
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        config.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
 
         // JsonDeserializer configuration
         config.put(JsonDeserializer.TRUSTED_PACKAGES, "com.linkwave.app.domain.chat");
         config.put(JsonDeserializer.VALUE_DEFAULT_TYPE, ChatMessage.class.getName());
 
         // Consumer behavior
-        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
-        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, true);
-        config.put(ConsumerConfig.AUTO_COMMIT_INTERVAL_MS_CONFIG, 5000);
-
-        return new DefaultKafkaConsumerFactory<>(config);
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, autoOffsetReset);
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        return config;
     }
 
-    @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, ChatMessage> chatMessageKafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, ChatMessage> factory = new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(chatMessageConsumerFactory());
-
-        // Error handling - log and continue (placeholder for DLQ in future)
-        factory.setCommonErrorHandler(new DefaultErrorHandler());
-
+    /**
+     * Consumer factory exporting Kafka client metrics (including
+     * records-lag-max per client.id, i.e. per group) to Micrometer.
+     */
+    private ConsumerFactory<String, ChatMessage> consumerFactory(Map<String, Object> config) {
+        DefaultKafkaConsumerFactory<String, ChatMessage> factory = new DefaultKafkaConsumerFactory<>(config);
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
         return factory;
     }
 
@@ -118,4 +216,17 @@ public class KafkaConfig {
                 .replicas(1)
                 .build();
     }
+
+    /**
+     * Dead letter topic for chat messages the persistence consumer could not
+     * store. Same partition count as chat.messages, since a dead-lettered
+     * record keeps its source partition.
+     */
+    @Bean
+    public NewTopic chatMessagesDeadLetterTopic() {
+        return TopicBuilder.name(chatConsumerConfig.getPersistence().getDeadLetterTopic())
+                .partitions(3)
+                .replicas(1)
+                .build();
+    }
 }
@@ -0,0 +1,32 @@
+package com.linkwave.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.UUID;
+
+/**
+ * Identity of this application node within the cluster.
+ * Values are loaded from application.yml or environment variables.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "linkwave.node")
+public class NodeConfig {
+
+    /**
+     * Stable node id (defaults to the container hostname). A random id is
+     * generated when none is configured, so each process stays distinct.
+     */
+    private String id;
+
+    public String getId() {
+        if (id == null || id.isBlank()) {
+            id = UUID.randomUUID().toString();
+        }
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+}
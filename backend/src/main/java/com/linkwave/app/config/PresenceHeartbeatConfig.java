@@ -0,0 +1,55 @@
+package com.linkwave.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for presence heartbeats.
+ * Values are loaded from application.yml or environment variables.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "linkwave.presence.heartbeat")
+public class PresenceHeartbeatConfig {
+
+    /**
+     * How often heartbeats collected on this node are written to Redis as
+     * one pipelined batch of TTL renewals. 0 renews on every heartbeat.
+     */
+    private long flushIntervalMs = 5000;
+
+    /**
+     * How long a user stays online without a heartbeat. The presence key
+     * TTL is this plus the flush interval, since a heartbeat can wait up
+     * to one interval before its renewal reaches Redis.
+     */
+    private long offlineAfterSeconds = 75;
+
+    /**
+     * Maximum number of TTL renewals per pipelined round trip.
+     */
+    private int flushBatchSize = 1000;
+
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public long getOfflineAfterSeconds() {
+        return offlineAfterSeconds;
+    }
+
+    public void setOfflineAfterSeconds(long offlineAfterSeconds) {
+        this.offlineAfterSeconds = offlineAfterSeconds;
+    }
+
+    public int getFlushBatchSize() {
+        return flushBatchSize;
+    }
+
+    public void setFlushBatchSize(int flushBatchSize) {
+        this.flushBatchSize = flushBatchSize;
+    }
+}
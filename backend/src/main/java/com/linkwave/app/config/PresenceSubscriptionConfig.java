@@ -0,0 +1,70 @@
+package com.linkwave.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for presence.subscribe change pushes.
+ * Values are loaded from application.yml or environment variables.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "linkwave.presence.subscriptions")
+public class PresenceSubscriptionConfig {
+
+    /**
+     * Listen for presence changes in Redis and push them to subscribers.
+     * When disabled presence.subscribe still returns a snapshot.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Window in which successive changes of the same user are merged. Only
+     * the state at the end of the window is pushed, and only if it differs
+     * from the last one pushed, so a quick reconnect produces nothing.
+     */
+    private long debounceMs = 2000;
+
+    /**
+     * Maximum number of users a single session may subscribe to.
+     */
+    private int maxUsersPerSession = 1000;
+
+    /**
+     * Enable expired-key notifications (notify-keyspace-events Egx) on the
+     * Redis server at startup, so TTL expiry is pushed as offline. Turn off
+     * where CONFIG is not allowed and set the flags on the server instead.
+     */
+    private boolean configureKeyspaceNotifications = true;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getDebounceMs() {
+        return debounceMs;
+    }
+
+    public void setDebounceMs(long debounceMs) {
+        this.debounceMs = debounceMs;
+    }
+
+    public int getMaxUsersPerSession() {
+        return maxUsersPerSession;
+    }
+
+    public void setMaxUsersPerSession(int maxUsersPerSession) {
+        this.maxUsersPerSession = maxUsersPerSession;
+    }
+
+    public boolean isConfigureKeyspaceNotifications() {
+        return configureKeyspaceNotifications;
+    }
+
+    public void setConfigureKeyspaceNotifications(boolean configureKeyspaceNotifications) {
+        this.configureKeyspaceNotifications = configureKeyspaceNotifications;
+    }
+}
@@ -0,0 +1,98 @@
+package com.linkwave.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for read position buffering and broadcasts.
+ * Values are loaded from application.yml or environment variables.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "linkwave.read-receipts")
+public class ReadReceiptConfig {
+
+    /**
+     * Window in which successive read.up_to moves by the same reader in the
+     * same room are merged into one broadcast. 0 broadcasts every move at once.
+     */
+    private long broadcastWindowMs = 250;
+
+    /**
+     * Broadcast one read.receipt per newly read message instead of a single
+     * read.up_to, for clients that do not understand read.up_to yet.
+     */
+    private boolean legacyPerMessageEvents = false;
+
+    /**
+     * Interval at which buffered read positions are written to the database.
+     * 0 writes every read.up_to through synchronously.
+     */
+    private long flushIntervalMs = 500;
+
+    /**
+     * Maximum number of (room, reader) positions buffered between flushes.
+     * Once reached, positions for new keys are written through synchronously.
+     */
+    private int maxPendingPositions = 50_000;
+
+    /**
+     * Positions written per transaction during a flush.
+     */
+    private int flushBatchSize = 1000;
+
+    /**
+     * Drop the read_receipts table of earlier versions after backfilling
+     * read watermarks from it. Leave off during a rolling deploy, while
+     * old nodes still write to it; turn on once every node runs this
+     * version.
+     */
+    private boolean dropLegacyReceipts = false;
+
+    public long getBroadcastWindowMs() {
+        return broadcastWindowMs;
+    }
+
+    public void setBroadcastWindowMs(long broadcastWindowMs) {
+        this.broadcastWindowMs = broadcastWindowMs;
+    }
+
+    public boolean isLegacyPerMessageEvents() {
+        return legacyPerMessageEvents;
+    }
+
+    public void setLegacyPerMessageEvents(boolean legacyPerMessageEvents) {
+        this.legacyPerMessageEvents = legacyPerMessageEvents;
+    }
+
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public int getMaxPendingPositions() {
+        return maxPendingPositions;
+    }
+
+    public void setMaxPendingPositions(int maxPendingPositions) {
+        this.maxPendingPositions = maxPendingPositions;
+    }
+
+    public int getFlushBatchSize() {
+        return flushBatchSize;
+    }
+
+    public void setFlushBatchSize(int flushBatchSize) {
+        this.flushBatchSize = flushBatchSize;
+    }
+
+    public boolean isDropLegacyReceipts() {
+        return dropLegacyReceipts;
+    }
+
+    public void setDropLegacyReceipts(boolean dropLegacyReceipts) {
+        this.dropLegacyReceipts = dropLegacyReceipts;
+    }
+}
@@ -0,0 +1,40 @@
+package com.linkwave.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the room membership cache.
+ * Values are loaded from application.yml or environment variables.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "linkwave.membership.cache")
+public class RoomMembershipCacheConfig {
+
+    /**
+     * Maximum number of rooms whose member sets are cached.
+     */
+    private long maxRooms = 100_000;
+
+    /**
+     * Time after which a cached member set is reloaded, bounding staleness
+     * for changes made on other nodes.
+     */
+    private long ttlSeconds = 300;
+
+    public long getMaxRooms() {
+        return maxRooms;
+    }
+
+    public void setMaxRooms(long maxRooms) {
+        this.maxRooms = maxRooms;
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public void setTtlSeconds(long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+}
@@ -0,0 +1,58 @@
+package com.linkwave.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for typing indicator broadcasts.
+ * Values are loaded from application.yml or environment variables.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "linkwave.typing")
+public class TypingConfig {
+
+    /**
+     * Minimum interval between typing.update frames for the same room.
+     * Changes inside the interval are merged into the next frame.
+     * 0 broadcasts every change at once.
+     */
+    private long rosterIntervalMs = 500;
+
+    /**
+     * Broadcast one typing.event per start/stop instead of typing.update
+     * rosters, for clients that do not understand typing.update yet.
+     */
+    private boolean legacyPerUserEvents = false;
+
+    /**
+     * How long clients keep a node's typing.update roster without a newer
+     * one from that node. Non-empty rosters are re-sent every half of it,
+     * so this bounds how long a crashed node's typers stay shown.
+     * 0 disables expiry and refreshes.
+     */
+    private long rosterTtlMs = 6000;
+
+    public long getRosterIntervalMs() {
+        return rosterIntervalMs;
+    }
+
+    public void setRosterIntervalMs(long rosterIntervalMs) {
+        this.rosterIntervalMs = rosterIntervalMs;
+    }
+
+    public boolean isLegacyPerUserEvents() {
+        return legacyPerUserEvents;
+    }
+
+    public void setLegacyPerUserEvents(boolean legacyPerUserEvents) {
+        this.legacyPerUserEvents = legacyPerUserEvents;
+    }
+
+    public long getRosterTtlMs() {
+        return rosterTtlMs;
+    }
+
+    public void setRosterTtlMs(long rosterTtlMs) {
+        this.rosterTtlMs = rosterTtlMs;
+    }
+}
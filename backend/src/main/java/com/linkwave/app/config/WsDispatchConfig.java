@@ -0,0 +1,41 @@
+package com.linkwave.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for inbound WebSocket event dispatch.
+ * Values are loaded from application.yml or environment variables.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "linkwave.websocket.dispatch")
+public class WsDispatchConfig {
+
+    /**
+     * Whether blocking event handlers (database work) run on virtual threads.
+     * When disabled they run inline on the container's WebSocket thread.
+     */
+    private boolean virtualThreads = true;
+
+    /**
+     * Maximum number of blocking events queued per session before the
+     * session is closed as misbehaving.
+     */
+    private int maxPendingPerSession = 128;
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public int getMaxPendingPerSession() {
+        return maxPendingPerSession;
+    }
+
+    public void setMaxPendingPerSession(int maxPendingPerSession) {
+        this.maxPendingPerSession = maxPendingPerSession;
+    }
+}
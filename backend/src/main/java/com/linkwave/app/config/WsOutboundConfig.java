@@ -0,0 +1,58 @@
+package com.linkwave.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for per-session outbound WebSocket queues.
+ * Values are loaded from application.yml or environment variables.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "linkwave.websocket.outbound")
+public class WsOutboundConfig {
+
+    /**
+     * Maximum number of frames buffered per session before the overflow policy applies.
+     */
+    private int queueCapacity = 256;
+
+    /**
+     * Whether queued typing frames are evicted (and new ones discarded) before
+     * the overflow policy is applied to other frames.
+     */
+    private boolean dropTypingFirst = true;
+
+    /**
+     * What to do when a session's queue is full and no typing frame can be evicted.
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DISCONNECT;
+
+    public enum OverflowPolicy {
+        DROP_NEWEST,  // Discard the frame that did not fit
+        DISCONNECT    // Close the slow consumer so it reconnects and resyncs
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public boolean isDropTypingFirst() {
+        return dropTypingFirst;
+    }
+
+    public void setDropTypingFirst(boolean dropTypingFirst) {
+        this.dropTypingFirst = dropTypingFirst;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+}
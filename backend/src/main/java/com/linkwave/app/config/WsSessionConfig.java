@@ -0,0 +1,27 @@
+package com.linkwave.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for native WebSocket session registration.
+ * Values are loaded from application.yml or environment variables.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "linkwave.websocket.session")
+public class WsSessionConfig {
+
+    /**
+     * Maximum number of concurrent sessions (devices) per user on this node.
+     * Registering one more closes the user's oldest session.
+     */
+    private int maxSessionsPerUser = 5;
+
+    public int getMaxSessionsPerUser() {
+        return maxSessionsPerUser;
+    }
+
+    public void setMaxSessionsPerUser(int maxSessionsPerUser) {
+        this.maxSessionsPerUser = maxSessionsPerUser;
+    }
+}
@@ -2,12 +2,11 @@ package com.linkwave.app.controller.chat;
 
 import com.linkwave.app.domain.auth.AuthenticatedUserContext;
 import com.linkwave.app.domain.chat.ChatMemberEntity;
-import com.linkwave.app.domain.chat.ChatMessageEntity;
 import com.linkwave.app.domain.chat.ChatRoomEntity;
+import com.linkwave.app.domain.chat.MessageCursor;
+import com.linkwave.app.domain.chat.MessageHistoryPage;
 import com.linkwave.app.service.chat.ChatService;
 import com.linkwave.app.service.session.SessionService;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -22,7 +21,7 @@ import java.util.List;
  * - POST /api/v1/chat/rooms/direct - Create direct room
  * - POST /api/v1/chat/rooms/group - Create group room
  * - GET /api/v1/chat/rooms - Get user's rooms
- * - GET /api/v1/chat/rooms/{roomId}/messages - Get room messages
+ * - GET /api/v1/chat/rooms/{roomId}/messages?before=&limit= - Get room messages (cursor-paginated)
  */
 @RestController
 @RequestMapping("/api/v1/chat")
@@ -102,34 +101,33 @@ public class ChatRoomController {
     }
     
     /**
-     * Get messages in a room.
+     * Get messages in a room, newest first.
+     * 
+     * Pass the nextCursor of a response as "before" to load older messages;
+     * nextCursor is null once the oldest message has been returned.
      */
     @GetMapping("/rooms/{roomId}/messages")
     public ResponseEntity<MessagesResponse> getRoomMessages(
             @PathVariable String roomId,
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "50") int size) {
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "50") int limit) {
         
-        Page<ChatMessageEntity> messagesPage = chatService.getRoomMessages(
-            roomId, 
-            PageRequest.of(page, size)
-        );
+        MessageCursor cursor = before != null && !before.isBlank() ? MessageCursor.decode(before) : null;
+        MessageHistoryPage page = chatService.getRoomMessages(roomId, cursor, limit);
         
-        List<MessageResponse> messages = messagesPage.getContent().stream()
+        List<MessageResponse> messages = page.messages().stream()
             .map(msg -> new MessageResponse(
-                msg.getId(),
-                msg.getRoom().getId(),
-                msg.getSenderPhone(),
-                msg.getBody(),
-                msg.getSentAt().toEpochMilli()
+                msg.id(),
+                msg.roomId(),
+                msg.senderPhone(),
+                msg.body(),
+                msg.sentAt().toEpochMilli()
             ))
             .toList();
         
         return ResponseEntity.ok(new MessagesResponse(
             messages,
-            messagesPage.getTotalElements(),
-            messagesPage.getTotalPages(),
-            messagesPage.getNumber()
+            page.nextCursor() != null ? page.nextCursor().encode() : null
         ));
     }
     
@@ -160,7 +158,7 @@ public class ChatRoomController {
     
     public record MessageResponse(String id, String roomId, String sender, String body, long sentAt) {}
     
-    public record MessagesResponse(List<MessageResponse> messages, long total, int totalPages, int currentPage) {}
+    public record MessagesResponse(List<MessageResponse> messages, String nextCursor) {}
     
     public record MemberResponse(String phoneNumber, long joinedAt) {}
 }
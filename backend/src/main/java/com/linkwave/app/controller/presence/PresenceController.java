@@ -1,5 +1,6 @@
 package com.linkwave.app.controller.presence;
 
+import com.linkwave.app.domain.presence.PresenceMetadata;
 import com.linkwave.app.service.presence.PresenceService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -7,6 +8,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.Instant;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -57,15 +59,27 @@ public class PresenceController {
      * Useful for contact lists.
      * 
      * @param request List of user IDs to check
-     * @return Map of userId -> online status
+     * @return Map of userId -> online status, and userId -> last seen for
+     *         users with a presence record (also shortly after they went
+     *         offline)
      */
     @PostMapping("/bulk")
     public ResponseEntity<BulkPresenceResponse> getBulkPresence(@RequestBody BulkPresenceRequest request) {
         log.debug("Checking presence for {} users", request.userIds().size());
 
-        Map<String, Boolean> presenceMap = presenceService.getUsersPresence(request.userIds());
+        Map<String, PresenceMetadata> online = presenceService.getUsersPresenceMetadata(request.userIds());
 
-        BulkPresenceResponse response = new BulkPresenceResponse(presenceMap);
+        Map<String, Boolean> presenceMap = new HashMap<>();
+        Map<String, Instant> lastSeenMap = new HashMap<>();
+        for (String userId : request.userIds()) {
+            PresenceMetadata metadata = online.get(userId);
+            presenceMap.put(userId, metadata != null && metadata.hasActiveConnections());
+            if (metadata != null && metadata.getLastSeen() != null) {
+                lastSeenMap.put(userId, metadata.getLastSeen());
+            }
+        }
+
+        BulkPresenceResponse response = new BulkPresenceResponse(presenceMap, lastSeenMap);
         return ResponseEntity.ok(response);
     }
 
@@ -89,6 +103,7 @@ public class PresenceController {
     }
 
     public record BulkPresenceResponse(
-            Map<String, Boolean> presence) {
+            Map<String, Boolean> presence,
+            Map<String, Instant> lastSeen) {
     }
 }
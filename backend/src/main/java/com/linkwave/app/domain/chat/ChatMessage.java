@@ -20,6 +20,11 @@ import java.util.UUID;
  */
 public class ChatMessage implements Serializable {
 
+    /**
+     * Retention stamped on new messages (see ChatRetentionConfig.defaultTtlDays).
+     */
+    public static final int DEFAULT_TTL_DAYS = 7;
+
     @JsonProperty("messageId")
     private String messageId;
 
@@ -67,7 +72,7 @@ public class ChatMessage implements Serializable {
                 senderPhoneNumber,
                 body,
                 System.currentTimeMillis(),
-                7 // Default retention 7 days
+                DEFAULT_TTL_DAYS
         );
     }
 
@@ -0,0 +1,10 @@
+package com.linkwave.app.domain.chat;
+
+import java.time.Instant;
+
+/**
+ * Position of a stored chat message in its room's (sentAt, id) order,
+ * read without hydrating the entity.
+ */
+public record ChatMessagePosition(String id, String roomId, Instant sentAt) {
+}
@@ -0,0 +1,13 @@
+package com.linkwave.app.domain.chat;
+
+import java.time.Instant;
+
+/**
+ * Read-only projection of a stored chat message for history pages.
+ * 
+ * Built directly from a query on chat_messages (JPQL constructor
+ * expression), so no entity is hydrated or tracked and the room
+ * association is read from the room_id column without a join.
+ */
+public record ChatMessageView(String id, String roomId, String senderPhone, String body, Instant sentAt) {
+}
@@ -0,0 +1,13 @@
+package com.linkwave.app.domain.chat;
+
+/**
+ * Outcome of a broker-acknowledged chat message publish.
+ * 
+ * @param messageId server-generated message ID
+ * @param roomId target room (also the Kafka key)
+ * @param partition partition the message was written to
+ * @param offset offset within that partition
+ * @param sentAt server timestamp assigned when the message was created
+ */
+public record ChatSendResult(String messageId, String roomId, int partition, long offset, long sentAt) {
+}
@@ -0,0 +1,55 @@
+package com.linkwave.app.domain.chat;
+
+import com.linkwave.app.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Keyset position in a room's message history.
+ * 
+ * Identifies a message by (sentAt, id); "before" a cursor means strictly
+ * older in (sentAt DESC, id DESC) order, so messages sharing a timestamp
+ * are neither skipped nor repeated across pages.
+ * 
+ * Clients receive it as an opaque URL-safe token and must not parse it.
+ * 
+ * @param sentAt timestamp of the last message on the previous page
+ * @param id ID of the last message on the previous page (tie-breaker)
+ */
+public record MessageCursor(Instant sentAt, String id) {
+
+    private static final char SEPARATOR = '|';
+
+    public static MessageCursor of(ChatMessageView message) {
+        return new MessageCursor(message.sentAt(), message.id());
+    }
+
+    /**
+     * Opaque token form, e.g. for the nextCursor field.
+     */
+    public String encode() {
+        String raw = sentAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parse a token produced by {@link #encode()}.
+     * 
+     * @throws InvalidCursorException if the token is malformed
+     */
+    public static MessageCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator <= 0 || separator == raw.length() - 1) {
+                throw new InvalidCursorException("Invalid cursor");
+            }
+            return new MessageCursor(Instant.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new InvalidCursorException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.linkwave.app.domain.chat;
+
+import java.util.List;
+
+/**
+ * One page of a room's message history, newest first.
+ * 
+ * @param messages messages on this page, ordered by (sentAt DESC, id DESC)
+ * @param nextCursor position to continue from, or null if this is the oldest page
+ */
+public record MessageHistoryPage(List<ChatMessageView> messages, MessageCursor nextCursor) {
+}
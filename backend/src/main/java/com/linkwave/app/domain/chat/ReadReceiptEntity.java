@@ -1,82 +0,0 @@
-package com.linkwave.app.domain.chat;
-
-import jakarta.persistence.Column;
-import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
-import jakarta.persistence.Id;
-import jakarta.persistence.Table;
-import jakarta.persistence.UniqueConstraint;
-import java.time.Instant;
-
-@Entity
-@Table(name = "read_receipts", uniqueConstraints = @UniqueConstraint(columnNames = { "message_id",
-        "reader_phone_number" }))
-public class ReadReceiptEntity {
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-
-    @Column(name = "message_id", nullable = false)
-    private String messageId;
-
-    @Column(name = "room_id", nullable = false)
-    private String roomId;
-
-    @Column(name = "reader_phone_number", nullable = false)
-    private String readerPhoneNumber;
-
-    @Column(name = "read_at", nullable = false)
-    private Instant readAt;
-
-    @Column(name = "created_at", nullable = false)
-    private Instant createdAt;
-
-    public Long getId() {
-        return id;
-    }
-
-    public void setId(Long id) {
-        this.id = id;
-    }
-
-    public String getMessageId() {
-        return messageId;
-    }
-
-    public void setMessageId(String messageId) {
-        this.messageId = messageId;
-    }
-
-    public String getRoomId() {
-        return roomId;
-    }
-
-    public void setRoomId(String roomId) {
-        this.roomId = roomId;
-    }
-
-    public String getReaderPhoneNumber() {
-        return readerPhoneNumber;
-    }
-
-    public void setReaderPhoneNumber(String readerPhoneNumber) {
-        this.readerPhoneNumber = readerPhoneNumber;
-    }
-
-    public Instant getReadAt() {
-        return readAt;
-    }
-
-    public void setReadAt(Instant readAt) {
-        this.readAt = readAt;
-    }
-
-    public Instant getCreatedAt() {
-        return createdAt;
-    }
-
-    public void setCreatedAt(Instant createdAt) {
-        this.createdAt = createdAt;
-    }
-}
@@ -0,0 +1,99 @@
+package com.linkwave.app.domain.chat;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Broadcast when a reader's read position in a room moves forward.
+ * 
+ * One frame stands for every message up to and including messageId
+ * (sent at messageTimestamp), replacing one read.receipt per message.
+ */
+public class ReadUpToEvent {
+
+    @JsonProperty("type")
+    private String type = "read.up_to";
+
+    @JsonProperty("roomId")
+    private String roomId;
+
+    @JsonProperty("readerId")
+    private String readerId;
+
+    @JsonProperty("messageId")
+    private String messageId;
+
+    @JsonProperty("messageTimestamp")
+    private long messageTimestamp;
+
+    @JsonProperty("timestamp")
+    private long timestamp;
+
+    public ReadUpToEvent() {
+    }
+
+    public ReadUpToEvent(String roomId, String readerId, String messageId, long messageTimestamp, long timestamp) {
+        this.roomId = roomId;
+        this.readerId = readerId;
+        this.messageId = messageId;
+        this.messageTimestamp = messageTimestamp;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Whether this position is after the other one in (messageTimestamp, messageId) order.
+     */
+    public boolean isAfter(ReadUpToEvent other) {
+        if (messageTimestamp != other.messageTimestamp) {
+            return messageTimestamp > other.messageTimestamp;
+        }
+        return messageId.compareTo(other.messageId) > 0;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public void setRoomId(String roomId) {
+        this.roomId = roomId;
+    }
+
+    public String getReaderId() {
+        return readerId;
+    }
+
+    public void setReaderId(String readerId) {
+        this.readerId = readerId;
+    }
+
+    public String getMessageId() {
+        return messageId;
+    }
+
+    public void setMessageId(String messageId) {
+        this.messageId = messageId;
+    }
+
+    public long getMessageTimestamp() {
+        return messageTimestamp;
+    }
+
+    public void setMessageTimestamp(long messageTimestamp) {
+        this.messageTimestamp = messageTimestamp;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
@@ -0,0 +1,130 @@
+package com.linkwave.app.domain.chat;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Read position of one reader in one room.
+ * 
+ * Everything up to and including (lastReadSentAt, lastReadMessageId) - the
+ * same (sent_at, id) order used by history pagination - counts as read,
+ * so a read.up_to is one row update however many messages it covers.
+ * "Who read message X" and unread counts are derived by comparing
+ * positions against X instead of storing one row per message per reader.
+ */
+@Entity
+@Table(name = "read_watermarks", indexes = {
+        @Index(name = "idx_read_watermark_room_sent_at", columnList = "room_id, last_read_sent_at")
+})
+@IdClass(ReadWatermarkEntity.Key.class)
+public class ReadWatermarkEntity {
+
+    @Id
+    @Column(name = "room_id", length = 36)
+    private String roomId;
+
+    @Id
+    @Column(name = "reader_phone_number", length = 20)
+    private String readerPhoneNumber;
+
+    @Column(name = "last_read_sent_at", nullable = false)
+    private Instant lastReadSentAt;
+
+    @Column(name = "last_read_message_id", nullable = false, length = 36)
+    private String lastReadMessageId;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public ReadWatermarkEntity() {
+    }
+
+    public ReadWatermarkEntity(String roomId, String readerPhoneNumber,
+                               Instant lastReadSentAt, String lastReadMessageId, Instant updatedAt) {
+        this.roomId = roomId;
+        this.readerPhoneNumber = readerPhoneNumber;
+        this.lastReadSentAt = lastReadSentAt;
+        this.lastReadMessageId = lastReadMessageId;
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * Whether the message at (sentAt, messageId) is at or before this position.
+     */
+    public boolean covers(Instant sentAt, String messageId) {
+        int cmp = lastReadSentAt.compareTo(sentAt);
+        return cmp > 0 || (cmp == 0 && lastReadMessageId.compareTo(messageId) >= 0);
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public void setRoomId(String roomId) {
+        this.roomId = roomId;
+    }
+
+    public String getReaderPhoneNumber() {
+        return readerPhoneNumber;
+    }
+
+    public void setReaderPhoneNumber(String readerPhoneNumber) {
+        this.readerPhoneNumber = readerPhoneNumber;
+    }
+
+    public Instant getLastReadSentAt() {
+        return lastReadSentAt;
+    }
+
+    public void setLastReadSentAt(Instant lastReadSentAt) {
+        this.lastReadSentAt = lastReadSentAt;
+    }
+
+    public String getLastReadMessageId() {
+        return lastReadMessageId;
+    }
+
+    public void setLastReadMessageId(String lastReadMessageId) {
+        this.lastReadMessageId = lastReadMessageId;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * Composite primary key (room_id, reader_phone_number).
+     */
+    public static class Key implements Serializable {
+        private String roomId;
+        private String readerPhoneNumber;
+
+        public Key() {
+        }
+
+        public Key(String roomId, String readerPhoneNumber) {
+            this.roomId = roomId;
+            this.readerPhoneNumber = readerPhoneNumber;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(roomId, key.roomId)
+                    && Objects.equals(readerPhoneNumber, key.readerPhoneNumber);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(roomId, readerPhoneNumber);
+        }
+    }
+}
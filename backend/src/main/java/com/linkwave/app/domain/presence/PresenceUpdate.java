@@ -0,0 +1,35 @@
+package com.linkwave.app.domain.presence;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Outbound presence frame for presence.subscribe subscribers.
+ * 
+ * Formats:
+ * - {"event":"presence.snapshot","users":[{"userId","online","lastSeen"}, ...]}
+ *   current state of every subscribed user, sent in reply to presence.subscribe
+ * - {"event":"presence.changed","users":[{"userId","online","lastSeen"}]}
+ *   pushed when a subscribed user comes online or goes offline
+ * 
+ * lastSeen is epoch millis of the last connect or disconnect, omitted when
+ * unknown.
+ */
+public record PresenceUpdate(String event, List<UserPresence> users) {
+
+    public static final String PRESENCE_SNAPSHOT = "presence.snapshot";
+    public static final String PRESENCE_CHANGED = "presence.changed";
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record UserPresence(String userId, boolean online, Long lastSeen) {
+    }
+
+    public static PresenceUpdate snapshot(List<UserPresence> users) {
+        return new PresenceUpdate(PRESENCE_SNAPSHOT, users);
+    }
+
+    public static PresenceUpdate changed(UserPresence user) {
+        return new PresenceUpdate(PRESENCE_CHANGED, List.of(user));
+    }
+}
@@ -0,0 +1,98 @@
+package com.linkwave.app.domain.typing;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Broadcast when the set of users typing in a room changes.
+ *
+ * userIds is the full roster of users typing in the room on node nodeId,
+ * replacing one typing.event per start/stop. Typing state lives on the node
+ * the typer is connected to, so clients merge rosters per room:
+ * - keep the latest roster per nodeId; it replaces that node's previous one
+ * - drop a node's roster ttlMs after receiving it unless a newer one has
+ *   replaced it (0: never expires); nodes re-send non-empty rosters well
+ *   before that, so only the typers of a node that went away expire
+ * - show the union of the rosters kept; an empty roster clears that
+ *   node's typers
+ */
+public class TypingRosterEvent {
+
+    @JsonProperty("type")
+    private String type = "typing.update";
+
+    @JsonProperty("roomId")
+    private String roomId;
+
+    @JsonProperty("nodeId")
+    private String nodeId;
+
+    @JsonProperty("userIds")
+    private List<String> userIds;
+
+    @JsonProperty("timestamp")
+    private long timestamp;
+
+    @JsonProperty("ttlMs")
+    private long ttlMs;
+
+    public TypingRosterEvent() {
+    }
+
+    public TypingRosterEvent(String roomId, String nodeId, List<String> userIds, long timestamp, long ttlMs) {
+        this.roomId = roomId;
+        this.nodeId = nodeId;
+        this.userIds = userIds;
+        this.timestamp = timestamp;
+        this.ttlMs = ttlMs;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public void setRoomId(String roomId) {
+        this.roomId = roomId;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public List<String> getUserIds() {
+        return userIds;
+    }
+
+    public void setUserIds(List<String> userIds) {
+        this.userIds = userIds;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public long getTtlMs() {
+        return ttlMs;
+    }
+
+    public void setTtlMs(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+}
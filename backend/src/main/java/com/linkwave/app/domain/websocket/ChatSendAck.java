@@ -0,0 +1,41 @@
+package com.linkwave.app.domain.websocket;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.linkwave.app.domain.chat.ChatSendResult;
+
+/**
+ * Outbound acknowledgment for a chat.send event.
+ * 
+ * Formats:
+ * - {"event":"chat.sent","payload":{"messageId","roomId","partition","offset","sentAt"}}
+ * - {"event":"chat.error","payload":{"messageId","error"}}
+ * 
+ * clientMessageId is echoed back when the client supplied one, so acks can
+ * be matched to sends that complete out of order.
+ */
+public record ChatSendAck(String event, Payload payload) {
+
+    public static final String CHAT_SENT = "chat.sent";
+    public static final String CHAT_ERROR = "chat.error";
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Payload(
+            String clientMessageId,
+            String messageId,
+            String roomId,
+            Integer partition,
+            Long offset,
+            Long sentAt,
+            String error) {
+    }
+
+    public static ChatSendAck sent(String clientMessageId, ChatSendResult result) {
+        return new ChatSendAck(CHAT_SENT, new Payload(clientMessageId, result.messageId(), result.roomId(),
+                result.partition(), result.offset(), result.sentAt(), null));
+    }
+
+    public static ChatSendAck failed(String clientMessageId, String messageId, String error) {
+        return new ChatSendAck(CHAT_ERROR, new Payload(clientMessageId, messageId, null,
+                null, null, null, error));
+    }
+}
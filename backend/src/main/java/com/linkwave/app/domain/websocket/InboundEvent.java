@@ -0,0 +1,56 @@
+package com.linkwave.app.domain.websocket;
+
+import java.util.List;
+
+/**
+ * Typed inbound events decoded from native WebSocket frames.
+ * 
+ * Each record mirrors the fields of one client event, so frames are bound
+ * directly into these types instead of going through a JsonNode tree.
+ * 
+ * Wire formats:
+ * - ping:               {"event":"ping"}
+ * - presence.heartbeat: {"event":"presence.heartbeat"}
+ * - chat.send:          {"event":"chat.send","to":"roomId","clientMessageId":"...","payload":{"body":"..."}}
+ *                       (clientMessageId is optional and echoed in chat.sent / chat.error)
+ * - typing.start/stop:  {"event":"typing.start","roomId":"..."}
+ * - read.up_to:         {"event":"read.up_to","roomId":"...","messageId":"..."}
+ * - presence.subscribe: {"event":"presence.subscribe","userIds":["...", ...]}
+ *                       (replaces the session's subscriptions; [] unsubscribes)
+ */
+public sealed interface InboundEvent {
+
+    record Ping() implements InboundEvent {
+    }
+
+    record PresenceHeartbeat() implements InboundEvent {
+    }
+
+    record ChatSend(String to, String clientMessageId, Payload payload) implements InboundEvent {
+
+        public record Payload(String body) {
+        }
+
+        public String body() {
+            return payload != null ? payload.body() : null;
+        }
+    }
+
+    record TypingStart(String roomId) implements InboundEvent {
+    }
+
+    record TypingStop(String roomId) implements InboundEvent {
+    }
+
+    record ReadUpTo(String roomId, String messageId) implements InboundEvent {
+    }
+
+    record PresenceSubscribe(List<String> userIds) implements InboundEvent {
+    }
+
+    /**
+     * Event name without a dedicated handler; remaining fields are skipped.
+     */
+    record Unhandled(String event) implements InboundEvent {
+    }
+}
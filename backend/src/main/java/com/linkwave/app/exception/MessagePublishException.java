@@ -0,0 +1,18 @@
+package com.linkwave.app.exception;
+
+/**
+ * Raised when a chat message could not be published to Kafka.
+ */
+public class MessagePublishException extends RuntimeException {
+
+    private final String messageId;
+
+    public MessagePublishException(String messageId, Throwable cause) {
+        super("Failed to publish message " + messageId + ": " + cause.getMessage(), cause);
+        this.messageId = messageId;
+    }
+
+    public String getMessageId() {
+        return messageId;
+    }
+}
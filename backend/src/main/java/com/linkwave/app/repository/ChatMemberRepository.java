@@ -28,6 +28,18 @@ public interface ChatMemberRepository extends JpaRepository<ChatMemberEntity, Lo
     @Query("SELECT cm.room FROM ChatMemberEntity cm WHERE cm.phoneNumber = :phoneNumber")
     List<ChatRoomEntity> findRoomsByPhoneNumber(@Param("phoneNumber") String phoneNumber);
 
+    /**
+     * Find the IDs of all rooms a user is member of (no room hydration).
+     */
+    @Query("SELECT cm.room.id FROM ChatMemberEntity cm WHERE cm.phoneNumber = :phoneNumber")
+    List<String> findRoomIdsByPhoneNumber(@Param("phoneNumber") String phoneNumber);
+
+    /**
+     * Find the phone numbers of all members of a room (no entity hydration).
+     */
+    @Query("SELECT cm.phoneNumber FROM ChatMemberEntity cm WHERE cm.room.id = :roomId")
+    List<String> findPhoneNumbersByRoomId(@Param("roomId") String roomId);
+
     /**
      * Check if user is member of room.
      */
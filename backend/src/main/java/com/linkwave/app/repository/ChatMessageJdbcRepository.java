@@ -0,0 +1,65 @@
+package com.linkwave.app.repository;
+
+import com.linkwave.app.domain.chat.ChatMessage;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+
+import java.sql.DatabaseMetaData;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * JDBC batch writer for chat_messages.
+ * 
+ * Inserts a whole batch in one round trip (multi-row with pgjdbc's
+ * reWriteBatchedInserts), referencing the room by its ID column so no
+ * room entity is loaded. Replayed messages are ignored:
+ * - PostgreSQL: ON CONFLICT DO NOTHING, matching the primary key whether it
+ *   is (id) or, once partitioned, (id, sent_at); replays carry the same sentAt
+ * - H2 (tests): MERGE ... KEY (id), which rewrites the identical row
+ */
+@Repository
+public class ChatMessageJdbcRepository {
+
+    private static final String POSTGRES_INSERT =
+            "INSERT INTO chat_messages (id, room_id, sender_phone, body, sent_at, ttl_days) "
+                    + "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    private static final String H2_MERGE =
+            "MERGE INTO chat_messages (id, room_id, sender_phone, body, sent_at, ttl_days) "
+                    + "KEY (id) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String insertSql;
+
+    public ChatMessageJdbcRepository(JdbcTemplate jdbcTemplate) throws MetaDataAccessException {
+        this.jdbcTemplate = jdbcTemplate;
+        String product = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                DatabaseMetaData::getDatabaseProductName);
+        this.insertSql = "H2".equals(product) ? H2_MERGE : POSTGRES_INSERT;
+    }
+
+    /**
+     * Insert messages in a single JDBC batch, skipping IDs that already exist.
+     */
+    public void insertAll(List<ChatMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(insertSql, messages, messages.size(), (ps, message) -> {
+            ps.setString(1, message.getMessageId());
+            ps.setString(2, message.getRoomId());
+            ps.setString(3, message.getSenderPhoneNumber());
+            ps.setString(4, message.getBody());
+            ps.setTimestamp(5, new Timestamp(message.getSentAt()));
+            if (message.getTtlDays() != null) {
+                ps.setInt(6, message.getTtlDays());
+            } else {
+                ps.setNull(6, Types.INTEGER);
+            }
+        });
+    }
+}
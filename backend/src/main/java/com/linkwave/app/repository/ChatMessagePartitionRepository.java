@@ -0,0 +1,285 @@
+package com.linkwave.app.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+
+import java.sql.DatabaseMetaData;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * PostgreSQL DDL and bulk deletes for the range-partitioned chat_messages table.
+ *
+ * chat_messages is partitioned by RANGE (sent_at) with primary key
+ * (id, sent_at), as PostgreSQL requires the partition key in every unique
+ * constraint. Partitions are named chat_messages_pYYYYMMDD after their
+ * first day (UTC); a table that existed before partitioning is kept as
+ * chat_messages_legacy, covering everything older than the first partition.
+ * chat_messages_default is the DEFAULT partition: it catches rows no range
+ * partition covers, so inserts keep working when premaking falls behind,
+ * until createPartition moves them into their range partition.
+ *
+ * Methods that run several statements or rely on SET LOCAL must be called
+ * inside a transaction. All methods except isSupported() are PostgreSQL only.
+ */
+@Repository
+public class ChatMessagePartitionRepository {
+
+    public static final String TABLE = "chat_messages";
+    public static final String LEGACY_TABLE = "chat_messages_legacy";
+    public static final String DEFAULT_PARTITION = "chat_messages_default";
+
+    // Serializes partition DDL across nodes (arbitrary, stable key)
+    private static final long DDL_LOCK_KEY = 0x6C696E6B77617665L;
+
+    private static final DateTimeFormatter PARTITION_SUFFIX =
+            DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+
+    private static final Pattern BOUNDS =
+            Pattern.compile("FROM \\((.+?)\\) TO \\((.+?)\\)");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean supported;
+
+    public ChatMessagePartitionRepository(JdbcTemplate jdbcTemplate) throws MetaDataAccessException {
+        this.jdbcTemplate = jdbcTemplate;
+        String product = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                DatabaseMetaData::getDatabaseProductName);
+        this.supported = "PostgreSQL".equals(product);
+    }
+
+    /**
+     * Whether the database supports declarative partitioning (PostgreSQL).
+     */
+    public boolean isSupported() {
+        return supported;
+    }
+
+    public enum TableState {
+        MISSING,
+        PLAIN,
+        PARTITIONED
+    }
+
+    /**
+     * A partition of chat_messages and its sent_at range.
+     *
+     * @param name table name
+     * @param from inclusive lower bound, or null for MINVALUE
+     * @param to exclusive upper bound
+     */
+    public record Partition(String name, Instant from, Instant to) {
+    }
+
+    /**
+     * Block until this transaction holds the cluster-wide partition DDL lock.
+     * Released automatically at commit or rollback.
+     */
+    public void lockDdl() {
+        jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)::text", String.class, DDL_LOCK_KEY);
+    }
+
+    public TableState tableState() {
+        List<String> kinds = jdbcTemplate.queryForList(
+                "SELECT c.relkind::text FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace "
+                        + "WHERE c.relname = ? AND n.nspname = current_schema()",
+                String.class, TABLE);
+        if (kinds.isEmpty()) {
+            return TableState.MISSING;
+        }
+        return "p".equals(kinds.get(0)) ? TableState.PARTITIONED : TableState.PLAIN;
+    }
+
+    /**
+     * Newest sent_at in a table, or null if it is empty.
+     */
+    public Instant maxSentAt(String table) {
+        Timestamp max = jdbcTemplate.queryForObject(
+                "SELECT max(sent_at) FROM " + quote(table), Timestamp.class);
+        return max != null ? max.toInstant() : null;
+    }
+
+    /**
+     * Turn a plain chat_messages table into a partitioned one without
+     * copying rows: the existing table is renamed and attached as the
+     * chat_messages_legacy partition for sent_at < legacyUpperBound.
+     * Its indexes are kept (renamed); attaching validates the range with
+     * one scan and builds the (id, sent_at) unique index.
+     */
+    public void convertToPartitioned(Instant legacyUpperBound) {
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + LEGACY_TABLE);
+
+        // Index names are schema-wide, so free them for the parent table
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT i.relname FROM pg_index x JOIN pg_class i ON i.oid = x.indexrelid "
+                        + "WHERE x.indrelid = ?::regclass",
+                String.class, LEGACY_TABLE);
+        for (String index : indexes) {
+            if (!index.startsWith(LEGACY_TABLE)) {
+                jdbcTemplate.execute("ALTER INDEX " + quote(index) + " RENAME TO "
+                        + quote(LEGACY_TABLE + "_" + index));
+            }
+        }
+
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " (LIKE " + LEGACY_TABLE
+                + " INCLUDING DEFAULTS) PARTITION BY RANGE (sent_at)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD PRIMARY KEY (id, sent_at)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT fk_chat_messages_room "
+                + "FOREIGN KEY (room_id) REFERENCES chat_rooms (id)");
+        jdbcTemplate.execute("CREATE INDEX idx_chat_message_room_sent_at ON " + TABLE + " (room_id, sent_at)");
+        jdbcTemplate.execute("CREATE INDEX idx_chat_message_sender ON " + TABLE + " (sender_phone)");
+
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + LEGACY_TABLE
+                + " FOR VALUES FROM (MINVALUE) TO (" + literal(legacyUpperBound) + ")");
+    }
+
+    /**
+     * Create the DEFAULT partition if it does not exist yet.
+     */
+    public void createDefaultPartition() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + DEFAULT_PARTITION
+                + " PARTITION OF " + TABLE + " DEFAULT");
+    }
+
+    /**
+     * Partial index for the batched delete path: only rows whose ttl_days
+     * differs from the default are indexed, which is normally a small set.
+     * The default is baked into the predicate, so the index is recreated
+     * under a new name if the default changes.
+     */
+    public void ensureOverrideIndex(int defaultTtlDays) {
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_chat_message_ttl_override_" + defaultTtlDays
+                + " ON " + TABLE + " (sent_at) WHERE ttl_days <> " + defaultTtlDays);
+    }
+
+    /**
+     * All partitions with their bounds, oldest first. Requires a transaction.
+     */
+    public List<Partition> listPartitions() {
+        // Render bounds in UTC so they parse as instants
+        jdbcTemplate.execute("SET LOCAL TimeZone = 'UTC'");
+        return jdbcTemplate.query(
+                "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) FROM pg_inherits i "
+                        + "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = ?::regclass",
+                (rs, rowNum) -> parsePartition(rs.getString(1), rs.getString(2)),
+                TABLE).stream()
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparing(Partition::to))
+                .toList();
+    }
+
+    /**
+     * Create the partition for [from, to). PostgreSQL refuses a new
+     * partition while the DEFAULT partition holds rows in its range, so
+     * those rows are first moved into a detached table that is then
+     * attached. Requires a transaction.
+     *
+     * @return number of rows moved out of the DEFAULT partition
+     */
+    public int createPartition(Instant from, Instant to) {
+        String name = quote(partitionName(from));
+        String bounds = " FOR VALUES FROM (" + literal(from) + ") TO (" + literal(to) + ")";
+        String range = "sent_at >= " + literal(from) + " AND sent_at < " + literal(to);
+
+        Boolean stranded = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + " WHERE " + range + ")", Boolean.class);
+        if (!Boolean.TRUE.equals(stranded)) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF " + TABLE + bounds);
+            return 0;
+        }
+
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE " + TABLE + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION + " WHERE " + range
+                + " RETURNING *) INSERT INTO " + name + " SELECT * FROM moved");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + name + bounds);
+        return moved;
+    }
+
+    public void dropPartition(String name) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + quote(name));
+    }
+
+    /**
+     * Whether a partition still holds messages whose ttlDays override keeps
+     * them alive past the default retention.
+     */
+    public boolean hasLiveOverrides(String partition, int defaultTtlDays) {
+        Boolean live = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + quote(partition) + " WHERE ttl_days > " + defaultTtlDays
+                        + " AND sent_at > now() - make_interval(days => ttl_days))",
+                Boolean.class);
+        return Boolean.TRUE.equals(live);
+    }
+
+    /**
+     * Delete up to batchSize expired messages from one partition, honoring
+     * each row's ttlDays (default when null).
+     *
+     * @return number of rows deleted
+     */
+    public int deleteExpired(String partition, int defaultTtlDays, int batchSize) {
+        return jdbcTemplate.update(
+                "DELETE FROM " + quote(partition) + " WHERE ctid IN (SELECT ctid FROM " + quote(partition)
+                        + " WHERE sent_at <= now() - make_interval(days => coalesce(ttl_days, " + defaultTtlDays + "))"
+                        + " LIMIT " + batchSize + ")");
+    }
+
+    /**
+     * Delete up to batchSize messages whose ttlDays is shorter than the
+     * default and has passed. Served by the ttl override partial index.
+     *
+     * @return number of rows deleted
+     */
+    public int deleteExpiredShortTtl(int defaultTtlDays, int batchSize) {
+        return jdbcTemplate.update(
+                "DELETE FROM " + TABLE + " WHERE (id, sent_at) IN (SELECT id, sent_at FROM " + TABLE
+                        + " WHERE ttl_days <> " + defaultTtlDays + " AND ttl_days < " + defaultTtlDays
+                        + " AND sent_at <= now() - make_interval(days => ttl_days)"
+                        + " LIMIT " + batchSize + ")");
+    }
+
+    public static String partitionName(Instant from) {
+        return TABLE + "_p" + PARTITION_SUFFIX.format(from);
+    }
+
+    static Partition parsePartition(String name, String bound) {
+        Matcher matcher = bound != null ? BOUNDS.matcher(bound) : null;
+        if (matcher == null || !matcher.find()) {
+            return null; // DEFAULT partition or unexpected bound
+        }
+        Instant to = parseBound(matcher.group(2));
+        if (to == null) {
+            return null;
+        }
+        return new Partition(name, parseBound(matcher.group(1)), to);
+    }
+
+    private static Instant parseBound(String value) {
+        if (!value.startsWith("'")) {
+            return null; // MINVALUE / MAXVALUE
+        }
+        // '2026-10-16 00:00:00+00' (timestamptz) or '2026-10-16 00:00:00' (timestamp)
+        String text = value.substring(1, value.length() - 1).replace(' ', 'T');
+        if (text.endsWith("+00")) {
+            text = text.substring(0, text.length() - 3);
+        }
+        return Instant.parse(text + "Z");
+    }
+
+    private static String literal(Instant instant) {
+        return "'" + instant + "'";
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+}
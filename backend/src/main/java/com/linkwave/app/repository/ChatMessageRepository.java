@@ -1,21 +1,106 @@
 package com.linkwave.app.repository;
 
 import com.linkwave.app.domain.chat.ChatMessageEntity;
-import com.linkwave.app.domain.chat.ChatRoomEntity;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import com.linkwave.app.domain.chat.ChatMessagePosition;
+import com.linkwave.app.domain.chat.ChatMessageView;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Repository for ChatMessageEntity.
  * Phase D: Room-based message persistence
+ * 
+ * History is read with keyset pagination on (sent_at, id) via
+ * idx_chat_message_room_sent_at: every page is an index range scan that
+ * starts at the cursor, so its cost does not grow with scroll depth, and
+ * no count query is issued.
+ * 
+ * History queries return ChatMessageView projections rather than entities:
+ * only the five columns a page needs are selected and nothing enters the
+ * persistence context.
  */
 @Repository
 public interface ChatMessageRepository extends JpaRepository<ChatMessageEntity, String> {
 
     /**
-     * Find messages in a room, paginated and ordered by time.
+     * Newest messages in a room (first page).
+     */
+    @Query("""
+            SELECT new com.linkwave.app.domain.chat.ChatMessageView(
+                m.id, m.room.id, m.senderPhone, m.body, m.sentAt)
+            FROM ChatMessageEntity m
+            WHERE m.room.id = :roomId
+            ORDER BY m.sentAt DESC, m.id DESC
+            """)
+    List<ChatMessageView> findLatest(@Param("roomId") String roomId, Limit limit);
+
+    /**
+     * Messages strictly older than (sentAt, id), newest first.
+     * 
+     * The sentAt bound is kept separate from the tie-breaker so it can be
+     * used as an index condition; only rows sharing the cursor's timestamp
+     * are filtered on id.
+     */
+    @Query("""
+            SELECT new com.linkwave.app.domain.chat.ChatMessageView(
+                m.id, m.room.id, m.senderPhone, m.body, m.sentAt)
+            FROM ChatMessageEntity m
+            WHERE m.room.id = :roomId
+              AND m.sentAt <= :sentAt
+              AND (m.sentAt < :sentAt OR m.id < :id)
+            ORDER BY m.sentAt DESC, m.id DESC
+            """)
+    List<ChatMessageView> findBefore(@Param("roomId") String roomId,
+                                       @Param("sentAt") Instant sentAt,
+                                       @Param("id") String id,
+                                       Limit limit);
+
+    /**
+     * IDs of messages in a room after (afterSentAt, afterId) up to and
+     * including (toSentAt, toId), oldest first. Used to expand a read
+     * watermark move into per-message read receipts.
+     */
+    @Query("""
+            SELECT m.id FROM ChatMessageEntity m
+            WHERE m.room.id = :roomId
+              AND m.sentAt >= :afterSentAt AND m.sentAt <= :toSentAt
+              AND (m.sentAt > :afterSentAt OR m.id > :afterId)
+              AND (m.sentAt < :toSentAt OR m.id <= :toId)
+            ORDER BY m.sentAt ASC, m.id ASC
+            """)
+    List<String> findIdsBetween(@Param("roomId") String roomId,
+                                @Param("afterSentAt") Instant afterSentAt,
+                                @Param("afterId") String afterId,
+                                @Param("toSentAt") Instant toSentAt,
+                                @Param("toId") String toId);
+
+    /**
+     * Number of messages in a room strictly after (sentAt, id).
+     */
+    @Query("""
+            SELECT COUNT(m) FROM ChatMessageEntity m
+            WHERE m.room.id = :roomId
+              AND m.sentAt >= :sentAt
+              AND (m.sentAt > :sentAt OR m.id > :id)
+            """)
+    long countAfter(@Param("roomId") String roomId,
+                    @Param("sentAt") Instant sentAt,
+                    @Param("id") String id);
+
+    /**
+     * Room and position of each of the given messages (missing IDs are skipped).
      */
-    Page<ChatMessageEntity> findByRoomOrderBySentAtDesc(ChatRoomEntity room, Pageable pageable);
+    @Query("""
+            SELECT new com.linkwave.app.domain.chat.ChatMessagePosition(m.id, m.room.id, m.sentAt)
+            FROM ChatMessageEntity m
+            WHERE m.id IN :ids
+            """)
+    List<ChatMessagePosition> findPositions(@Param("ids") Collection<String> ids);
 }
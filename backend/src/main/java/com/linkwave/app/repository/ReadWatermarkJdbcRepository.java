@@ -0,0 +1,202 @@
+package com.linkwave.app.repository;
+
+import com.linkwave.app.domain.chat.ReadWatermarkEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+
+import java.sql.DatabaseMetaData;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Single-statement upsert for read_watermarks.
+ * 
+ * A watermark only ever moves forward in (last_read_sent_at,
+ * last_read_message_id) order; the comparison is part of the statement,
+ * so concurrent advances cannot move it back:
+ * - PostgreSQL: INSERT ... ON CONFLICT DO UPDATE ... WHERE
+ * - H2 (tests): MERGE ... WHEN MATCHED AND ... THEN UPDATE
+ *
+ * Also carries over the per-message read_receipts table of older versions
+ * (db/migration/V4__create_read_watermarks.sql), PostgreSQL only.
+ */
+@Repository
+public class ReadWatermarkJdbcRepository {
+
+    private static final String POSTGRES_INSERT =
+            "INSERT INTO read_watermarks (room_id, reader_phone_number, last_read_sent_at, "
+                    + "last_read_message_id, updated_at) VALUES ";
+
+    private static final String POSTGRES_VALUES_ROW = "(?, ?, ?, ?, ?)";
+
+    private static final String POSTGRES_ON_CONFLICT =
+            " ON CONFLICT (room_id, reader_phone_number) DO UPDATE SET "
+                    + "last_read_sent_at = EXCLUDED.last_read_sent_at, "
+                    + "last_read_message_id = EXCLUDED.last_read_message_id, "
+                    + "updated_at = EXCLUDED.updated_at "
+                    + "WHERE (read_watermarks.last_read_sent_at, read_watermarks.last_read_message_id) "
+                    + "< (EXCLUDED.last_read_sent_at, EXCLUDED.last_read_message_id)";
+
+    private static final String POSTGRES_UPSERT = POSTGRES_INSERT + POSTGRES_VALUES_ROW + POSTGRES_ON_CONFLICT;
+
+    // Keeps a multi-row upsert well below PostgreSQL's 65535 bind parameters
+    private static final int MAX_ROWS_PER_UPSERT = 1000;
+
+    private static final String H2_MERGE =
+            "MERGE INTO read_watermarks w USING (VALUES (CAST(? AS VARCHAR), CAST(? AS VARCHAR), "
+                    + "CAST(? AS TIMESTAMP WITH TIME ZONE), CAST(? AS VARCHAR), CAST(? AS TIMESTAMP WITH TIME ZONE))) "
+                    + "AS s (room_id, reader_phone_number, last_read_sent_at, last_read_message_id, updated_at) "
+                    + "ON w.room_id = s.room_id AND w.reader_phone_number = s.reader_phone_number "
+                    + "WHEN MATCHED AND (w.last_read_sent_at, w.last_read_message_id) "
+                    + "< (s.last_read_sent_at, s.last_read_message_id) THEN UPDATE SET "
+                    + "last_read_sent_at = s.last_read_sent_at, last_read_message_id = s.last_read_message_id, "
+                    + "updated_at = s.updated_at "
+                    + "WHEN NOT MATCHED THEN INSERT (room_id, reader_phone_number, last_read_sent_at, "
+                    + "last_read_message_id, updated_at) VALUES (s.room_id, s.reader_phone_number, "
+                    + "s.last_read_sent_at, s.last_read_message_id, s.updated_at)";
+
+    private static final String LEGACY_TABLE = "read_receipts";
+
+    // Serializes the read_receipts backfill across nodes (arbitrary, stable key)
+    private static final long BACKFILL_LOCK_KEY = 0x7265616477617465L;
+
+    // Each reader's newest receipted message per room; never moves a watermark back
+    private static final String POSTGRES_BACKFILL =
+            "INSERT INTO read_watermarks (room_id, reader_phone_number, last_read_sent_at, "
+                    + "last_read_message_id, updated_at) "
+                    + "SELECT DISTINCT ON (r.room_id, r.reader_phone_number) "
+                    + "r.room_id, r.reader_phone_number, m.sent_at, m.id, r.read_at "
+                    + "FROM read_receipts r JOIN chat_messages m ON m.id = r.message_id "
+                    + "ORDER BY r.room_id, r.reader_phone_number, m.sent_at DESC, m.id DESC "
+                    + "ON CONFLICT (room_id, reader_phone_number) DO UPDATE SET "
+                    + "last_read_sent_at = EXCLUDED.last_read_sent_at, "
+                    + "last_read_message_id = EXCLUDED.last_read_message_id, "
+                    + "updated_at = EXCLUDED.updated_at "
+                    + "WHERE (read_watermarks.last_read_sent_at, read_watermarks.last_read_message_id) "
+                    + "< (EXCLUDED.last_read_sent_at, EXCLUDED.last_read_message_id)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String upsertSql;
+    private final boolean postgres;
+
+    public ReadWatermarkJdbcRepository(JdbcTemplate jdbcTemplate) throws MetaDataAccessException {
+        this.jdbcTemplate = jdbcTemplate;
+        String product = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                DatabaseMetaData::getDatabaseProductName);
+        this.upsertSql = "H2".equals(product) ? H2_MERGE : POSTGRES_UPSERT;
+        this.postgres = "PostgreSQL".equals(product);
+    }
+
+    /**
+     * Whether a read_receipts table from before watermarks is still
+     * present. Always false on databases other than PostgreSQL.
+     */
+    public boolean hasLegacyReceipts() {
+        if (!postgres) {
+            return false;
+        }
+        Boolean exists = jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, LEGACY_TABLE);
+        return Boolean.TRUE.equals(exists);
+    }
+
+    /**
+     * Block until this transaction holds the cluster-wide backfill lock.
+     * Released automatically at commit or rollback.
+     */
+    public void lockBackfill() {
+        jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)::text", String.class, BACKFILL_LOCK_KEY);
+    }
+
+    /**
+     * Move every reader's watermark up to their newest receipted message
+     * in read_receipts. Safe to repeat.
+     *
+     * @return number of watermarks created or moved
+     */
+    public int backfillFromLegacyReceipts() {
+        return jdbcTemplate.update(POSTGRES_BACKFILL);
+    }
+
+    /**
+     * Drop read_receipts. Only once no node writes to it any more.
+     */
+    public void dropLegacyReceipts() {
+        jdbcTemplate.execute("DROP TABLE " + LEGACY_TABLE);
+    }
+
+    /**
+     * Move a reader's watermark forward to (sentAt, messageId), creating it
+     * if missing.
+     *
+     * @return true if the watermark was created or moved, false if it was
+     *         already at or past that position
+     */
+    public boolean advance(String roomId, String readerPhoneNumber,
+                           Instant sentAt, String messageId, Instant updatedAt) {
+        int updated = jdbcTemplate.update(upsertSql,
+                roomId, readerPhoneNumber, Timestamp.from(sentAt), messageId, Timestamp.from(updatedAt));
+        return updated > 0;
+    }
+
+    /**
+     * Move several watermarks forward, at most one per (room, reader).
+     *
+     * On PostgreSQL this is one multi-row upsert per 1000 watermarks that
+     * returns the rows it wrote; batch update counts cannot be used there,
+     * as the driver reports SUCCESS_NO_INFO for rewritten batches whether
+     * or not the WHERE clause let a row through.
+     *
+     * @return keys of the watermarks that were created or moved
+     */
+    public Set<ReadWatermarkEntity.Key> advanceAll(List<ReadWatermarkEntity> watermarks) {
+        Set<ReadWatermarkEntity.Key> moved = new HashSet<>();
+        if (watermarks.isEmpty()) {
+            return moved;
+        }
+
+        if (!postgres) {
+            int[][] counts = jdbcTemplate.batchUpdate(upsertSql, watermarks, watermarks.size(), (ps, watermark) -> {
+                ps.setString(1, watermark.getRoomId());
+                ps.setString(2, watermark.getReaderPhoneNumber());
+                ps.setTimestamp(3, Timestamp.from(watermark.getLastReadSentAt()));
+                ps.setString(4, watermark.getLastReadMessageId());
+                ps.setTimestamp(5, Timestamp.from(watermark.getUpdatedAt()));
+            });
+            for (int i = 0; i < watermarks.size(); i++) {
+                if (counts[0][i] != 0) {
+                    ReadWatermarkEntity watermark = watermarks.get(i);
+                    moved.add(new ReadWatermarkEntity.Key(watermark.getRoomId(), watermark.getReaderPhoneNumber()));
+                }
+            }
+            return moved;
+        }
+
+        for (int from = 0; from < watermarks.size(); from += MAX_ROWS_PER_UPSERT) {
+            List<ReadWatermarkEntity> chunk =
+                    watermarks.subList(from, Math.min(from + MAX_ROWS_PER_UPSERT, watermarks.size()));
+            String sql = POSTGRES_INSERT
+                    + String.join(", ", Collections.nCopies(chunk.size(), POSTGRES_VALUES_ROW))
+                    + POSTGRES_ON_CONFLICT + " RETURNING room_id, reader_phone_number";
+            List<Object> args = new ArrayList<>(chunk.size() * 5);
+            for (ReadWatermarkEntity watermark : chunk) {
+                args.add(watermark.getRoomId());
+                args.add(watermark.getReaderPhoneNumber());
+                args.add(Timestamp.from(watermark.getLastReadSentAt()));
+                args.add(watermark.getLastReadMessageId());
+                args.add(Timestamp.from(watermark.getUpdatedAt()));
+            }
+            moved.addAll(jdbcTemplate.query(sql,
+                    (rs, rowNum) -> new ReadWatermarkEntity.Key(rs.getString(1), rs.getString(2)),
+                    args.toArray()));
+        }
+        return moved;
+    }
+}
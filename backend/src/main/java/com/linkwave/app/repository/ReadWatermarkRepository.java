@@ -0,0 +1,44 @@
+package com.linkwave.app.repository;
+
+import com.linkwave.app.domain.chat.ReadWatermarkEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for ReadWatermarkEntity.
+ * 
+ * Readers of a message are the watermarks at or past its (sentAt, id);
+ * idx_read_watermark_room_sent_at serves the range on last_read_sent_at.
+ * Watermarks are advanced through ReadWatermarkJdbcRepository.
+ */
+@Repository
+public interface ReadWatermarkRepository extends JpaRepository<ReadWatermarkEntity, ReadWatermarkEntity.Key> {
+
+    Optional<ReadWatermarkEntity> findByRoomIdAndReaderPhoneNumber(String roomId, String readerPhoneNumber);
+
+    @Query("""
+            SELECT w.readerPhoneNumber FROM ReadWatermarkEntity w
+            WHERE w.roomId = :roomId
+              AND w.lastReadSentAt >= :sentAt
+              AND (w.lastReadSentAt > :sentAt OR w.lastReadMessageId >= :messageId)
+            """)
+    List<String> findReadersOf(@Param("roomId") String roomId,
+                               @Param("sentAt") Instant sentAt,
+                               @Param("messageId") String messageId);
+
+    @Query("""
+            SELECT COUNT(w) FROM ReadWatermarkEntity w
+            WHERE w.roomId = :roomId
+              AND w.lastReadSentAt >= :sentAt
+              AND (w.lastReadSentAt > :sentAt OR w.lastReadMessageId >= :messageId)
+            """)
+    long countReadersOf(@Param("roomId") String roomId,
+                        @Param("sentAt") Instant sentAt,
+                        @Param("messageId") String messageId);
+}
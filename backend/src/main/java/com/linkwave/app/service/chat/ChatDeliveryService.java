@@ -0,0 +1,77 @@
+package com.linkwave.app.service.chat;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkwave.app.domain.chat.ChatMessage;
+import com.linkwave.app.domain.websocket.WsMessageEnvelope;
+import com.linkwave.app.service.websocket.OutboundFrameType;
+import com.linkwave.app.service.websocket.RoomFanoutEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.TextMessage;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Real-time delivery stage for consumed chat messages.
+ * 
+ * Fans a ChatMessage out to both transports:
+ * - STOMP subscribers of /topic/room.{roomId}
+ * - Native /ws sessions of local room members (chat.receive frames)
+ * 
+ * The message is serialized exactly once; the same JSON bytes are used as
+ * the STOMP payload and embedded in the native frame, which is shared by
+ * every recipient.
+ */
+@Service
+public class ChatDeliveryService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatDeliveryService.class);
+
+    private static final String ROOM_TOPIC_PREFIX = "/topic/room.";
+    private static final String NATIVE_FRAME_PREFIX =
+            "{\"event\":\"" + WsMessageEnvelope.EventType.CHAT_RECEIVE.getValue() + "\",\"payload\":";
+
+    private final RoomFanoutEngine roomFanout;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+
+    public ChatDeliveryService(RoomFanoutEngine roomFanout,
+                               SimpMessagingTemplate messagingTemplate,
+                               ObjectMapper objectMapper) {
+        this.roomFanout = roomFanout;
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Deliver a message to every online member of its room.
+     * Includes the sender so their other clients stay in sync.
+     * 
+     * @return number of native sessions the message was queued for
+     */
+    public int deliver(ChatMessage message) throws JsonProcessingException {
+        String json = objectMapper.writeValueAsString(message);
+
+        // STOMP: pre-serialized JSON, bypasses the broker's message converter
+        Message<byte[]> stompMessage = MessageBuilder
+                .withPayload(json.getBytes(StandardCharsets.UTF_8))
+                .setHeader("contentType", MimeTypeUtils.APPLICATION_JSON)
+                .build();
+        messagingTemplate.send(ROOM_TOPIC_PREFIX + message.getRoomId(), stompMessage);
+
+        // Native: one frame shared by all local recipients. Every node consumes
+        // the topic in its own delivery group, so no cross-node routing here
+        TextMessage frame = new TextMessage(NATIVE_FRAME_PREFIX + json + "}");
+        int recipients = roomFanout.broadcastLocal(message.getRoomId(), frame, OutboundFrameType.CHAT, null);
+
+        log.debug("Delivered message {} to room {} ({} native sessions)",
+                message.getMessageId(), message.getRoomId(), recipients);
+        return recipients;
+    }
+}
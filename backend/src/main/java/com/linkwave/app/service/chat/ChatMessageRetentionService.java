@@ -0,0 +1,268 @@
+package com.linkwave.app.service.chat;
+
+import com.linkwave.app.config.ChatRetentionConfig;
+import com.linkwave.app.config.ChatRetentionConfig.PartitionInterval;
+import com.linkwave.app.repository.ChatMessagePartitionRepository;
+import com.linkwave.app.repository.ChatMessagePartitionRepository.Partition;
+import com.linkwave.app.repository.ChatMessagePartitionRepository.TableState;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retention for chat messages on a sent_at range-partitioned table.
+ *
+ * At startup (before Kafka listeners start) a plain chat_messages table
+ * created by Hibernate is converted to a partitioned one, the DEFAULT
+ * partition and the upcoming partitions are created. A maintenance run
+ * then repeats every maintenanceIntervalMinutes on every node; DDL is
+ * serialized through a PostgreSQL advisory lock, deletes are safe to run
+ * concurrently.
+ *
+ * Each run:
+ * 1. Creates partitions up to premakePartitions intervals ahead, moving in
+ *    any rows that landed in the DEFAULT partition while premaking was
+ *    behind (advisory lock held, failing runs, clock skew)
+ * 2. Drops partitions whose whole range is past defaultTtlDays - unless a
+ *    message with a longer ttlDays is still live, in which case only the
+ *    expired rows are deleted in batches and the partition is dropped on
+ *    a later run
+ * 3. Deletes, in batches, messages whose ttlDays is shorter than the default
+ *
+ * Dropping a partition removes its rows and index entries at once, so no
+ * large DELETE or the VACUUM that follows it is needed for default-TTL data.
+ * Disabled automatically on databases without partitioning (H2 in tests).
+ *
+ * Hibernate's ddl-auto: update still inspects the partitioned parent: new
+ * entity columns are added to it and propagate to every partition, but
+ * key or type changes are never applied and need a manual migration.
+ */
+@Service
+@DependsOn("entityManagerFactory")
+public class ChatMessageRetentionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatMessageRetentionService.class);
+
+    private final ChatMessagePartitionRepository partitionRepository;
+    private final ChatRetentionConfig config;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final Counter partitionsCreated;
+    private final Counter partitionsDropped;
+    private final Counter rowsDeleted;
+    private final Counter defaultRowsMoved;
+
+    private ScheduledExecutorService scheduler;
+
+    public ChatMessageRetentionService(ChatMessagePartitionRepository partitionRepository,
+                                       ChatRetentionConfig config,
+                                       PlatformTransactionManager transactionManager,
+                                       MeterRegistry meterRegistry) {
+        this(partitionRepository, config, transactionManager, meterRegistry, Clock.systemUTC());
+    }
+
+    ChatMessageRetentionService(ChatMessagePartitionRepository partitionRepository,
+                                ChatRetentionConfig config,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                Clock clock) {
+        this.partitionRepository = partitionRepository;
+        this.config = config;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+
+        this.partitionsCreated = Counter.builder("linkwave.chat.retention.partitions.created")
+                .description("chat_messages partitions created ahead of time")
+                .register(meterRegistry);
+        this.partitionsDropped = Counter.builder("linkwave.chat.retention.partitions.dropped")
+                .description("Expired chat_messages partitions dropped whole")
+                .register(meterRegistry);
+        this.rowsDeleted = Counter.builder("linkwave.chat.retention.rows.deleted")
+                .description("Messages removed by the batched delete path")
+                .register(meterRegistry);
+        this.defaultRowsMoved = Counter.builder("linkwave.chat.retention.default.rows.moved")
+                .description("Messages moved out of the DEFAULT partition into a new range partition")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled()) {
+            log.info("Chat message retention disabled");
+            return;
+        }
+        if (!partitionRepository.isSupported()) {
+            log.info("Chat message retention skipped: database does not support partitioning");
+            return;
+        }
+
+        prepareTable();
+
+        long interval = Math.max(1, config.getMaintenanceIntervalMinutes());
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("chat-retention").daemon().factory());
+        scheduler.scheduleWithFixedDelay(this::runMaintenanceSafely, 0, interval, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Make sure chat_messages is partitioned and can accept current messages.
+     */
+    void prepareTable() {
+        transactionTemplate.executeWithoutResult(status -> {
+            partitionRepository.lockDdl();
+            TableState state = partitionRepository.tableState();
+            if (state == TableState.MISSING) {
+                log.warn("Table {} not found, retention not started", ChatMessagePartitionRepository.TABLE);
+                return;
+            }
+            if (state == TableState.PLAIN) {
+                // Legacy rows end where the first regular partition begins
+                PartitionInterval interval = config.getPartitionInterval();
+                Instant newest = partitionRepository.maxSentAt(ChatMessagePartitionRepository.TABLE);
+                Instant upper = interval.floor(clock.instant());
+                if (newest != null && !newest.isBefore(upper)) {
+                    upper = interval.next(interval.floor(newest));
+                }
+                partitionRepository.convertToPartitioned(upper);
+                log.info("Converted {} to a partitioned table (legacy rows before {})",
+                        ChatMessagePartitionRepository.TABLE, upper);
+            }
+            partitionRepository.createDefaultPartition();
+            partitionRepository.ensureOverrideIndex(config.getDefaultTtlDays());
+        });
+        createPartitions();
+    }
+
+    /**
+     * One maintenance pass. Package-private for tests.
+     */
+    void runMaintenance() {
+        createPartitions();
+        expirePartitions();
+        deleteExpiredShortTtl();
+    }
+
+    private void runMaintenanceSafely() {
+        try {
+            runMaintenance();
+        } catch (Exception e) {
+            log.error("Chat message retention run failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void createPartitions() {
+        PartitionInterval interval = config.getPartitionInterval();
+        Instant now = clock.instant();
+        Instant horizon = interval.floor(now);
+        for (int i = 0; i <= config.getPremakePartitions(); i++) {
+            horizon = interval.next(horizon);
+        }
+        Instant until = horizon;
+
+        int[] moved = {0};
+        int created = transactionTemplate.execute(status -> {
+            partitionRepository.lockDdl();
+            List<Partition> partitions = partitionRepository.listPartitions();
+            Instant from = partitions.isEmpty()
+                    ? interval.floor(now)
+                    : partitions.get(partitions.size() - 1).to();
+            int count = 0;
+            while (from.isBefore(until)) {
+                Instant to = interval.next(interval.floor(from));
+                moved[0] += partitionRepository.createPartition(from, to);
+                from = to;
+                count++;
+            }
+            return count;
+        });
+
+        if (created > 0) {
+            partitionsCreated.increment(created);
+            log.info("Created {} chat_messages partitions up to {}", created, until);
+        }
+        if (moved[0] > 0) {
+            defaultRowsMoved.increment(moved[0]);
+            log.warn("Moved {} messages out of {}: partitions were not premade in time",
+                    moved[0], ChatMessagePartitionRepository.DEFAULT_PARTITION);
+        }
+    }
+
+    private void expirePartitions() {
+        Instant cutoff = clock.instant().minus(Duration.ofDays(config.getDefaultTtlDays()));
+        List<Partition> partitions = transactionTemplate.execute(status -> partitionRepository.listPartitions());
+
+        for (Partition partition : partitions) {
+            if (partition.to().isAfter(cutoff)) {
+                break; // Sorted oldest first - the rest are newer
+            }
+            boolean dropped = transactionTemplate.execute(status -> {
+                partitionRepository.lockDdl();
+                if (partitionRepository.hasLiveOverrides(partition.name(), config.getDefaultTtlDays())) {
+                    return false;
+                }
+                partitionRepository.dropPartition(partition.name());
+                return true;
+            });
+
+            if (dropped) {
+                partitionsDropped.increment();
+                log.info("Dropped expired partition {} (before {})", partition.name(), partition.to());
+            } else {
+                int deleted = deleteInBatches(() -> partitionRepository.deleteExpired(
+                        partition.name(), config.getDefaultTtlDays(), config.getDeleteBatchSize()));
+                log.info("Kept partition {} for messages with longer ttlDays, deleted {} expired rows",
+                        partition.name(), deleted);
+            }
+        }
+    }
+
+    private void deleteExpiredShortTtl() {
+        int deleted = deleteInBatches(() -> partitionRepository.deleteExpiredShortTtl(
+                config.getDefaultTtlDays(), config.getDeleteBatchSize()));
+        if (deleted > 0) {
+            log.info("Deleted {} messages with a shorter ttlDays", deleted);
+        }
+    }
+
+    /**
+     * Repeat a bounded delete, one transaction per batch, until a batch
+     * comes back short.
+     */
+    private int deleteInBatches(BatchDelete batch) {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> batch.run());
+            total += deleted;
+            rowsDeleted.increment(deleted);
+        } while (deleted >= config.getDeleteBatchSize() && !Thread.currentThread().isInterrupted());
+        return total;
+    }
+
+    @FunctionalInterface
+    private interface BatchDelete {
+        int run();
+    }
+}
@@ -1,13 +1,18 @@
 package com.linkwave.app.service.chat;
 
 import com.linkwave.app.domain.chat.*;
+import com.linkwave.app.exception.MessagePublishException;
 import com.linkwave.app.repository.ChatMemberRepository;
+import com.linkwave.app.repository.ChatMessageJdbcRepository;
 import com.linkwave.app.repository.ChatMessageRepository;
 import com.linkwave.app.repository.ChatRoomRepository;
+import com.linkwave.app.service.room.RoomMembershipChangedEvent;
+import com.linkwave.app.service.room.RoomMembershipService;
+import org.apache.kafka.clients.producer.RecordMetadata;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,6 +20,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service for managing chat rooms, members, and messages.
@@ -26,25 +32,40 @@ import java.util.UUID;
  * - Add/remove members
  * - Validate message permissions
  * - Publish messages to Kafka
+ * - Announce membership changes (RoomMembershipChangedEvent)
  */
 @Service
 public class ChatService {
     
     private static final Logger log = LoggerFactory.getLogger(ChatService.class);
     
+    /**
+     * Upper bound for a single history page.
+     */
+    public static final int MAX_HISTORY_PAGE_SIZE = 100;
+    
     private final ChatRoomRepository roomRepository;
     private final ChatMemberRepository memberRepository;
     private final ChatMessageRepository messageRepository;
+    private final ChatMessageJdbcRepository messageJdbcRepository;
+    private final RoomMembershipService roomMembershipService;
     private final KafkaTemplate<String, ChatMessage> kafkaTemplate;
+    private final ApplicationEventPublisher eventPublisher;
     
     public ChatService(ChatRoomRepository roomRepository,
                       ChatMemberRepository memberRepository,
                       ChatMessageRepository messageRepository,
-                      KafkaTemplate<String, ChatMessage> kafkaTemplate) {
+                      ChatMessageJdbcRepository messageJdbcRepository,
+                      RoomMembershipService roomMembershipService,
+                      KafkaTemplate<String, ChatMessage> kafkaTemplate,
+                      ApplicationEventPublisher eventPublisher) {
         this.roomRepository = roomRepository;
         this.memberRepository = memberRepository;
         this.messageRepository = messageRepository;
+        this.messageJdbcRepository = messageJdbcRepository;
+        this.roomMembershipService = roomMembershipService;
         this.kafkaTemplate = kafkaTemplate;
+        this.eventPublisher = eventPublisher;
     }
     
     /**
@@ -68,6 +89,9 @@ public class ChatService {
         memberRepository.save(new ChatMemberEntity(room, phoneNumber1, now));
         memberRepository.save(new ChatMemberEntity(room, phoneNumber2, now));
         
+        eventPublisher.publishEvent(RoomMembershipChangedEvent.added(
+                room.getId(), List.of(phoneNumber1, phoneNumber2)));
+        
         log.info("Created direct room {} for users {} and {}", 
                 room.getId(), maskPhone(phoneNumber1), maskPhone(phoneNumber2));
         
@@ -96,6 +120,9 @@ public class ChatService {
             memberRepository.save(new ChatMemberEntity(room, phoneNumber, now));
         }
         
+        eventPublisher.publishEvent(RoomMembershipChangedEvent.added(
+                room.getId(), memberPhoneNumbers));
+        
         log.info("Created group room {} with {} members", room.getId(), memberPhoneNumbers.size());
         
         return room;
@@ -104,14 +131,17 @@ public class ChatService {
     /**
      * Send a message to a room.
      * Validates sender is a member, then publishes to Kafka.
+     * 
+     * Validation failures are thrown immediately. The returned future
+     * completes once the broker acknowledges the write, or fails with
+     * MessagePublishException; callers must not block on it.
      */
-    public ChatMessage sendMessage(String roomId, String senderPhoneNumber, String body) {
-        // Validate room exists
-        ChatRoomEntity room = roomRepository.findById(roomId)
-                .orElseThrow(() -> new IllegalArgumentException("Room not found: " + roomId));
-        
-        // Validate sender is a member
-        if (!memberRepository.existsByRoomAndPhoneNumber(room, senderPhoneNumber)) {
+    public CompletableFuture<ChatSendResult> sendMessage(String roomId, String senderPhoneNumber, String body) {
+        // Validate sender is a member (cached); the room is only looked up on failure
+        if (!roomMembershipService.isUserInRoom(senderPhoneNumber, roomId)) {
+            if (!roomRepository.existsById(roomId)) {
+                throw new IllegalArgumentException("Room not found: " + roomId);
+            }
             throw new SecurityException("User is not a member of this room");
         }
         
@@ -119,22 +149,50 @@ public class ChatService {
         ChatMessage message = ChatMessage.create(roomId, senderPhoneNumber, body);
         
         // Publish to Kafka - key by roomId for ordering
-        kafkaTemplate.send("chat.messages", roomId, message);
-        
-        log.info("Published message {} to room {}", message.getMessageId(), roomId);
-        
-        return message;
+        CompletableFuture<ChatSendResult> ack = new CompletableFuture<>();
+        kafkaTemplate.send("chat.messages", roomId, message).whenComplete((result, ex) -> {
+            if (ex != null) {
+                log.error("Failed to publish message {} to room {}: {}",
+                        message.getMessageId(), roomId, ex.getMessage());
+                ack.completeExceptionally(new MessagePublishException(message.getMessageId(), ex));
+                return;
+            }
+            RecordMetadata metadata = result.getRecordMetadata();
+            log.info("Published message {} to room {} (partition={}, offset={})",
+                    message.getMessageId(), roomId, metadata.partition(), metadata.offset());
+            ack.complete(new ChatSendResult(message.getMessageId(), roomId,
+                    metadata.partition(), metadata.offset(), message.getSentAt()));
+        });
+        
+        return ack;
     }
     
     /**
-     * Get messages in a room (paginated).
+     * Get one page of a room's message history, newest first.
+     * 
+     * Fetches one extra row to decide whether an older page exists, so no
+     * count query is needed.
+     * 
+     * @param before cursor from the previous page, or null for the newest messages
+     * @param limit page size, clamped to [1, MAX_HISTORY_PAGE_SIZE]
      */
     @Transactional(readOnly = true)
-    public Page<ChatMessageEntity> getRoomMessages(String roomId, Pageable pageable) {
-        ChatRoomEntity room = roomRepository.findById(roomId)
-                .orElseThrow(() -> new IllegalArgumentException("Room not found: " + roomId));
+    public MessageHistoryPage getRoomMessages(String roomId, MessageCursor before, int limit) {
+        if (!roomRepository.existsById(roomId)) {
+            throw new IllegalArgumentException("Room not found: " + roomId);
+        }
+        
+        int pageSize = Math.clamp(limit, 1, MAX_HISTORY_PAGE_SIZE);
+        Limit fetch = Limit.of(pageSize + 1);
+        List<ChatMessageView> messages = before == null
+                ? messageRepository.findLatest(roomId, fetch)
+                : messageRepository.findBefore(roomId, before.sentAt(), before.id(), fetch);
         
-        return messageRepository.findByRoomOrderBySentAtDesc(room, pageable);
+        if (messages.size() <= pageSize) {
+            return new MessageHistoryPage(messages, null);
+        }
+        List<ChatMessageView> page = messages.subList(0, pageSize);
+        return new MessageHistoryPage(page, MessageCursor.of(page.get(pageSize - 1)));
     }
     
     /**
@@ -146,22 +204,23 @@ public class ChatService {
     }
     
     /**
-     * Persist a message (called by Kafka consumer).
+     * Persist a batch of messages (called by Kafka consumer).
+     * One transaction and one JDBC batch; the room is referenced by ID
+     * without being loaded, and already-persisted messages are skipped.
+     */
+    @Transactional
+    public void persistMessages(List<ChatMessage> messages) {
+        messageJdbcRepository.insertAll(messages);
+        
+        log.debug("Persisted batch of {} messages to database", messages.size());
+    }
+    
+    /**
+     * Persist a single message.
      */
     @Transactional
     public void persistMessage(ChatMessage message) {
-        ChatRoomEntity room = roomRepository.findById(message.getRoomId())
-                .orElseThrow(() -> new IllegalArgumentException("Room not found: " + message.getRoomId()));
-        
-        ChatMessageEntity entity = new ChatMessageEntity();
-        entity.setId(message.getMessageId());
-        entity.setRoom(room);
-        entity.setSenderPhone(message.getSenderPhoneNumber());
-        entity.setBody(message.getBody());
-        entity.setSentAt(Instant.ofEpochMilli(message.getSentAt()));
-        entity.setTtlDays(message.getTtlDays());
-        
-        messageRepository.save(entity);
+        messageJdbcRepository.insertAll(List.of(message));
         
         log.debug("Persisted message {} to database", message.getMessageId());
     }
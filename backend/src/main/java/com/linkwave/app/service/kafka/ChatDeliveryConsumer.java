@@ -0,0 +1,69 @@
+package com.linkwave.app.service.kafka;
+
+import com.linkwave.app.config.ChatConsumerConfig;
+import com.linkwave.app.domain.chat.ChatMessage;
+import com.linkwave.app.service.chat.ChatDeliveryService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Real-time delivery pipeline for chat messages.
+ *
+ * Consumes "chat.messages" in a per-node group and fans each message out to
+ * room members immediately via ChatDeliveryService (STOMP and native /ws),
+ * without waiting for it to be persisted.
+ *
+ * Delivery is best effort: failures are logged and counted, never retried,
+ * and records older than maxAgeMs are skipped. Clients that miss a message
+ * recover it from history once the persistence pipeline has stored it.
+ */
+@Service
+public class ChatDeliveryConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatDeliveryConsumer.class);
+
+    private final ChatDeliveryService deliveryService;
+    private final long maxAgeMs;
+    private final ChatPipelineMetrics metrics;
+
+    public ChatDeliveryConsumer(ChatDeliveryService deliveryService,
+                                ChatConsumerConfig chatConsumerConfig,
+                                MeterRegistry meterRegistry) {
+        this.deliveryService = deliveryService;
+        this.maxAgeMs = chatConsumerConfig.getDelivery().getMaxAgeMs();
+        this.metrics = new ChatPipelineMetrics(meterRegistry, "delivery");
+    }
+
+    @KafkaListener(
+        topics = "chat.messages",
+        containerFactory = "chatDeliveryKafkaListenerContainerFactory"
+    )
+    public void consumeChatMessage(ConsumerRecord<String, ChatMessage> record) {
+        ChatMessage message = record.value();
+        if (message == null) {
+            log.error("Skipping undeserializable record at partition={}, offset={}",
+                    record.partition(), record.offset());
+            metrics.failed();
+            return;
+        }
+
+        long ageMs = metrics.ageMs(record);
+        if (ageMs > maxAgeMs) {
+            log.debug("Skipping stale message {} ({} ms old)", message.getMessageId(), ageMs);
+            metrics.skipped();
+            return;
+        }
+
+        try {
+            deliveryService.deliver(message);
+            metrics.processed(record);
+        } catch (Exception e) {
+            log.error("Failed to deliver message {}: {}", message.getMessageId(), e.getMessage());
+            metrics.failed();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.linkwave.app.service.kafka;
+
+import com.linkwave.app.domain.chat.ChatMessage;
+import com.linkwave.app.service.chat.ChatService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persistence pipeline for chat messages (Phase D).
+ *
+ * Consumes message batches from "chat.messages" in the cluster-wide
+ * persistence group (one poll per call) and stores each batch in one
+ * transaction via ChatService. Real-time delivery is handled by
+ * ChatDeliveryConsumer in its own group, so this pipeline may batch and
+ * lag without delaying clients.
+ *
+ * A batch that violates a constraint (e.g. a message for a deleted room) is
+ * retried row by row so only the offending messages are dropped. Other
+ * persistence failures are rethrown so the error handler retries the batch
+ * and finally publishes it to the dead letter topic; inserts are
+ * idempotent, so replays are safe.
+ */
+@Service
+public class ChatPersistenceConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatPersistenceConsumer.class);
+
+    private final ChatService chatService;
+    private final ChatPipelineMetrics metrics;
+
+    public ChatPersistenceConsumer(ChatService chatService, MeterRegistry meterRegistry) {
+        this.chatService = chatService;
+        this.metrics = new ChatPipelineMetrics(meterRegistry, "persistence");
+    }
+
+    @KafkaListener(
+        topics = "chat.messages",
+        containerFactory = "chatPersistenceKafkaListenerContainerFactory"
+    )
+    public void consumeChatMessages(List<ConsumerRecord<String, ChatMessage>> records) {
+        List<ConsumerRecord<String, ChatMessage>> valid = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, ChatMessage> record : records) {
+            if (record.value() != null) {
+                valid.add(record);
+            } else {
+                log.error("Skipping undeserializable record at partition={}, offset={}",
+                        record.partition(), record.offset());
+                metrics.failed();
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        ConsumerRecord<String, ChatMessage> first = valid.get(0);
+        log.debug("Persisting {} chat messages (first: partition={}, offset={})",
+                valid.size(), first.partition(), first.offset());
+
+        try {
+            chatService.persistMessages(valid.stream().map(ConsumerRecord::value).toList());
+            valid.forEach(metrics::processed);
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Batch of {} messages rejected ({}), persisting individually",
+                    valid.size(), e.getMostSpecificCause().getMessage());
+            persistIndividually(valid);
+        }
+    }
+
+    private void persistIndividually(List<ConsumerRecord<String, ChatMessage>> records) {
+        for (ConsumerRecord<String, ChatMessage> record : records) {
+            ChatMessage message = record.value();
+            try {
+                chatService.persistMessage(message);
+                metrics.processed(record);
+            } catch (DataIntegrityViolationException e) {
+                log.error("Dropping message {} for room {}: {}", message.getMessageId(),
+                        message.getRoomId(), e.getMostSpecificCause().getMessage());
+                metrics.failed();
+            }
+        }
+    }
+}
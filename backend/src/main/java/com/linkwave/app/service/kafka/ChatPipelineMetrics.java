@@ -0,0 +1,87 @@
+package com.linkwave.app.service.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for one chat.messages consumer pipeline.
+ * Every meter is tagged with pipeline=delivery|persistence.
+ *
+ * Meters:
+ * - linkwave.kafka.chat.lag: time from produce to processed (record timestamp)
+ * - linkwave.kafka.chat.processed: records handled successfully
+ * - linkwave.kafka.chat.failed: records that could not be handled
+ * - linkwave.kafka.chat.skipped: records deliberately not handled (e.g. stale)
+ *
+ * Offset lag per group is exported separately by the Kafka client metrics
+ * (kafka.consumer.fetch.manager.records.lag.max, tagged by client.id).
+ */
+public class ChatPipelineMetrics {
+
+    private final Timer lag;
+    private final Counter processed;
+    private final Counter failed;
+    private final Counter skipped;
+
+    public ChatPipelineMetrics(MeterRegistry registry, String pipeline) {
+        this.lag = Timer.builder("linkwave.kafka.chat.lag")
+                .description("Time from produce to processed")
+                .tag("pipeline", pipeline)
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+
+        this.processed = Counter.builder("linkwave.kafka.chat.processed")
+                .description("Chat records handled successfully")
+                .tag("pipeline", pipeline)
+                .register(registry);
+
+        this.failed = Counter.builder("linkwave.kafka.chat.failed")
+                .description("Chat records that could not be handled")
+                .tag("pipeline", pipeline)
+                .register(registry);
+
+        this.skipped = Counter.builder("linkwave.kafka.chat.skipped")
+                .description("Chat records deliberately not handled")
+                .tag("pipeline", pipeline)
+                .register(registry);
+    }
+
+    /**
+     * Age of a record relative to now, in milliseconds (0 if it has no timestamp).
+     */
+    public long ageMs(ConsumerRecord<?, ?> record) {
+        if (record.timestamp() < 0) {
+            return 0;
+        }
+        return Math.max(0, System.currentTimeMillis() - record.timestamp());
+    }
+
+    public void processed(ConsumerRecord<?, ?> record) {
+        processed.increment();
+        lag.record(ageMs(record), TimeUnit.MILLISECONDS);
+    }
+
+    public void failed() {
+        failed.increment();
+    }
+
+    public void skipped() {
+        skipped.increment();
+    }
+
+    public long getProcessed() {
+        return (long) processed.count();
+    }
+
+    public long getFailed() {
+        return (long) failed.count();
+    }
+
+    public long getSkipped() {
+        return (long) skipped.count();
+    }
+}
@@ -0,0 +1,89 @@
+package com.linkwave.app.service.presence;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Allows one heartbeat per user per window, safe to call from any thread.
+ *
+ * Accept times are kept in two generations of concurrent maps. The current
+ * generation takes all writes; once it is a window old it becomes the
+ * previous generation and the old previous one is dropped whole. An entry
+ * in a dropped generation is at least a window old and could not limit
+ * anything, so nothing is swept and memory is bounded by the users heard
+ * from in the last two windows rather than every user who ever connected.
+ *
+ * Rotation happens lazily on the calling thread; no scheduler is involved.
+ */
+class HeartbeatRateLimiter {
+
+    private final long windowMs;
+    private final AtomicReference<Generations> generations;
+
+    private record Generations(Map<String, Long> current, Map<String, Long> previous, long startedAt) {
+    }
+
+    HeartbeatRateLimiter(long windowMs) {
+        this.windowMs = windowMs;
+        // Starts long expired, so the first call opens a generation at its own time
+        this.generations = new AtomicReference<>(
+                new Generations(new ConcurrentHashMap<>(), Collections.emptyMap(), 0));
+    }
+
+    /**
+     * Record a heartbeat at nowMs if the user's last accepted one is at
+     * least a window old.
+     *
+     * @return true if the heartbeat was accepted, false if rate-limited
+     */
+    boolean tryAcquire(String userId, long nowMs) {
+        Generations g = rotateIfDue(nowMs);
+        Long previous = g.previous().get(userId);
+        boolean[] accepted = {false};
+
+        g.current().compute(userId, (id, last) -> {
+            Long latest = last != null ? last : previous;
+            if (latest != null && nowMs - latest < windowMs) {
+                return last;
+            }
+            accepted[0] = true;
+            return nowMs;
+        });
+        return accepted[0];
+    }
+
+    /**
+     * Forget a user's last heartbeat.
+     */
+    void reset(String userId) {
+        Generations g = generations.get();
+        g.current().remove(userId);
+        g.previous().remove(userId);
+    }
+
+    /**
+     * Number of users currently tracked, across both generations.
+     */
+    int size() {
+        Generations g = generations.get();
+        return g.current().size() + g.previous().size();
+    }
+
+    private Generations rotateIfDue(long nowMs) {
+        Generations g = generations.get();
+        while (nowMs - g.startedAt() >= windowMs) {
+            // After two idle windows even the current generation is stale
+            Map<String, Long> previous = nowMs - g.startedAt() >= 2 * windowMs
+                    ? Collections.emptyMap()
+                    : g.current();
+            Generations rotated = new Generations(new ConcurrentHashMap<>(), previous, nowMs);
+            if (generations.compareAndSet(g, rotated)) {
+                return rotated;
+            }
+            g = generations.get();
+        }
+        return g;
+    }
+}
@@ -1,83 +1,208 @@
 package com.linkwave.app.service.presence;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkwave.app.config.PresenceHeartbeatConfig;
 import com.linkwave.app.domain.presence.PresenceMetadata;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Redis-backed presence tracking.
+ *
+ * Each user's presence is a hash at linkwave:presence:{userId} with
+ * fields connections (open sockets across all nodes) and lastSeen
+ * (ISO-8601 instant of the last connect or disconnect). Connect and
+ * disconnect run as Lua scripts that update the count, lastSeen and TTL in
+ * one atomic round trip, so concurrent connects from several devices
+ * cannot lose updates.
+ *
+ * A heartbeat changes nothing but the TTL, so it never touches Redis on the
+ * socket thread: the user is added to this node's set of users seen since
+ * the last flush, and every flushIntervalMs the whole set is renewed with
+ * pipelined EXPIREs (flushBatchSize per round trip). Users whose key had
+ * already gone are marked online again. The TTL is offlineAfterSeconds plus
+ * the flush interval, so a heartbeat waiting for the next flush cannot
+ * let the key expire.
+ *
+ * The key expiring (no heartbeat for offlineAfterSeconds) is what marks a
+ * user offline.
+ *
+ * The scripts also publish on PRESENCE_CHANGES_CHANNEL when a user's first
+ * connection opens or last connection closes, for PresenceSubscriptionService
+ * on every node. Heartbeats never publish.
+ *
+ * Heartbeats are rate-limited to one per user per
+ * HEARTBEAT_MIN_INTERVAL_MS by a HeartbeatRateLimiter, whose entries expire
+ * on their own.
+ *
+ * Meters:
+ * - linkwave.presence.heartbeat.recorded: heartbeats accepted
+ * - linkwave.presence.heartbeat.renewed: TTL renewals written to Redis
+ * - linkwave.presence.heartbeat.pending: users waiting for the next flush
+ */
 @Service
 public class PresenceService {
 
     private static final Logger log = LoggerFactory.getLogger(PresenceService.class);
 
-    private static final String PRESENCE_KEY_PREFIX = "linkwave:presence:";
-    private static final long PRESENCE_TTL_SECONDS = 75;
+    public static final String PRESENCE_KEY_PREFIX = "linkwave:presence:";
+    public static final String PRESENCE_CHANGES_CHANNEL = "linkwave:presence-changes";
+    private static final String CONNECTIONS_FIELD = "connections";
+    private static final String LAST_SEEN_FIELD = "lastSeen";
+    private static final int BULK_CHUNK_SIZE = 500;
     private static final long HEARTBEAT_MIN_INTERVAL_MS = 20_000;
 
+    // KEYS[1] presence key, ARGV[1] lastSeen, ARGV[2] TTL seconds,
+    // ARGV[3] userId, ARGV[4] changes channel.
+    // Keys written as JSON strings by earlier versions are replaced.
+    private static final RedisScript<Long> CONNECT_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('TYPE', KEYS[1]).ok == 'string' then
+                redis.call('DEL', KEYS[1])
+            end
+            local connections = redis.call('HINCRBY', KEYS[1], 'connections', 1)
+            redis.call('HSET', KEYS[1], 'lastSeen', ARGV[1])
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            if connections == 1 then
+                redis.call('PUBLISH', ARGV[4],
+                        cjson.encode({userId = ARGV[3], online = true, lastSeen = ARGV[1]}))
+            end
+            return connections
+            """, Long.class);
+
+    // Returns -1 when there is no presence record to decrement
+    private static final RedisScript<Long> DISCONNECT_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('TYPE', KEYS[1]).ok ~= 'hash' then
+                return -1
+            end
+            local connections = redis.call('HINCRBY', KEYS[1], 'connections', -1)
+            if connections < 0 then
+                connections = 0
+                redis.call('HSET', KEYS[1], 'connections', 0)
+            end
+            redis.call('HSET', KEYS[1], 'lastSeen', ARGV[1])
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            if connections == 0 then
+                redis.call('PUBLISH', ARGV[4],
+                        cjson.encode({userId = ARGV[3], online = false, lastSeen = ARGV[1]}))
+            end
+            return connections
+            """, Long.class);
+
+    // KEYS: presence keys. One {connections, lastSeen} per key, nil if missing.
+    // JSON strings still written by earlier versions during a rolling deploy
+    // would fail HMGET with WRONGTYPE; they count as one connection without
+    // lastSeen instead.
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> READ_SCRIPT = new DefaultRedisScript<>("""
+            local result = {}
+            for i, key in ipairs(KEYS) do
+                local keyType = redis.call('TYPE', key).ok
+                if keyType == 'hash' then
+                    result[i] = redis.call('HMGET', key, 'connections', 'lastSeen')
+                elseif keyType == 'string' then
+                    result[i] = {'1', false}
+                else
+                    result[i] = false
+                end
+            end
+            return result
+            """, List.class);
+
     private final RedisTemplate<String, String> redisTemplate;
-    private final ObjectMapper objectMapper;
+    private final PresenceHeartbeatConfig config;
+    private final long presenceTtlSeconds;
+    private final Counter heartbeatsRecorded;
+    private final Counter heartbeatsRenewed;
+
+    private final HeartbeatRateLimiter heartbeatLimiter = new HeartbeatRateLimiter(HEARTBEAT_MIN_INTERVAL_MS);
 
-    private final Map<String, Long> lastHeartbeatTime = new HashMap<>();
+    // Users with a heartbeat since the last flush
+    private final Set<String> seen = ConcurrentHashMap.newKeySet();
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService scheduler;
 
-    public PresenceService(RedisTemplate<String, String> redisTemplate, ObjectMapper objectMapper) {
+    public PresenceService(RedisTemplate<String, String> redisTemplate,
+            PresenceHeartbeatConfig config,
+            MeterRegistry meterRegistry) {
         this.redisTemplate = redisTemplate;
-        this.objectMapper = objectMapper;
+        this.config = config;
+        this.presenceTtlSeconds = config.getOfflineAfterSeconds()
+                + TimeUnit.MILLISECONDS.toSeconds(config.getFlushIntervalMs() + 999);
+
+        this.heartbeatsRecorded = Counter.builder("linkwave.presence.heartbeat.recorded")
+                .description("Presence heartbeats accepted")
+                .register(meterRegistry);
+        this.heartbeatsRenewed = Counter.builder("linkwave.presence.heartbeat.renewed")
+                .description("Presence TTL renewals written to Redis")
+                .register(meterRegistry);
+        Gauge.builder("linkwave.presence.heartbeat.pending", seen, Set::size)
+                .description("Users with a heartbeat waiting for the next flush")
+                .register(meterRegistry);
+
+        long interval = config.getFlushIntervalMs();
+        if (interval > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("presence-heartbeat-flush").daemon().factory());
+            scheduler.scheduleWithFixedDelay(this::flushHeartbeats, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            scheduler = null;
+        }
     }
 
     public void markOnline(String userId) {
-        String key = getPresenceKey(userId);
-
         try {
-            PresenceMetadata current = getPresenceMetadata(userId);
-            PresenceMetadata updated;
+            Long connections = redisTemplate.execute(CONNECT_SCRIPT, List.of(getPresenceKey(userId)),
+                    Instant.now().toString(), String.valueOf(presenceTtlSeconds),
+                    userId, PRESENCE_CHANGES_CHANNEL);
 
-            if (current == null) {
-
-                updated = new PresenceMetadata(userId, Instant.now(), 1);
+            if (connections != null && connections == 1) {
                 log.info("User {} came online (first connection)", maskUserId(userId));
             } else {
-
-                updated = current.incrementConnections();
-                log.info("User {} added connection (count: {})",
-                        maskUserId(userId), updated.getConnectionCount());
+                log.info("User {} added connection (count: {})", maskUserId(userId), connections);
             }
 
-            setPresenceMetadata(key, updated);
-
         } catch (Exception e) {
             log.error("Failed to mark user {} as online: {}", maskUserId(userId), e.getMessage());
         }
     }
 
     public void markDisconnect(String userId) {
-        String key = getPresenceKey(userId);
-
         try {
-            PresenceMetadata current = getPresenceMetadata(userId);
+            Long connections = redisTemplate.execute(DISCONNECT_SCRIPT, List.of(getPresenceKey(userId)),
+                    Instant.now().toString(), String.valueOf(presenceTtlSeconds),
+                    userId, PRESENCE_CHANGES_CHANNEL);
 
-            if (current == null) {
+            if (connections == null || connections < 0) {
                 log.warn("Disconnect called for user {} with no presence record", maskUserId(userId));
-                return;
-            }
-
-            PresenceMetadata updated = current.decrementConnections();
-            setPresenceMetadata(key, updated);
-
-            if (updated.hasActiveConnections()) {
+            } else if (connections > 0) {
                 log.info("User {} disconnected (remaining connections: {})",
-                        maskUserId(userId), updated.getConnectionCount());
+                        maskUserId(userId), connections);
             } else {
                 log.info("User {} disconnected (last connection, will expire in {}s)",
-                        maskUserId(userId), PRESENCE_TTL_SECONDS);
+                        maskUserId(userId), presenceTtlSeconds);
             }
 
         } catch (Exception e) {
@@ -87,45 +212,87 @@ public class PresenceService {
 
     public boolean recordHeartbeat(String userId) {
 
-        Long lastHeartbeat = lastHeartbeatTime.get(userId);
-        long now = System.currentTimeMillis();
-
-        if (lastHeartbeat != null && (now - lastHeartbeat) < HEARTBEAT_MIN_INTERVAL_MS) {
+        if (!heartbeatLimiter.tryAcquire(userId, System.currentTimeMillis())) {
             log.debug("Heartbeat rate-limited for user {}", maskUserId(userId));
             return false;
         }
 
-        String key = getPresenceKey(userId);
+        seen.add(userId);
+        heartbeatsRecorded.increment();
+        log.debug("Heartbeat recorded for user {}", maskUserId(userId));
 
-        try {
-            PresenceMetadata current = getPresenceMetadata(userId);
+        if (scheduler == null) {
+            flushHeartbeats();
+        }
+        return true;
+    }
 
-            if (current == null) {
-                log.warn("Heartbeat received for user {} with no presence record, marking online",
-                        maskUserId(userId));
-                markOnline(userId);
-                return true;
+    /**
+     * Renew the presence TTL of every user seen since the last flush.
+     * Users whose renewal fails are kept for the next flush.
+     */
+    public void flushHeartbeats() {
+        synchronized (flushLock) {
+            List<String> drained = new ArrayList<>(seen.size());
+            for (String userId : seen) {
+                if (seen.remove(userId)) {
+                    drained.add(userId);
+                }
             }
 
-            PresenceMetadata updated = current.updateLastSeen();
-            setPresenceMetadata(key, updated);
+            int batchSize = Math.max(1, config.getFlushBatchSize());
+            for (int from = 0; from < drained.size(); from += batchSize) {
+                List<String> batch = drained.subList(from, Math.min(from + batchSize, drained.size()));
+                try {
+                    renew(batch);
+                } catch (Exception e) {
+                    log.error("Failed to renew presence of {} users, keeping them for the next flush: {}",
+                            batch.size(), e.getMessage());
+                    seen.addAll(batch);
+                }
+            }
+        }
+    }
 
-            lastHeartbeatTime.put(userId, now);
-            log.debug("Heartbeat recorded for user {} (connections: {})",
-                    maskUserId(userId), updated.getConnectionCount());
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        flushHeartbeats();
+    }
 
-            return true;
+    private void renew(List<String> userIds) {
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                RedisOperations<String, String> ops = operations;
+                for (String userId : userIds) {
+                    ops.expire(getPresenceKey(userId), presenceTtlSeconds, TimeUnit.SECONDS);
+                }
+                return null;
+            }
+        });
+        heartbeatsRenewed.increment(userIds.size());
 
-        } catch (Exception e) {
-            log.error("Failed to record heartbeat for user {}: {}", maskUserId(userId), e.getMessage());
-            return false;
+        for (int i = 0; i < userIds.size(); i++) {
+            if (!Boolean.TRUE.equals(results.get(i))) {
+                String userId = userIds.get(i);
+                log.warn("Heartbeat received for user {} with no presence record, marking online",
+                        maskUserId(userId));
+                markOnline(userId);
+            }
         }
     }
 
+    /**
+     * Whether the user has an open connection. The presence record outlives
+     * the last connection by the TTL (connections = 0) to keep lastSeen.
+     */
     public boolean isUserOnline(String userId) {
-        String key = getPresenceKey(userId);
-        Boolean exists = redisTemplate.hasKey(key);
-        return Boolean.TRUE.equals(exists);
+        PresenceMetadata metadata = getPresenceMetadata(userId);
+        return metadata != null && metadata.hasActiveConnections();
     }
 
     public Instant getLastSeen(String userId) {
@@ -134,39 +301,72 @@ public class PresenceService {
     }
 
     public Map<String, Boolean> getUsersPresence(List<String> userIds) {
+        Map<String, PresenceMetadata> online = getUsersPresenceMetadata(userIds);
         Map<String, Boolean> presenceMap = new HashMap<>();
 
         for (String userId : userIds) {
-            presenceMap.put(userId, isUserOnline(userId));
+            PresenceMetadata metadata = online.get(userId);
+            presenceMap.put(userId, metadata != null && metadata.hasActiveConnections());
         }
 
         return presenceMap;
     }
 
+    /**
+     * Presence records of the given users, keyed by user; users without a
+     * record are left out. A record with no active connections is an
+     * offline user whose lastSeen is still known.
+     * Users are read BULK_CHUNK_SIZE per round trip with READ_SCRIPT, so a
+     * contact list costs one round trip instead of one per contact.
+     */
+    public Map<String, PresenceMetadata> getUsersPresenceMetadata(Collection<String> userIds) {
+        List<String> ordered = new ArrayList<>(new LinkedHashSet<>(userIds));
+        Map<String, PresenceMetadata> online = new HashMap<>();
+
+        for (int from = 0; from < ordered.size(); from += BULK_CHUNK_SIZE) {
+            List<String> chunk = ordered.subList(from, Math.min(from + BULK_CHUNK_SIZE, ordered.size()));
+            List<?> results = readPresence(chunk);
+
+            for (int i = 0; i < chunk.size(); i++) {
+                @SuppressWarnings("unchecked")
+                PresenceMetadata metadata = toMetadata(chunk.get(i), (List<Object>) results.get(i));
+                if (metadata != null) {
+                    online.put(chunk.get(i), metadata);
+                }
+            }
+        }
+
+        return online;
+    }
+
+    @SuppressWarnings("unchecked")
     public PresenceMetadata getPresenceMetadata(String userId) {
-        String key = getPresenceKey(userId);
-        String json = redisTemplate.opsForValue().get(key);
+        List<?> results = readPresence(List.of(userId));
+        return toMetadata(userId, (List<Object>) results.get(0));
+    }
 
-        if (json == null) {
-            return null;
+    private List<?> readPresence(List<String> userIds) {
+        List<String> keys = new ArrayList<>(userIds.size());
+        for (String userId : userIds) {
+            keys.add(getPresenceKey(userId));
         }
+        List<?> results = redisTemplate.execute(READ_SCRIPT, keys);
+        return results != null ? results : Collections.nCopies(userIds.size(), null);
+    }
 
-        try {
-            return objectMapper.readValue(json, PresenceMetadata.class);
-        } catch (JsonProcessingException e) {
-            log.error("Failed to deserialize presence metadata for user {}: {}",
-                    maskUserId(userId), e.getMessage());
+    private PresenceMetadata toMetadata(String userId, List<Object> fields) {
+        if (fields == null || fields.size() < 2 || fields.get(0) == null) {
             return null;
         }
-    }
 
-    private void setPresenceMetadata(String key, PresenceMetadata metadata) {
         try {
-            String json = objectMapper.writeValueAsString(metadata);
-            redisTemplate.opsForValue().set(key, json, PRESENCE_TTL_SECONDS, TimeUnit.SECONDS);
-        } catch (JsonProcessingException e) {
-            log.error("Failed to serialize presence metadata: {}", e.getMessage());
-            throw new RuntimeException("Failed to serialize presence metadata", e);
+            int connections = Integer.parseInt((String) fields.get(0));
+            Instant lastSeen = fields.get(1) != null ? Instant.parse((String) fields.get(1)) : null;
+            return new PresenceMetadata(userId, lastSeen, connections);
+        } catch (RuntimeException e) {
+            log.error("Failed to read presence metadata for user {}: {}",
+                    maskUserId(userId), e.getMessage());
+            return null;
         }
     }
 
@@ -185,10 +385,10 @@ public class PresenceService {
      * Resets the heartbeat time for a user. Used for testing.
      */
     public void resetHeartbeatTime(String userId) {
-        lastHeartbeatTime.remove(userId);
+        heartbeatLimiter.reset(userId);
     }
 
     public long getPresenceTtlSeconds() {
-        return PRESENCE_TTL_SECONDS;
+        return presenceTtlSeconds;
     }
 }
@@ -0,0 +1,346 @@
+package com.linkwave.app.service.presence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkwave.app.config.PresenceSubscriptionConfig;
+import com.linkwave.app.domain.presence.PresenceMetadata;
+import com.linkwave.app.domain.presence.PresenceUpdate;
+import com.linkwave.app.domain.presence.PresenceUpdate.UserPresence;
+import com.linkwave.app.service.websocket.OutboundFrameType;
+import com.linkwave.app.service.websocket.WsSessionManager;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.session.data.redis.config.ConfigureNotifyKeyspaceEventsAction;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes presence changes to sessions that subscribed with presence.subscribe,
+ * replacing REST polling of the presence endpoints.
+ *
+ * Changes come from Redis, so they reach subscribers on every node:
+ * - PresenceService publishes on PRESENCE_CHANGES_CHANNEL when a user's first
+ *   connection opens or last connection closes
+ * - Expired-key notifications for presence keys mean a user went offline
+ *   without disconnecting (crashed node, lost network)
+ *
+ * Changes for the same user within debounceMs are merged and the final
+ * state is pushed only if it differs from the last state pushed for that
+ * user, so reconnects and duplicate signals stay silent.
+ *
+ * Subscriptions are held as copy-on-write arrays in both directions
+ * (user -> subscribed sessions, session -> users); only users with at
+ * least one local subscriber are indexed.
+ *
+ * Meters:
+ * - linkwave.presence.changes.received: changes heard from Redis
+ * - linkwave.presence.changes.pushed: presence.changed frames queued
+ * - linkwave.presence.subscriptions: users with local subscribers
+ */
+@Service
+public class PresenceSubscriptionService {
+
+    private static final Logger log = LoggerFactory.getLogger(PresenceSubscriptionService.class);
+
+    private static final String EXPIRED_KEY_PATTERN = "__keyevent@*__:expired";
+    private static final WebSocketSession[] NO_SESSIONS = new WebSocketSession[0];
+
+    private final PresenceSubscriptionConfig config;
+    private final PresenceService presenceService;
+    private final WsSessionManager sessionManager;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Counter received;
+    private final Counter pushed;
+
+    // userId -> local sessions subscribed to that user
+    private final Map<String, WebSocketSession[]> subscribersByUser = new ConcurrentHashMap<>();
+
+    // sessionId -> users that session is subscribed to
+    private final Map<String, String[]> usersBySession = new ConcurrentHashMap<>();
+
+    // userId -> online state last pushed (or snapshotted) for that user
+    private final Map<String, Boolean> lastPushed = new ConcurrentHashMap<>();
+
+    // userId -> newest change waiting for its debounce window to close
+    private final Map<String, PresenceChange> pending = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler;
+    private RedisMessageListenerContainer listenerContainer;
+
+    /**
+     * Message published by PresenceService's connect/disconnect scripts.
+     */
+    public record PresenceChange(String userId, boolean online, String lastSeen) {
+    }
+
+    public PresenceSubscriptionService(PresenceSubscriptionConfig config,
+            PresenceService presenceService,
+            WsSessionManager sessionManager,
+            RedisTemplate<String, String> redisTemplate,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
+        this.config = config;
+        this.presenceService = presenceService;
+        this.sessionManager = sessionManager;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.received = Counter.builder("linkwave.presence.changes.received")
+                .description("Presence changes received from Redis")
+                .register(meterRegistry);
+        this.pushed = Counter.builder("linkwave.presence.changes.pushed")
+                .description("presence.changed frames queued for subscribers")
+                .register(meterRegistry);
+        Gauge.builder("linkwave.presence.subscriptions", subscribersByUser, Map::size)
+                .description("Users with at least one presence subscriber on this node")
+                .register(meterRegistry);
+        this.scheduler = config.getDebounceMs() > 0
+                ? Executors.newSingleThreadScheduledExecutor(
+                        Thread.ofPlatform().name("presence-push").daemon().factory())
+                : null;
+    }
+
+    /**
+     * Listen for presence changes and expired presence keys.
+     */
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled()) {
+            log.info("Presence change pushes disabled");
+            return;
+        }
+
+        if (config.isConfigureKeyspaceNotifications()) {
+            try (RedisConnection connection = redisTemplate.getConnectionFactory().getConnection()) {
+                new ConfigureNotifyKeyspaceEventsAction().configure(connection);
+            } catch (Exception e) {
+                log.warn("Could not enable keyspace notifications, TTL expiry will not be pushed: {}",
+                        e.getMessage());
+            }
+        }
+
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(redisTemplate.getConnectionFactory());
+        listenerContainer.addMessageListener(
+                (message, pattern) -> onChangeMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(PresenceService.PRESENCE_CHANGES_CHANNEL));
+        listenerContainer.addMessageListener(
+                (message, pattern) -> onKeyExpired(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new PatternTopic(EXPIRED_KEY_PATTERN));
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+    }
+
+    /**
+     * Replace a session's subscriptions with the given users.
+     * An empty list unsubscribes from everything. If the session closed
+     * while subscribing, the subscriptions are dropped again: unsubscribe
+     * may already have run for it.
+     *
+     * @return current presence of the subscribed users, for presence.snapshot
+     */
+    public PresenceUpdate subscribe(WebSocketSession session, List<String> userIds) {
+        Set<String> distinct = new LinkedHashSet<>(userIds);
+        if (distinct.size() > config.getMaxUsersPerSession()) {
+            log.warn("Session {} subscribed to {} users, keeping the first {}",
+                    session.getId(), distinct.size(), config.getMaxUsersPerSession());
+            distinct = new LinkedHashSet<>(new ArrayList<>(distinct).subList(0, config.getMaxUsersPerSession()));
+        }
+        String[] users = distinct.toArray(new String[0]);
+
+        String[] previous = users.length > 0
+                ? usersBySession.put(session.getId(), users)
+                : usersBySession.remove(session.getId());
+        if (previous != null) {
+            for (String userId : previous) {
+                if (!distinct.contains(userId)) {
+                    removeSubscriber(userId, session);
+                }
+            }
+        }
+        Set<String> before = previous != null ? Set.of(previous) : Set.of();
+        for (String userId : users) {
+            if (!before.contains(userId)) {
+                addSubscriber(userId, session);
+            }
+        }
+
+        // Checked after registering, so either this or unsubscribe sees the other's changes
+        if (!session.isOpen()) {
+            usersBySession.remove(session.getId(), users);
+            for (String userId : users) {
+                removeSubscriber(userId, session);
+            }
+            return PresenceUpdate.snapshot(List.of());
+        }
+
+        if (users.length == 0) {
+            return PresenceUpdate.snapshot(List.of());
+        }
+
+        Map<String, PresenceMetadata> online = presenceService.getUsersPresenceMetadata(distinct);
+        List<UserPresence> snapshot = new ArrayList<>(users.length);
+        for (String userId : users) {
+            PresenceMetadata metadata = online.get(userId);
+            boolean isOnline = metadata != null && metadata.hasActiveConnections();
+            Long lastSeen = metadata != null && metadata.getLastSeen() != null
+                    ? metadata.getLastSeen().toEpochMilli()
+                    : null;
+            // Baseline for suppressing pushes that repeat the snapshot
+            lastPushed.putIfAbsent(userId, isOnline);
+            snapshot.add(new UserPresence(userId, isOnline, lastSeen));
+        }
+        return PresenceUpdate.snapshot(snapshot);
+    }
+
+    /**
+     * Drop all subscriptions of a closed session.
+     */
+    public void unsubscribe(WebSocketSession session) {
+        String[] users = usersBySession.remove(session.getId());
+        if (users == null) {
+            return;
+        }
+        for (String userId : users) {
+            removeSubscriber(userId, session);
+        }
+    }
+
+    /**
+     * Record a presence change, pushing it once its debounce window closes.
+     * Changes for users without local subscribers are ignored.
+     */
+    public void onChange(PresenceChange change) {
+        received.increment();
+        String userId = change.userId();
+        if (!subscribersByUser.containsKey(userId)) {
+            return;
+        }
+        if (scheduler == null) {
+            push(change);
+            return;
+        }
+
+        if (pending.put(userId, change) == null) {
+            scheduler.schedule(() -> flush(userId), config.getDebounceMs(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (listenerContainer != null) {
+            try {
+                listenerContainer.destroy();
+            } catch (Exception e) {
+                log.warn("Failed to stop presence listener: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void onChangeMessage(String body) {
+        try {
+            onChange(objectMapper.readValue(body, PresenceChange.class));
+        } catch (Exception e) {
+            log.error("Failed to handle presence change: {}", e.getMessage());
+        }
+    }
+
+    private void onKeyExpired(String key) {
+        if (!key.startsWith(PresenceService.PRESENCE_KEY_PREFIX)) {
+            return;
+        }
+        // Nothing renewed the key for a whole TTL, so the user was last seen about then
+        Instant lastSeen = Instant.now().minusSeconds(presenceService.getPresenceTtlSeconds());
+        onChange(new PresenceChange(key.substring(PresenceService.PRESENCE_KEY_PREFIX.length()),
+                false, lastSeen.toString()));
+    }
+
+    private void flush(String userId) {
+        PresenceChange change = pending.remove(userId);
+        if (change != null) {
+            push(change);
+        }
+    }
+
+    private void push(PresenceChange change) {
+        String userId = change.userId();
+        WebSocketSession[] subscribers = subscribersByUser.get(userId);
+        if (subscribers == null) {
+            return;
+        }
+        Boolean previous = lastPushed.put(userId, change.online());
+        if (previous != null && previous == change.online()) {
+            return;
+        }
+
+        try {
+            Long lastSeen = change.lastSeen() != null ? Instant.parse(change.lastSeen()).toEpochMilli() : null;
+            TextMessage frame = new TextMessage(objectMapper.writeValueAsString(
+                    PresenceUpdate.changed(new UserPresence(userId, change.online(), lastSeen))));
+            for (WebSocketSession session : subscribers) {
+                sessionManager.send(session, frame, OutboundFrameType.PRESENCE);
+            }
+            pushed.increment();
+        } catch (Exception e) {
+            log.error("Failed to push presence change: {}", e.getMessage());
+        }
+    }
+
+    private void addSubscriber(String userId, WebSocketSession session) {
+        subscribersByUser.compute(userId, (id, sessions) -> {
+            WebSocketSession[] current = sessions != null ? sessions : NO_SESSIONS;
+            WebSocketSession[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = session;
+            return updated;
+        });
+    }
+
+    private void removeSubscriber(String userId, WebSocketSession session) {
+        subscribersByUser.computeIfPresent(userId, (id, sessions) -> {
+            int index = -1;
+            for (int i = 0; i < sessions.length; i++) {
+                if (sessions[i] == session) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                return sessions;
+            }
+            if (sessions.length == 1) {
+                lastPushed.remove(userId);
+                return null;
+            }
+            WebSocketSession[] updated = new WebSocketSession[sessions.length - 1];
+            System.arraycopy(sessions, 0, updated, 0, index);
+            System.arraycopy(sessions, index + 1, updated, index, sessions.length - index - 1);
+            return updated;
+        });
+    }
+}
@@ -0,0 +1,7 @@
+package com.linkwave.app.service.readreceipt;
+
+/**
+ * A reader's requested read position in a room, not yet validated or persisted.
+ */
+public record ReadPosition(String roomId, String readerPhoneNumber, String messageId) {
+}
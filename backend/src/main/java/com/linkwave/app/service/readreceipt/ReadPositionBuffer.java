@@ -0,0 +1,218 @@
+package com.linkwave.app.service.readreceipt;
+
+import com.linkwave.app.config.ReadReceiptConfig;
+import com.linkwave.app.domain.chat.ReadUpToEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind buffer for read.up_to positions.
+ * 
+ * record() returns at once: it only adds the requested message to the
+ * candidates pending for (room, reader), so a client firing read.up_to on
+ * every scroll tick costs one map write per tick. The buffer cannot order
+ * messages without loading them, and an older read.up_to may arrive after
+ * a newer one (several devices, reordered dispatch), so every distinct
+ * candidate is kept. Every flushIntervalMs the buffer is drained and
+ * written through ReadReceiptService.advanceReadUpToAll in batches (a few
+ * queries per batch instead of several per frame), which writes only the
+ * furthest candidate per key; the positions that moved a watermark are
+ * handed to ReadReceiptBroadcaster.
+ * 
+ * Memory is bounded by maxPendingPositions keys; past that, positions for
+ * new keys are written through synchronously on the caller's (virtual)
+ * thread. A key collecting more than MAX_CANDIDATES_PER_KEY candidates is
+ * written through the same way. A failed batch is merged back into the
+ * candidates, so the furthest position still wins at the next flush.
+ * Pending positions are flushed on shutdown.
+ * 
+ * Meters (coalescing ratio = recorded / written):
+ * - linkwave.read.position.recorded: read.up_to positions received
+ * - linkwave.read.position.coalesced: positions merged into a pending write for the same key
+ * - linkwave.read.position.written: positions that moved a watermark
+ * - linkwave.read.position.overflow: positions written through because the buffer was full
+ * - linkwave.read.position.pending: positions currently buffered
+ */
+@Service
+public class ReadPositionBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadPositionBuffer.class);
+
+    private static final int MAX_CANDIDATES_PER_KEY = 16;
+
+    private final ReadReceiptConfig config;
+    private final ReadReceiptService readReceiptService;
+    private final ReadReceiptBroadcaster broadcaster;
+    private final Counter recorded;
+    private final Counter coalesced;
+    private final Counter written;
+    private final Counter overflow;
+
+    private final Map<PendingKey, List<String>> pending = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService scheduler;
+
+    private record PendingKey(String roomId, String readerPhoneNumber) {
+    }
+
+    public ReadPositionBuffer(ReadReceiptConfig config,
+                              ReadReceiptService readReceiptService,
+                              ReadReceiptBroadcaster broadcaster,
+                              MeterRegistry meterRegistry) {
+        this.config = config;
+        this.readReceiptService = readReceiptService;
+        this.broadcaster = broadcaster;
+
+        this.recorded = Counter.builder("linkwave.read.position.recorded")
+                .description("read.up_to positions received")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("linkwave.read.position.coalesced")
+                .description("Read positions merged into a pending write for the same reader and room")
+                .register(meterRegistry);
+        this.written = Counter.builder("linkwave.read.position.written")
+                .description("Read positions that moved a watermark")
+                .register(meterRegistry);
+        this.overflow = Counter.builder("linkwave.read.position.overflow")
+                .description("Read positions written through because the buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("linkwave.read.position.pending", pending, Map::size)
+                .description("Read positions waiting to be written")
+                .register(meterRegistry);
+
+        long interval = config.getFlushIntervalMs();
+        if (interval > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("read-position-flush").daemon().factory());
+            scheduler.scheduleWithFixedDelay(this::flushSafely, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Record that a reader has read up to messageId. Validation errors
+     * (NotFoundException, UnauthorizedException) surface only when the
+     * position is written through; buffered positions that fail
+     * validation are dropped at flush.
+     */
+    public void record(String roomId, String messageId, String readerPhoneNumber) {
+        recorded.increment();
+        if (scheduler == null) {
+            writeThrough(roomId, messageId, readerPhoneNumber);
+            return;
+        }
+
+        PendingKey key = new PendingKey(roomId, readerPhoneNumber);
+        if (pending.size() >= config.getMaxPendingPositions() && !pending.containsKey(key)) {
+            overflow.increment();
+            writeThrough(roomId, messageId, readerPhoneNumber);
+            return;
+        }
+        boolean[] merged = {false};
+        List<String> candidates = pending.compute(key, (k, current) -> {
+            if (current == null) {
+                return List.of(messageId);
+            }
+            merged[0] = true;
+            return current.contains(messageId) ? current : append(current, messageId);
+        });
+        if (merged[0]) {
+            coalesced.increment();
+        }
+
+        if (candidates.size() > MAX_CANDIDATES_PER_KEY && pending.remove(key, candidates)) {
+            write(toPositions(key, candidates));
+        }
+    }
+
+    /**
+     * Write every buffered position. Package-private for tests.
+     */
+    void flush() {
+        synchronized (flushLock) {
+            List<ReadPosition> drained = new ArrayList<>(pending.size());
+            for (PendingKey key : pending.keySet()) {
+                List<String> candidates = pending.remove(key);
+                if (candidates != null) {
+                    drained.addAll(toPositions(key, candidates));
+                }
+            }
+
+            int batchSize = Math.max(1, config.getFlushBatchSize());
+            for (int from = 0; from < drained.size(); from += batchSize) {
+                List<ReadPosition> batch = drained.subList(from, Math.min(from + batchSize, drained.size()));
+                try {
+                    write(batch);
+                } catch (Exception e) {
+                    log.error("Failed to write {} read positions, keeping them for the next flush: {}",
+                            batch.size(), e.getMessage());
+                    for (ReadPosition position : batch) {
+                        // Merged with anything recorded since; the furthest is picked at the next flush
+                        pending.merge(new PendingKey(position.roomId(), position.readerPhoneNumber()),
+                                List.of(position.messageId()),
+                                (current, failed) -> current.contains(position.messageId())
+                                        ? current : append(current, position.messageId()));
+                    }
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        flush();
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Read position flush failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void writeThrough(String roomId, String messageId, String readerPhoneNumber) {
+        readReceiptService.advanceReadUpTo(roomId, messageId, readerPhoneNumber)
+                .ifPresent(moved -> {
+                    broadcaster.submit(moved);
+                    written.increment();
+                });
+    }
+
+    private void write(List<ReadPosition> positions) {
+        List<ReadUpToEvent> moved = readReceiptService.advanceReadUpToAll(positions);
+        moved.forEach(broadcaster::submit);
+        written.increment(moved.size());
+    }
+
+    private static List<ReadPosition> toPositions(PendingKey key, List<String> candidates) {
+        List<ReadPosition> positions = new ArrayList<>(candidates.size());
+        for (String messageId : candidates) {
+            positions.add(new ReadPosition(key.roomId(), key.readerPhoneNumber(), messageId));
+        }
+        return positions;
+    }
+
+    private static List<String> append(List<String> candidates, String messageId) {
+        List<String> appended = new ArrayList<>(candidates.size() + 1);
+        appended.addAll(candidates);
+        appended.add(messageId);
+        return List.copyOf(appended);
+    }
+}
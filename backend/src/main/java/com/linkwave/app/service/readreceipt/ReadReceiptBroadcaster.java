@@ -0,0 +1,157 @@
+package com.linkwave.app.service.readreceipt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkwave.app.config.ReadReceiptConfig;
+import com.linkwave.app.domain.chat.ReadReceiptEvent;
+import com.linkwave.app.domain.chat.ReadUpToEvent;
+import com.linkwave.app.service.websocket.OutboundFrameType;
+import com.linkwave.app.service.websocket.RoomFanoutEngine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Broadcasts read state changes to local room members (excluding the reader).
+ * 
+ * By default a reader's progress is sent as one read.up_to frame carrying
+ * the high-water message, however many messages it covers. Moves by the
+ * same reader in the same room within broadcastWindowMs are merged: the
+ * first one opens the window, later ones only replace the pending
+ * position, and the newest position is broadcast when the window closes.
+ * 
+ * With legacyPerMessageEvents the handler sends one read.receipt per
+ * message instead, through broadcastReceipt.
+ * 
+ * Meters:
+ * - linkwave.read.up_to.submitted: read position moves handed in
+ * - linkwave.read.up_to.broadcast: read.up_to frames broadcast
+ */
+@Service
+public class ReadReceiptBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadReceiptBroadcaster.class);
+
+    private final ReadReceiptConfig config;
+    private final RoomFanoutEngine roomFanout;
+    private final ObjectMapper objectMapper;
+    private final Counter submitted;
+    private final Counter broadcast;
+
+    private final Map<PendingKey, ReadUpToEvent> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    private record PendingKey(String roomId, String readerId) {
+    }
+
+    public ReadReceiptBroadcaster(ReadReceiptConfig config,
+                                  RoomFanoutEngine roomFanout,
+                                  ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry) {
+        this.config = config;
+        this.roomFanout = roomFanout;
+        this.objectMapper = objectMapper;
+        this.submitted = Counter.builder("linkwave.read.up_to.submitted")
+                .description("Read position moves submitted for broadcast")
+                .register(meterRegistry);
+        this.broadcast = Counter.builder("linkwave.read.up_to.broadcast")
+                .description("read.up_to frames broadcast after merging")
+                .register(meterRegistry);
+        this.scheduler = config.getBroadcastWindowMs() > 0
+                ? Executors.newSingleThreadScheduledExecutor(
+                        Thread.ofPlatform().name("read-up-to-broadcast").daemon().factory())
+                : null;
+    }
+
+    public boolean isLegacyPerMessageEvents() {
+        return config.isLegacyPerMessageEvents();
+    }
+
+    /**
+     * Queue a read position for broadcast, merging it with a pending one
+     * for the same reader and room.
+     */
+    public void submit(ReadUpToEvent event) {
+        submitted.increment();
+        if (scheduler == null) {
+            send(event);
+            return;
+        }
+
+        PendingKey key = new PendingKey(event.getRoomId(), event.getReaderId());
+        boolean[] opened = new boolean[1];
+        pending.compute(key, (k, current) -> {
+            if (current == null) {
+                opened[0] = true;
+                return event;
+            }
+            return event.isAfter(current) ? event : current;
+        });
+
+        if (opened[0]) {
+            scheduler.schedule(() -> flush(key), config.getBroadcastWindowMs(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Broadcast a single legacy read.receipt event.
+     */
+    public void broadcastReceipt(ReadReceiptEvent event) {
+        try {
+            TextMessage frame = new TextMessage(objectMapper.writeValueAsString(event));
+
+            int recipients = roomFanout.broadcast(event.getRoomId(), frame,
+                    OutboundFrameType.RECEIPT, event.getReaderId());
+
+            log.debug("Broadcasted read receipt for message {} in room {} to {} members",
+                    event.getMessageId(), event.getRoomId(), recipients);
+
+        } catch (Exception e) {
+            log.error("Error broadcasting read receipt: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        // Send what is still pending rather than losing the newest positions
+        for (PendingKey key : new ArrayList<>(pending.keySet())) {
+            flush(key);
+        }
+    }
+
+    private void flush(PendingKey key) {
+        ReadUpToEvent event = pending.remove(key);
+        if (event != null) {
+            send(event);
+        }
+    }
+
+    private void send(ReadUpToEvent event) {
+        try {
+            TextMessage frame = new TextMessage(objectMapper.writeValueAsString(event));
+
+            int recipients = roomFanout.broadcast(event.getRoomId(), frame,
+                    OutboundFrameType.RECEIPT, event.getReaderId());
+            broadcast.increment();
+
+            log.debug("Broadcasted read.up_to {} in room {} to {} members",
+                    event.getMessageId(), event.getRoomId(), recipients);
+
+        } catch (Exception e) {
+            log.error("Error broadcasting read.up_to: {}", e.getMessage());
+        }
+    }
+}
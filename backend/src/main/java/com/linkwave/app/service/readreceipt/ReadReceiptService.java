@@ -1,42 +1,70 @@
 package com.linkwave.app.service.readreceipt;
 
-import com.linkwave.app.domain.chat.ReadReceiptEntity;
-import com.linkwave.app.repository.ReadReceiptRepository;
+import com.linkwave.app.domain.chat.ChatMessagePosition;
+import com.linkwave.app.domain.chat.ReadReceiptEvent;
+import com.linkwave.app.domain.chat.ReadUpToEvent;
+import com.linkwave.app.domain.chat.ReadWatermarkEntity;
+import com.linkwave.app.repository.ReadWatermarkJdbcRepository;
+import com.linkwave.app.repository.ReadWatermarkRepository;
 import com.linkwave.app.service.room.RoomMembershipService;
 import com.linkwave.app.repository.ChatMessageRepository;
 import com.linkwave.app.domain.chat.ChatMessageEntity;
 import com.linkwave.app.exception.NotFoundException;
 import com.linkwave.app.exception.UnauthorizedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
+/**
+ * Read state backed by one watermark per (room, reader).
+ * 
+ * Marking a message read moves the reader's watermark to it with a single
+ * upsert; every earlier message in the room counts as read too. Readers
+ * and unread counts are derived by comparing watermarks with a message's
+ * (sentAt, id). A move is reported as a single read.up_to position; the
+ * legacy per-message read.receipt events are expanded from one index
+ * range scan on chat_messages only when asked for.
+ */
 @Service
 public class ReadReceiptService {
 
-    private final ReadReceiptRepository repository;
+    private static final Logger log = LoggerFactory.getLogger(ReadReceiptService.class);
+
+    // Position before every message, for readers without a watermark
+    private static final Instant ORIGIN_SENT_AT = Instant.EPOCH;
+    private static final String ORIGIN_MESSAGE_ID = "";
+
+    private final ReadWatermarkRepository watermarkRepository;
+    private final ReadWatermarkJdbcRepository watermarkJdbcRepository;
     private final RoomMembershipService roomMembershipService;
     private final ChatMessageRepository messageRepository;
 
     public ReadReceiptService(
-            ReadReceiptRepository repository,
+            ReadWatermarkRepository watermarkRepository,
+            ReadWatermarkJdbcRepository watermarkJdbcRepository,
             RoomMembershipService roomMembershipService,
             ChatMessageRepository messageRepository) {
-        this.repository = repository;
+        this.watermarkRepository = watermarkRepository;
+        this.watermarkJdbcRepository = watermarkJdbcRepository;
         this.roomMembershipService = roomMembershipService;
         this.messageRepository = messageRepository;
     }
 
     public static class ReadReceiptResult {
         private final boolean newRead;
-        private final ReadReceiptEntity receipt;
+        private final ReadReceiptEvent receipt;
 
-        public ReadReceiptResult(boolean newRead, ReadReceiptEntity receipt) {
+        public ReadReceiptResult(boolean newRead, ReadReceiptEvent receipt) {
             this.newRead = newRead;
             this.receipt = receipt;
         }
@@ -45,7 +73,7 @@ public class ReadReceiptService {
             return new ReadReceiptResult(false, null);
         }
 
-        public static ReadReceiptResult newRead(ReadReceiptEntity receipt) {
+        public static ReadReceiptResult newRead(ReadReceiptEvent receipt) {
             return new ReadReceiptResult(true, receipt);
         }
 
@@ -53,17 +81,24 @@ public class ReadReceiptService {
             return newRead;
         }
 
-        public ReadReceiptEntity getReceipt() {
+        public ReadReceiptEvent getReceipt() {
             return receipt;
         }
     }
 
+    /**
+     * Mark a single message read by moving the watermark to it.
+     */
     @Transactional
     public ReadReceiptResult markMessageRead(
             String messageId,
             String roomId,
             String readerPhoneNumber) {
-        if (repository.existsByMessageIdAndReaderPhoneNumber(messageId, readerPhoneNumber)) {
+        ChatMessageEntity message = findMessageInRoom(messageId, roomId);
+
+        Optional<ReadWatermarkEntity> watermark =
+                watermarkRepository.findByRoomIdAndReaderPhoneNumber(roomId, readerPhoneNumber);
+        if (watermark.isPresent() && watermark.get().covers(message.getSentAt(), messageId)) {
             return ReadReceiptResult.alreadyRead();
         }
 
@@ -71,94 +106,196 @@ public class ReadReceiptService {
             throw new UnauthorizedException("Not a room member");
         }
 
-        ReadReceiptEntity receipt = new ReadReceiptEntity();
-        receipt.setMessageId(messageId);
-        receipt.setRoomId(roomId);
-        receipt.setReaderPhoneNumber(readerPhoneNumber);
-        receipt.setReadAt(Instant.now());
-        receipt.setCreatedAt(Instant.now());
-
-        repository.save(receipt);
+        Instant now = Instant.now();
+        if (!watermarkJdbcRepository.advance(roomId, readerPhoneNumber, message.getSentAt(), messageId, now)) {
+            return ReadReceiptResult.alreadyRead(); // Concurrently moved past it
+        }
 
-        return ReadReceiptResult.newRead(receipt);
+        return ReadReceiptResult.newRead(
+                new ReadReceiptEvent(roomId, messageId, readerPhoneNumber, now.toEpochMilli()));
     }
 
+    /**
+     * Mark everything in the room up to and including the given message
+     * read, returning one result per message the watermark moved over.
+     * Only needed for legacy per-message read.receipt events; see
+     * advanceReadUpTo.
+     */
     @Transactional
     public List<ReadReceiptResult> markReadUpTo(
             String roomId,
             String messageId,
             String readerPhoneNumber) {
+        WatermarkMove move = advance(roomId, messageId, readerPhoneNumber);
+        if (move == null) {
+            return new ArrayList<>();
+        }
 
-        ChatMessageEntity targetMsg = messageRepository.findById(messageId)
-                .orElseThrow(() -> new NotFoundException("Message not found"));
+        ReadWatermarkEntity previous = move.previous();
+        List<String> newlyRead = messageRepository.findIdsBetween(roomId,
+                previous != null ? previous.getLastReadSentAt() : ORIGIN_SENT_AT,
+                previous != null ? previous.getLastReadMessageId() : ORIGIN_MESSAGE_ID,
+                move.target().getSentAt(), messageId);
 
-        // CRITICAL: Validate that the message belongs to the specified room
-        if (!targetMsg.getRoom().getId().equals(roomId)) {
-            throw new UnauthorizedException("Message does not belong to specified room");
+        List<ReadReceiptResult> results = new ArrayList<>(newlyRead.size());
+        for (String msgId : newlyRead) {
+            results.add(ReadReceiptResult.newRead(
+                    new ReadReceiptEvent(roomId, msgId, readerPhoneNumber, move.readAt().toEpochMilli())));
         }
+        return results;
+    }
 
-        // Validate room membership once for the batch
-        if (!roomMembershipService.isUserInRoom(readerPhoneNumber, roomId)) {
-            throw new UnauthorizedException("Not a room member");
+    /**
+     * Mark everything in the room up to and including the given message
+     * read, returning the new read position, or empty if the watermark was
+     * already at or past it.
+     */
+    @Transactional
+    public Optional<ReadUpToEvent> advanceReadUpTo(
+            String roomId,
+            String messageId,
+            String readerPhoneNumber) {
+        WatermarkMove move = advance(roomId, messageId, readerPhoneNumber);
+        if (move == null) {
+            return Optional.empty();
         }
+        return Optional.of(new ReadUpToEvent(roomId, readerPhoneNumber, messageId,
+                move.target().getSentAt().toEpochMilli(), move.readAt().toEpochMilli()));
+    }
 
-        Instant targetTimestamp = targetMsg.getSentAt();
-        Instant maxReadTimestamp = repository.findMaxReadMessageTimestamp(roomId, readerPhoneNumber);
-
-        // Strict ordering: If trying to read something older than what was already
-        // read, ignore it.
-        // This prevents "filling in gaps" from the past.
-        if (maxReadTimestamp != null && !targetTimestamp.isAfter(maxReadTimestamp)) {
-            return new ArrayList<>();
+    /**
+     * Apply a batch of buffered read positions: one query for the target
+     * messages, one for the current watermarks and one JDBC batch of
+     * upserts. Positions for unknown messages, messages from another room,
+     * non-members, or positions at or behind the watermark are skipped.
+     * Several positions for the same reader and room may be passed in any
+     * order; only the furthest one is written.
+     *
+     * @return the read positions that moved a watermark
+     */
+    @Transactional
+    public List<ReadUpToEvent> advanceReadUpToAll(List<ReadPosition> positions) {
+        Map<String, ChatMessagePosition> messages = new HashMap<>();
+        for (ChatMessagePosition message : messageRepository.findPositions(
+                positions.stream().map(ReadPosition::messageId).distinct().toList())) {
+            messages.put(message.id(), message);
         }
 
-        // Find unread messages up to targetTimestamp, BUT STRICTLY AFTER
-        // maxReadTimestamp
-        List<String> unreadMessageIds = repository.findUnreadMessageIdsUpTo(
-                roomId, readerPhoneNumber, targetTimestamp, maxReadTimestamp);
+        Map<ReadWatermarkEntity.Key, ReadWatermarkEntity> watermarks = new HashMap<>();
+        for (ReadWatermarkEntity watermark : watermarkRepository.findAllById(positions.stream()
+                .map(p -> new ReadWatermarkEntity.Key(p.roomId(), p.readerPhoneNumber()))
+                .toList())) {
+            watermarks.put(new ReadWatermarkEntity.Key(watermark.getRoomId(), watermark.getReaderPhoneNumber()),
+                    watermark);
+        }
 
-        if (unreadMessageIds.isEmpty()) {
-            return new ArrayList<>();
+        Instant now = Instant.now();
+        Map<ReadWatermarkEntity.Key, ReadWatermarkEntity> furthest = new LinkedHashMap<>();
+        for (ReadPosition position : positions) {
+            ChatMessagePosition message = messages.get(position.messageId());
+            if (message == null || !message.roomId().equals(position.roomId())) {
+                log.debug("Skipping read position for unknown message {} in room {}",
+                        position.messageId(), position.roomId());
+                continue;
+            }
+            ReadWatermarkEntity.Key key = new ReadWatermarkEntity.Key(position.roomId(), position.readerPhoneNumber());
+            ReadWatermarkEntity watermark = watermarks.get(key);
+            if (watermark != null && watermark.covers(message.sentAt(), message.id())) {
+                continue;
+            }
+            ReadWatermarkEntity candidate = furthest.get(key);
+            if (candidate != null && candidate.covers(message.sentAt(), message.id())) {
+                continue;
+            }
+            if (candidate == null
+                    && !roomMembershipService.isUserInRoom(position.readerPhoneNumber(), position.roomId())) {
+                log.debug("Skipping read position of non-member in room {}", position.roomId());
+                continue;
+            }
+            furthest.put(key, new ReadWatermarkEntity(position.roomId(), position.readerPhoneNumber(),
+                    message.sentAt(), message.id(), now));
         }
 
-        int MAX_BATCH_SIZE = 50;
-        if (unreadMessageIds.size() > MAX_BATCH_SIZE) {
-            // If we have more than batch size, we should probably read up to the batch
-            // limit
-            // But for now, just processing the first 50 found (which are ordered by time
-            // ASC)
-            // is safe. The user will need to send another read receipt for the rest.
-            unreadMessageIds = unreadMessageIds.subList(0, MAX_BATCH_SIZE);
+        // Concurrent writers may have moved some of them past the target since they were read
+        Set<ReadWatermarkEntity.Key> advanced =
+                watermarkJdbcRepository.advanceAll(new ArrayList<>(furthest.values()));
+        List<ReadUpToEvent> moved = new ArrayList<>(advanced.size());
+        for (Map.Entry<ReadWatermarkEntity.Key, ReadWatermarkEntity> entry : furthest.entrySet()) {
+            if (advanced.contains(entry.getKey())) {
+                ReadWatermarkEntity move = entry.getValue();
+                moved.add(new ReadUpToEvent(move.getRoomId(), move.getReaderPhoneNumber(),
+                        move.getLastReadMessageId(), move.getLastReadSentAt().toEpochMilli(), now.toEpochMilli()));
+            }
         }
+        return moved;
+    }
 
-        List<ReadReceiptEntity> newReceipts = new ArrayList<>();
-        Instant now = Instant.now();
+    /**
+     * A watermark move from previous (null if none) to target.
+     */
+    private record WatermarkMove(ReadWatermarkEntity previous, ChatMessageEntity target, Instant readAt) {
+    }
 
-        for (String msgId : unreadMessageIds) {
-            ReadReceiptEntity receipt = new ReadReceiptEntity();
-            receipt.setMessageId(msgId);
-            receipt.setRoomId(roomId);
-            receipt.setReaderPhoneNumber(readerPhoneNumber);
-            receipt.setReadAt(now);
-            receipt.setCreatedAt(now);
-            newReceipts.add(receipt);
+    /**
+     * Validate and move the reader's watermark to the given message.
+     *
+     * @return the move, or null if the watermark was already at or past it
+     */
+    private WatermarkMove advance(String roomId, String messageId, String readerPhoneNumber) {
+        ChatMessageEntity targetMsg = findMessageInRoom(messageId, roomId);
+
+        if (!roomMembershipService.isUserInRoom(readerPhoneNumber, roomId)) {
+            throw new UnauthorizedException("Not a room member");
         }
 
-        repository.saveAll(newReceipts);
+        Instant targetTimestamp = targetMsg.getSentAt();
+        ReadWatermarkEntity watermark = watermarkRepository
+                .findByRoomIdAndReaderPhoneNumber(roomId, readerPhoneNumber)
+                .orElse(null);
+
+        // Strict ordering: reading something at or before the watermark is a no-op
+        if (watermark != null && watermark.covers(targetTimestamp, messageId)) {
+            return null;
+        }
 
-        return newReceipts.stream()
-                .map(ReadReceiptResult::newRead)
-                .collect(Collectors.toList());
+        Instant now = Instant.now();
+        if (!watermarkJdbcRepository.advance(roomId, readerPhoneNumber, targetTimestamp, messageId, now)) {
+            return null; // Concurrently moved past it
+        }
+        return new WatermarkMove(watermark, targetMsg, now);
     }
 
     public List<String> getMessageReaders(String messageId) {
-        return repository.findByMessageId(messageId)
-                .stream()
-                .map(ReadReceiptEntity::getReaderPhoneNumber)
-                .collect(Collectors.toList());
+        return messageRepository.findById(messageId)
+                .map(m -> watermarkRepository.findReadersOf(m.getRoom().getId(), m.getSentAt(), m.getId()))
+                .orElseGet(List::of);
     }
 
     public long getReadCount(String messageId) {
-        return repository.countByMessageId(messageId);
+        return messageRepository.findById(messageId)
+                .map(m -> watermarkRepository.countReadersOf(m.getRoom().getId(), m.getSentAt(), m.getId()))
+                .orElse(0L);
+    }
+
+    /**
+     * Number of messages in the room after the reader's watermark.
+     */
+    public long getUnreadCount(String roomId, String readerPhoneNumber) {
+        Optional<ReadWatermarkEntity> watermark =
+                watermarkRepository.findByRoomIdAndReaderPhoneNumber(roomId, readerPhoneNumber);
+        return messageRepository.countAfter(roomId,
+                watermark.map(ReadWatermarkEntity::getLastReadSentAt).orElse(ORIGIN_SENT_AT),
+                watermark.map(ReadWatermarkEntity::getLastReadMessageId).orElse(ORIGIN_MESSAGE_ID));
+    }
+
+    private ChatMessageEntity findMessageInRoom(String messageId, String roomId) {
+        ChatMessageEntity message = messageRepository.findById(messageId)
+                .orElseThrow(() -> new NotFoundException("Message not found"));
+
+        // CRITICAL: Validate that the message belongs to the specified room
+        if (!message.getRoom().getId().equals(roomId)) {
+            throw new UnauthorizedException("Message does not belong to specified room");
+        }
+        return message;
     }
 }
@@ -0,0 +1,75 @@
+package com.linkwave.app.service.readreceipt;
+
+import com.linkwave.app.config.ReadReceiptConfig;
+import com.linkwave.app.repository.ReadWatermarkJdbcRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Carries read state over from per-message read_receipts to read_watermarks.
+ *
+ * No migration tool runs db/migration, and read_watermarks is created by
+ * Hibernate (ddl-auto), so the backfill in V4__create_read_watermarks.sql
+ * is applied here at startup instead: once Hibernate has created the
+ * table, each reader's watermark is moved up to their newest receipted
+ * message per room, under an advisory lock so nodes take turns.
+ *
+ * read_receipts is kept, so nodes of the previous version can keep
+ * writing to it during a rolling deploy and rolling back loses nothing;
+ * every node that starts backfills again, picking up what they wrote.
+ * With dropLegacyReceipts set, the table is dropped after a last
+ * backfill; set it once no node of the previous version is left.
+ */
+@Service
+@DependsOn("entityManagerFactory")
+public class ReadWatermarkBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadWatermarkBackfill.class);
+
+    private final ReadWatermarkJdbcRepository watermarkJdbcRepository;
+    private final ReadReceiptConfig config;
+    private final TransactionTemplate transactionTemplate;
+
+    public ReadWatermarkBackfill(ReadWatermarkJdbcRepository watermarkJdbcRepository,
+                                 ReadReceiptConfig config,
+                                 PlatformTransactionManager transactionManager) {
+        this.watermarkJdbcRepository = watermarkJdbcRepository;
+        this.config = config;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void run() {
+        if (!watermarkJdbcRepository.hasLegacyReceipts()) {
+            return;
+        }
+
+        Integer moved = transactionTemplate.execute(status -> {
+            watermarkJdbcRepository.lockBackfill();
+            // Another node may have dropped it while this one waited for the lock
+            if (!watermarkJdbcRepository.hasLegacyReceipts()) {
+                return null;
+            }
+            int count = watermarkJdbcRepository.backfillFromLegacyReceipts();
+            if (config.isDropLegacyReceipts()) {
+                watermarkJdbcRepository.dropLegacyReceipts();
+            }
+            return count;
+        });
+
+        if (moved == null) {
+            return;
+        }
+        if (config.isDropLegacyReceipts()) {
+            log.info("Backfilled {} read watermarks from read_receipts and dropped it", moved);
+        } else {
+            log.info("Backfilled {} read watermarks from read_receipts; set "
+                    + "linkwave.read-receipts.drop-legacy-receipts once every node is upgraded", moved);
+        }
+    }
+}
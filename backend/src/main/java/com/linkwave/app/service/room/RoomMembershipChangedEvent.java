@@ -0,0 +1,19 @@
+package com.linkwave.app.service.room;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Application event published when users join or leave a room.
+ * Listeners run after the membership change has committed.
+ */
+public record RoomMembershipChangedEvent(String roomId, Set<String> addedMembers, Set<String> removedMembers) {
+
+    public static RoomMembershipChangedEvent added(String roomId, Collection<String> members) {
+        return new RoomMembershipChangedEvent(roomId, Set.copyOf(members), Set.of());
+    }
+
+    public static RoomMembershipChangedEvent removed(String roomId, Collection<String> members) {
+        return new RoomMembershipChangedEvent(roomId, Set.of(), Set.copyOf(members));
+    }
+}
@@ -1,47 +1,80 @@
 package com.linkwave.app.service.room;
 
-import com.linkwave.app.domain.chat.ChatMemberEntity;
-import com.linkwave.app.repository.ChatRoomRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.linkwave.app.config.RoomMembershipCacheConfig;
+import com.linkwave.app.repository.ChatMemberRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
-
 
+/**
+ * Room membership lookups backed by a per-room member set cache.
+ * 
+ * Each entry holds the phone numbers of one room's members as an
+ * immutable set, loaded with a single column query (no room or member
+ * entities). Entries are evicted by size (maxRooms) and reloaded after
+ * ttlSeconds, and dropped as soon as a RoomMembershipChangedEvent for
+ * the room commits, so createDirectRoom/createGroupRoom and any future
+ * add/remove-member path only have to publish that event.
+ * 
+ * Unknown rooms are cached as empty sets until their creation event.
+ * Cache statistics are exposed as cache.* meters tagged
+ * cache=room-membership (hits, misses, evictions).
+ */
 @Service
 public class RoomMembershipService {
 
     private static final Logger log = LoggerFactory.getLogger(RoomMembershipService.class);
 
-    private final ChatRoomRepository roomRepository;
+    private final ChatMemberRepository memberRepository;
+    private final Cache<String, Set<String>> roomMembers;
 
-    public RoomMembershipService(ChatRoomRepository roomRepository) {
-        this.roomRepository = roomRepository;
+    public RoomMembershipService(ChatMemberRepository memberRepository,
+                                 RoomMembershipCacheConfig config,
+                                 MeterRegistry meterRegistry) {
+        this.memberRepository = memberRepository;
+        this.roomMembers = Caffeine.newBuilder()
+                .maximumSize(config.getMaxRooms())
+                .expireAfterWrite(Duration.ofSeconds(config.getTtlSeconds()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, roomMembers, "room-membership");
     }
 
-    
     public boolean isUserInRoom(String userId, String roomId) {
-        return roomRepository.findById(roomId)
-                .map(room -> room.getMembers().stream()
-                        .anyMatch(member -> member.getPhoneNumber().equals(userId)))
-                .orElse(false);
+        return members(roomId).contains(userId);
     }
 
-    
     public Set<String> getRoomMembers(String roomId) {
-        return roomRepository.findById(roomId)
-                .map(room -> room.getMembers().stream()
-                        .map(ChatMemberEntity::getPhoneNumber)
-                        .collect(Collectors.toSet()))
-                .orElse(Set.of());
+        return members(roomId);
+    }
+
+    public List<String> getUserRoomIds(String userId) {
+        return memberRepository.findRoomIdsByPhoneNumber(userId);
     }
 
-    
     public int getRoomMemberCount(String roomId) {
-        return roomRepository.findById(roomId)
-                .map(room -> room.getMembers().size())
-                .orElse(0);
+        return members(roomId).size();
+    }
+
+    /**
+     * Drop a room's cached members once a membership change has committed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMembershipChanged(RoomMembershipChangedEvent event) {
+        roomMembers.invalidate(event.roomId());
+        log.debug("Invalidated cached members of room {}", event.roomId());
+    }
+
+    private Set<String> members(String roomId) {
+        return roomMembers.get(roomId, id -> Set.copyOf(memberRepository.findPhoneNumbersByRoomId(id)));
     }
 }
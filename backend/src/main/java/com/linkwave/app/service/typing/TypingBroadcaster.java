@@ -0,0 +1,279 @@
+package com.linkwave.app.service.typing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkwave.app.config.NodeConfig;
+import com.linkwave.app.config.TypingConfig;
+import com.linkwave.app.domain.typing.TypingEvent;
+import com.linkwave.app.domain.typing.TypingRosterEvent;
+import com.linkwave.app.service.websocket.OutboundFrameType;
+import com.linkwave.app.service.websocket.RoomFanoutEngine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Broadcasts typing changes (start, stop, disconnect, timeout) to room members.
+ *
+ * By default a room gets typing.update frames carrying the whole roster
+ * from TypingStateManager.getTypingUsers, at most one per rosterIntervalMs:
+ * the first change after a quiet interval is sent at once, later ones only
+ * mark the room dirty and the roster is read and sent when the interval
+ * closes. A roster equal to the last one sent is not broadcast, so a burst
+ * of starts by users already shown as typing costs nothing.
+ *
+ * Rosters are per node: each node sends the typers connected to it, and
+ * clients show the union of the latest roster from every node (see
+ * TypingRosterEvent). A roster carries ttlMs = rosterTtlMs; clients drop
+ * it once that has passed without a newer one from the same node, and
+ * non-empty rosters are re-sent every rosterTtlMs / 2 so that only the
+ * typers of a crashed node ever expire on the client.
+ *
+ * With legacyPerUserEvents every change is sent as its own typing.event
+ * to the room, excluding the typer.
+ *
+ * Registered as TypingStateManager's expiry listener, so timeouts are
+ * broadcast exactly once.
+ *
+ * Meters:
+ * - linkwave.typing.changes: typing changes handed in
+ * - linkwave.typing.frames.broadcast: typing.update/typing.event frames broadcast
+ * - linkwave.typing.roster.unchanged: roster flushes skipped because nothing changed
+ * - linkwave.typing.roster.refreshed: unchanged rosters re-sent before they expire
+ */
+@Service
+public class TypingBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(TypingBroadcaster.class);
+
+    private final TypingConfig config;
+    private final TypingStateManager typingStateManager;
+    private final RoomFanoutEngine roomFanout;
+    private final NodeConfig nodeConfig;
+    private final ObjectMapper objectMapper;
+    private final Counter changes;
+    private final Counter framesBroadcast;
+    private final Counter unchanged;
+    private final Counter refreshed;
+    private final LongSupplier clock;
+
+    // Rooms with a roster sent in the last interval or a flush pending
+    private final Map<String, RoomRoster> rosters = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    private static final class RoomRoster {
+        volatile List<String> sent = List.of();
+        volatile long sentAt;
+        boolean flushScheduled;
+    }
+
+    @Autowired
+    public TypingBroadcaster(TypingConfig config,
+                             TypingStateManager typingStateManager,
+                             RoomFanoutEngine roomFanout,
+                             NodeConfig nodeConfig,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry) {
+        this(config, typingStateManager, roomFanout, nodeConfig, objectMapper, meterRegistry,
+                System::currentTimeMillis);
+    }
+
+    /**
+     * Rosters are throttled and refreshed by the given clock. Used for testing.
+     */
+    TypingBroadcaster(TypingConfig config,
+                      TypingStateManager typingStateManager,
+                      RoomFanoutEngine roomFanout,
+                      NodeConfig nodeConfig,
+                      ObjectMapper objectMapper,
+                      MeterRegistry meterRegistry,
+                      LongSupplier clock) {
+        this.config = config;
+        this.clock = clock;
+        this.typingStateManager = typingStateManager;
+        this.roomFanout = roomFanout;
+        this.nodeConfig = nodeConfig;
+        this.objectMapper = objectMapper;
+        this.changes = Counter.builder("linkwave.typing.changes")
+                .description("Typing starts, stops and timeouts submitted for broadcast")
+                .register(meterRegistry);
+        this.framesBroadcast = Counter.builder("linkwave.typing.frames.broadcast")
+                .description("Typing frames broadcast to rooms")
+                .register(meterRegistry);
+        this.unchanged = Counter.builder("linkwave.typing.roster.unchanged")
+                .description("Roster flushes skipped because the roster had not changed")
+                .register(meterRegistry);
+        this.refreshed = Counter.builder("linkwave.typing.roster.refreshed")
+                .description("Unchanged typing rosters re-sent before clients expire them")
+                .register(meterRegistry);
+        boolean rosters = !config.isLegacyPerUserEvents();
+        this.scheduler = rosters && (config.getRosterIntervalMs() > 0 || config.getRosterTtlMs() > 0)
+                ? Executors.newSingleThreadScheduledExecutor(
+                        Thread.ofPlatform().name("typing-roster-broadcast").daemon().factory())
+                : null;
+        if (rosters && config.getRosterTtlMs() > 0) {
+            long refreshMs = Math.max(1, config.getRosterTtlMs() / 2);
+            scheduler.scheduleAtFixedRate(this::refreshSafely, refreshMs, refreshMs, TimeUnit.MILLISECONDS);
+        }
+
+        typingStateManager.setExpiryListener(
+                state -> typingChanged(state.roomId, state.userId, TypingEvent.TypingAction.STOP));
+    }
+
+    /**
+     * Broadcast that a user started or stopped typing in a room. The typing
+     * state must already be updated in TypingStateManager.
+     */
+    public void typingChanged(String roomId, String userId, TypingEvent.TypingAction action) {
+        changes.increment();
+        if (config.isLegacyPerUserEvents()) {
+            broadcastTypingEvent(roomId, userId, action);
+            return;
+        }
+        if (config.getRosterIntervalMs() <= 0) {
+            flush(roomId);
+            return;
+        }
+
+        long now = clock.getAsLong();
+        long[] delay = {-1};
+        rosters.compute(roomId, (id, roster) -> {
+            RoomRoster target = roster != null ? roster : new RoomRoster();
+            if (!target.flushScheduled) {
+                target.flushScheduled = true;
+                delay[0] = Math.max(0, target.sentAt + config.getRosterIntervalMs() - now);
+            }
+            return target;
+        });
+
+        if (delay[0] >= 0) {
+            scheduler.schedule(() -> flush(roomId), delay[0], TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Re-send every non-empty roster that was last sent rosterTtlMs / 2 or
+     * longer ago, before clients expire it. Package-private for tests.
+     */
+    void refreshRosters() {
+        long now = clock.getAsLong();
+        long refreshMs = config.getRosterTtlMs() / 2;
+        for (Map.Entry<String, RoomRoster> entry : rosters.entrySet()) {
+            RoomRoster roster = entry.getValue();
+            if (!roster.sent.isEmpty() && now - roster.sentAt >= refreshMs) {
+                flush(entry.getKey(), true);
+            }
+        }
+    }
+
+    private void refreshSafely() {
+        try {
+            refreshRosters();
+        } catch (Exception e) {
+            log.error("Error refreshing typing rosters: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Read the room's roster and broadcast it if it differs from the last
+     * one sent. Package-private for tests.
+     */
+    void flush(String roomId) {
+        flush(roomId, false);
+    }
+
+    /**
+     * @param refresh broadcast the roster even if it is the one last sent
+     */
+    private void flush(String roomId, boolean refresh) {
+        if (!refresh) {
+            // Cleared before reading, so a change landing during the read schedules another flush
+            rosters.computeIfPresent(roomId, (id, current) -> {
+                current.flushScheduled = false;
+                return current;
+            });
+        }
+
+        List<String> roster = new ArrayList<>(typingStateManager.getTypingUsers(roomId));
+        roster.sort(null);
+        long now = clock.getAsLong();
+
+        boolean[] changed = {false};
+        rosters.compute(roomId, (id, current) -> {
+            RoomRoster target = current != null ? current : new RoomRoster();
+            if (refresh || !roster.equals(target.sent)) {
+                changed[0] = true;
+                target.sent = roster;
+                target.sentAt = now;
+            }
+            // An empty roster needs no throttling state; the next start is sent at once
+            return target.sent.isEmpty() && !target.flushScheduled ? null : target;
+        });
+
+        if (!changed[0]) {
+            unchanged.increment();
+            return;
+        }
+        if (refresh) {
+            refreshed.increment();
+        }
+
+        try {
+            TypingRosterEvent event = new TypingRosterEvent(roomId, nodeConfig.getId(), roster, now,
+                    config.getRosterTtlMs());
+            TextMessage frame = new TextMessage(objectMapper.writeValueAsString(event));
+
+            int recipients = roomFanout.broadcast(roomId, frame, OutboundFrameType.TYPING, null);
+            framesBroadcast.increment();
+
+            log.debug("Broadcasted typing.update ({} typing) in room {} to {} members",
+                    roster.size(), roomId, recipients);
+
+        } catch (Exception e) {
+            log.error("Error broadcasting typing roster: {}", e.getMessage());
+        }
+    }
+
+    private void broadcastTypingEvent(String roomId, String senderId, TypingEvent.TypingAction action) {
+        try {
+            TypingEvent event = new TypingEvent(senderId, roomId, action);
+            TextMessage frame = new TextMessage(objectMapper.writeValueAsString(event));
+
+            int recipients = roomFanout.broadcast(roomId, frame, OutboundFrameType.TYPING, senderId);
+            framesBroadcast.increment();
+
+            log.debug("Broadcasted typing.{} for user {} in room {} to {} members",
+                    action.name().toLowerCase(), maskUserId(senderId), roomId, recipients);
+
+        } catch (Exception e) {
+            log.error("Error broadcasting typing event: {}", e.getMessage());
+        }
+    }
+
+    private String maskUserId(String userId) {
+        if (userId == null || userId.length() < 7) {
+            return "***";
+        }
+        return userId.substring(0, 4) + "***" + userId.substring(userId.length() - 2);
+    }
+}
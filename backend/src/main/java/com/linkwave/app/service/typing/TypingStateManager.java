@@ -1,13 +1,19 @@
 package com.linkwave.app.service.typing;
 
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 
@@ -16,84 +22,130 @@ public class TypingStateManager {
 
     private static final Logger log = LoggerFactory.getLogger(TypingStateManager.class);
 
-    
-    private static final long TYPING_TIMEOUT_SECONDS = 5;
+
+    private static final long TYPING_TIMEOUT_MS = 5000;
+    private static final long EXPIRY_TICK_MS = 250;
     private static final long RATE_LIMIT_SECONDS = 2;
 
-    
-    private final Map<String, Set<TypingState>> roomTypingState = new ConcurrentHashMap<>();
+    // roomId -> (sessionId -> typing state)
+    private final Map<String, Map<String, TypingState>> roomTypingState = new ConcurrentHashMap<>();
+
+    // sessionId -> rooms that session has typing state in, so a disconnect
+    // only touches its own rooms
+    private final Map<String, Set<String>> roomsBySession = new ConcurrentHashMap<>();
+
+    // userId -> (roomId -> last accepted typing.start)
+    private final Map<String, Map<String, Instant>> lastTypingStart = new ConcurrentHashMap<>();
+
+    // Every typing state is armed here; only entries falling due are visited
+    private final TypingTimeoutWheel<TypingState> expiryWheel;
+    private final Object expiryLock = new Object();
+    private final long timeoutMs;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService scheduler;
+    private volatile Consumer<ExpiredTypingState> expiryListener = state -> { };
+
+    public TypingStateManager() {
+        this(TYPING_TIMEOUT_MS, EXPIRY_TICK_MS, System::currentTimeMillis, true);
+    }
+
+    /**
+     * Without a scheduler, expiry only runs when cleanupStaleTyping is called.
+     * Used for testing.
+     */
+    TypingStateManager(long timeoutMs, long tickMs, LongSupplier clock, boolean scheduled) {
+        this.timeoutMs = timeoutMs;
+        this.clock = clock;
+        this.expiryWheel = new TypingTimeoutWheel<>(tickMs, timeoutMs, clock.getAsLong());
+        if (scheduled) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("typing-expiry").daemon().factory());
+            scheduler.scheduleAtFixedRate(this::expireSafely, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        } else {
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Set the single callback for typing states that time out, e.g. to
+     * broadcast typing.stop. Called on the expiry thread.
+     */
+    public void setExpiryListener(Consumer<ExpiredTypingState> expiryListener) {
+        this.expiryListener = expiryListener;
+    }
 
-    
-    private final Map<String, Instant> lastTypingStart = new ConcurrentHashMap<>();
 
-    
     public boolean markTypingStart(String roomId, String userId, String sessionId) {
-        String rateLimitKey = userId + ":" + roomId;
         Instant now = Instant.now();
+        Map<String, Instant> userStarts = lastTypingStart.computeIfAbsent(userId, k -> new ConcurrentHashMap<>());
+
 
-        
-        Instant lastStart = lastTypingStart.get(rateLimitKey);
+        Instant lastStart = userStarts.get(roomId);
         if (lastStart != null && now.isBefore(lastStart.plusSeconds(RATE_LIMIT_SECONDS))) {
             log.debug("Rate limited typing.start for user {} in room {}", maskUserId(userId), roomId);
             return false;
         }
 
-        
-        lastTypingStart.put(rateLimitKey, now);
 
-        
-        roomTypingState.computeIfAbsent(roomId, k -> ConcurrentHashMap.newKeySet())
-                .add(new TypingState(userId, sessionId, now));
+        userStarts.put(roomId, now);
+
+
+        long deadline = clock.getAsLong() + timeoutMs;
+        TypingState[] armed = new TypingState[1];
+        roomTypingState.compute(roomId, (k, typingUsers) -> {
+            Map<String, TypingState> target = typingUsers != null ? typingUsers : new ConcurrentHashMap<>();
+            TypingState existing = target.get(sessionId);
+            if (existing != null) {
+                existing.refresh(deadline);
+            } else {
+                armed[0] = new TypingState(roomId, userId, sessionId, deadline);
+                target.put(sessionId, armed[0]);
+            }
+            return target;
+        });
+        if (armed[0] != null) {
+            expiryWheel.schedule(armed[0]);
+            roomsBySession.compute(sessionId, (k, rooms) -> {
+                Set<String> target = rooms != null ? rooms : ConcurrentHashMap.newKeySet();
+                target.add(roomId);
+                return target;
+            });
+        }
 
         log.debug("User {} started typing in room {}", maskUserId(userId), roomId);
         return true;
     }
 
-    
-    public void markTypingStop(String roomId, String userId, String sessionId) {
-        Set<TypingState> typingUsers = roomTypingState.get(roomId);
-        if (typingUsers != null) {
-            typingUsers.removeIf(state -> state.userId.equals(userId) && state.sessionId.equals(sessionId));
-
-            
-            if (typingUsers.isEmpty()) {
-                roomTypingState.remove(roomId);
-            }
 
+    public void markTypingStop(String roomId, String userId, String sessionId) {
+        if (removeTypingState(roomId, sessionId, state -> true) != null) {
+            unindexRoom(sessionId, roomId);
             log.debug("User {} stopped typing in room {}", maskUserId(userId), roomId);
         }
     }
 
-    
+
     public Set<String> getTypingUsers(String roomId) {
-        Set<TypingState> typingUsers = roomTypingState.get(roomId);
+        Map<String, TypingState> typingUsers = roomTypingState.get(roomId);
         if (typingUsers == null || typingUsers.isEmpty()) {
             return Collections.emptySet();
         }
 
-        return typingUsers.stream()
+        return typingUsers.values().stream()
                 .map(state -> state.userId)
                 .collect(Collectors.toSet());
     }
 
-    
+
     public List<String> clearUserTyping(String userId, String sessionId) {
         List<String> affectedRooms = new ArrayList<>();
 
-        for (Map.Entry<String, Set<TypingState>> entry : roomTypingState.entrySet()) {
-            String roomId = entry.getKey();
-            Set<TypingState> typingUsers = entry.getValue();
-
-            boolean removed = typingUsers
-                    .removeIf(state -> state.userId.equals(userId) && state.sessionId.equals(sessionId));
-
-            if (removed) {
-                affectedRooms.add(roomId);
-            }
-
-            
-            if (typingUsers.isEmpty()) {
-                roomTypingState.remove(roomId);
+        Set<String> rooms = roomsBySession.remove(sessionId);
+        if (rooms != null) {
+            for (String roomId : rooms) {
+                if (removeTypingState(roomId, sessionId, state -> true) != null) {
+                    affectedRooms.add(roomId);
+                }
             }
         }
 
@@ -102,83 +154,111 @@ public class TypingStateManager {
                     maskUserId(userId), affectedRooms.size());
         }
 
-        
-        lastTypingStart.entrySet().removeIf(e -> e.getKey().startsWith(userId + ":"));
+
+        lastTypingStart.remove(userId);
 
         return affectedRooms;
     }
 
-    
-    @Scheduled(fixedDelay = 2000)
+    /**
+     * Expire the typing states whose timeout has passed, notify the expiry
+     * listener of each and return them. Runs every tick on the expiry
+     * thread; cost follows the number of timeouts falling due.
+     */
     public List<ExpiredTypingState> cleanupStaleTyping() {
-        Instant cutoff = Instant.now().minusSeconds(TYPING_TIMEOUT_SECONDS);
         List<ExpiredTypingState> expired = new ArrayList<>();
 
-        for (Map.Entry<String, Set<TypingState>> entry : roomTypingState.entrySet()) {
-            String roomId = entry.getKey();
-            Set<TypingState> typingUsers = entry.getValue();
-
-            List<TypingState> stale = typingUsers.stream()
-                    .filter(state -> state.lastActivity.isBefore(cutoff))
-                    .collect(Collectors.toList());
-
-            for (TypingState state : stale) {
-                typingUsers.remove(state);
-                expired.add(new ExpiredTypingState(roomId, state.userId, state.sessionId));
-            }
-
-            
-            if (typingUsers.isEmpty()) {
-                roomTypingState.remove(roomId);
+        synchronized (expiryLock) {
+            long now = clock.getAsLong();
+            for (TypingState state : expiryWheel.advance(now)) {
+                // A refresh may have landed since the wheel checked the deadline
+                if (removeTypingState(state.roomId, state.sessionId,
+                        current -> current == state && current.deadlineMs() <= now) != null) {
+                    unindexRoom(state.sessionId, state.roomId);
+                    expired.add(new ExpiredTypingState(state.roomId, state.userId, state.sessionId));
+                } else if (!state.isCancelled()) {
+                    expiryWheel.schedule(state);
+                }
             }
         }
 
         if (!expired.isEmpty()) {
-            log.debug("Cleaned up {} stale typing indicators", expired.size());
+            log.debug("Expired {} typing indicators", expired.size());
+            Consumer<ExpiredTypingState> listener = expiryListener;
+            for (ExpiredTypingState state : expired) {
+                listener.accept(state);
+            }
         }
 
         return expired;
     }
 
-    
+
     public TypingStats getStats() {
         int totalRooms = roomTypingState.size();
         int totalTypingUsers = roomTypingState.values().stream()
-                .mapToInt(Set::size)
+                .mapToInt(Map::size)
                 .sum();
 
         return new TypingStats(totalRooms, totalTypingUsers);
     }
 
-    
-    private static class TypingState {
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void expireSafely() {
+        try {
+            cleanupStaleTyping();
+        } catch (Exception e) {
+            log.error("Typing expiry failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Remove a session's typing state from a room, dropping the room once
+     * nobody is typing in it. The state is only removed if it matches the
+     * condition.
+     */
+    private TypingState removeTypingState(String roomId, String sessionId, Predicate<TypingState> condition) {
+        TypingState[] removed = new TypingState[1];
+        roomTypingState.computeIfPresent(roomId, (k, typingUsers) -> {
+            TypingState state = typingUsers.get(sessionId);
+            if (state != null && condition.test(state)) {
+                typingUsers.remove(sessionId);
+                state.cancel();
+                removed[0] = state;
+            }
+            return typingUsers.isEmpty() ? null : typingUsers;
+        });
+        return removed[0];
+    }
+
+    private void unindexRoom(String sessionId, String roomId) {
+        roomsBySession.computeIfPresent(sessionId, (k, rooms) -> {
+            rooms.remove(roomId);
+            return rooms.isEmpty() ? null : rooms;
+        });
+    }
+
+
+    private static class TypingState extends TypingTimeoutWheel.Timeout {
+        final String roomId;
         final String userId;
         final String sessionId;
-        final Instant lastActivity;
 
-        TypingState(String userId, String sessionId, Instant lastActivity) {
+        TypingState(String roomId, String userId, String sessionId, long deadlineMs) {
+            super(deadlineMs);
+            this.roomId = roomId;
             this.userId = userId;
             this.sessionId = sessionId;
-            this.lastActivity = lastActivity;
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            if (this == o)
-                return true;
-            if (o == null || getClass() != o.getClass())
-                return false;
-            TypingState that = (TypingState) o;
-            return userId.equals(that.userId) && sessionId.equals(that.sessionId);
-        }
-
-        @Override
-        public int hashCode() {
-            return Objects.hash(userId, sessionId);
         }
     }
 
-    
+
     public static class ExpiredTypingState {
         public final String roomId;
         public final String userId;
@@ -191,7 +271,7 @@ public class TypingStateManager {
         }
     }
 
-    
+
     public static class TypingStats {
         public final int activeRooms;
         public final int typingUsers;
@@ -0,0 +1,115 @@
+package com.linkwave.app.service.typing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hashed timing wheel for typing indicator timeouts.
+ *
+ * A timeout is dropped into the bucket of the tick its deadline falls in.
+ * advance() only visits the buckets of the ticks that have passed, so its
+ * cost follows the number of timeouts falling due, not the number of
+ * people typing.
+ *
+ * Refreshing a timeout only moves its deadline (see Timeout#refresh); when
+ * its old bucket comes round it is re-inserted for the new deadline, so a
+ * refresh costs one field write and each timeout is re-inserted at most
+ * once per refresh cycle. Cancelled timeouts are dropped when their bucket
+ * comes round.
+ *
+ * schedule() may be called from any thread; advance() from one thread at
+ * a time.
+ */
+class TypingTimeoutWheel<T extends TypingTimeoutWheel.Timeout> {
+
+    /**
+     * Something with a deadline that can be pushed back or cancelled.
+     */
+    abstract static class Timeout {
+
+        private volatile long deadlineMs;
+        private volatile boolean cancelled;
+
+        protected Timeout(long deadlineMs) {
+            this.deadlineMs = deadlineMs;
+        }
+
+        long deadlineMs() {
+            return deadlineMs;
+        }
+
+        void refresh(long deadlineMs) {
+            this.deadlineMs = deadlineMs;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private final long tickMs;
+    private final Queue<T>[] buckets;
+
+    // First tick not yet processed by advance()
+    private volatile long nextTick;
+
+    /**
+     * @param tickMs  resolution; a timeout fires up to one tick late
+     * @param spanMs  usual distance to a deadline; the wheel gets enough
+     *                buckets that a timeout is visited only when due
+     * @param nowMs   current time
+     */
+    @SuppressWarnings("unchecked")
+    TypingTimeoutWheel(long tickMs, long spanMs, long nowMs) {
+        this.tickMs = tickMs;
+        int size = (int) (spanMs / tickMs) + 2;
+        this.buckets = new Queue[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.nextTick = nowMs / tickMs;
+    }
+
+    void schedule(T timeout) {
+        long tick = Math.max(timeout.deadlineMs() / tickMs, nextTick);
+        buckets[(int) (tick % buckets.length)].add(timeout);
+    }
+
+    /**
+     * Process every tick up to nowMs.
+     *
+     * @return timeouts that are due and were not cancelled
+     */
+    List<T> advance(long nowMs) {
+        List<T> expired = new ArrayList<>();
+        long lastTick = nowMs / tickMs;
+        long tick = nextTick;
+
+        // After a long pause one lap covers every bucket
+        long firstTick = Math.max(tick, lastTick - buckets.length + 1);
+        for (tick = firstTick; tick <= lastTick; tick++) {
+            Queue<T> bucket = buckets[(int) (tick % buckets.length)];
+            List<T> later = new ArrayList<>();
+            T timeout;
+            while ((timeout = bucket.poll()) != null) {
+                if (timeout.isCancelled()) {
+                    continue;
+                }
+                if (timeout.deadlineMs() <= nowMs) {
+                    expired.add(timeout);
+                } else {
+                    later.add(timeout);
+                }
+            }
+            nextTick = tick + 1;
+            later.forEach(this::schedule);
+        }
+        return expired;
+    }
+}
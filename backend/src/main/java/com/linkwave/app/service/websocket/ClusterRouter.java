@@ -0,0 +1,310 @@
+package com.linkwave.app.service.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkwave.app.config.ClusterRoutingConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.TextMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers frames to users connected to other nodes.
+ *
+ * Every node subscribes to its own Redis channel (linkwave:ws:node:{nodeId})
+ * and registers its connected users in the NodeRegistry, renewing them
+ * every renewIntervalSeconds. Frames forwarded for remote users are
+ * collected for batchWindowMs; each flush resolves all recipients with one
+ * pipelined registry lookup and publishes one batch per target node, so a
+ * busy room costs one publish per node per window rather than one per
+ * recipient. Receiving nodes hand the frames to their local sessions.
+ *
+ * Users connected to this node are never routed through Redis: the caller
+ * delivers to them directly (see RoomFanoutEngine).
+ *
+ * Meters:
+ * - linkwave.ws.cluster.forwarded: frame copies routed to remote users
+ * - linkwave.ws.cluster.published: batches published to other nodes
+ * - linkwave.ws.cluster.received: frame copies received for local users
+ * - linkwave.ws.cluster.pending: frames waiting for the next flush
+ */
+@Service
+public class ClusterRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterRouter.class);
+
+    private static final String NODE_CHANNEL_PREFIX = "linkwave:ws:node:";
+    private static final int RENEW_CHUNK_SIZE = 1000;
+
+    private final ClusterRoutingConfig config;
+    private final NodeRegistry nodeRegistry;
+    private final WsSessionManager sessionManager;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Counter forwarded;
+    private final Counter published;
+    private final Counter received;
+
+    private final Set<String> localUsers = ConcurrentHashMap.newKeySet();
+    private final Queue<PendingFrame> pending = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService scheduler;
+    private RedisMessageListenerContainer listenerContainer;
+
+    private record PendingFrame(OutboundFrameType type, String payload, Collection<String> recipients) {
+    }
+
+    /**
+     * A frame and the users on the receiving node it is meant for.
+     */
+    public record RemoteFrame(OutboundFrameType type, List<String> userIds, String payload) {
+    }
+
+    /**
+     * Wire format of one publish to a node channel.
+     */
+    public record RemoteBatch(String sourceNodeId, List<RemoteFrame> frames) {
+    }
+
+    public ClusterRouter(ClusterRoutingConfig config,
+            NodeRegistry nodeRegistry,
+            WsSessionManager sessionManager,
+            RedisTemplate<String, String> redisTemplate,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
+        this.config = config;
+        this.nodeRegistry = nodeRegistry;
+        this.sessionManager = sessionManager;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.forwarded = Counter.builder("linkwave.ws.cluster.forwarded")
+                .description("Frame copies routed to users on other nodes")
+                .register(meterRegistry);
+        this.published = Counter.builder("linkwave.ws.cluster.published")
+                .description("Frame batches published to other nodes")
+                .register(meterRegistry);
+        this.received = Counter.builder("linkwave.ws.cluster.received")
+                .description("Frame copies received from other nodes for local users")
+                .register(meterRegistry);
+        Gauge.builder("linkwave.ws.cluster.pending", pending, Queue::size)
+                .description("Frames waiting to be routed to other nodes")
+                .register(meterRegistry);
+        this.scheduler = config.isEnabled()
+                ? Executors.newSingleThreadScheduledExecutor(
+                        Thread.ofPlatform().name("ws-cluster-router").daemon().factory())
+                : null;
+    }
+
+    /**
+     * Subscribe to this node's channel and start registry renewal and batch
+     * flushing.
+     */
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled()) {
+            log.info("Cluster routing disabled, delivering to local sessions only");
+            return;
+        }
+
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(redisTemplate.getConnectionFactory());
+        listenerContainer.addMessageListener(
+                (message, pattern) -> onBatch(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(getChannel(nodeRegistry.getNodeId())));
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+
+        scheduler.scheduleWithFixedDelay(this::renewRegistrations,
+                config.getRenewIntervalSeconds(), config.getRenewIntervalSeconds(), TimeUnit.SECONDS);
+        if (config.getBatchWindowMs() > 0) {
+            scheduler.scheduleWithFixedDelay(this::flush,
+                    config.getBatchWindowMs(), config.getBatchWindowMs(), TimeUnit.MILLISECONDS);
+        }
+        log.info("Cluster routing started for node {}", nodeRegistry.getNodeId());
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * Register this node as a route for a user with a new local session.
+     */
+    public void userConnected(String userId) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        localUsers.add(userId);
+        try {
+            nodeRegistry.register(List.of(userId));
+        } catch (Exception e) {
+            // Picked up again by the next renewal
+            log.warn("Failed to register route for user {}: {}", maskUserId(userId), e.getMessage());
+        }
+    }
+
+    /**
+     * Withdraw this node's route once a user's last local session is gone.
+     */
+    public void userDisconnected(String userId) {
+        if (!config.isEnabled() || !localUsers.remove(userId)) {
+            return;
+        }
+        try {
+            nodeRegistry.unregister(userId);
+        } catch (Exception e) {
+            // The registration expires on its own after the TTL
+            log.warn("Failed to unregister route for user {}: {}", maskUserId(userId), e.getMessage());
+        }
+    }
+
+    /**
+     * Route a frame to whichever of the given users are connected to other
+     * nodes. Users with no live route, or only a route to this node, are
+     * skipped.
+     */
+    public void forward(Collection<String> userIds, TextMessage frame, OutboundFrameType type) {
+        if (!config.isEnabled() || userIds.isEmpty()) {
+            return;
+        }
+        pending.add(new PendingFrame(type, frame.getPayload(), userIds));
+        if (config.getBatchWindowMs() <= 0) {
+            flush();
+        }
+    }
+
+    /**
+     * Resolve and publish everything forwarded since the last flush.
+     */
+    public void flush() {
+        List<PendingFrame> frames = new ArrayList<>();
+        PendingFrame next;
+        while ((next = pending.poll()) != null) {
+            frames.add(next);
+        }
+        if (frames.isEmpty()) {
+            return;
+        }
+
+        try {
+            Set<String> recipients = new HashSet<>();
+            for (PendingFrame frame : frames) {
+                recipients.addAll(frame.recipients());
+            }
+            Map<String, Set<String>> routes = nodeRegistry.lookup(recipients);
+            String self = nodeRegistry.getNodeId();
+
+            Map<String, List<RemoteFrame>> framesByNode = new HashMap<>();
+            for (PendingFrame frame : frames) {
+                Map<String, List<String>> usersByNode = new LinkedHashMap<>();
+                for (String userId : frame.recipients()) {
+                    for (String node : routes.getOrDefault(userId, Set.of())) {
+                        if (!node.equals(self)) {
+                            usersByNode.computeIfAbsent(node, n -> new ArrayList<>()).add(userId);
+                        }
+                    }
+                }
+                usersByNode.forEach((node, users) -> {
+                    framesByNode.computeIfAbsent(node, n -> new ArrayList<>())
+                            .add(new RemoteFrame(frame.type(), users, frame.payload()));
+                    forwarded.increment(users.size());
+                });
+            }
+
+            framesByNode.forEach(this::publish);
+        } catch (Exception e) {
+            // Frames are ephemeral (typing, receipts); clients resync on reconnect
+            log.error("Failed to route {} frames to other nodes: {}", frames.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Deliver a batch received on this node's channel to local sessions.
+     */
+    public void onBatch(String body) {
+        try {
+            RemoteBatch batch = objectMapper.readValue(body, RemoteBatch.class);
+            for (RemoteFrame frame : batch.frames()) {
+                TextMessage message = new TextMessage(frame.payload());
+                for (String userId : frame.userIds()) {
+                    sessionManager.sendToUser(userId, message, frame.type());
+                }
+                received.increment(frame.userIds().size());
+            }
+        } catch (Exception e) {
+            log.error("Failed to handle routed batch: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        flush();
+        if (listenerContainer != null) {
+            try {
+                listenerContainer.destroy();
+            } catch (Exception e) {
+                log.warn("Failed to stop cluster listener: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void renewRegistrations() {
+        List<String> users = new ArrayList<>(localUsers);
+        try {
+            for (int from = 0; from < users.size(); from += RENEW_CHUNK_SIZE) {
+                nodeRegistry.register(users.subList(from, Math.min(from + RENEW_CHUNK_SIZE, users.size())));
+            }
+        } catch (Exception e) {
+            log.error("Failed to renew routes for {} users: {}", users.size(), e.getMessage());
+        }
+    }
+
+    private void publish(String node, List<RemoteFrame> frames) {
+        for (int from = 0; from < frames.size(); from += config.getMaxBatchSize()) {
+            List<RemoteFrame> chunk = frames.subList(from, Math.min(from + config.getMaxBatchSize(), frames.size()));
+            try {
+                String body = objectMapper.writeValueAsString(new RemoteBatch(nodeRegistry.getNodeId(), chunk));
+                redisTemplate.convertAndSend(getChannel(node), body);
+                published.increment();
+            } catch (Exception e) {
+                log.error("Failed to publish {} frames to node {}: {}", chunk.size(), node, e.getMessage());
+            }
+        }
+    }
+
+    private String getChannel(String nodeId) {
+        return NODE_CHANNEL_PREFIX + nodeId;
+    }
+
+    private String maskUserId(String userId) {
+        if (userId == null || userId.length() < 7) {
+            return "***";
+        }
+        return userId.substring(0, 4) + "***" + userId.substring(userId.length() - 2);
+    }
+}
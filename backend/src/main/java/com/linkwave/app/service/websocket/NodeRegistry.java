@@ -0,0 +1,117 @@
+package com.linkwave.app.service.websocket;
+
+import com.linkwave.app.config.ClusterRoutingConfig;
+import com.linkwave.app.config.NodeConfig;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis registry of which nodes a user is connected to.
+ *
+ * Each user has a sorted set of node ids scored by registration expiry
+ * (epoch millis), so a user can be connected to several nodes at once and a
+ * node that stops renewing simply ages out without anyone cleaning up after
+ * it. Bulk operations are pipelined: one round trip per call regardless of
+ * how many users are involved.
+ */
+@Service
+public class NodeRegistry {
+
+    private static final String ROUTE_KEY_PREFIX = "linkwave:ws:route:";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final String nodeId;
+    private final long ttlMs;
+
+    public NodeRegistry(RedisTemplate<String, String> redisTemplate,
+            NodeConfig nodeConfig,
+            ClusterRoutingConfig config) {
+        this.redisTemplate = redisTemplate;
+        this.nodeId = nodeConfig.getId();
+        this.ttlMs = TimeUnit.SECONDS.toMillis(config.getRegistryTtlSeconds());
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Register (or renew) this node for the given users.
+     */
+    public void register(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                RedisOperations<String, String> ops = operations;
+                for (String userId : userIds) {
+                    String key = getRouteKey(userId);
+                    ops.opsForZSet().add(key, nodeId, now + ttlMs);
+                    // Expired members of other nodes are pruned on renewal
+                    ops.opsForZSet().removeRangeByScore(key, 0, now);
+                    ops.expire(key, ttlMs, TimeUnit.MILLISECONDS);
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Remove this node for a user whose last local session closed.
+     * Registrations of other nodes are left untouched.
+     */
+    public void unregister(String userId) {
+        redisTemplate.opsForZSet().remove(getRouteKey(userId), nodeId);
+    }
+
+    /**
+     * Nodes each user is currently connected to.
+     * Users without a live registration are omitted.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Set<String>> lookup(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        List<String> ordered = new ArrayList<>(userIds);
+        long now = System.currentTimeMillis();
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                RedisOperations<String, String> ops = operations;
+                for (String userId : ordered) {
+                    ops.opsForZSet().rangeByScore(getRouteKey(userId), now, Double.POSITIVE_INFINITY);
+                }
+                return null;
+            }
+        });
+
+        Map<String, Set<String>> nodesByUser = new HashMap<>();
+        for (int i = 0; i < ordered.size(); i++) {
+            Object nodes = results.get(i);
+            if (nodes instanceof Set<?> set && !set.isEmpty()) {
+                nodesByUser.put(ordered.get(i), (Set<String>) set);
+            }
+        }
+        return nodesByUser;
+    }
+
+    private String getRouteKey(String userId) {
+        return ROUTE_KEY_PREFIX + userId;
+    }
+}
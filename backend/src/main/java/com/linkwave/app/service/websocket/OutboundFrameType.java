@@ -0,0 +1,20 @@
+package com.linkwave.app.service.websocket;
+
+/**
+ * Classification of frames written to a WebSocket session.
+ * Used by SessionOutbox to decide what can be shed under backpressure.
+ */
+public enum OutboundFrameType {
+    CONTROL,   // Acks, pongs, errors
+    CHAT,      // Chat message delivery
+    RECEIPT,   // Read receipts
+    PRESENCE,  // Presence changes
+    TYPING;    // Typing indicators (ephemeral, superseded by the next one)
+
+    /**
+     * Whether the frame may be discarded without the client losing state.
+     */
+    public boolean isDroppable() {
+        return this == TYPING;
+    }
+}
@@ -0,0 +1,87 @@
+package com.linkwave.app.service.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Micrometer meters for outbound WebSocket queues.
+ *
+ * Meters:
+ * - linkwave.ws.outbound.queued: frames currently buffered across all sessions
+ * - linkwave.ws.outbound.queue.depth: per-session depth observed at enqueue time
+ * - linkwave.ws.outbound.dropped{type}: frames discarded by the overflow policy
+ * - linkwave.ws.outbound.disconnects: slow consumers closed by the overflow policy
+ * - linkwave.ws.outbound.sent: frames written to sockets
+ */
+public class OutboundMetrics {
+
+    private final AtomicLong queued = new AtomicLong();
+    private final DistributionSummary depth;
+    private final Map<OutboundFrameType, Counter> dropped = new EnumMap<>(OutboundFrameType.class);
+    private final Counter disconnects;
+    private final Counter sent;
+
+    public OutboundMetrics(MeterRegistry registry) {
+        Gauge.builder("linkwave.ws.outbound.queued", queued, AtomicLong::get)
+                .description("Frames buffered across all session queues")
+                .register(registry);
+
+        this.depth = DistributionSummary.builder("linkwave.ws.outbound.queue.depth")
+                .description("Session queue depth observed at enqueue")
+                .register(registry);
+
+        for (OutboundFrameType type : OutboundFrameType.values()) {
+            dropped.put(type, Counter.builder("linkwave.ws.outbound.dropped")
+                    .description("Frames discarded by the overflow policy")
+                    .tag("type", type.name().toLowerCase())
+                    .register(registry));
+        }
+
+        this.disconnects = Counter.builder("linkwave.ws.outbound.disconnects")
+                .description("Sessions closed because their queue overflowed")
+                .register(registry);
+
+        this.sent = Counter.builder("linkwave.ws.outbound.sent")
+                .description("Frames written to sockets")
+                .register(registry);
+    }
+
+    void enqueued(int sessionDepth) {
+        queued.incrementAndGet();
+        depth.record(sessionDepth);
+    }
+
+    void dequeued(int count) {
+        queued.addAndGet(-count);
+    }
+
+    void dropped(OutboundFrameType type) {
+        dropped.get(type).increment();
+    }
+
+    void disconnected() {
+        disconnects.increment();
+    }
+
+    void sent() {
+        sent.increment();
+    }
+
+    public long getQueuedFrames() {
+        return queued.get();
+    }
+
+    public double getDroppedFrames(OutboundFrameType type) {
+        return dropped.get(type).count();
+    }
+
+    public double getDisconnects() {
+        return disconnects.count();
+    }
+}
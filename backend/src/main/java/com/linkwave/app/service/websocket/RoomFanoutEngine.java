@@ -0,0 +1,223 @@
+package com.linkwave.app.service.websocket;
+
+import com.linkwave.app.service.room.RoomMembershipChangedEvent;
+import com.linkwave.app.service.room.RoomMembershipService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Room-indexed fan-out for native WebSocket broadcasts.
+ *
+ * Keeps a room -> locally-connected users index so a broadcast only touches
+ * members that are online on this node, without loading the room from the
+ * database. The index is maintained from:
+ * - User connect/disconnect (rooms loaded once per connect)
+ * - RoomMembershipChangedEvent after membership changes commit
+ *
+ * Broadcast cost: O(local online members) instead of O(members + DB query).
+ *
+ * With cluster routing enabled, broadcast also hands the room's other
+ * members to the ClusterRouter, which delivers to those connected to other
+ * nodes. Frames that every node already receives on its own (chat messages
+ * from the per-node Kafka delivery group) use broadcastLocal instead.
+ */
+@Service
+public class RoomFanoutEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(RoomFanoutEngine.class);
+
+    private final RoomMembershipService roomMembershipService;
+    private final WsSessionManager sessionManager;
+    private final ClusterRouter clusterRouter;
+
+    // roomId -> users connected to this node
+    private final Map<String, Set<String>> roomToLocalUsers = new ConcurrentHashMap<>();
+
+    // userId -> rooms indexed for that user (reverse index for disconnect)
+    private final Map<String, Set<String>> userToRooms = new ConcurrentHashMap<>();
+
+    public RoomFanoutEngine(RoomMembershipService roomMembershipService,
+            WsSessionManager sessionManager,
+            ClusterRouter clusterRouter,
+            MeterRegistry meterRegistry) {
+        this.roomMembershipService = roomMembershipService;
+        this.sessionManager = sessionManager;
+        this.clusterRouter = clusterRouter;
+
+        Gauge.builder("linkwave.ws.fanout.rooms", roomToLocalUsers, Map::size)
+                .description("Rooms with at least one member connected to this node")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Index a user's rooms when they connect.
+     * Safe to call again for an already-indexed user (e.g. session replaced).
+     */
+    public void userConnected(String userId) {
+        clusterRouter.userConnected(userId);
+
+        Set<String> rooms = ConcurrentHashMap.newKeySet();
+        Set<String> existing = userToRooms.putIfAbsent(userId, rooms);
+        if (existing != null) {
+            rooms = existing;
+        }
+
+        // Registered before loading so membership events that race with the
+        // query are applied to this set rather than lost
+        List<String> roomIds = roomMembershipService.getUserRoomIds(userId);
+        for (String roomId : roomIds) {
+            if (rooms.add(roomId)) {
+                addToRoom(roomId, userId);
+            }
+        }
+
+        // User disconnected while we were loading - undo, unless a newer
+        // connection has indexed the same room in the meantime
+        Set<String> current = userToRooms.get(userId);
+        if (current != rooms) {
+            for (String roomId : roomIds) {
+                if (current == null || !current.contains(roomId)) {
+                    removeFromRoom(roomId, userId);
+                }
+            }
+            return;
+        }
+
+        log.debug("Indexed {} rooms for user {}", roomIds.size(), maskUserId(userId));
+    }
+
+    /**
+     * Drop a user from the index once their last local session is gone.
+     */
+    public void userDisconnected(String userId) {
+        clusterRouter.userDisconnected(userId);
+
+        Set<String> rooms = userToRooms.remove(userId);
+        if (rooms == null) {
+            return;
+        }
+        for (String roomId : rooms) {
+            removeFromRoom(roomId, userId);
+        }
+    }
+
+    /**
+     * Apply committed membership changes for users connected to this node.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMembershipChanged(RoomMembershipChangedEvent event) {
+        for (String userId : event.addedMembers()) {
+            Set<String> rooms = userToRooms.get(userId);
+            if (rooms != null && rooms.add(event.roomId())) {
+                addToRoom(event.roomId(), userId);
+            }
+        }
+        for (String userId : event.removedMembers()) {
+            Set<String> rooms = userToRooms.get(userId);
+            if (rooms != null && rooms.remove(event.roomId())) {
+                removeFromRoom(event.roomId(), userId);
+            }
+        }
+    }
+
+    /**
+     * Queue a frame for every member of a room: directly for local members,
+     * through the ClusterRouter for members connected to other nodes.
+     *
+     * @param roomId target room
+     * @param frame pre-serialized frame, shared across recipients
+     * @param type frame classification used for overflow handling
+     * @param excludeUserId user to skip (usually the sender), may be null
+     * @return number of local users the frame was queued for
+     */
+    public int broadcast(String roomId, TextMessage frame, OutboundFrameType type, String excludeUserId) {
+        int delivered = broadcastLocal(roomId, frame, type, excludeUserId);
+
+        if (clusterRouter.isEnabled()) {
+            // Local members are included too: they may have sessions on other nodes as well
+            List<String> members = new ArrayList<>();
+            for (String userId : roomMembershipService.getRoomMembers(roomId)) {
+                if (!userId.equals(excludeUserId)) {
+                    members.add(userId);
+                }
+            }
+            clusterRouter.forward(members, frame, type);
+        }
+        return delivered;
+    }
+
+    /**
+     * Queue a frame for every member of a room connected to this node only.
+     *
+     * @return number of users the frame was queued for
+     */
+    public int broadcastLocal(String roomId, TextMessage frame, OutboundFrameType type, String excludeUserId) {
+        Set<String> localUsers = roomToLocalUsers.get(roomId);
+        if (localUsers == null) {
+            return 0;
+        }
+
+        int delivered = 0;
+        for (String userId : localUsers) {
+            if (!userId.equals(excludeUserId) && sessionManager.sendToUser(userId, frame, type)) {
+                delivered++;
+            }
+        }
+        return delivered;
+    }
+
+    /**
+     * Queue a frame for a single user: on this node if they are connected
+     * here, and through the ClusterRouter for their sessions on other nodes.
+     */
+    public void sendToUser(String userId, TextMessage frame, OutboundFrameType type) {
+        sessionManager.sendToUser(userId, frame, type);
+
+        if (clusterRouter.isEnabled()) {
+            // Forwarded even when sent locally: the user may have devices on other nodes too
+            clusterRouter.forward(List.of(userId), frame, type);
+        }
+    }
+
+    /**
+     * Users in a room that are connected to this node.
+     */
+    public Set<String> getLocalMembers(String roomId) {
+        Set<String> localUsers = roomToLocalUsers.get(roomId);
+        return localUsers != null ? Collections.unmodifiableSet(localUsers) : Set.of();
+    }
+
+    private void addToRoom(String roomId, String userId) {
+        roomToLocalUsers.compute(roomId, (id, users) -> {
+            Set<String> target = users != null ? users : ConcurrentHashMap.newKeySet();
+            target.add(userId);
+            return target;
+        });
+    }
+
+    private void removeFromRoom(String roomId, String userId) {
+        roomToLocalUsers.computeIfPresent(roomId, (id, users) -> {
+            users.remove(userId);
+            return users.isEmpty() ? null : users;
+        });
+    }
+
+    private String maskUserId(String userId) {
+        if (userId == null || userId.length() < 7) {
+            return "***";
+        }
+        return userId.substring(0, 4) + "***" + userId.substring(userId.length() - 2);
+    }
+}
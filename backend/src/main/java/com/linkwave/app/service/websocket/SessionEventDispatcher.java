@@ -0,0 +1,183 @@
+package com.linkwave.app.service.websocket;
+
+import com.linkwave.app.config.WsDispatchConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs blocking inbound event handlers off the WebSocket I/O thread.
+ * 
+ * Each session gets a serial queue drained by one virtual thread at a time,
+ * so a session's events are handled in arrival order while a slow database
+ * call only delays that session, not every socket sharing the I/O thread.
+ * 
+ * With virtual threads disabled (linkwave.websocket.dispatch.virtual-threads)
+ * tasks run inline on the caller.
+ * 
+ * Meters:
+ * - linkwave.ws.dispatch.pending: tasks queued or running across sessions
+ * - linkwave.ws.dispatch.rejected: tasks refused because a session queue was full
+ */
+@Service
+public class SessionEventDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionEventDispatcher.class);
+
+    private final boolean virtualThreads;
+    private final int maxPendingPerSession;
+    private final ExecutorService executor;
+
+    // sessionId -> serial task queue
+    private final Map<String, SerialQueue> queues = new ConcurrentHashMap<>();
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Counter rejected;
+
+    public SessionEventDispatcher(WsDispatchConfig config, MeterRegistry meterRegistry) {
+        this.virtualThreads = config.isVirtualThreads();
+        this.maxPendingPerSession = Math.max(1, config.getMaxPendingPerSession());
+        this.executor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ws-handler-", 0).factory())
+                : null;
+
+        Gauge.builder("linkwave.ws.dispatch.pending", pending, AtomicInteger::get)
+                .description("Blocking WebSocket events queued or running")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("linkwave.ws.dispatch.rejected")
+                .description("Blocking WebSocket events refused because the session queue was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run a blocking task for a session, after any tasks already queued for it.
+     * 
+     * @return false if the session's queue is full or closed and the task was dropped
+     */
+    public boolean dispatch(String sessionId, Runnable task) {
+        if (!virtualThreads) {
+            runSafely(sessionId, task);
+            return true;
+        }
+        SerialQueue queue = queues.computeIfAbsent(sessionId, SerialQueue::new);
+        return queue.offer(task);
+    }
+
+    /**
+     * Discard tasks not yet started for a closed session.
+     * A task already running is allowed to finish.
+     */
+    public void sessionClosed(String sessionId) {
+        SerialQueue queue = queues.remove(sessionId);
+        if (queue != null) {
+            queue.close();
+        }
+    }
+
+    public int getPendingTasks() {
+        return pending.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        queues.values().forEach(SerialQueue::close);
+        queues.clear();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private void runSafely(String sessionId, Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            log.error("Unhandled error in WebSocket handler for session {}: {}", sessionId, e.getMessage(), e);
+        }
+    }
+
+    private final class SerialQueue {
+
+        private final String sessionId;
+
+        // Guarded by tasks
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private boolean draining;
+        private boolean closed;
+
+        SerialQueue(String sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        boolean offer(Runnable task) {
+            boolean startDrain = false;
+            synchronized (tasks) {
+                if (closed) {
+                    return false;
+                }
+                if (tasks.size() >= maxPendingPerSession) {
+                    rejected.increment();
+                    log.warn("Dispatch queue full for session {} ({} tasks), dropping event",
+                            sessionId, maxPendingPerSession);
+                    return false;
+                }
+                tasks.addLast(task);
+                if (!draining) {
+                    draining = true;
+                    startDrain = true;
+                }
+            }
+            pending.incrementAndGet();
+
+            if (startDrain) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RuntimeException e) {
+                    // Executor rejected (shutting down)
+                    log.warn("Dispatcher rejected drain for session {}: {}", sessionId, e.getMessage());
+                    close();
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void close() {
+            int discarded;
+            synchronized (tasks) {
+                closed = true;
+                discarded = tasks.size();
+                tasks.clear();
+            }
+            pending.addAndGet(-discarded);
+        }
+
+        private void drain() {
+            while (true) {
+                Runnable task;
+                synchronized (tasks) {
+                    task = tasks.pollFirst();
+                    if (task == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    runSafely(sessionId, task);
+                } finally {
+                    pending.decrementAndGet();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.linkwave.app.service.websocket;
+
+import com.linkwave.app.config.WsOutboundConfig;
+import com.linkwave.app.config.WsOutboundConfig.OverflowPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+
+/**
+ * Bounded outbound frame queue for a single WebSocket session.
+ *
+ * Callers enqueue and return immediately; frames are written by a single
+ * drain task on the writer executor, so at most one thread ever writes to
+ * the underlying session and a slow socket only backs up its own queue.
+ *
+ * Overflow handling (see WsOutboundConfig):
+ * - Typing frames are shed first: new ones are discarded and queued ones evicted
+ * - Otherwise the configured policy either drops the new frame or disconnects
+ *   the session with SESSION_NOT_RELIABLE so the client reconnects and resyncs
+ */
+public class SessionOutbox {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionOutbox.class);
+
+    private final WebSocketSession session;
+    private final int capacity;
+    private final boolean dropTypingFirst;
+    private final OverflowPolicy overflowPolicy;
+    private final Executor writer;
+    private final OutboundMetrics metrics;
+
+    // Guarded by queue
+    private final ArrayDeque<Frame> queue = new ArrayDeque<>();
+    private int queuedTyping;
+    private boolean draining;
+    private boolean closed;
+
+    public SessionOutbox(WebSocketSession session, WsOutboundConfig config,
+            Executor writer, OutboundMetrics metrics) {
+        this.session = session;
+        this.capacity = Math.max(1, config.getQueueCapacity());
+        this.dropTypingFirst = config.isDropTypingFirst();
+        this.overflowPolicy = config.getOverflowPolicy();
+        this.writer = writer;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Enqueue a frame for delivery.
+     *
+     * @return true if the frame was queued, false if it was dropped
+     */
+    public boolean offer(TextMessage message, OutboundFrameType type) {
+        boolean startDrain = false;
+        boolean disconnect = false;
+        int depth;
+
+        synchronized (queue) {
+            if (closed) {
+                return false;
+            }
+
+            if (queue.size() >= capacity) {
+                if (dropTypingFirst && type.isDroppable()) {
+                    metrics.dropped(type);
+                    return false;
+                }
+                if (!(dropTypingFirst && evictQueuedTyping())) {
+                    if (overflowPolicy == OverflowPolicy.DROP_NEWEST) {
+                        metrics.dropped(type);
+                        return false;
+                    }
+                    disconnect = true;
+                }
+            }
+
+            if (!disconnect) {
+                queue.addLast(new Frame(message, type));
+                if (type.isDroppable()) {
+                    queuedTyping++;
+                }
+                depth = queue.size();
+                if (!draining) {
+                    draining = true;
+                    startDrain = true;
+                }
+            } else {
+                depth = 0;
+            }
+        }
+
+        if (disconnect) {
+            log.warn("Outbound queue overflow for session {} ({} frames), disconnecting slow consumer",
+                    session.getId(), capacity);
+            metrics.disconnected();
+            metrics.dropped(type);
+            closeSession(CloseStatus.SESSION_NOT_RELIABLE);
+            return false;
+        }
+
+        metrics.enqueued(depth);
+        if (startDrain) {
+            scheduleDrain();
+        }
+        return true;
+    }
+
+    /**
+     * Discard queued frames and stop accepting new ones.
+     * Called when the session is deregistered.
+     */
+    public void close() {
+        int discarded;
+        synchronized (queue) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            discarded = queue.size();
+            queue.clear();
+            queuedTyping = 0;
+        }
+        if (discarded > 0) {
+            metrics.dequeued(discarded);
+        }
+    }
+
+    public int depth() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    public WebSocketSession getSession() {
+        return session;
+    }
+
+    private void scheduleDrain() {
+        try {
+            writer.execute(this::drain);
+        } catch (RuntimeException e) {
+            // Executor rejected (shutting down) - release the queue
+            log.warn("Writer rejected drain for session {}: {}", session.getId(), e.getMessage());
+            synchronized (queue) {
+                draining = false;
+            }
+            close();
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Frame frame;
+            synchronized (queue) {
+                frame = queue.pollFirst();
+                if (frame == null) {
+                    draining = false;
+                    return;
+                }
+                if (frame.type.isDroppable()) {
+                    queuedTyping--;
+                }
+            }
+            metrics.dequeued(1);
+            write(frame);
+        }
+    }
+
+    private void write(Frame frame) {
+        try {
+            if (session.isOpen()) {
+                session.sendMessage(frame.message);
+                metrics.sent();
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.error("Failed to send message to session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Remove the oldest queued typing frame to make room.
+     * Caller must hold the queue lock.
+     */
+    private boolean evictQueuedTyping() {
+        if (queuedTyping == 0) {
+            return false;
+        }
+        Iterator<Frame> it = queue.iterator();
+        while (it.hasNext()) {
+            Frame queued = it.next();
+            if (queued.type.isDroppable()) {
+                it.remove();
+                queuedTyping--;
+                metrics.dequeued(1);
+                metrics.dropped(queued.type);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void closeSession(CloseStatus status) {
+        close();
+        try {
+            writer.execute(() -> {
+                try {
+                    if (session.isOpen()) {
+                        session.close(status);
+                    }
+                } catch (IOException e) {
+                    log.warn("Error closing slow session {}: {}", session.getId(), e.getMessage());
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Writer rejected close for session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    private record Frame(TextMessage message, OutboundFrameType type) {
+    }
+}
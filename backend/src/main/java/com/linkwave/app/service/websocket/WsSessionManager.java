@@ -1,13 +1,24 @@
 package com.linkwave.app.service.websocket;
 
+import com.linkwave.app.config.WsOutboundConfig;
+import com.linkwave.app.config.WsSessionConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Service for managing WebSocket session mappings.
@@ -15,41 +26,93 @@ import java.util.concurrent.ConcurrentHashMap;
  * 
  * Phase C1: In-memory storage (no Redis yet)
  * Phase C2: Will integrate with Kafka for message delivery
+ * 
+ * Multiple devices:
+ * - A user may hold up to maxSessionsPerUser sessions at once (phone,
+ *   desktop, ...); registering one more closes the oldest
+ * - Each user maps to an immutable UserSessions snapshot that is replaced
+ *   on register/deregister, so sendToUser and getSessions read it without
+ *   locking or allocating
+ * 
+ * Outbound delivery:
+ * - Every registered session gets a bounded SessionOutbox
+ * - Frames are written by a per-session drain task on virtual threads,
+ *   so broadcasters never block on a slow socket
  */
 @Service
 public class WsSessionManager {
     
     private static final Logger log = LoggerFactory.getLogger(WsSessionManager.class);
     
-    // phoneNumber -> WebSocketSession mapping
-    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    private static final CloseStatus SESSION_LIMIT_REACHED =
+            CloseStatus.POLICY_VIOLATION.withReason("Session limit reached");
+    
+    // phoneNumber -> sessions of that user, oldest first
+    private final Map<String, UserSessions> sessions = new ConcurrentHashMap<>();
     
     // sessionId -> phoneNumber reverse mapping for quick lookup
     private final Map<String, String> sessionToPhone = new ConcurrentHashMap<>();
     
+    // sessionId -> outbound queue
+    private final Map<String, SessionOutbox> outboxes = new ConcurrentHashMap<>();
+    
+    private final WsOutboundConfig outboundConfig;
+    private final int maxSessionsPerUser;
+    private final OutboundMetrics outboundMetrics;
+    private final ExecutorService writerExecutor;
+    
+    public WsSessionManager(WsOutboundConfig outboundConfig, WsSessionConfig sessionConfig,
+            MeterRegistry meterRegistry) {
+        this.outboundConfig = outboundConfig;
+        this.maxSessionsPerUser = Math.max(1, sessionConfig.getMaxSessionsPerUser());
+        this.outboundMetrics = new OutboundMetrics(meterRegistry);
+        this.writerExecutor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("ws-writer-", 0).factory());
+        
+        Gauge.builder("linkwave.ws.sessions", outboxes, Map::size)
+                .description("Registered WebSocket sessions on this node")
+                .register(meterRegistry);
+        Gauge.builder("linkwave.ws.users", sessions, Map::size)
+                .description("Users with at least one WebSocket session on this node")
+                .register(meterRegistry);
+    }
+    
     /**
-     * Register a new WebSocket session for a user.
+     * Register a new WebSocket session for a user, alongside any sessions
+     * the user already has on other devices.
      * 
      * @param phoneNumber the user's phone number
      * @param session the WebSocket session
      */
     public void registerSession(String phoneNumber, WebSocketSession session) {
-        // Close any existing session for this user (enforce single connection)
-        WebSocketSession existingSession = sessions.get(phoneNumber);
-        if (existingSession != null && existingSession.isOpen()) {
-            log.info("Closing existing session for user: {}", maskPhoneNumber(phoneNumber));
+        SessionOutbox outbox = new SessionOutbox(session, outboundConfig, writerExecutor, outboundMetrics);
+        outboxes.put(session.getId(), outbox);
+        sessionToPhone.put(session.getId(), phoneNumber);
+        
+        WebSocketSession[] evicted = new WebSocketSession[1];
+        UserSessions current = sessions.compute(phoneNumber, (phone, existing) -> {
+            UserSessions updated = (existing != null ? existing : UserSessions.EMPTY).with(outbox);
+            if (updated.size() > maxSessionsPerUser) {
+                evicted[0] = updated.oldest();
+                updated = updated.without(evicted[0].getId());
+            }
+            return updated;
+        });
+        
+        if (evicted[0] != null) {
+            closeOutbox(evicted[0].getId());
+            sessionToPhone.remove(evicted[0].getId());
+            log.info("Session limit reached for user {}, closing oldest session {}",
+                    maskPhoneNumber(phoneNumber), evicted[0].getId());
             try {
-                existingSession.close();
+                evicted[0].close(SESSION_LIMIT_REACHED);
             } catch (Exception e) {
-                log.warn("Error closing existing session: {}", e.getMessage());
+                log.warn("Error closing evicted session: {}", e.getMessage());
             }
         }
         
-        sessions.put(phoneNumber, session);
-        sessionToPhone.put(session.getId(), phoneNumber);
-        
-        log.info("Registered WebSocket session for user: {} (sessionId: {})", 
-                 maskPhoneNumber(phoneNumber), session.getId());
+        log.info("Registered WebSocket session for user: {} (sessionId: {}, devices: {})", 
+                 maskPhoneNumber(phoneNumber), session.getId(), current.size());
     }
     
     /**
@@ -58,30 +121,81 @@ public class WsSessionManager {
      * @param session the WebSocket session to deregister
      */
     public void deregisterSession(WebSocketSession session) {
+        closeOutbox(session.getId());
         String phoneNumber = sessionToPhone.remove(session.getId());
         if (phoneNumber != null) {
-            sessions.remove(phoneNumber);
+            removeFromUser(phoneNumber, session.getId());
             log.info("Deregistered WebSocket session for user: {} (sessionId: {})", 
                      maskPhoneNumber(phoneNumber), session.getId());
         }
     }
     
     /**
-     * Get WebSocket session for a user.
+     * Get all open WebSocket sessions of a user, oldest first.
+     * Returns a shared immutable list; no allocation unless a closed session
+     * has to be cleaned up.
      * 
      * @param phoneNumber the user's phone number
-     * @return optional WebSocket session
+     * @return the user's open sessions, empty if none
      */
-    public Optional<WebSocketSession> getSession(String phoneNumber) {
-        WebSocketSession session = sessions.get(phoneNumber);
-        if (session != null && session.isOpen()) {
-            return Optional.of(session);
-        } else if (session != null) {
-            // Session exists but is closed, clean it up
-            sessions.remove(phoneNumber);
-            sessionToPhone.remove(session.getId());
-        }
-        return Optional.empty();
+    public List<WebSocketSession> getSessions(String phoneNumber) {
+        UserSessions userSessions = sessions.get(phoneNumber);
+        if (userSessions == null) {
+            return List.of();
+        }
+        if (userSessions.allOpen()) {
+            return userSessions.sessions();
+        }
+        
+        // Some sessions closed without being deregistered, clean them up
+        for (WebSocketSession session : userSessions.sessions()) {
+            if (!session.isOpen()) {
+                sessionToPhone.remove(session.getId());
+                closeOutbox(session.getId());
+                removeFromUser(phoneNumber, session.getId());
+            }
+        }
+        UserSessions remaining = sessions.get(phoneNumber);
+        return remaining != null ? remaining.sessions() : List.of();
+    }
+    
+    /**
+     * Queue a frame for a specific session.
+     * 
+     * @param session the target session
+     * @param message the frame to send
+     * @param type frame classification used for overflow handling
+     * @return true if the frame was queued
+     */
+    public boolean send(WebSocketSession session, TextMessage message, OutboundFrameType type) {
+        SessionOutbox outbox = outboxes.get(session.getId());
+        if (outbox == null) {
+            log.debug("No outbound queue for session {}, dropping frame", session.getId());
+            return false;
+        }
+        return outbox.offer(message, type);
+    }
+    
+    /**
+     * Queue a frame for every open session of a user.
+     * 
+     * @param phoneNumber the user's phone number
+     * @param message the frame to send
+     * @param type frame classification used for overflow handling
+     * @return true if the frame was queued for at least one session
+     */
+    public boolean sendToUser(String phoneNumber, TextMessage message, OutboundFrameType type) {
+        UserSessions userSessions = sessions.get(phoneNumber);
+        if (userSessions == null) {
+            return false;
+        }
+        boolean queued = false;
+        for (SessionOutbox outbox : userSessions.outboxes()) {
+            if (outbox.getSession().isOpen() && outbox.offer(message, type)) {
+                queued = true;
+            }
+        }
+        return queued;
     }
     
     /**
@@ -95,22 +209,49 @@ public class WsSessionManager {
     }
     
     /**
-     * Check if a user has an active WebSocket session.
+     * Check if a user has at least one active WebSocket session.
      * 
      * @param phoneNumber the user's phone number
      * @return true if user has an active session
      */
     public boolean hasActiveSession(String phoneNumber) {
-        return getSession(phoneNumber).isPresent();
+        return !getSessions(phoneNumber).isEmpty();
     }
     
     /**
-     * Get total number of active sessions.
+     * Get total number of active sessions across all users.
      * 
      * @return number of active sessions
      */
     public int getActiveSessionCount() {
-        return sessions.size();
+        return outboxes.size();
+    }
+    
+    /**
+     * Get outbound queue metrics.
+     */
+    public OutboundMetrics getOutboundMetrics() {
+        return outboundMetrics;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        outboxes.values().forEach(SessionOutbox::close);
+        writerExecutor.shutdown();
+    }
+    
+    private void removeFromUser(String phoneNumber, String sessionId) {
+        sessions.computeIfPresent(phoneNumber, (phone, existing) -> {
+            UserSessions updated = existing.without(sessionId);
+            return updated.size() == 0 ? null : updated;
+        });
+    }
+    
+    private void closeOutbox(String sessionId) {
+        SessionOutbox outbox = outboxes.remove(sessionId);
+        if (outbox != null) {
+            outbox.close();
+        }
     }
     
     /**
@@ -122,4 +263,69 @@ public class WsSessionManager {
         }
         return phoneNumber.substring(0, 4) + "***" + phoneNumber.substring(phoneNumber.length() - 2);
     }
+    
+    /**
+     * Immutable set of one user's sessions, oldest first. Users rarely have
+     * more than a handful of devices, so copy-on-write arrays beat any
+     * concurrent collection here.
+     */
+    private static final class UserSessions {
+        
+        static final UserSessions EMPTY = new UserSessions(new SessionOutbox[0]);
+        
+        private final SessionOutbox[] outboxes;
+        private final List<WebSocketSession> sessions;
+        
+        private UserSessions(SessionOutbox[] outboxes) {
+            this.outboxes = outboxes;
+            WebSocketSession[] array = new WebSocketSession[outboxes.length];
+            for (int i = 0; i < outboxes.length; i++) {
+                array[i] = outboxes[i].getSession();
+            }
+            this.sessions = List.of(array);
+        }
+        
+        SessionOutbox[] outboxes() {
+            return outboxes;
+        }
+        
+        List<WebSocketSession> sessions() {
+            return sessions;
+        }
+        
+        int size() {
+            return outboxes.length;
+        }
+        
+        WebSocketSession oldest() {
+            return outboxes[0].getSession();
+        }
+        
+        boolean allOpen() {
+            for (SessionOutbox outbox : outboxes) {
+                if (!outbox.getSession().isOpen()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        UserSessions with(SessionOutbox outbox) {
+            SessionOutbox[] updated = Arrays.copyOf(outboxes, outboxes.length + 1);
+            updated[outboxes.length] = outbox;
+            return new UserSessions(updated);
+        }
+        
+        UserSessions without(String sessionId) {
+            for (int i = 0; i < outboxes.length; i++) {
+                if (outboxes[i].getSession().getId().equals(sessionId)) {
+                    SessionOutbox[] updated = new SessionOutbox[outboxes.length - 1];
+                    System.arraycopy(outboxes, 0, updated, 0, i);
+                    System.arraycopy(outboxes, i + 1, updated, i, outboxes.length - i - 1);
+                    return new UserSessions(updated);
+                }
+            }
+            return this;
+        }
+    }
 }
@@ -0,0 +1,148 @@
+package com.linkwave.app.websocket;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserSequence;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.linkwave.app.domain.websocket.InboundEvent;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Single-pass decoder for inbound native WebSocket frames.
+ * 
+ * Reads the "event" field with a streaming JsonParser and binds the rest of
+ * the same token stream straight into the matching InboundEvent record
+ * using pre-built ObjectReaders. No JsonNode tree is created.
+ * 
+ * Clients put "event" first, which is the fast path. If other fields come
+ * before it, they are held in a TokenBuffer and replayed ahead of the
+ * remaining stream, so the frame is still only parsed once.
+ * 
+ * Events without fields (ping, heartbeat, unhandled) skip the rest of the
+ * frame without binding, but it is still validated as JSON.
+ */
+public class InboundEventDecoder {
+
+    private static final String EVENT_FIELD = "event";
+
+    private static final InboundEvent PING = new InboundEvent.Ping();
+    private static final InboundEvent HEARTBEAT = new InboundEvent.PresenceHeartbeat();
+
+    private final ObjectMapper objectMapper;
+    private final JsonFactory jsonFactory;
+    private final Map<String, ObjectReader> readers;
+
+    // Shared instances for frames carrying only "event" (a reader
+    // positioned on END_OBJECT would bind null)
+    private final Map<String, InboundEvent> emptyEvents = new HashMap<>();
+
+    public InboundEventDecoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.jsonFactory = objectMapper.getFactory();
+        this.readers = Map.of(
+                "chat.send", reader(InboundEvent.ChatSend.class),
+                "typing.start", reader(InboundEvent.TypingStart.class),
+                "typing.stop", reader(InboundEvent.TypingStop.class),
+                "read.up_to", reader(InboundEvent.ReadUpTo.class),
+                "presence.subscribe", reader(InboundEvent.PresenceSubscribe.class));
+
+        try {
+            for (Map.Entry<String, ObjectReader> entry : readers.entrySet()) {
+                emptyEvents.put(entry.getKey(), entry.getValue().readValue("{}"));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to initialize inbound event readers", e);
+        }
+    }
+
+    /**
+     * Decode a text frame.
+     * 
+     * @return decoded event, or null if the frame has no "event" field
+     * @throws IOException if the frame is not a valid JSON object
+     */
+    public InboundEvent decode(String frame) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(frame)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected JSON object");
+            }
+
+            TokenBuffer leading = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                if (EVENT_FIELD.equals(parser.currentName())) {
+                    parser.nextToken();
+                    String event = parser.getValueAsString();
+                    parser.skipChildren();
+
+                    JsonParser rest = parser;
+                    if (leading != null) {
+                        rest = JsonParserSequence.createFlattened(false, leading.asParser(parser), parser);
+                    }
+                    rest.nextToken();
+                    return bind(event, rest);
+                }
+
+                // Field before "event" - keep it for replay
+                if (leading == null) {
+                    leading = new TokenBuffer(parser);
+                }
+                leading.copyCurrentStructure(parser);
+            }
+
+            if (parser.currentToken() != JsonToken.END_OBJECT) {
+                throw new JsonParseException(parser, "Unexpected token " + parser.currentToken());
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Bind the remaining fields of the frame.
+     * The parser is positioned on the next FIELD_NAME or the closing END_OBJECT.
+     */
+    private InboundEvent bind(String event, JsonParser parser) throws IOException {
+        if (event == null) {
+            skipFields(parser);
+            return null;
+        }
+
+        ObjectReader reader = readers.get(event);
+        if (reader != null) {
+            return parser.currentToken() == JsonToken.END_OBJECT
+                    ? emptyEvents.get(event)
+                    : reader.readValue(parser);
+        }
+
+        skipFields(parser);
+        return switch (event) {
+            case "ping" -> PING;
+            case "presence.heartbeat" -> HEARTBEAT;
+            default -> new InboundEvent.Unhandled(event);
+        };
+    }
+
+    private void skipFields(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        while (token == JsonToken.FIELD_NAME) {
+            parser.nextToken();
+            parser.skipChildren();
+            token = parser.nextToken();
+        }
+        if (token != JsonToken.END_OBJECT) {
+            throw new JsonParseException(parser, "Unexpected token " + token);
+        }
+    }
+
+    private ObjectReader reader(Class<? extends InboundEvent> type) {
+        return objectMapper.readerFor(type)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+}
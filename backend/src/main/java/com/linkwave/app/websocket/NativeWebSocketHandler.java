@@ -1,19 +1,27 @@
 package com.linkwave.app.websocket;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.linkwave.app.domain.chat.ReadReceiptEntity;
-import com.linkwave.app.domain.chat.ReadReceiptEvent;
+import com.linkwave.app.domain.chat.ChatSendResult;
+import com.linkwave.app.domain.presence.PresenceUpdate;
 import com.linkwave.app.domain.typing.TypingEvent;
-import com.linkwave.app.domain.websocket.WsMessageEnvelope;
+import com.linkwave.app.domain.websocket.ChatSendAck;
+import com.linkwave.app.domain.websocket.InboundEvent;
+import com.linkwave.app.exception.MessagePublishException;
 import com.linkwave.app.exception.NotFoundException;
 import com.linkwave.app.exception.UnauthorizedException;
 import com.linkwave.app.service.chat.ChatService;
 import com.linkwave.app.service.presence.PresenceService;
+import com.linkwave.app.service.presence.PresenceSubscriptionService;
+import com.linkwave.app.service.readreceipt.ReadPositionBuffer;
+import com.linkwave.app.service.readreceipt.ReadReceiptBroadcaster;
 import com.linkwave.app.service.readreceipt.ReadReceiptService;
 import com.linkwave.app.service.readreceipt.ReadReceiptService.ReadReceiptResult;
 import com.linkwave.app.service.room.RoomMembershipService;
+import com.linkwave.app.service.typing.TypingBroadcaster;
 import com.linkwave.app.service.typing.TypingStateManager;
+import com.linkwave.app.service.websocket.OutboundFrameType;
+import com.linkwave.app.service.websocket.RoomFanoutEngine;
+import com.linkwave.app.service.websocket.SessionEventDispatcher;
 import com.linkwave.app.service.websocket.WsSessionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,7 +34,8 @@ import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Native WebSocket handler for real-time messaging.
@@ -47,18 +56,40 @@ import java.util.Set;
  * - Tracks user online/offline status via PresenceService
  * - Handles presence.heartbeat messages to refresh TTL
  * - Multi-device support via connection counting
+ * - presence.subscribe replies with presence.snapshot and registers the
+ *   session for presence.changed pushes (PresenceSubscriptionService)
  * 
  * Phase D2: Typing Indicators
  * - Handles typing.start and typing.stop messages
- * - Broadcasts typing events to room members (excluding sender)
+ * - Broadcasts throttled typing.update rosters to room members
+ *   (TypingBroadcaster)
  * - Auto-cleanup on disconnect and timeout (5 seconds)
  * - Rate limiting (2 seconds minimum between typing.start)
  * 
  * Phase D3: Read Receipts
  * - Handles read.up_to messages for marking messages as read
- * - Persists read receipts to database with idempotency
- * - Broadcasts read.receipt events to room members (excluding reader)
- * - Supports batch reads (up to 50 messages)
+ * - Persists read state as a per-(room, reader) watermark, buffered and
+ *   written in batches by ReadPositionBuffer
+ * - Broadcasts one coalesced read.up_to per reader position to room members
+ *   (excluding reader) via ReadReceiptBroadcaster; per-message read.receipt
+ *   events only with linkwave.read-receipts.legacy-per-message-events
+ * 
+ * Outbound frames are queued per session via WsSessionManager and written
+ * asynchronously, so a slow recipient never stalls the sending thread.
+ * Room broadcasts go through RoomFanoutEngine and only touch members
+ * connected to this node, without a database round trip.
+ * 
+ * Inbound frames are decoded in a single streaming pass by
+ * InboundEventDecoder into typed InboundEvent records.
+ * 
+ * Events that hit the database or Redis (chat.send, typing.*, read.up_to,
+ * presence.subscribe) are handed
+ * to SessionEventDispatcher and run on virtual threads in per-session order.
+ * ping and presence.heartbeat are cheap and handled inline.
+ * 
+ * chat.sent is sent from the Kafka producer callback once the broker has
+ * acknowledged the write, carrying the real messageId, partition/offset
+ * and server timestamp; failures produce chat.error.
  */
 @Component
 public class NativeWebSocketHandler extends TextWebSocketHandler {
@@ -66,28 +97,48 @@ public class NativeWebSocketHandler extends TextWebSocketHandler {
     private static final Logger log = LoggerFactory.getLogger(NativeWebSocketHandler.class);
 
     private final PresenceService presenceService;
+    private final PresenceSubscriptionService presenceSubscriptions;
     private final TypingStateManager typingStateManager;
+    private final TypingBroadcaster typingBroadcaster;
     private final RoomMembershipService roomMembershipService;
     private final ReadReceiptService readReceiptService;
+    private final ReadReceiptBroadcaster readReceiptBroadcaster;
+    private final ReadPositionBuffer readPositionBuffer;
     private final ChatService chatService;
     private final WsSessionManager sessionManager;
+    private final RoomFanoutEngine roomFanout;
+    private final SessionEventDispatcher dispatcher;
     private final ObjectMapper objectMapper;
+    private final InboundEventDecoder decoder;
 
     public NativeWebSocketHandler(
             PresenceService presenceService,
+            PresenceSubscriptionService presenceSubscriptions,
             TypingStateManager typingStateManager,
+            TypingBroadcaster typingBroadcaster,
             RoomMembershipService roomMembershipService,
             ReadReceiptService readReceiptService,
+            ReadReceiptBroadcaster readReceiptBroadcaster,
+            ReadPositionBuffer readPositionBuffer,
             ChatService chatService,
             WsSessionManager sessionManager,
+            RoomFanoutEngine roomFanout,
+            SessionEventDispatcher dispatcher,
             ObjectMapper objectMapper) {
         this.presenceService = presenceService;
+        this.presenceSubscriptions = presenceSubscriptions;
         this.typingStateManager = typingStateManager;
+        this.typingBroadcaster = typingBroadcaster;
         this.roomMembershipService = roomMembershipService;
         this.readReceiptService = readReceiptService;
+        this.readReceiptBroadcaster = readReceiptBroadcaster;
+        this.readPositionBuffer = readPositionBuffer;
         this.chatService = chatService;
         this.sessionManager = sessionManager;
+        this.roomFanout = roomFanout;
+        this.dispatcher = dispatcher;
         this.objectMapper = objectMapper;
+        this.decoder = new InboundEventDecoder(objectMapper);
     }
 
     @Override
@@ -102,8 +153,9 @@ public class NativeWebSocketHandler extends TextWebSocketHandler {
             return;
         }
 
-        // Store session
+        // Store session and index the user's rooms for local fan-out
         sessionManager.registerSession(phoneNumber, session);
+        roomFanout.userConnected(phoneNumber);
 
         // Mark user as online (Phase D1: Presence Tracking)
         presenceService.markOnline(phoneNumber);
@@ -122,12 +174,11 @@ public class NativeWebSocketHandler extends TextWebSocketHandler {
 
         log.debug("Received message from {}: {}", maskPhoneNumber(phoneNumber), payload);
 
-        // Parse message type
+        // Decode event type and fields in one pass
         try {
-            JsonNode jsonNode = objectMapper.readTree(payload);
-            String messageType = jsonNode.has("event") ? jsonNode.get("event").asText() : null;
+            InboundEvent event = decoder.decode(payload);
 
-            if (messageType == null) {
+            if (event == null) {
                 log.warn("Message from {} missing 'event' field", maskPhoneNumber(phoneNumber));
                 if (session.isOpen()) {
                     session.close(CloseStatus.BAD_DATA);
@@ -136,35 +187,23 @@ public class NativeWebSocketHandler extends TextWebSocketHandler {
             }
 
             // Handle different message types
-            switch (messageType) {
-                case "ping":
-                    handlePing(session, phoneNumber);
-                    break;
-
-                case "chat.send":
-                    handleChatSend(session, phoneNumber, jsonNode);
-                    break;
-
-                case "presence.heartbeat":
-                    handlePresenceHeartbeat(session, phoneNumber);
-                    break;
-
-                case "typing.start":
-                    handleTypingStart(session, phoneNumber, jsonNode);
-                    break;
-
-                case "typing.stop":
-                    handleTypingStop(session, phoneNumber, jsonNode);
-                    break;
-
-                case "read.up_to":
-                    handleReadUpTo(session, phoneNumber, jsonNode);
-                    break;
-
-                default:
-                    log.debug("Unhandled message type: {}", messageType);
+            switch (event) {
+                case InboundEvent.Ping ping -> handlePing(session, phoneNumber);
+                case InboundEvent.PresenceHeartbeat heartbeat -> handlePresenceHeartbeat(session, phoneNumber);
+                case InboundEvent.ChatSend chatSend ->
+                        dispatchBlocking(session, () -> handleChatSend(session, phoneNumber, chatSend));
+                case InboundEvent.TypingStart typingStart ->
+                        dispatchBlocking(session, () -> handleTypingStart(session, phoneNumber, typingStart));
+                case InboundEvent.TypingStop typingStop ->
+                        dispatchBlocking(session, () -> handleTypingStop(session, phoneNumber, typingStop));
+                case InboundEvent.ReadUpTo readUpTo ->
+                        dispatchBlocking(session, () -> handleReadUpTo(session, phoneNumber, readUpTo));
+                case InboundEvent.PresenceSubscribe subscribe ->
+                        dispatchBlocking(session, () -> handlePresenceSubscribe(session, phoneNumber, subscribe));
+                case InboundEvent.Unhandled unhandled -> {
+                    log.debug("Unhandled message type: {}", unhandled.event());
                     sendMessage(session, "{\"event\":\"message.ack\",\"received\":true}");
-                    break;
+                }
             }
 
         } catch (Exception e) {
@@ -175,6 +214,17 @@ public class NativeWebSocketHandler extends TextWebSocketHandler {
         }
     }
 
+    /**
+     * Run a handler that blocks on the database off the I/O thread.
+     * A session that floods its dispatch queue is closed.
+     */
+    private void dispatchBlocking(WebSocketSession session, Runnable handler) throws IOException {
+        if (!dispatcher.dispatch(session.getId(), handler) && session.isOpen()) {
+            log.warn("Closing session {}: too many pending events", session.getId());
+            session.close(CloseStatus.POLICY_VIOLATION);
+        }
+    }
+
     /**
      * Handle ping message.
      */
@@ -182,36 +232,64 @@ public class NativeWebSocketHandler extends TextWebSocketHandler {
         sendMessage(session, "{\"event\":\"pong\",\"timestamp\":" + System.currentTimeMillis() + "}");
     }
 
-    private void handleChatSend(WebSocketSession session, String userId, JsonNode jsonNode) {
-        try {
-            WsMessageEnvelope envelope = objectMapper.treeToValue(jsonNode, WsMessageEnvelope.class);
-
-            // Extract body from payload
-            String body = "";
-            if (envelope.getPayload() != null) {
-                if (envelope.getPayload().has("body")) {
-                    body = envelope.getPayload().get("body").asText();
-                } else {
-                    body = envelope.getPayload().toString();
-                }
-            }
+    /**
+     * Handle chat.send message.
+     * Validates and publishes to Kafka, then acknowledges asynchronously once
+     * the broker confirms the write (chat.sent) or the publish fails (chat.error).
+     */
+    private void handleChatSend(WebSocketSession session, String userId, InboundEvent.ChatSend event) {
+        String clientMessageId = event.clientMessageId();
 
+        if (event.to() == null || event.body() == null) {
+            log.warn("chat.send missing to or payload.body from user {}", maskPhoneNumber(userId));
+            sendChatAck(session, ChatSendAck.failed(clientMessageId, null, "invalid_message"));
+            return;
+        }
+
+        CompletableFuture<ChatSendResult> published;
+        try {
             // In Phase D, sendMessage handles validation and Kafka publishing
-            chatService.sendMessage(envelope.getTo(), userId, body);
+            published = chatService.sendMessage(event.to(), userId, event.body());
+        } catch (IllegalArgumentException e) {
+            log.warn("chat.send to unknown room {} from user {}", event.to(), maskPhoneNumber(userId));
+            sendChatAck(session, ChatSendAck.failed(clientMessageId, null, "room_not_found"));
+            return;
+        } catch (SecurityException e) {
+            log.warn("User {} not a member of room {}, rejecting chat.send", maskPhoneNumber(userId), event.to());
+            sendChatAck(session, ChatSendAck.failed(clientMessageId, null, "not_a_member"));
+            return;
+        } catch (Exception e) {
+            log.error("Failed to process chat.send from user {}: {}", maskPhoneNumber(userId), e.getMessage());
+            sendChatAck(session, ChatSendAck.failed(clientMessageId, null, "send_failed"));
+            return;
+        }
 
-            // Send acknowledgment (chat.sent)
-            String messageId = java.util.UUID.randomUUID().toString(); // Placeholder
-            sendMessage(session,
-                    String.format("{\"event\":\"chat.sent\",\"payload\":{\"messageId\":\"%s\"}}", messageId));
+        // Acknowledge from the producer callback - nothing waits on the broker
+        published.whenComplete((result, ex) -> {
+            if (ex == null) {
+                sendChatAck(session, ChatSendAck.sent(clientMessageId, result));
+                return;
+            }
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            String messageId = cause instanceof MessagePublishException publishError
+                    ? publishError.getMessageId()
+                    : null;
+            sendChatAck(session, ChatSendAck.failed(clientMessageId, messageId, "publish_failed"));
+        });
+    }
 
+    private void sendChatAck(WebSocketSession session, ChatSendAck ack) {
+        try {
+            sendMessage(session, objectMapper.writeValueAsString(ack));
         } catch (Exception e) {
-            log.error("Failed to process chat.send from user {}: {}", maskPhoneNumber(userId), e.getMessage());
+            log.error("Error sending {} to session {}: {}", ack.event(), session.getId(), e.getMessage());
         }
     }
 
     /**
      * Handle presence heartbeat message.
-     * Refreshes user's presence TTL in Redis.
+     * The TTL refresh is queued for PresenceService's next pipelined flush,
+     * so the ack goes out without a Redis round trip.
      */
     private void handlePresenceHeartbeat(WebSocketSession session, String phoneNumber) {
         boolean success = presenceService.recordHeartbeat(phoneNumber);
@@ -228,14 +306,34 @@ public class NativeWebSocketHandler extends TextWebSocketHandler {
         }
     }
 
+    /**
+     * Handle presence.subscribe message.
+     * Replaces the session's presence subscriptions and replies with the
+     * current state of every subscribed user.
+     */
+    private void handlePresenceSubscribe(WebSocketSession session, String phoneNumber,
+            InboundEvent.PresenceSubscribe event) {
+        List<String> userIds = event.userIds() != null ? event.userIds() : List.of();
+
+        try {
+            PresenceUpdate snapshot = presenceSubscriptions.subscribe(session, userIds);
+            sessionManager.send(session, new TextMessage(objectMapper.writeValueAsString(snapshot)),
+                    OutboundFrameType.PRESENCE);
+
+            log.debug("User {} subscribed to presence of {} users", maskPhoneNumber(phoneNumber), userIds.size());
+        } catch (Exception e) {
+            log.error("Error handling presence.subscribe from {}: {}", maskPhoneNumber(phoneNumber), e.getMessage());
+        }
+    }
+
     /**
      * Handle typing.start message.
      * Validates room membership, updates typing state, and broadcasts to room
      * members.
      * Phase D2: Typing Indicators
      */
-    private void handleTypingStart(WebSocketSession session, String userId, JsonNode payload) {
-        String roomId = payload.has("roomId") ? payload.get("roomId").asText() : null;
+    private void handleTypingStart(WebSocketSession session, String userId, InboundEvent.TypingStart event) {
+        String roomId = event.roomId();
 
         if (roomId == null) {
             log.warn("typing.start missing roomId from user {}", maskPhoneNumber(userId));
@@ -259,7 +357,7 @@ public class NativeWebSocketHandler extends TextWebSocketHandler {
         }
 
         // Broadcast to room members
-        broadcastTypingEvent(roomId, userId, TypingEvent.TypingAction.START);
+        typingBroadcaster.typingChanged(roomId, userId, TypingEvent.TypingAction.START);
     }
 
     /**
@@ -267,8 +365,8 @@ public class NativeWebSocketHandler extends TextWebSocketHandler {
      * Updates typing state and broadcasts to room members.
      * Phase D2: Typing Indicators
      */
-    private void handleTypingStop(WebSocketSession session, String userId, JsonNode payload) {
-        String roomId = payload.has("roomId") ? payload.get("roomId").asText() : null;
+    private void handleTypingStop(WebSocketSession session, String userId, InboundEvent.TypingStop event) {
+        String roomId = event.roomId();
 
         if (roomId == null) {
             log.warn("typing.stop missing roomId from user {}", maskPhoneNumber(userId));
@@ -279,47 +377,18 @@ public class NativeWebSocketHandler extends TextWebSocketHandler {
         typingStateManager.markTypingStop(roomId, userId, session.getId());
 
         // Broadcast to room members
-        broadcastTypingEvent(roomId, userId, TypingEvent.TypingAction.STOP);
-    }
-
-    /**
-     * Broadcast typing event to all room members except the sender.
-     * Phase D2: Typing Indicators
-     */
-    private void broadcastTypingEvent(String roomId, String senderId, TypingEvent.TypingAction action) {
-        try {
-            Set<String> members = roomMembershipService.getRoomMembers(roomId);
-            if (members.isEmpty()) {
-                return;
-            }
-
-            TypingEvent event = new TypingEvent(senderId, roomId, action);
-            String json = objectMapper.writeValueAsString(event);
-
-            // Send to all members except sender
-            for (String memberId : members) {
-                if (!memberId.equals(senderId)) {
-                    sendToUser(memberId, json);
-                }
-            }
-
-            log.debug("Broadcasted typing.{} for user {} in room {} to {} members",
-                    action.name().toLowerCase(), maskPhoneNumber(senderId), roomId, members.size() - 1);
-
-        } catch (Exception e) {
-            log.error("Error broadcasting typing event: {}", e.getMessage());
-        }
+        typingBroadcaster.typingChanged(roomId, userId, TypingEvent.TypingAction.STOP);
     }
 
     /**
      * Handle read.up_to message.
      * Marks messages as read up to the specified message ID and broadcasts
-     * receipts.
+     * the new read position.
      * Phase D3: Read Receipts
      */
-    private void handleReadUpTo(WebSocketSession session, String userId, JsonNode payload) {
-        String roomId = payload.has("roomId") ? payload.get("roomId").asText() : null;
-        String messageId = payload.has("messageId") ? payload.get("messageId").asText() : null;
+    private void handleReadUpTo(WebSocketSession session, String userId, InboundEvent.ReadUpTo event) {
+        String roomId = event.roomId();
+        String messageId = event.messageId();
 
         if (roomId == null || messageId == null) {
             log.warn("read.up_to missing roomId or messageId from user {}",
@@ -328,25 +397,24 @@ public class NativeWebSocketHandler extends TextWebSocketHandler {
         }
 
         try {
-            // Mark messages as read (batch operation up to 50 messages)
-            List<ReadReceiptResult> results = readReceiptService.markReadUpTo(
-                    roomId, messageId, userId);
-
-            // Fetch members and broadcast only if there are new reads
-            boolean hasNewReads = results.stream().anyMatch(ReadReceiptResult::isNewRead);
-            if (hasNewReads) {
-                Set<String> members = roomMembershipService.getRoomMembers(roomId);
+            if (readReceiptBroadcaster.isLegacyPerMessageEvents()) {
+                // Move the read watermark; one result per message it passed
+                List<ReadReceiptResult> results = readReceiptService.markReadUpTo(
+                        roomId, messageId, userId);
 
                 // Broadcast each new read receipt
                 for (ReadReceiptResult result : results) {
                     if (result.isNewRead()) {
-                        broadcastReadReceipt(result.getReceipt(), members);
+                        readReceiptBroadcaster.broadcastReceipt(result.getReceipt());
                     }
                 }
-            }
 
-            log.debug("User {} marked {} messages as read in room {}",
-                    maskPhoneNumber(userId), results.size(), roomId);
+                log.debug("User {} marked {} messages as read in room {}",
+                        maskPhoneNumber(userId), results.size(), roomId);
+            } else {
+                // Buffered; written and broadcast by the next flush
+                readPositionBuffer.record(roomId, messageId, userId);
+            }
 
         } catch (NotFoundException e) {
             log.warn("Message not found: {}", messageId);
@@ -358,46 +426,18 @@ public class NativeWebSocketHandler extends TextWebSocketHandler {
         }
     }
 
-    /**
-     * Broadcast read receipt to all room members except the reader.
-     * Phase D3: Read Receipts
-     */
-    private void broadcastReadReceipt(ReadReceiptEntity receipt, Set<String> members) {
-        try {
-            if (members.isEmpty()) {
-                return;
-            }
-
-            ReadReceiptEvent event = new ReadReceiptEvent(
-                    receipt.getRoomId(),
-                    receipt.getMessageId(),
-                    receipt.getReaderPhoneNumber(),
-                    receipt.getReadAt().toEpochMilli());
-
-            String json = objectMapper.writeValueAsString(event);
-
-            // Send to all members except the reader
-            for (String memberId : members) {
-                if (!memberId.equals(receipt.getReaderPhoneNumber())) {
-                    sendToUser(memberId, json);
-                }
-            }
-
-            log.debug("Broadcasted read receipt for message {} in room {} to {} members",
-                    receipt.getMessageId(), receipt.getRoomId(), members.size() - 1);
-
-        } catch (Exception e) {
-            log.error("Error broadcasting read receipt: {}", e.getMessage());
-        }
-    }
-
     @Override
 
     public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus status) throws Exception {
         String phoneNumber = (String) session.getAttributes().get("phoneNumber");
 
         if (phoneNumber != null) {
+            dispatcher.sessionClosed(session.getId());
+            presenceSubscriptions.unsubscribe(session);
             sessionManager.deregisterSession(session);
+            if (!sessionManager.hasActiveSession(phoneNumber)) {
+                roomFanout.userDisconnected(phoneNumber);
+            }
 
             // Mark user disconnect (Phase D1: Presence Tracking)
             // TTL will handle final offline status
@@ -406,7 +446,7 @@ public class NativeWebSocketHandler extends TextWebSocketHandler {
             // Clear typing state and broadcast (Phase D2: Typing Indicators)
             List<String> affectedRooms = typingStateManager.clearUserTyping(phoneNumber, session.getId());
             for (String roomId : affectedRooms) {
-                broadcastTypingEvent(roomId, phoneNumber, TypingEvent.TypingAction.STOP);
+                typingBroadcaster.typingChanged(roomId, phoneNumber, TypingEvent.TypingAction.STOP);
             }
 
             log.info("WebSocket connection closed for user: {} (status: {})",
@@ -427,25 +467,20 @@ public class NativeWebSocketHandler extends TextWebSocketHandler {
     }
 
     /**
-     * Send a message to a specific session.
+     * Queue a control message (ack, pong, error) for a specific session.
      */
     private void sendMessage(WebSocketSession session, String message) {
-        try {
-            if (session.isOpen()) {
-                @SuppressWarnings("nullness")
-                TextMessage textMessage = new TextMessage(message);
-                session.sendMessage(textMessage);
-            }
-        } catch (IOException e) {
-            log.error("Failed to send message to session {}: {}", session.getId(), e.getMessage());
-        }
+        @SuppressWarnings("nullness")
+        TextMessage textMessage = new TextMessage(message);
+        sessionManager.send(session, textMessage, OutboundFrameType.CONTROL);
     }
 
     /**
-     * Broadcast a message to a specific user by phone number.
+     * Queue a message for a specific user by phone number, wherever in the
+     * cluster they are connected.
      */
-    public void sendToUser(String phoneNumber, String message) {
-        sessionManager.getSession(phoneNumber).ifPresent(session -> sendMessage(session, message));
+    public void sendToUser(String phoneNumber, String message, OutboundFrameType type) {
+        roomFanout.sendToUser(phoneNumber, new TextMessage(message), type);
     }
 
     /**
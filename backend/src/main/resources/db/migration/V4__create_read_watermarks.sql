@@ -0,0 +1,27 @@
+-- Not run by a migration tool: Hibernate creates read_watermarks and
+-- ReadWatermarkBackfill applies the backfill below at startup. It drops
+-- read_receipts only with linkwave.read-receipts.drop-legacy-receipts.
+
+CREATE TABLE read_watermarks (
+    room_id VARCHAR(36) NOT NULL,
+    reader_phone_number VARCHAR(20) NOT NULL,
+    last_read_sent_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    last_read_message_id VARCHAR(36) NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+
+    CONSTRAINT pk_read_watermarks PRIMARY KEY (room_id, reader_phone_number),
+    CONSTRAINT fk_read_watermark_room FOREIGN KEY (room_id)
+        REFERENCES chat_rooms(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_read_watermark_room_sent_at ON read_watermarks(room_id, last_read_sent_at);
+
+-- Carry over each reader's newest receipted message per room
+INSERT INTO read_watermarks (room_id, reader_phone_number, last_read_sent_at, last_read_message_id, updated_at)
+SELECT DISTINCT ON (r.room_id, r.reader_phone_number)
+       r.room_id, r.reader_phone_number, m.sent_at, m.id, r.read_at
+FROM read_receipts r
+JOIN chat_messages m ON m.id = r.message_id
+ORDER BY r.room_id, r.reader_phone_number, m.sent_at DESC, m.id DESC;
+
+DROP TABLE read_receipts;
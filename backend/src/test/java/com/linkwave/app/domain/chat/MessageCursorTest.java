@@ -0,0 +1,37 @@
+package com.linkwave.app.domain.chat;
+
+import com.linkwave.app.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for the opaque history cursor.
+ */
+class MessageCursorTest {
+
+    @Test
+    void encode_shouldRoundTripWithFullPrecision() {
+        MessageCursor cursor = new MessageCursor(Instant.parse("2026-01-02T03:04:05.123456Z"), "msg-1");
+
+        String token = cursor.encode();
+
+        assertThat(token).doesNotContain("msg-1").doesNotContain("=");
+        assertThat(MessageCursor.decode(token)).isEqualTo(cursor);
+    }
+
+    @Test
+    void decode_shouldRejectMalformedTokens() {
+        String noSeparator = Base64.getUrlEncoder().encodeToString("2026-01-02T03:04:05Z".getBytes(StandardCharsets.UTF_8));
+        String badTimestamp = Base64.getUrlEncoder().encodeToString("yesterday|msg-1".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> MessageCursor.decode("not base64!")).isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> MessageCursor.decode(noSeparator)).isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> MessageCursor.decode(badTimestamp)).isInstanceOf(InvalidCursorException.class);
+    }
+}
@@ -0,0 +1,76 @@
+package com.linkwave.app.repository;
+
+import com.linkwave.app.domain.chat.ChatMessage;
+import com.linkwave.app.domain.chat.ChatMessageEntity;
+import com.linkwave.app.domain.chat.ChatRoomEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for the JDBC batch insert against the Hibernate-generated schema.
+ */
+@DataJpaTest
+@Import(ChatMessageJdbcRepository.class)
+class ChatMessageJdbcRepositoryTest {
+
+    private static final String ROOM_ID = "room-1";
+    private static final String SENDER = "+14155551111";
+
+    @Autowired
+    private ChatMessageJdbcRepository jdbcRepository;
+
+    @Autowired
+    private ChatRoomRepository roomRepository;
+
+    @Autowired
+    private ChatMessageRepository messageRepository;
+
+    @BeforeEach
+    void setUp() {
+        Instant now = Instant.now();
+        roomRepository.saveAndFlush(new ChatRoomEntity(ROOM_ID, ChatRoomEntity.RoomType.GROUP, "Room", now, now));
+    }
+
+    @Test
+    void insertAll_shouldPersistBatchWithRoomReference() {
+        List<ChatMessage> messages = List.of(
+                new ChatMessage("msg-1", ROOM_ID, SENDER, "Hello", 1_000L, 7),
+                new ChatMessage("msg-2", ROOM_ID, SENDER, "World", 2_000L, null));
+
+        jdbcRepository.insertAll(messages);
+
+        ChatMessageEntity stored = messageRepository.findById("msg-1").orElseThrow();
+        assertThat(stored.getRoom().getId()).isEqualTo(ROOM_ID);
+        assertThat(stored.getBody()).isEqualTo("Hello");
+        assertThat(stored.getSentAt()).isEqualTo(Instant.ofEpochMilli(1_000L));
+        assertThat(stored.getTtlDays()).isEqualTo(7);
+        assertThat(messageRepository.findById("msg-2").orElseThrow().getTtlDays()).isNull();
+    }
+
+    @Test
+    void insertAll_replayedMessages_shouldNotDuplicateOrFail() {
+        ChatMessage message = new ChatMessage("msg-1", ROOM_ID, SENDER, "Hello", 1_000L, 7);
+
+        jdbcRepository.insertAll(List.of(message));
+        jdbcRepository.insertAll(List.of(message, new ChatMessage("msg-2", ROOM_ID, SENDER, "Again", 2_000L, 7)));
+
+        assertThat(messageRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void insertAll_unknownRoom_shouldViolateConstraint() {
+        assertThatThrownBy(() -> jdbcRepository.insertAll(
+                List.of(new ChatMessage("msg-1", "missing-room", SENDER, "Hello", 1_000L, 7))))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+}
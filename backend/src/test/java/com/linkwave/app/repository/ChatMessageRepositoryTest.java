@@ -0,0 +1,105 @@
+package com.linkwave.app.repository;
+
+import com.linkwave.app.domain.chat.ChatMessage;
+import com.linkwave.app.domain.chat.ChatMessageView;
+import com.linkwave.app.domain.chat.ChatRoomEntity;
+import com.linkwave.app.domain.chat.MessageCursor;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for keyset pagination over room history.
+ */
+@DataJpaTest
+@Import(ChatMessageJdbcRepository.class)
+class ChatMessageRepositoryTest {
+
+    private static final String ROOM_ID = "room-1";
+    private static final String OTHER_ROOM_ID = "room-2";
+    private static final String SENDER = "+14155551111";
+
+    @Autowired
+    private ChatMessageRepository messageRepository;
+
+    @Autowired
+    private ChatMessageJdbcRepository jdbcRepository;
+
+    @Autowired
+    private ChatRoomRepository roomRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        Instant now = Instant.now();
+        roomRepository.saveAndFlush(new ChatRoomEntity(ROOM_ID, ChatRoomEntity.RoomType.GROUP, "Room", now, now));
+        roomRepository.saveAndFlush(new ChatRoomEntity(OTHER_ROOM_ID, ChatRoomEntity.RoomType.GROUP, "Other", now, now));
+
+        // msg-c and msg-d share a timestamp to exercise the id tie-breaker
+        jdbcRepository.insertAll(List.of(
+                new ChatMessage("msg-a", ROOM_ID, SENDER, "a", 1_000L, null),
+                new ChatMessage("msg-b", ROOM_ID, SENDER, "b", 2_000L, null),
+                new ChatMessage("msg-c", ROOM_ID, SENDER, "c", 3_000L, null),
+                new ChatMessage("msg-d", ROOM_ID, SENDER, "d", 3_000L, null),
+                new ChatMessage("msg-e", ROOM_ID, SENDER, "e", 4_000L, null),
+                new ChatMessage("msg-x", OTHER_ROOM_ID, SENDER, "x", 3_500L, null)));
+    }
+
+    @Test
+    void findLatest_shouldReturnNewestFirstForRoomOnly() {
+        List<ChatMessageView> page = messageRepository.findLatest(ROOM_ID, Limit.of(3));
+
+        assertThat(ids(page)).containsExactly("msg-e", "msg-d", "msg-c");
+    }
+
+    @Test
+    void findLatest_shouldProjectWithoutManagingEntities() {
+        entityManager.clear();
+
+        ChatMessageView view = messageRepository.findLatest(ROOM_ID, Limit.of(1)).get(0);
+
+        assertThat(view).isEqualTo(new ChatMessageView("msg-e", ROOM_ID, SENDER, "e", Instant.ofEpochMilli(4_000L)));
+        assertThat(entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    void findBefore_shouldBreakTimestampTiesById() {
+        ChatMessageView last = messageRepository.findLatest(ROOM_ID, Limit.of(2)).get(1);
+
+        List<ChatMessageView> page = messageRepository.findBefore(
+                ROOM_ID, last.sentAt(), last.id(), Limit.of(2));
+
+        assertThat(last.id()).isEqualTo("msg-d");
+        assertThat(ids(page)).containsExactly("msg-c", "msg-b");
+    }
+
+    @Test
+    void walkingCursors_shouldVisitEveryMessageExactlyOnce() {
+        List<String> seen = new ArrayList<>();
+        List<ChatMessageView> page = messageRepository.findLatest(ROOM_ID, Limit.of(2));
+        while (!page.isEmpty()) {
+            seen.addAll(ids(page));
+            MessageCursor cursor = MessageCursor.of(page.get(page.size() - 1));
+            page = messageRepository.findBefore(ROOM_ID, cursor.sentAt(), cursor.id(), Limit.of(2));
+        }
+
+        assertThat(seen).containsExactly("msg-e", "msg-d", "msg-c", "msg-b", "msg-a");
+    }
+
+    private List<String> ids(List<ChatMessageView> messages) {
+        return messages.stream().map(ChatMessageView::id).toList();
+    }
+}
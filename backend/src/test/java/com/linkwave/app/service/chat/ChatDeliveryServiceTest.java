@@ -0,0 +1,88 @@
+package com.linkwave.app.service.chat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkwave.app.domain.chat.ChatMessage;
+import com.linkwave.app.service.websocket.OutboundFrameType;
+import com.linkwave.app.service.websocket.RoomFanoutEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.web.socket.TextMessage;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for chat delivery to STOMP and native WebSocket clients.
+ */
+class ChatDeliveryServiceTest {
+
+    private static final String ROOM_ID = "room-1";
+    private static final String SENDER = "+14155551111";
+
+    private RoomFanoutEngine roomFanout;
+    private SimpMessagingTemplate messagingTemplate;
+    private ObjectMapper objectMapper;
+    private ChatDeliveryService deliveryService;
+
+    @BeforeEach
+    void setUp() {
+        roomFanout = mock(RoomFanoutEngine.class);
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        objectMapper = spy(new ObjectMapper());
+        deliveryService = new ChatDeliveryService(roomFanout, messagingTemplate, objectMapper);
+    }
+
+    @Test
+    void deliver_shouldSendChatReceiveFrameToLocalRoomMembersIncludingSender() throws Exception {
+        when(roomFanout.broadcastLocal(anyString(), any(), any(), any())).thenReturn(2);
+        ChatMessage message = new ChatMessage("msg-1", ROOM_ID, SENDER, "Hello", 1000L, null);
+
+        int recipients = deliveryService.deliver(message);
+
+        ArgumentCaptor<TextMessage> frame = ArgumentCaptor.forClass(TextMessage.class);
+        verify(roomFanout).broadcastLocal(eq(ROOM_ID), frame.capture(), eq(OutboundFrameType.CHAT), isNull());
+        assertThat(recipients).isEqualTo(2);
+
+        JsonNode json = objectMapper.readTree(frame.getValue().getPayload());
+        assertThat(json.get("event").asText()).isEqualTo("chat.receive");
+        assertThat(json.get("payload").get("messageId").asText()).isEqualTo("msg-1");
+        assertThat(json.get("payload").get("body").asText()).isEqualTo("Hello");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deliver_shouldPublishSamePayloadToStompTopic() throws Exception {
+        ChatMessage message = new ChatMessage("msg-1", ROOM_ID, SENDER, "Hello", 1000L, null);
+
+        deliveryService.deliver(message);
+
+        ArgumentCaptor<Message<byte[]>> stomp = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate).send(eq("/topic/room." + ROOM_ID), stomp.capture());
+        ArgumentCaptor<TextMessage> frame = ArgumentCaptor.forClass(TextMessage.class);
+        verify(roomFanout).broadcastLocal(eq(ROOM_ID), frame.capture(), any(), any());
+
+        String stompJson = new String(stomp.getValue().getPayload(), StandardCharsets.UTF_8);
+        JsonNode nativePayload = objectMapper.readTree(frame.getValue().getPayload()).get("payload");
+        assertThat(objectMapper.readTree(stompJson)).isEqualTo(nativePayload);
+    }
+
+    @Test
+    void deliver_shouldSerializeMessageOnce() throws Exception {
+        ChatMessage message = new ChatMessage("msg-1", ROOM_ID, SENDER, "Hello", 1000L, null);
+
+        deliveryService.deliver(message);
+
+        verify(objectMapper, times(1)).writeValueAsString(message);
+        verify(objectMapper, never()).writeValueAsBytes(any());
+    }
+}
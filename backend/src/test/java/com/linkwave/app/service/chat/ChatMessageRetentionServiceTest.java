@@ -0,0 +1,138 @@
+package com.linkwave.app.service.chat;
+
+import com.linkwave.app.config.ChatRetentionConfig;
+import com.linkwave.app.config.ChatRetentionConfig.PartitionInterval;
+import com.linkwave.app.repository.ChatMessagePartitionRepository;
+import com.linkwave.app.repository.ChatMessagePartitionRepository.Partition;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for partition creation, partition drops and batched deletes.
+ */
+class ChatMessageRetentionServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-16T10:00:00Z");
+    private static final Instant DAY = Instant.parse("2026-10-16T00:00:00Z");
+
+    private ChatMessagePartitionRepository repository;
+    private ChatRetentionConfig config;
+    private SimpleMeterRegistry meterRegistry;
+    private ChatMessageRetentionService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ChatMessagePartitionRepository.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        config = new ChatRetentionConfig();
+        config.setPremakePartitions(2);
+        config.setDeleteBatchSize(100);
+        meterRegistry = new SimpleMeterRegistry();
+
+        service = new ChatMessageRetentionService(repository, config, transactionManager, meterRegistry,
+                Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void partitionInterval_shouldFloorToUtcDayOrMonday() {
+        assertThat(PartitionInterval.DAILY.floor(NOW)).isEqualTo(DAY);
+        assertThat(PartitionInterval.WEEKLY.floor(NOW)).isEqualTo(Instant.parse("2026-10-12T00:00:00Z"));
+        assertThat(PartitionInterval.WEEKLY.next(Instant.parse("2026-10-12T00:00:00Z")))
+                .isEqualTo(Instant.parse("2026-10-19T00:00:00Z"));
+    }
+
+    @Test
+    void runMaintenance_shouldCreatePartitionsAheadOfCurrentDay() {
+        when(repository.listPartitions()).thenReturn(List.of(
+                new Partition("chat_messages_p20261016", DAY, DAY.plusSeconds(86400))));
+
+        service.runMaintenance();
+
+        verify(repository).createPartition(Instant.parse("2026-10-17T00:00:00Z"), Instant.parse("2026-10-18T00:00:00Z"));
+        verify(repository).createPartition(Instant.parse("2026-10-18T00:00:00Z"), Instant.parse("2026-10-19T00:00:00Z"));
+        verify(repository, times(2)).createPartition(any(), any());
+        assertThat(meterRegistry.counter("linkwave.chat.retention.partitions.created").count()).isEqualTo(2);
+    }
+
+    @Test
+    void runMaintenance_whenPremakingFellBehind_shouldCountRowsMovedOutOfDefaultPartition() {
+        when(repository.listPartitions()).thenReturn(List.of(
+                new Partition("chat_messages_p20261014", Instant.parse("2026-10-14T00:00:00Z"),
+                        Instant.parse("2026-10-15T00:00:00Z"))));
+        when(repository.createPartition(any(), any())).thenReturn(12, 30, 0, 0);
+
+        service.runMaintenance();
+
+        verify(repository).createPartition(Instant.parse("2026-10-15T00:00:00Z"), Instant.parse("2026-10-16T00:00:00Z"));
+        verify(repository, times(4)).createPartition(any(), any());
+        assertThat(meterRegistry.counter("linkwave.chat.retention.default.rows.moved").count()).isEqualTo(42);
+    }
+
+    @Test
+    void prepareTable_shouldCreateDefaultPartition() {
+        when(repository.tableState()).thenReturn(ChatMessagePartitionRepository.TableState.PARTITIONED);
+        when(repository.listPartitions()).thenReturn(List.of());
+
+        service.prepareTable();
+
+        verify(repository).createDefaultPartition();
+        verify(repository, never()).convertToPartitioned(any());
+    }
+
+    @Test
+    void runMaintenance_shouldDropPartitionsPastDefaultTtl() {
+        Partition expired = new Partition("chat_messages_p20261008",
+                Instant.parse("2026-10-08T00:00:00Z"), Instant.parse("2026-10-09T00:00:00Z"));
+        Partition current = new Partition("chat_messages_p20261016", DAY, Instant.parse("2026-10-19T00:00:00Z"));
+        when(repository.listPartitions()).thenReturn(List.of(expired, current));
+
+        service.runMaintenance();
+
+        verify(repository).dropPartition("chat_messages_p20261008");
+        verify(repository, never()).dropPartition("chat_messages_p20261016");
+        assertThat(meterRegistry.counter("linkwave.chat.retention.partitions.dropped").count()).isEqualTo(1);
+    }
+
+    @Test
+    void runMaintenance_shouldKeepPartitionWithLiveOverridesAndDeleteInBatches() {
+        Partition expired = new Partition("chat_messages_p20261008",
+                Instant.parse("2026-10-08T00:00:00Z"), Instant.parse("2026-10-09T00:00:00Z"));
+        when(repository.listPartitions()).thenReturn(List.of(expired));
+        when(repository.hasLiveOverrides("chat_messages_p20261008", 7)).thenReturn(true);
+        when(repository.deleteExpired("chat_messages_p20261008", 7, 100)).thenReturn(100, 40);
+
+        service.runMaintenance();
+
+        verify(repository, never()).dropPartition(anyString());
+        verify(repository, times(2)).deleteExpired("chat_messages_p20261008", 7, 100);
+        assertThat(meterRegistry.counter("linkwave.chat.retention.rows.deleted").count()).isEqualTo(140);
+    }
+
+    @Test
+    void runMaintenance_shouldDeleteShortTtlMessagesUntilBatchComesBackShort() {
+        when(repository.listPartitions()).thenReturn(List.of());
+        when(repository.deleteExpiredShortTtl(eq(7), anyInt())).thenReturn(100, 100, 3);
+
+        service.runMaintenance();
+
+        verify(repository, times(3)).deleteExpiredShortTtl(7, 100);
+        assertThat(meterRegistry.counter("linkwave.chat.retention.rows.deleted").count()).isEqualTo(203);
+    }
+}
@@ -0,0 +1,74 @@
+package com.linkwave.app.service.kafka;
+
+import com.linkwave.app.config.ChatConsumerConfig;
+import com.linkwave.app.domain.chat.ChatMessage;
+import com.linkwave.app.service.chat.ChatDeliveryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the real-time delivery consumer.
+ */
+class ChatDeliveryConsumerTest {
+
+    private ChatDeliveryService deliveryService;
+    private SimpleMeterRegistry meterRegistry;
+    private ChatDeliveryConsumer consumer;
+
+    private final ChatMessage message = new ChatMessage("msg-1", "room-1", "+14155551111", "Hello", 1_000L, 7);
+
+    @BeforeEach
+    void setUp() {
+        deliveryService = mock(ChatDeliveryService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        ChatConsumerConfig config = new ChatConsumerConfig();
+        config.getDelivery().setMaxAgeMs(30_000);
+        consumer = new ChatDeliveryConsumer(deliveryService, config, meterRegistry);
+    }
+
+    @Test
+    void consume_shouldDeliverImmediately() throws Exception {
+        consumer.consumeChatMessage(record(message, System.currentTimeMillis()));
+
+        verify(deliveryService).deliver(message);
+        assertThat(counter("linkwave.kafka.chat.processed")).isEqualTo(1);
+        assertThat(meterRegistry.get("linkwave.kafka.chat.lag").tag("pipeline", "delivery").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void consume_staleRecord_shouldBeSkipped() throws Exception {
+        consumer.consumeChatMessage(record(message, System.currentTimeMillis() - 60_000));
+
+        verify(deliveryService, never()).deliver(any());
+        assertThat(counter("linkwave.kafka.chat.skipped")).isEqualTo(1);
+    }
+
+    @Test
+    void consume_deliveryFailure_shouldBeCountedNotRethrown() throws Exception {
+        doThrow(new IllegalStateException("broker down")).when(deliveryService).deliver(message);
+
+        consumer.consumeChatMessage(record(message, System.currentTimeMillis()));
+
+        assertThat(counter("linkwave.kafka.chat.failed")).isEqualTo(1);
+        assertThat(counter("linkwave.kafka.chat.processed")).isZero();
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).tag("pipeline", "delivery").counter().count();
+    }
+
+    private ConsumerRecord<String, ChatMessage> record(ChatMessage value, long timestamp) {
+        return new ConsumerRecord<>("chat.messages", 0, 0L, timestamp, TimestampType.CREATE_TIME,
+                -1, -1, value.getRoomId(), value, new RecordHeaders(), Optional.empty());
+    }
+}
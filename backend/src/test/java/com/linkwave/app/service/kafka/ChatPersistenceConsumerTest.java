@@ -0,0 +1,94 @@
+package com.linkwave.app.service.kafka;
+
+import com.linkwave.app.domain.chat.ChatMessage;
+import com.linkwave.app.service.chat.ChatService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the batch persistence consumer.
+ */
+class ChatPersistenceConsumerTest {
+
+    private ChatService chatService;
+    private SimpleMeterRegistry meterRegistry;
+    private ChatPersistenceConsumer consumer;
+
+    private final ChatMessage first = new ChatMessage("msg-1", "room-1", "+14155551111", "Hello", 1_000L, 7);
+    private final ChatMessage orphan = new ChatMessage("msg-2", "deleted-room", "+14155551111", "Lost", 2_000L, 7);
+    private final ChatMessage third = new ChatMessage("msg-3", "room-1", "+14155551111", "World", 3_000L, 7);
+
+    @BeforeEach
+    void setUp() {
+        chatService = mock(ChatService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        consumer = new ChatPersistenceConsumer(chatService, meterRegistry);
+    }
+
+    @Test
+    void consume_shouldPersistWholeBatchOnce() {
+        consumer.consumeChatMessages(records(first, third));
+
+        verify(chatService).persistMessages(List.of(first, third));
+        verify(chatService, never()).persistMessage(any());
+        assertThat(counter("linkwave.kafka.chat.processed")).isEqualTo(2);
+    }
+
+    @Test
+    void consume_constraintViolation_shouldIsolateOffendingMessage() {
+        doThrow(new DataIntegrityViolationException("fk")).when(chatService).persistMessages(anyList());
+        doThrow(new DataIntegrityViolationException("fk")).when(chatService).persistMessage(orphan);
+
+        consumer.consumeChatMessages(records(first, orphan, third));
+
+        verify(chatService).persistMessage(first);
+        verify(chatService).persistMessage(third);
+        assertThat(counter("linkwave.kafka.chat.processed")).isEqualTo(2);
+        assertThat(counter("linkwave.kafka.chat.failed")).isEqualTo(1);
+    }
+
+    @Test
+    void consume_otherFailure_shouldPropagateForRetry() {
+        doThrow(new CannotGetJdbcConnectionException("db down")).when(chatService).persistMessages(anyList());
+
+        assertThatThrownBy(() -> consumer.consumeChatMessages(records(first, third)))
+                .isInstanceOf(CannotGetJdbcConnectionException.class);
+        verify(chatService, never()).persistMessage(any());
+    }
+
+    @Test
+    void consume_undeserializableRecord_shouldBeSkipped() {
+        List<ConsumerRecord<String, ChatMessage>> batch = records(first);
+        batch.add(new ConsumerRecord<>("chat.messages", 0, 1, "room-1", null));
+
+        consumer.consumeChatMessages(batch);
+
+        verify(chatService).persistMessages(List.of(first));
+        assertThat(counter("linkwave.kafka.chat.failed")).isEqualTo(1);
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).tag("pipeline", "persistence").counter().count();
+    }
+
+    private List<ConsumerRecord<String, ChatMessage>> records(ChatMessage... messages) {
+        List<ConsumerRecord<String, ChatMessage>> records = new ArrayList<>();
+        for (int i = 0; i < messages.length; i++) {
+            records.add(new ConsumerRecord<>("chat.messages", 0, i, messages[i].getRoomId(), messages[i]));
+        }
+        return records;
+    }
+}
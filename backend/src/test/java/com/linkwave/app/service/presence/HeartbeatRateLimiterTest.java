@@ -0,0 +1,98 @@
+package com.linkwave.app.service.presence;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the self-expiring heartbeat rate limiter.
+ */
+class HeartbeatRateLimiterTest {
+
+    private static final long WINDOW_MS = 1000;
+    private static final String USER = "+14155551111";
+
+    private final long start = System.currentTimeMillis();
+    private final HeartbeatRateLimiter limiter = new HeartbeatRateLimiter(WINDOW_MS);
+
+    @Test
+    void tryAcquire_shouldAllowOneHeartbeatPerWindow() {
+        assertThat(limiter.tryAcquire(USER, start)).isTrue();
+        assertThat(limiter.tryAcquire(USER, start + WINDOW_MS - 1)).isFalse();
+        assertThat(limiter.tryAcquire(USER, start + WINDOW_MS)).isTrue();
+    }
+
+    @Test
+    void tryAcquire_shouldLimitAcrossGenerationRotation() {
+        long beforeRotation = start + WINDOW_MS - 10;
+        assertThat(limiter.tryAcquire(USER, beforeRotation)).isTrue();
+
+        // Rotates; the accept time now lives in the previous generation
+        assertThat(limiter.tryAcquire("+14155552222", start + WINDOW_MS)).isTrue();
+
+        assertThat(limiter.tryAcquire(USER, beforeRotation + WINDOW_MS - 1)).isFalse();
+        assertThat(limiter.tryAcquire(USER, beforeRotation + WINDOW_MS)).isTrue();
+    }
+
+    @Test
+    void reset_shouldForgetLastHeartbeat() {
+        limiter.tryAcquire(USER, start);
+
+        limiter.reset(USER);
+
+        assertThat(limiter.tryAcquire(USER, start + 1)).isTrue();
+    }
+
+    @Test
+    void tryAcquire_underContention_shouldAcceptExactlyOnce() throws Exception {
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(threads);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    ready.countDown();
+                    ready.await();
+                    return limiter.tryAcquire(USER, start);
+                }));
+            }
+
+            int accepted = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get()) {
+                    accepted++;
+                }
+            }
+            assertThat(accepted).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void soak_shouldKeepMemoryFlatAcrossMillionsOfDistinctUsers() {
+        // 10 new users per simulated millisecond: 10k per window
+        int users = 3_000_000;
+        int perMs = 10;
+        long maxTracked = 2 * WINDOW_MS * perMs + perMs;
+
+        int peak = 0;
+        for (int i = 0; i < users; i++) {
+            assertThat(limiter.tryAcquire("user-" + i, start + i / perMs)).isTrue();
+            if (i % 10_000 == 0) {
+                peak = Math.max(peak, limiter.size());
+            }
+        }
+
+        assertThat(peak).isLessThanOrEqualTo((int) maxTracked);
+        assertThat(limiter.size()).isLessThanOrEqualTo((int) maxTracked);
+    }
+}
@@ -1,6 +1,7 @@
 package com.linkwave.app.service.presence;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkwave.app.config.PresenceHeartbeatConfig;
 import com.linkwave.app.domain.presence.PresenceMetadata;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,8 +12,12 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -31,6 +36,9 @@ class PresenceServiceTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private PresenceHeartbeatConfig heartbeatConfig;
+
     private static final String TEST_USER_1 = "+14155551234";
     private static final String TEST_USER_2 = "+14155555678";
     private static final String PRESENCE_KEY_PREFIX = "linkwave:presence:";
@@ -39,6 +47,8 @@ class PresenceServiceTest {
     void setUp() {
         presenceService.resetHeartbeatTime(TEST_USER_1);
         presenceService.resetHeartbeatTime(TEST_USER_2);
+        // Drop heartbeats left unflushed by earlier tests
+        presenceService.flushHeartbeats();
         cleanupPresenceKeys();
     }
 
@@ -61,7 +71,7 @@ class PresenceServiceTest {
         assertThat(exists).isTrue();
 
         Long ttl = redisTemplate.getExpire(key, TimeUnit.SECONDS);
-        assertThat(ttl).isGreaterThan(0).isLessThanOrEqualTo(75);
+        assertThat(ttl).isGreaterThan(0).isLessThanOrEqualTo(presenceService.getPresenceTtlSeconds());
     }
 
     @Test
@@ -123,6 +133,38 @@ class PresenceServiceTest {
                 });
     }
 
+    @Test
+    void testConcurrentConnects_countEveryConnection() throws Exception {
+
+        int devices = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(devices);
+        try {
+            List<Future<?>> connects = new ArrayList<>();
+            for (int i = 0; i < devices; i++) {
+                connects.add(executor.submit(() -> presenceService.markOnline(TEST_USER_1)));
+            }
+            for (Future<?> connect : connects) {
+                connect.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        PresenceMetadata metadata = presenceService.getPresenceMetadata(TEST_USER_1);
+        assertThat(metadata).isNotNull();
+        assertThat(metadata.getConnectionCount()).isEqualTo(devices);
+    }
+
+    @Test
+    void testPresence_storedAsHash() {
+
+        presenceService.markOnline(TEST_USER_1);
+
+        String key = PRESENCE_KEY_PREFIX + TEST_USER_1;
+        Map<Object, Object> fields = redisTemplate.opsForHash().entries(key);
+        assertThat(fields).containsEntry("connections", "1").containsKey("lastSeen");
+    }
+
     @Test
     void testHeartbeat_refreshesTtl() throws Exception {
 
@@ -136,12 +178,48 @@ class PresenceServiceTest {
 
         Thread.sleep(2000);
         presenceService.recordHeartbeat(TEST_USER_1);
+        presenceService.flushHeartbeats();
 
         Long newTtl = redisTemplate.getExpire(key, TimeUnit.SECONDS);
         assertThat(newTtl).isGreaterThan(initialTtl);
         assertThat(newTtl).isGreaterThan(60);
     }
 
+    @Test
+    void testHeartbeat_renewsTtlOnlyOnFlush() {
+
+        presenceService.markOnline(TEST_USER_1);
+        String key = PRESENCE_KEY_PREFIX + TEST_USER_1;
+        redisTemplate.expire(key, 5, TimeUnit.SECONDS);
+
+        assertThat(presenceService.recordHeartbeat(TEST_USER_1)).isTrue();
+        assertThat(redisTemplate.getExpire(key, TimeUnit.SECONDS)).isLessThanOrEqualTo(5);
+
+        presenceService.flushHeartbeats();
+
+        assertThat(redisTemplate.getExpire(key, TimeUnit.SECONDS))
+                .isGreaterThan(presenceService.getPresenceTtlSeconds() - 5);
+    }
+
+    @Test
+    void testHeartbeat_withoutPresenceRecord_marksOnlineOnFlush() {
+
+        assertThat(presenceService.recordHeartbeat(TEST_USER_2)).isTrue();
+        presenceService.flushHeartbeats();
+
+        assertThat(presenceService.isUserOnline(TEST_USER_2)).isTrue();
+        assertThat(presenceService.getPresenceMetadata(TEST_USER_2).getConnectionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testPresenceTtl_coversFlushInterval() {
+
+        // A heartbeat may wait a whole flush interval before it renews the key
+        assertThat(presenceService.getPresenceTtlSeconds()).isEqualTo(
+                heartbeatConfig.getOfflineAfterSeconds()
+                        + TimeUnit.MILLISECONDS.toSeconds(heartbeatConfig.getFlushIntervalMs()));
+    }
+
     @Test
     void testHeartbeat_rateLimiting() {
 
@@ -168,6 +246,57 @@ class PresenceServiceTest {
         assertThat(presenceMap.get(TEST_USER_2)).isFalse();
     }
 
+    @Test
+    void testGetUsersPresence_afterLastDisconnect_offlineWithLastSeen() {
+
+        presenceService.markOnline(TEST_USER_1);
+        presenceService.markDisconnect(TEST_USER_1);
+
+        Map<String, Boolean> presenceMap = presenceService.getUsersPresence(List.of(TEST_USER_1));
+        PresenceMetadata metadata = presenceService.getUsersPresenceMetadata(List.of(TEST_USER_1)).get(TEST_USER_1);
+
+        assertThat(presenceMap.get(TEST_USER_1)).isFalse();
+        assertThat(presenceService.isUserOnline(TEST_USER_1)).isFalse();
+        assertThat(metadata.hasActiveConnections()).isFalse();
+        assertThat(metadata.getLastSeen()).isNotNull();
+    }
+
+    @Test
+    void testGetUsersPresenceMetadata_legacyStringKey_doesNotFailOtherUsers() {
+
+        presenceService.markOnline(TEST_USER_1);
+        // Written by a node still running the JSON string format
+        redisTemplate.opsForValue().set(PRESENCE_KEY_PREFIX + TEST_USER_2, "{\"connectionCount\":1}");
+
+        Map<String, PresenceMetadata> online = presenceService.getUsersPresenceMetadata(
+                List.of(TEST_USER_1, TEST_USER_2));
+
+        assertThat(online.get(TEST_USER_1).hasActiveConnections()).isTrue();
+        assertThat(online.get(TEST_USER_2).hasActiveConnections()).isTrue();
+        assertThat(online.get(TEST_USER_2).getLastSeen()).isNull();
+        assertThat(presenceService.isUserOnline(TEST_USER_2)).isTrue();
+    }
+
+    @Test
+    void testGetUsersPresenceMetadata_largeListAcrossChunks() {
+
+        presenceService.markOnline(TEST_USER_1);
+        presenceService.markOnline(TEST_USER_2);
+
+        List<String> userIds = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            userIds.add("+1415600" + String.format("%04d", i));
+        }
+        userIds.add(TEST_USER_1);
+        userIds.add(0, TEST_USER_2);
+
+        Map<String, PresenceMetadata> online = presenceService.getUsersPresenceMetadata(userIds);
+
+        assertThat(online).containsOnlyKeys(TEST_USER_1, TEST_USER_2);
+        assertThat(online.get(TEST_USER_1).getLastSeen()).isNotNull();
+        assertThat(online.get(TEST_USER_2).getConnectionCount()).isEqualTo(1);
+    }
+
     @Test
     void testGetLastSeen_returnsTimestamp() {
 
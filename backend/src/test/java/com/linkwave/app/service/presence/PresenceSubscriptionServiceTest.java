@@ -0,0 +1,167 @@
+package com.linkwave.app.service.presence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkwave.app.config.PresenceSubscriptionConfig;
+import com.linkwave.app.domain.presence.PresenceMetadata;
+import com.linkwave.app.domain.presence.PresenceUpdate;
+import com.linkwave.app.service.presence.PresenceSubscriptionService.PresenceChange;
+import com.linkwave.app.service.websocket.OutboundFrameType;
+import com.linkwave.app.service.websocket.WsSessionManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for presence.subscribe snapshots and debounced change pushes.
+ */
+class PresenceSubscriptionServiceTest {
+
+    private static final String USER_1 = "+14155551111";
+    private static final String USER_2 = "+14155552222";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private PresenceService presenceService;
+    private WsSessionManager sessionManager;
+    private PresenceSubscriptionConfig config;
+    private PresenceSubscriptionService service;
+    private WebSocketSession session;
+
+    @BeforeEach
+    void setUp() {
+        presenceService = mock(PresenceService.class);
+        when(presenceService.getUsersPresenceMetadata(any())).thenReturn(Map.of());
+        sessionManager = mock(WsSessionManager.class);
+        config = new PresenceSubscriptionConfig();
+        config.setDebounceMs(0);
+        service = newService();
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("session-1");
+        when(session.isOpen()).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private PresenceSubscriptionService newService() {
+        @SuppressWarnings("unchecked")
+        RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+        return new PresenceSubscriptionService(config, presenceService, sessionManager, redisTemplate,
+                objectMapper, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void subscribe_shouldReturnSnapshotOfEverySubscribedUser() {
+        Instant lastSeen = Instant.parse("2026-10-16T10:00:00Z");
+        when(presenceService.getUsersPresenceMetadata(any())).thenReturn(Map.of(
+                USER_1, new PresenceMetadata(USER_1, lastSeen, 2)));
+
+        PresenceUpdate snapshot = service.subscribe(session, List.of(USER_1, USER_2, USER_1));
+
+        assertThat(snapshot.event()).isEqualTo(PresenceUpdate.PRESENCE_SNAPSHOT);
+        assertThat(snapshot.users()).containsExactly(
+                new PresenceUpdate.UserPresence(USER_1, true, lastSeen.toEpochMilli()),
+                new PresenceUpdate.UserPresence(USER_2, false, null));
+    }
+
+    @Test
+    void onChange_shouldPushToSubscribersOnlyWhenStateDiffers() throws Exception {
+        service.subscribe(session, List.of(USER_1));
+
+        // Snapshot said offline, so a repeated offline is not pushed
+        service.onChange(new PresenceChange(USER_1, false, "2026-10-16T10:00:00Z"));
+        verify(sessionManager, never()).send(any(), any(), any());
+
+        service.onChange(new PresenceChange(USER_1, true, "2026-10-16T10:00:05Z"));
+
+        ArgumentCaptor<TextMessage> frame = ArgumentCaptor.forClass(TextMessage.class);
+        verify(sessionManager).send(eq(session), frame.capture(), eq(OutboundFrameType.PRESENCE));
+        PresenceUpdate update = objectMapper.readValue(frame.getValue().getPayload(), PresenceUpdate.class);
+        assertThat(update.event()).isEqualTo(PresenceUpdate.PRESENCE_CHANGED);
+        assertThat(update.users()).containsExactly(new PresenceUpdate.UserPresence(USER_1, true,
+                Instant.parse("2026-10-16T10:00:05Z").toEpochMilli()));
+    }
+
+    @Test
+    void onChange_forUserWithoutSubscribers_shouldBeIgnored() {
+        service.subscribe(session, List.of(USER_1));
+
+        service.onChange(new PresenceChange(USER_2, true, null));
+
+        verify(sessionManager, never()).send(any(), any(), any());
+    }
+
+    @Test
+    void resubscribe_shouldReplacePreviousSubscriptions() {
+        service.subscribe(session, List.of(USER_1));
+        service.subscribe(session, List.of(USER_2));
+
+        service.onChange(new PresenceChange(USER_1, true, null));
+        service.onChange(new PresenceChange(USER_2, true, null));
+
+        verify(sessionManager, times(1)).send(eq(session), any(), any());
+    }
+
+    @Test
+    void unsubscribe_shouldStopPushes() {
+        service.subscribe(session, List.of(USER_1));
+
+        service.unsubscribe(session);
+        service.onChange(new PresenceChange(USER_1, true, null));
+
+        verify(sessionManager, never()).send(any(), any(), any());
+    }
+
+    @Test
+    void subscribe_whenSessionClosedMeanwhile_shouldNotKeepSubscriptions() {
+        // presence.subscribe still running when afterConnectionClosed unsubscribed the session
+        service.unsubscribe(session);
+        when(session.isOpen()).thenReturn(false);
+
+        PresenceUpdate snapshot = service.subscribe(session, List.of(USER_1, USER_2));
+        service.onChange(new PresenceChange(USER_1, true, null));
+
+        assertThat(snapshot.users()).isEmpty();
+        verify(sessionManager, never()).send(any(), any(), any());
+        verify(presenceService, never()).getUsersPresenceMetadata(any());
+    }
+
+    @Test
+    void subscribe_shouldCapUsersPerSession() {
+        config.setMaxUsersPerSession(1);
+
+        PresenceUpdate snapshot = service.subscribe(session, List.of(USER_1, USER_2));
+
+        assertThat(snapshot.users()).extracting(PresenceUpdate.UserPresence::userId).containsExactly(USER_1);
+    }
+
+    @Test
+    void onChange_withinDebounceWindow_shouldMergeReconnect() {
+        service.shutdown();
+        config.setDebounceMs(100);
+        service = newService();
+        when(presenceService.getUsersPresenceMetadata(any())).thenReturn(Map.of(
+                USER_1, new PresenceMetadata(USER_1, Instant.now(), 1)));
+        service.subscribe(session, List.of(USER_1));
+
+        // Disconnect and reconnect inside one window: still online, nothing to push
+        service.onChange(new PresenceChange(USER_1, false, null));
+        service.onChange(new PresenceChange(USER_1, true, null));
+
+        verify(sessionManager, after(300).never()).send(any(), any(), any());
+    }
+}
@@ -0,0 +1,204 @@
+package com.linkwave.app.service.readreceipt;
+
+import com.linkwave.app.config.ReadReceiptConfig;
+import com.linkwave.app.domain.chat.ChatMessagePosition;
+import com.linkwave.app.domain.chat.ReadUpToEvent;
+import com.linkwave.app.domain.chat.ReadWatermarkEntity;
+import com.linkwave.app.repository.ChatMessageRepository;
+import com.linkwave.app.repository.ReadWatermarkJdbcRepository;
+import com.linkwave.app.repository.ReadWatermarkRepository;
+import com.linkwave.app.service.room.RoomMembershipService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for write-behind buffering of read positions.
+ */
+class ReadPositionBufferTest {
+
+    private static final String ROOM_ID = "room-1";
+    private static final String READER = "+14155551111";
+
+    private ReadReceiptService readReceiptService;
+    private ReadReceiptBroadcaster broadcaster;
+    private ReadReceiptConfig config;
+    private SimpleMeterRegistry meterRegistry;
+    private ReadPositionBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        readReceiptService = mock(ReadReceiptService.class);
+        broadcaster = mock(ReadReceiptBroadcaster.class);
+        config = new ReadReceiptConfig();
+        // Long interval: tests flush explicitly
+        config.setFlushIntervalMs(60_000);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (buffer != null) {
+            buffer.shutdown();
+        }
+    }
+
+    private ReadPositionBuffer buffer() {
+        buffer = new ReadPositionBuffer(config, readReceiptService, broadcaster, meterRegistry);
+        return buffer;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ReadPosition> capturedBatch() {
+        ArgumentCaptor<List<ReadPosition>> batch = ArgumentCaptor.forClass(List.class);
+        verify(readReceiptService).advanceReadUpToAll(batch.capture());
+        return batch.getValue();
+    }
+
+    @Test
+    void record_shouldNotTouchDatabaseUntilFlush() {
+        ReadPositionBuffer buffer = buffer();
+
+        buffer.record(ROOM_ID, "msg-1", READER);
+
+        verifyNoInteractions(readReceiptService);
+        assertThat(meterRegistry.get("linkwave.read.position.pending").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void flush_shouldHandAllCandidatesOfAReaderAndRoomToOneBatch() {
+        ReadUpToEvent moved = new ReadUpToEvent(ROOM_ID, READER, "msg-3", 3000, 4000);
+        when(readReceiptService.advanceReadUpToAll(anyList())).thenReturn(List.of(moved));
+        ReadPositionBuffer buffer = buffer();
+
+        buffer.record(ROOM_ID, "msg-1", READER);
+        buffer.record(ROOM_ID, "msg-3", READER);
+        buffer.record(ROOM_ID, "msg-2", READER);
+        buffer.record(ROOM_ID, "msg-3", READER);
+        buffer.flush();
+
+        assertThat(capturedBatch()).containsExactly(
+                new ReadPosition(ROOM_ID, READER, "msg-1"),
+                new ReadPosition(ROOM_ID, READER, "msg-3"),
+                new ReadPosition(ROOM_ID, READER, "msg-2"));
+        verify(broadcaster).submit(moved);
+        assertThat(meterRegistry.counter("linkwave.read.position.recorded").count()).isEqualTo(4);
+        assertThat(meterRegistry.counter("linkwave.read.position.coalesced").count()).isEqualTo(3);
+        assertThat(meterRegistry.counter("linkwave.read.position.written").count()).isEqualTo(1);
+        assertThat(meterRegistry.get("linkwave.read.position.pending").gauge().value()).isZero();
+    }
+
+    @Test
+    void flush_whenOlderPositionArrivesLast_shouldWriteNewerWatermark() {
+        ChatMessageRepository messageRepository = mock(ChatMessageRepository.class);
+        ReadWatermarkRepository watermarkRepository = mock(ReadWatermarkRepository.class);
+        ReadWatermarkJdbcRepository watermarkJdbcRepository = mock(ReadWatermarkJdbcRepository.class);
+        RoomMembershipService roomMembershipService = mock(RoomMembershipService.class);
+        readReceiptService = new ReadReceiptService(watermarkRepository, watermarkJdbcRepository,
+                roomMembershipService, messageRepository);
+        Instant sentAt = Instant.now();
+        when(messageRepository.findPositions(anyList())).thenReturn(List.of(
+                new ChatMessagePosition("msg-new", ROOM_ID, sentAt),
+                new ChatMessagePosition("msg-old", ROOM_ID, sentAt.minusSeconds(60))));
+        when(watermarkRepository.findAllById(anyList())).thenReturn(List.of());
+        when(roomMembershipService.isUserInRoom(READER, ROOM_ID)).thenReturn(true);
+        when(watermarkJdbcRepository.advanceAll(anyList())).thenReturn(Set.of(new ReadWatermarkEntity.Key(ROOM_ID, READER)));
+        ReadPositionBuffer buffer = buffer();
+
+        buffer.record(ROOM_ID, "msg-new", READER);
+        buffer.record(ROOM_ID, "msg-old", READER);
+        buffer.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ReadWatermarkEntity>> moves = ArgumentCaptor.forClass(List.class);
+        verify(watermarkJdbcRepository).advanceAll(moves.capture());
+        assertThat(moves.getValue()).singleElement()
+                .extracting(ReadWatermarkEntity::getLastReadMessageId).isEqualTo("msg-new");
+        assertThat(meterRegistry.counter("linkwave.read.position.written").count()).isEqualTo(1);
+    }
+
+    @Test
+    void flush_whenWriteFails_shouldKeepPositionsForNextFlush() {
+        when(readReceiptService.advanceReadUpToAll(anyList()))
+                .thenThrow(new RuntimeException("database down"))
+                .thenReturn(List.of());
+        ReadPositionBuffer buffer = buffer();
+
+        buffer.record(ROOM_ID, "msg-1", READER);
+        buffer.flush();
+        buffer.flush();
+
+        verify(readReceiptService, times(2)).advanceReadUpToAll(List.of(new ReadPosition(ROOM_ID, READER, "msg-1")));
+        // Nothing moved a watermark
+        assertThat(meterRegistry.counter("linkwave.read.position.written").count()).isZero();
+    }
+
+    @Test
+    void flush_whenWriteFails_shouldMergeFailedPositionsWithLaterOnes() {
+        when(readReceiptService.advanceReadUpToAll(anyList()))
+                .thenThrow(new RuntimeException("database down"))
+                .thenReturn(List.of());
+        ReadPositionBuffer buffer = buffer();
+
+        buffer.record(ROOM_ID, "msg-new", READER);
+        buffer.flush();
+        buffer.record(ROOM_ID, "msg-old", READER);
+        buffer.flush();
+
+        verify(readReceiptService).advanceReadUpToAll(List.of(
+                new ReadPosition(ROOM_ID, READER, "msg-new"),
+                new ReadPosition(ROOM_ID, READER, "msg-old")));
+    }
+
+    @Test
+    void record_whenKeyCollectsTooManyCandidates_shouldWriteThemThrough() {
+        when(readReceiptService.advanceReadUpToAll(anyList())).thenReturn(List.of());
+        ReadPositionBuffer buffer = buffer();
+
+        for (int i = 0; i <= 16; i++) {
+            buffer.record(ROOM_ID, "msg-" + i, READER);
+        }
+
+        assertThat(capturedBatch()).hasSize(17);
+        assertThat(meterRegistry.get("linkwave.read.position.pending").gauge().value()).isZero();
+    }
+
+    @Test
+    void record_whenBufferFull_shouldWriteThroughNewKeys() {
+        config.setMaxPendingPositions(1);
+        when(readReceiptService.advanceReadUpTo("room-2", "msg-9", READER)).thenReturn(Optional.empty());
+        ReadPositionBuffer buffer = buffer();
+
+        buffer.record(ROOM_ID, "msg-1", READER);
+        buffer.record("room-2", "msg-9", READER);
+        buffer.record(ROOM_ID, "msg-2", READER); // Existing key is still coalesced
+
+        verify(readReceiptService).advanceReadUpTo("room-2", "msg-9", READER);
+        verify(readReceiptService, never()).advanceReadUpTo(ROOM_ID, "msg-2", READER);
+        assertThat(meterRegistry.counter("linkwave.read.position.overflow").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shutdown_shouldFlushPendingPositions() {
+        when(readReceiptService.advanceReadUpToAll(anyList())).thenReturn(List.of());
+        ReadPositionBuffer buffer = buffer();
+
+        buffer.record(ROOM_ID, "msg-1", READER);
+        buffer.shutdown();
+
+        assertThat(capturedBatch()).containsExactly(new ReadPosition(ROOM_ID, READER, "msg-1"));
+        verify(broadcaster, never()).submit(any());
+    }
+}
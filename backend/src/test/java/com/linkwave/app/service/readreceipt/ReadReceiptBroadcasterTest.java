@@ -0,0 +1,101 @@
+package com.linkwave.app.service.readreceipt;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkwave.app.config.ReadReceiptConfig;
+import com.linkwave.app.domain.chat.ReadUpToEvent;
+import com.linkwave.app.service.websocket.OutboundFrameType;
+import com.linkwave.app.service.websocket.RoomFanoutEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for merging read.up_to broadcasts.
+ */
+class ReadReceiptBroadcasterTest {
+
+    private static final String ROOM_ID = "room-1";
+    private static final String READER = "+14155551111";
+
+    private final RoomFanoutEngine roomFanout = mock(RoomFanoutEngine.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ReadReceiptBroadcaster broadcaster;
+
+    @AfterEach
+    void tearDown() {
+        if (broadcaster != null) {
+            broadcaster.shutdown();
+        }
+    }
+
+    private ReadReceiptBroadcaster broadcaster(long windowMs) {
+        ReadReceiptConfig config = new ReadReceiptConfig();
+        config.setBroadcastWindowMs(windowMs);
+        broadcaster = new ReadReceiptBroadcaster(config, roomFanout, objectMapper, meterRegistry);
+        return broadcaster;
+    }
+
+    private ReadUpToEvent readUpTo(String roomId, String messageId, long messageTimestamp) {
+        return new ReadUpToEvent(roomId, READER, messageId, messageTimestamp, System.currentTimeMillis());
+    }
+
+    @Test
+    void submit_withinWindow_shouldBroadcastNewestPositionOnce() throws Exception {
+        ReadReceiptBroadcaster broadcaster = broadcaster(100);
+
+        broadcaster.submit(readUpTo(ROOM_ID, "msg-1", 1000));
+        broadcaster.submit(readUpTo(ROOM_ID, "msg-3", 3000));
+        broadcaster.submit(readUpTo(ROOM_ID, "msg-2", 2000)); // Late, older position
+
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted(() ->
+                verify(roomFanout).broadcast(eq(ROOM_ID), any(), eq(OutboundFrameType.RECEIPT), eq(READER)));
+
+        ArgumentCaptor<TextMessage> frame = ArgumentCaptor.forClass(TextMessage.class);
+        verify(roomFanout, times(1)).broadcast(anyString(), frame.capture(), any(), any());
+        JsonNode json = objectMapper.readTree(frame.getValue().getPayload());
+        assertThat(json.get("type").asText()).isEqualTo("read.up_to");
+        assertThat(json.get("messageId").asText()).isEqualTo("msg-3");
+        assertThat(json.get("messageTimestamp").asLong()).isEqualTo(3000);
+
+        assertThat(meterRegistry.counter("linkwave.read.up_to.submitted").count()).isEqualTo(3);
+        assertThat(meterRegistry.counter("linkwave.read.up_to.broadcast").count()).isEqualTo(1);
+    }
+
+    @Test
+    void submit_differentRooms_shouldNotBeMerged() {
+        ReadReceiptBroadcaster broadcaster = broadcaster(60_000);
+
+        broadcaster.submit(readUpTo("room-a", "msg-1", 1000));
+        broadcaster.submit(readUpTo("room-b", "msg-2", 2000));
+        verify(roomFanout, never()).broadcast(anyString(), any(), any(), any());
+
+        // Pending positions are flushed on shutdown
+        broadcaster.shutdown();
+
+        verify(roomFanout).broadcast(eq("room-a"), any(), eq(OutboundFrameType.RECEIPT), eq(READER));
+        verify(roomFanout).broadcast(eq("room-b"), any(), eq(OutboundFrameType.RECEIPT), eq(READER));
+    }
+
+    @Test
+    void submit_withoutWindow_shouldBroadcastImmediately() {
+        ReadReceiptBroadcaster broadcaster = broadcaster(0);
+
+        broadcaster.submit(readUpTo(ROOM_ID, "msg-1", 1000));
+        broadcaster.submit(readUpTo(ROOM_ID, "msg-2", 2000));
+
+        verify(roomFanout, times(2)).broadcast(eq(ROOM_ID), any(), eq(OutboundFrameType.RECEIPT), eq(READER));
+    }
+}
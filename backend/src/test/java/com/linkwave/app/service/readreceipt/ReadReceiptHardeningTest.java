@@ -1,9 +1,10 @@
 package com.linkwave.app.service.readreceipt;
 
 import com.linkwave.app.domain.chat.ChatMessageEntity;
-import com.linkwave.app.domain.chat.ReadReceiptEntity;
+import com.linkwave.app.domain.chat.ReadWatermarkEntity;
 import com.linkwave.app.repository.ChatMessageRepository;
-import com.linkwave.app.repository.ReadReceiptRepository;
+import com.linkwave.app.repository.ReadWatermarkJdbcRepository;
+import com.linkwave.app.repository.ReadWatermarkRepository;
 import com.linkwave.app.service.readreceipt.ReadReceiptService.ReadReceiptResult;
 import com.linkwave.app.service.room.RoomMembershipService;
 import org.junit.jupiter.api.BeforeEach;
@@ -27,7 +28,9 @@ import static org.mockito.Mockito.*;
 class ReadReceiptHardeningTest {
 
     @Mock
-    private ReadReceiptRepository repository;
+    private ReadWatermarkRepository watermarkRepository;
+    @Mock
+    private ReadWatermarkJdbcRepository watermarkJdbcRepository;
     @Mock
     private RoomMembershipService roomMembershipService;
     @Mock
@@ -40,7 +43,8 @@ class ReadReceiptHardeningTest {
 
     @BeforeEach
     void setUp() {
-        service = new ReadReceiptService(repository, roomMembershipService, messageRepository);
+        service = new ReadReceiptService(watermarkRepository, watermarkJdbcRepository,
+                roomMembershipService, messageRepository);
     }
 
     @Test
@@ -61,18 +65,20 @@ class ReadReceiptHardeningTest {
         when(messageRepository.findById(oldMsgId)).thenReturn(Optional.of(oldMsg));
 
         Instant newerTime = Instant.now();
-        when(repository.findMaxReadMessageTimestamp(ROOM_ID, READER_PHONE)).thenReturn(newerTime);
+        when(watermarkRepository.findByRoomIdAndReaderPhoneNumber(ROOM_ID, READER_PHONE)).thenReturn(Optional.of(
+                new ReadWatermarkEntity(ROOM_ID, READER_PHONE, newerTime, "msg-newer", newerTime)));
         when(roomMembershipService.isUserInRoom(READER_PHONE, ROOM_ID)).thenReturn(true);
 
         List<ReadReceiptResult> results = service.markReadUpTo(ROOM_ID, oldMsgId, READER_PHONE);
 
         assertThat(results).isEmpty();
 
-        verify(repository, never()).findUnreadMessageIdsUpTo(any(), any(), any(), any());
+        verify(watermarkJdbcRepository, never()).advance(any(), any(), any(), any(), any());
+        verify(messageRepository, never()).findIdsBetween(any(), any(), any(), any(), any());
     }
 
     @Test
-    void markReadUpTo_shouldRespectBatchLimit() {
+    void markReadUpTo_shouldNotCapNumberOfMessagesRead() {
 
         String targetMsgId = "msg-limit";
         Instant targetTime = Instant.now();
@@ -86,21 +92,24 @@ class ReadReceiptHardeningTest {
         targetMsg.setRoom(room);
 
         when(messageRepository.findById(targetMsgId)).thenReturn(Optional.of(targetMsg));
-        when(repository.findMaxReadMessageTimestamp(ROOM_ID, READER_PHONE)).thenReturn(null);
+        when(watermarkRepository.findByRoomIdAndReaderPhoneNumber(ROOM_ID, READER_PHONE)).thenReturn(Optional.empty());
+        when(watermarkJdbcRepository.advance(eq(ROOM_ID), eq(READER_PHONE), eq(targetTime), eq(targetMsgId), any()))
+                .thenReturn(true);
 
         List<String> manyMessages = new ArrayList<>();
         for (int i = 0; i < 60; i++) {
             manyMessages.add("msg-" + i);
         }
-        when(repository.findUnreadMessageIdsUpTo(ROOM_ID, READER_PHONE, targetTime, null))
+        when(messageRepository.findIdsBetween(ROOM_ID, Instant.EPOCH, "", targetTime, targetMsgId))
                 .thenReturn(manyMessages);
 
         when(roomMembershipService.isUserInRoom(READER_PHONE, ROOM_ID)).thenReturn(true);
 
         List<ReadReceiptResult> results = service.markReadUpTo(ROOM_ID, targetMsgId, READER_PHONE);
 
-        assertThat(results).hasSize(50);
-        verify(repository).saveAll(anyList());
+        // One watermark upsert regardless of how many messages it covers
+        assertThat(results).hasSize(60);
+        verify(watermarkJdbcRepository, times(1)).advance(any(), any(), any(), any(), any());
     }
 
     @Test
@@ -128,7 +137,7 @@ class ReadReceiptHardeningTest {
                 "Should reject message from different room");
 
         // Verify no reads were persisted
-        verify(repository, never()).save(any(ReadReceiptEntity.class));
+        verify(watermarkJdbcRepository, never()).advance(any(), any(), any(), any(), any());
     }
 
     @Test
@@ -147,22 +156,44 @@ class ReadReceiptHardeningTest {
         when(messageRepository.findById(targetMsgId)).thenReturn(Optional.of(targetMsg));
         when(roomMembershipService.isUserInRoom(READER_PHONE, ROOM_ID)).thenReturn(true);
 
-        // First call: maxReadTimestamp is null (nothing read yet)
-        when(repository.findMaxReadMessageTimestamp(ROOM_ID, READER_PHONE)).thenReturn(null);
-        // And there is one unread message
-        when(repository.findUnreadMessageIdsUpTo(ROOM_ID, READER_PHONE, targetTime, null))
+        // First call: no watermark yet (nothing read)
+        when(watermarkRepository.findByRoomIdAndReaderPhoneNumber(ROOM_ID, READER_PHONE)).thenReturn(Optional.empty());
+        when(watermarkJdbcRepository.advance(eq(ROOM_ID), eq(READER_PHONE), eq(targetTime), eq(targetMsgId), any()))
+                .thenReturn(true);
+        when(messageRepository.findIdsBetween(ROOM_ID, Instant.EPOCH, "", targetTime, targetMsgId))
                 .thenReturn(Collections.singletonList(targetMsgId));
 
         List<ReadReceiptResult> results1 = service.markReadUpTo(ROOM_ID, targetMsgId, READER_PHONE);
         assertThat(results1).hasSize(1);
         assertThat(results1.get(0).isNewRead()).isTrue();
 
-        // Second call: maxReadTimestamp is now targetTime (simulating updated DB state)
-        when(repository.findMaxReadMessageTimestamp(ROOM_ID, READER_PHONE)).thenReturn(targetTime);
-        // And unread messages is empty (or we shouldn't even look if timestamp check
-        // works)
+        // Second call: watermark is now at the target (simulating updated DB state)
+        when(watermarkRepository.findByRoomIdAndReaderPhoneNumber(ROOM_ID, READER_PHONE)).thenReturn(Optional.of(
+                new ReadWatermarkEntity(ROOM_ID, READER_PHONE, targetTime, targetMsgId, targetTime)));
 
         List<ReadReceiptResult> results2 = service.markReadUpTo(ROOM_ID, targetMsgId, READER_PHONE);
         assertThat(results2).isEmpty();
     }
+
+    @Test
+    void markReadUpTo_whenWatermarkMovedConcurrently_shouldReturnEmpty() {
+        String targetMsgId = "msg-race";
+        Instant targetTime = Instant.now();
+        ChatMessageEntity targetMsg = new ChatMessageEntity();
+        targetMsg.setId(targetMsgId);
+        targetMsg.setSentAt(targetTime);
+
+        com.linkwave.app.domain.chat.ChatRoomEntity room = new com.linkwave.app.domain.chat.ChatRoomEntity();
+        room.setId(ROOM_ID);
+        targetMsg.setRoom(room);
+
+        when(messageRepository.findById(targetMsgId)).thenReturn(Optional.of(targetMsg));
+        when(roomMembershipService.isUserInRoom(READER_PHONE, ROOM_ID)).thenReturn(true);
+        when(watermarkRepository.findByRoomIdAndReaderPhoneNumber(ROOM_ID, READER_PHONE)).thenReturn(Optional.empty());
+        // The conditional upsert lost: another device already read further
+        when(watermarkJdbcRepository.advance(any(), any(), any(), any(), any())).thenReturn(false);
+
+        assertThat(service.markReadUpTo(ROOM_ID, targetMsgId, READER_PHONE)).isEmpty();
+        verify(messageRepository, never()).findIdsBetween(any(), any(), any(), any(), any());
+    }
 }
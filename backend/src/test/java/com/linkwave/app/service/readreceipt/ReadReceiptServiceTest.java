@@ -1,10 +1,14 @@
 package com.linkwave.app.service.readreceipt;
 
 import com.linkwave.app.domain.chat.ChatMessageEntity;
-import com.linkwave.app.domain.chat.ReadReceiptEntity;
+import com.linkwave.app.domain.chat.ChatMessagePosition;
+import com.linkwave.app.domain.chat.ChatRoomEntity;
+import com.linkwave.app.domain.chat.ReadUpToEvent;
+import com.linkwave.app.domain.chat.ReadWatermarkEntity;
 import com.linkwave.app.exception.UnauthorizedException;
 import com.linkwave.app.repository.ChatMessageRepository;
-import com.linkwave.app.repository.ReadReceiptRepository;
+import com.linkwave.app.repository.ReadWatermarkJdbcRepository;
+import com.linkwave.app.repository.ReadWatermarkRepository;
 import com.linkwave.app.service.readreceipt.ReadReceiptService.ReadReceiptResult;
 import com.linkwave.app.service.room.RoomMembershipService;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,20 +19,25 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Instant;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class ReadReceiptServiceTest {
 
     @Mock
-    private ReadReceiptRepository repository;
+    private ReadWatermarkRepository watermarkRepository;
+    @Mock
+    private ReadWatermarkJdbcRepository watermarkJdbcRepository;
     @Mock
     private RoomMembershipService roomMembershipService;
     @Mock
@@ -42,39 +51,54 @@ class ReadReceiptServiceTest {
 
     @BeforeEach
     void setUp() {
-        service = new ReadReceiptService(repository, roomMembershipService, messageRepository);
+        service = new ReadReceiptService(watermarkRepository, watermarkJdbcRepository,
+                roomMembershipService, messageRepository);
     }
 
-    @Test
-    void markMessageRead_whenNewRead_shouldPersistAndReturnTrue() {
+    private ChatMessageEntity message(String id, Instant sentAt) {
+        ChatRoomEntity room = new ChatRoomEntity();
+        room.setId(ROOM_ID);
+        ChatMessageEntity message = new ChatMessageEntity();
+        message.setId(id);
+        message.setSentAt(sentAt);
+        message.setRoom(room);
+        return message;
+    }
 
-        when(repository.existsByMessageIdAndReaderPhoneNumber(MESSAGE_ID, READER_PHONE)).thenReturn(false);
+    @Test
+    void markMessageRead_whenNewRead_shouldAdvanceWatermarkAndReturnTrue() {
+        Instant sentAt = Instant.now();
+        when(messageRepository.findById(MESSAGE_ID)).thenReturn(Optional.of(message(MESSAGE_ID, sentAt)));
+        when(watermarkRepository.findByRoomIdAndReaderPhoneNumber(ROOM_ID, READER_PHONE)).thenReturn(Optional.empty());
         when(roomMembershipService.isUserInRoom(READER_PHONE, ROOM_ID)).thenReturn(true);
+        when(watermarkJdbcRepository.advance(eq(ROOM_ID), eq(READER_PHONE), eq(sentAt), eq(MESSAGE_ID), any()))
+                .thenReturn(true);
 
         ReadReceiptResult result = service.markMessageRead(MESSAGE_ID, ROOM_ID, READER_PHONE);
 
         assertThat(result.isNewRead()).isTrue();
         assertThat(result.getReceipt()).isNotNull();
         assertThat(result.getReceipt().getMessageId()).isEqualTo(MESSAGE_ID);
-        assertThat(result.getReceipt().getReaderPhoneNumber()).isEqualTo(READER_PHONE);
-        verify(repository).save(any(ReadReceiptEntity.class));
+        assertThat(result.getReceipt().getReaderId()).isEqualTo(READER_PHONE);
     }
 
     @Test
-    void markMessageRead_whenAlreadyRead_shouldReturnFalse() {
-
-        when(repository.existsByMessageIdAndReaderPhoneNumber(MESSAGE_ID, READER_PHONE)).thenReturn(true);
+    void markMessageRead_whenWatermarkAlreadyPast_shouldReturnFalse() {
+        Instant sentAt = Instant.now();
+        when(messageRepository.findById(MESSAGE_ID)).thenReturn(Optional.of(message(MESSAGE_ID, sentAt)));
+        when(watermarkRepository.findByRoomIdAndReaderPhoneNumber(ROOM_ID, READER_PHONE)).thenReturn(Optional.of(
+                new ReadWatermarkEntity(ROOM_ID, READER_PHONE, sentAt.plusSeconds(1), "msg-later", sentAt)));
 
         ReadReceiptResult result = service.markMessageRead(MESSAGE_ID, ROOM_ID, READER_PHONE);
 
         assertThat(result.isNewRead()).isFalse();
-        verify(repository, never()).save(any());
+        verify(watermarkJdbcRepository, never()).advance(any(), any(), any(), any(), any());
     }
 
     @Test
     void markMessageRead_whenUserNotInRoom_shouldThrowException() {
-
-        when(repository.existsByMessageIdAndReaderPhoneNumber(MESSAGE_ID, READER_PHONE)).thenReturn(false);
+        when(messageRepository.findById(MESSAGE_ID)).thenReturn(Optional.of(message(MESSAGE_ID, Instant.now())));
+        when(watermarkRepository.findByRoomIdAndReaderPhoneNumber(ROOM_ID, READER_PHONE)).thenReturn(Optional.empty());
         when(roomMembershipService.isUserInRoom(READER_PHONE, ROOM_ID)).thenReturn(false);
 
         assertThrows(UnauthorizedException.class, () -> service.markMessageRead(MESSAGE_ID, ROOM_ID, READER_PHONE));
@@ -86,28 +110,81 @@ class ReadReceiptServiceTest {
         String targetMsgId = "msg-target";
         Instant targetTime = Instant.now();
 
-        ChatMessageEntity targetMsg = new ChatMessageEntity();
-        targetMsg.setId(targetMsgId);
-        targetMsg.setSentAt(targetTime);
+        when(messageRepository.findById(targetMsgId)).thenReturn(Optional.of(message(targetMsgId, targetTime)));
+        when(watermarkRepository.findByRoomIdAndReaderPhoneNumber(ROOM_ID, READER_PHONE)).thenReturn(Optional.empty());
+        when(roomMembershipService.isUserInRoom(READER_PHONE, ROOM_ID)).thenReturn(true);
+        when(watermarkJdbcRepository.advance(eq(ROOM_ID), eq(READER_PHONE), eq(targetTime), eq(targetMsgId), any()))
+                .thenReturn(true);
 
-        // Mock room relationship
-        com.linkwave.app.domain.chat.ChatRoomEntity room = new com.linkwave.app.domain.chat.ChatRoomEntity();
-        room.setId(ROOM_ID);
-        targetMsg.setRoom(room);
+        List<String> unreadIds = Arrays.asList("msg-1", "msg-2", targetMsgId);
+        when(messageRepository.findIdsBetween(ROOM_ID, Instant.EPOCH, "", targetTime, targetMsgId))
+                .thenReturn(unreadIds);
 
-        when(messageRepository.findById(targetMsgId)).thenReturn(Optional.of(targetMsg));
+        List<ReadReceiptResult> results = service.markReadUpTo(ROOM_ID, targetMsgId, READER_PHONE);
 
-        when(repository.findMaxReadMessageTimestamp(ROOM_ID, READER_PHONE)).thenReturn(null);
+        assertThat(results).hasSize(3);
+        assertThat(results).extracting(r -> r.getReceipt().getMessageId())
+                .containsExactly("msg-1", "msg-2", targetMsgId);
+        verify(watermarkJdbcRepository).advance(eq(ROOM_ID), eq(READER_PHONE), eq(targetTime), eq(targetMsgId), any());
+    }
 
-        List<String> unreadIds = Arrays.asList("msg-1", "msg-2", targetMsgId);
-        when(repository.findUnreadMessageIdsUpTo(ROOM_ID, READER_PHONE, targetTime, null))
-                .thenReturn(unreadIds);
+    @Test
+    void getMessageReaders_shouldCompareWatermarksWithMessagePosition() {
+        Instant sentAt = Instant.now();
+        when(messageRepository.findById(MESSAGE_ID)).thenReturn(Optional.of(message(MESSAGE_ID, sentAt)));
+        when(watermarkRepository.findReadersOf(ROOM_ID, sentAt, MESSAGE_ID)).thenReturn(List.of(READER_PHONE));
+
+        assertThat(service.getMessageReaders(MESSAGE_ID)).containsExactly(READER_PHONE);
+    }
 
+    @Test
+    void getUnreadCount_shouldCountMessagesAfterWatermark() {
+        Instant sentAt = Instant.now();
+        when(watermarkRepository.findByRoomIdAndReaderPhoneNumber(ROOM_ID, READER_PHONE)).thenReturn(Optional.of(
+                new ReadWatermarkEntity(ROOM_ID, READER_PHONE, sentAt, MESSAGE_ID, sentAt)));
+        when(messageRepository.countAfter(ROOM_ID, sentAt, MESSAGE_ID)).thenReturn(4L);
+
+        assertThat(service.getUnreadCount(ROOM_ID, READER_PHONE)).isEqualTo(4L);
+        verify(messageRepository, never()).countAfter(anyString(), eq(Instant.EPOCH), anyString());
+    }
+
+    @Test
+    void advanceReadUpToAll_shouldBatchValidateAndSkipStalePositions() {
+        Instant sentAt = Instant.now();
+        String otherReader = "+15550000001";
+        when(messageRepository.findPositions(List.of("msg-new", "msg-old", "msg-missing"))).thenReturn(List.of(
+                new ChatMessagePosition("msg-new", ROOM_ID, sentAt),
+                new ChatMessagePosition("msg-old", ROOM_ID, sentAt.minusSeconds(60))));
+        when(watermarkRepository.findAllById(anyList())).thenReturn(List.of(
+                new ReadWatermarkEntity(ROOM_ID, otherReader, sentAt.minusSeconds(30), "msg-mid", sentAt)));
         when(roomMembershipService.isUserInRoom(READER_PHONE, ROOM_ID)).thenReturn(true);
+        when(watermarkJdbcRepository.advanceAll(anyList()))
+                .thenReturn(Set.of(new ReadWatermarkEntity.Key(ROOM_ID, READER_PHONE)));
+
+        List<ReadUpToEvent> moved = service.advanceReadUpToAll(List.of(
+                new ReadPosition(ROOM_ID, READER_PHONE, "msg-new"),
+                new ReadPosition(ROOM_ID, otherReader, "msg-old"),
+                new ReadPosition(ROOM_ID, READER_PHONE, "msg-missing")));
+
+        assertThat(moved).hasSize(1);
+        assertThat(moved.get(0).getMessageId()).isEqualTo("msg-new");
+        assertThat(moved.get(0).getMessageTimestamp()).isEqualTo(sentAt.toEpochMilli());
+        verify(roomMembershipService, never()).isUserInRoom(otherReader, ROOM_ID);
+    }
 
-        List<ReadReceiptResult> results = service.markReadUpTo(ROOM_ID, targetMsgId, READER_PHONE);
+    @Test
+    void advanceReadUpToAll_whenWatermarkMovedConcurrently_shouldNotReportMove() {
+        Instant sentAt = Instant.now();
+        when(messageRepository.findPositions(List.of("msg-new"))).thenReturn(List.of(
+                new ChatMessagePosition("msg-new", ROOM_ID, sentAt)));
+        when(watermarkRepository.findAllById(anyList())).thenReturn(List.of());
+        when(roomMembershipService.isUserInRoom(READER_PHONE, ROOM_ID)).thenReturn(true);
+        when(watermarkJdbcRepository.advanceAll(anyList())).thenReturn(Set.of());
 
-        assertThat(results).hasSize(3);
-        verify(repository).saveAll(anyList());
+        List<ReadUpToEvent> moved = service.advanceReadUpToAll(List.of(
+                new ReadPosition(ROOM_ID, READER_PHONE, "msg-new")));
+
+        assertThat(moved).isEmpty();
     }
 }
+
@@ -0,0 +1,75 @@
+package com.linkwave.app.service.readreceipt;
+
+import com.linkwave.app.config.ReadReceiptConfig;
+import com.linkwave.app.repository.ReadWatermarkJdbcRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the startup read_receipts backfill.
+ */
+class ReadWatermarkBackfillTest {
+
+    private ReadWatermarkJdbcRepository repository;
+    private ReadReceiptConfig config;
+    private ReadWatermarkBackfill backfill;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ReadWatermarkJdbcRepository.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        config = new ReadReceiptConfig();
+        backfill = new ReadWatermarkBackfill(repository, config, transactionManager);
+    }
+
+    @Test
+    void run_withLegacyReceipts_shouldBackfillUnderLockAndKeepTable() {
+        when(repository.hasLegacyReceipts()).thenReturn(true);
+        when(repository.backfillFromLegacyReceipts()).thenReturn(3);
+
+        backfill.run();
+
+        var order = inOrder(repository);
+        order.verify(repository).lockBackfill();
+        order.verify(repository).backfillFromLegacyReceipts();
+        verify(repository, never()).dropLegacyReceipts();
+    }
+
+    @Test
+    void run_withDropEnabled_shouldDropAfterBackfill() {
+        config.setDropLegacyReceipts(true);
+        when(repository.hasLegacyReceipts()).thenReturn(true);
+
+        backfill.run();
+
+        var order = inOrder(repository);
+        order.verify(repository).backfillFromLegacyReceipts();
+        order.verify(repository).dropLegacyReceipts();
+    }
+
+    @Test
+    void run_whenAnotherNodeDroppedTableFirst_shouldNotBackfill() {
+        when(repository.hasLegacyReceipts()).thenReturn(true, false);
+
+        backfill.run();
+
+        verify(repository).lockBackfill();
+        verify(repository, never()).backfillFromLegacyReceipts();
+    }
+
+    @Test
+    void run_withoutLegacyReceipts_shouldDoNothing() {
+        when(repository.hasLegacyReceipts()).thenReturn(false);
+
+        backfill.run();
+
+        verify(repository, never()).lockBackfill();
+        verify(repository, never()).backfillFromLegacyReceipts();
+    }
+}
@@ -0,0 +1,76 @@
+package com.linkwave.app.service.room;
+
+import com.linkwave.app.config.RoomMembershipCacheConfig;
+import com.linkwave.app.repository.ChatMemberRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for cached room membership lookups.
+ */
+class RoomMembershipServiceTest {
+
+    private static final String ROOM_ID = "room-1";
+    private static final String ALICE = "+14155551111";
+    private static final String BOB = "+14155552222";
+
+    private ChatMemberRepository memberRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private RoomMembershipService service;
+
+    @BeforeEach
+    void setUp() {
+        memberRepository = mock(ChatMemberRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        service = new RoomMembershipService(memberRepository, new RoomMembershipCacheConfig(), meterRegistry);
+    }
+
+    @Test
+    void isUserInRoom_shouldLoadMembersOncePerRoom() {
+        when(memberRepository.findPhoneNumbersByRoomId(ROOM_ID)).thenReturn(List.of(ALICE, BOB));
+
+        assertThat(service.isUserInRoom(ALICE, ROOM_ID)).isTrue();
+        assertThat(service.isUserInRoom(BOB, ROOM_ID)).isTrue();
+        assertThat(service.isUserInRoom("+14155553333", ROOM_ID)).isFalse();
+        assertThat(service.getRoomMemberCount(ROOM_ID)).isEqualTo(2);
+
+        verify(memberRepository, times(1)).findPhoneNumbersByRoomId(ROOM_ID);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void onMembershipChanged_shouldReloadMembersOnNextLookup() {
+        when(memberRepository.findPhoneNumbersByRoomId(ROOM_ID))
+                .thenReturn(List.of())
+                .thenReturn(List.of(ALICE, BOB));
+
+        // Looked up before the room's creation committed
+        assertThat(service.isUserInRoom(ALICE, ROOM_ID)).isFalse();
+
+        service.onMembershipChanged(RoomMembershipChangedEvent.added(ROOM_ID, List.of(ALICE, BOB)));
+
+        assertThat(service.isUserInRoom(ALICE, ROOM_ID)).isTrue();
+        assertThat(service.getRoomMembers(ROOM_ID)).containsExactlyInAnyOrder(ALICE, BOB);
+        verify(memberRepository, times(2)).findPhoneNumbersByRoomId(ROOM_ID);
+    }
+
+    @Test
+    void isUserInRoom_shouldReloadAfterTtl() throws Exception {
+        RoomMembershipCacheConfig config = new RoomMembershipCacheConfig();
+        config.setTtlSeconds(0);
+        service = new RoomMembershipService(memberRepository, config, meterRegistry);
+        when(memberRepository.findPhoneNumbersByRoomId(ROOM_ID)).thenReturn(List.of(ALICE));
+
+        service.isUserInRoom(ALICE, ROOM_ID);
+        service.isUserInRoom(ALICE, ROOM_ID);
+
+        verify(memberRepository, times(2)).findPhoneNumbersByRoomId(ROOM_ID);
+    }
+}
@@ -0,0 +1,192 @@
+package com.linkwave.app.service.typing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkwave.app.config.NodeConfig;
+import com.linkwave.app.config.TypingConfig;
+import com.linkwave.app.domain.typing.TypingEvent.TypingAction;
+import com.linkwave.app.service.websocket.OutboundFrameType;
+import com.linkwave.app.service.websocket.RoomFanoutEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for throttled typing.update rosters.
+ */
+class TypingBroadcasterTest {
+
+    private static final String ROOM = "room-123";
+    private static final String USER_1 = "+14155551111";
+    private static final String USER_2 = "+14155552222";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private TypingStateManager typingStateManager;
+    private RoomFanoutEngine roomFanout;
+    private SimpleMeterRegistry meterRegistry;
+    private TypingConfig config;
+    private TypingBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        typingStateManager = new TypingStateManager(5000, 250, clock::get, false);
+        roomFanout = mock(RoomFanoutEngine.class);
+        meterRegistry = new SimpleMeterRegistry();
+        config = new TypingConfig();
+        config.setRosterIntervalMs(300);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (broadcaster != null) {
+            broadcaster.shutdown();
+        }
+    }
+
+    private TypingBroadcaster newBroadcaster() {
+        NodeConfig nodeConfig = new NodeConfig();
+        nodeConfig.setId("node-a");
+        broadcaster = new TypingBroadcaster(config, typingStateManager, roomFanout, nodeConfig,
+                objectMapper, meterRegistry, clock::get);
+        return broadcaster;
+    }
+
+    private void start(String userId) {
+        typingStateManager.markTypingStart(ROOM, userId, "session-" + userId);
+        broadcaster.typingChanged(ROOM, userId, TypingAction.START);
+    }
+
+    private List<List<String>> broadcastRosters(int expected) throws Exception {
+        ArgumentCaptor<TextMessage> frames = ArgumentCaptor.forClass(TextMessage.class);
+        verify(roomFanout, times(expected)).broadcast(eq(ROOM), frames.capture(),
+                eq(OutboundFrameType.TYPING), isNull());
+        List<List<String>> rosters = new ArrayList<>();
+        for (TextMessage frame : frames.getAllValues()) {
+            List<String> roster = new ArrayList<>();
+            for (JsonNode userId : objectMapper.readTree(frame.getPayload()).get("userIds")) {
+                roster.add(userId.asText());
+            }
+            rosters.add(roster);
+        }
+        return rosters;
+    }
+
+    @Test
+    void typingChanged_shouldSendFirstChangeAtOnceAndMergeTheRestOfTheInterval() throws Exception {
+        newBroadcaster();
+
+        start(USER_1);
+        await().atMost(200, TimeUnit.MILLISECONDS)
+                .untilAsserted(() -> verify(roomFanout).broadcast(anyString(), any(), any(), any()));
+
+        start(USER_2);
+        verify(roomFanout, after(150).times(1)).broadcast(anyString(), any(), any(), any());
+
+        await().atMost(1, TimeUnit.SECONDS)
+                .untilAsserted(() -> verify(roomFanout, times(2)).broadcast(anyString(), any(), any(), any()));
+        List<List<String>> rosters = broadcastRosters(2);
+        assertThat(rosters.get(0)).containsExactly(USER_1);
+        assertThat(rosters.get(1)).containsExactly(USER_1, USER_2);
+    }
+
+    @Test
+    void typingChanged_withUnchangedRoster_shouldNotBroadcast() throws Exception {
+        config.setRosterIntervalMs(0);
+        newBroadcaster();
+
+        start(USER_1);
+        // Already shown as typing
+        broadcaster.typingChanged(ROOM, USER_1, TypingAction.START);
+
+        broadcastRosters(1);
+        assertThat(meterRegistry.counter("linkwave.typing.roster.unchanged").count()).isEqualTo(1);
+    }
+
+    @Test
+    void typingTimeout_shouldBroadcastUpdatedRoster() throws Exception {
+        config.setRosterIntervalMs(0);
+        newBroadcaster();
+        start(USER_1);
+
+        clock.addAndGet(5500);
+        typingStateManager.cleanupStaleTyping();
+
+        List<List<String>> rosters = broadcastRosters(2);
+        assertThat(rosters.get(1)).isEmpty();
+    }
+
+    @Test
+    void refreshRosters_shouldResendNonEmptyRosterBeforeItExpires() throws Exception {
+        config.setRosterIntervalMs(0);
+        config.setRosterTtlMs(4000);
+        newBroadcaster();
+        start(USER_1);
+
+        clock.addAndGet(1000);
+        broadcaster.refreshRosters();
+        broadcastRosters(1);
+
+        clock.addAndGet(1500);
+        broadcaster.refreshRosters();
+        List<List<String>> rosters = broadcastRosters(2);
+        assertThat(rosters.get(1)).containsExactly(USER_1);
+        assertThat(meterRegistry.counter("linkwave.typing.roster.refreshed").count()).isEqualTo(1);
+    }
+
+    @Test
+    void refreshRosters_shouldNotResendEmptyRoster() throws Exception {
+        config.setRosterIntervalMs(0);
+        config.setRosterTtlMs(4000);
+        newBroadcaster();
+        start(USER_1);
+        typingStateManager.markTypingStop(ROOM, USER_1, "session-" + USER_1);
+        broadcaster.typingChanged(ROOM, USER_1, TypingAction.STOP);
+
+        clock.addAndGet(3000);
+        broadcaster.refreshRosters();
+
+        broadcastRosters(2);
+    }
+
+    @Test
+    void rosterFrame_shouldCarryNodeAndTtl() throws Exception {
+        config.setRosterIntervalMs(0);
+        newBroadcaster();
+
+        start(USER_1);
+
+        ArgumentCaptor<TextMessage> frame = ArgumentCaptor.forClass(TextMessage.class);
+        verify(roomFanout).broadcast(eq(ROOM), frame.capture(), eq(OutboundFrameType.TYPING), isNull());
+        JsonNode event = objectMapper.readTree(frame.getValue().getPayload());
+        assertThat(event.get("nodeId").asText()).isEqualTo("node-a");
+        assertThat(event.get("ttlMs").asLong()).isEqualTo(config.getRosterTtlMs());
+    }
+
+    @Test
+    void legacyPerUserEvents_shouldBroadcastEveryChangeExcludingTyper() {
+        config.setLegacyPerUserEvents(true);
+        newBroadcaster();
+
+        start(USER_1);
+        broadcaster.typingChanged(ROOM, USER_1, TypingAction.STOP);
+
+        verify(roomFanout, times(2)).broadcast(eq(ROOM), any(), eq(OutboundFrameType.TYPING), eq(USER_1));
+    }
+}
@@ -5,8 +5,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -32,6 +34,7 @@ class TypingStateManagerTest {
         
         typingStateManager.clearUserTyping(TEST_USER_1, SESSION_1);
         typingStateManager.clearUserTyping(TEST_USER_2, SESSION_2);
+        typingStateManager.shutdown();
     }
 
     @Test
@@ -108,6 +111,45 @@ class TypingStateManagerTest {
         assertThat(typingStateManager.getTypingUsers(TEST_ROOM_2)).doesNotContain(TEST_USER_1);
     }
 
+    @Test
+    void testClearUserTyping_leavesOtherSessionsTyping() {
+        
+        typingStateManager.markTypingStart(TEST_ROOM_1, TEST_USER_1, SESSION_1);
+        typingStateManager.markTypingStart(TEST_ROOM_1, TEST_USER_2, SESSION_2);
+        typingStateManager.markTypingStart(TEST_ROOM_2, TEST_USER_2, SESSION_2);
+
+        
+        List<String> affectedRooms = typingStateManager.clearUserTyping(TEST_USER_1, SESSION_1);
+
+        
+        assertThat(affectedRooms).containsExactly(TEST_ROOM_1);
+        assertThat(typingStateManager.getTypingUsers(TEST_ROOM_1)).containsExactly(TEST_USER_2);
+        assertThat(typingStateManager.getTypingUsers(TEST_ROOM_2)).containsExactly(TEST_USER_2);
+    }
+
+    @Test
+    void testClearUserTyping_afterStop_affectsNoRooms() {
+        
+        typingStateManager.markTypingStart(TEST_ROOM_1, TEST_USER_1, SESSION_1);
+        typingStateManager.markTypingStop(TEST_ROOM_1, TEST_USER_1, SESSION_1);
+
+        
+        assertThat(typingStateManager.clearUserTyping(TEST_USER_1, SESSION_1)).isEmpty();
+        assertThat(typingStateManager.getStats().activeRooms).isZero();
+    }
+
+    @Test
+    void testClearUserTyping_resetsRateLimit() {
+        
+        typingStateManager.markTypingStart(TEST_ROOM_1, TEST_USER_1, SESSION_1);
+
+        
+        typingStateManager.clearUserTyping(TEST_USER_1, SESSION_1);
+
+        
+        assertThat(typingStateManager.markTypingStart(TEST_ROOM_1, TEST_USER_1, SESSION_2)).isTrue();
+    }
+
     @Test
     void testMultiDevice_sameUserDifferentSessions() throws InterruptedException {
         
@@ -173,6 +215,71 @@ class TypingStateManagerTest {
         assertThat(typingStateManager.getTypingUsers(TEST_ROOM_1)).contains(TEST_USER_1);
     }
 
+    @Test
+    void testExpiry_notifiesListenerOnceAfterTimeout() {
+        
+        AtomicLong clock = new AtomicLong(1_000_000);
+        TypingStateManager manager = new TypingStateManager(5000, 250, clock::get, false);
+        List<TypingStateManager.ExpiredTypingState> notified = new ArrayList<>();
+        manager.setExpiryListener(notified::add);
+        manager.markTypingStart(TEST_ROOM_1, TEST_USER_1, SESSION_1);
+
+        
+        clock.addAndGet(4900);
+        assertThat(manager.cleanupStaleTyping()).isEmpty();
+
+        clock.addAndGet(400);
+        List<TypingStateManager.ExpiredTypingState> expired = manager.cleanupStaleTyping();
+        clock.addAndGet(5000);
+        manager.cleanupStaleTyping();
+
+        
+        assertThat(expired).singleElement().satisfies(state -> {
+            assertThat(state.roomId).isEqualTo(TEST_ROOM_1);
+            assertThat(state.userId).isEqualTo(TEST_USER_1);
+            assertThat(state.sessionId).isEqualTo(SESSION_1);
+        });
+        assertThat(notified).hasSize(1);
+        assertThat(manager.getTypingUsers(TEST_ROOM_1)).isEmpty();
+        assertThat(manager.clearUserTyping(TEST_USER_1, SESSION_1)).isEmpty();
+    }
+
+    @Test
+    void testExpiry_typingStartRefreshesTimeout() throws InterruptedException {
+        
+        AtomicLong clock = new AtomicLong(1_000_000);
+        TypingStateManager manager = new TypingStateManager(5000, 250, clock::get, false);
+        manager.markTypingStart(TEST_ROOM_1, TEST_USER_1, SESSION_1);
+
+        
+        Thread.sleep(2100);
+        clock.addAndGet(4000);
+        assertThat(manager.markTypingStart(TEST_ROOM_1, TEST_USER_1, SESSION_1)).isTrue();
+
+        
+        clock.addAndGet(2000);
+        assertThat(manager.cleanupStaleTyping()).isEmpty();
+        assertThat(manager.getTypingUsers(TEST_ROOM_1)).containsExactly(TEST_USER_1);
+
+        clock.addAndGet(3500);
+        assertThat(manager.cleanupStaleTyping()).hasSize(1);
+    }
+
+    @Test
+    void testExpiry_stoppedTypingDoesNotExpire() {
+        
+        AtomicLong clock = new AtomicLong(1_000_000);
+        TypingStateManager manager = new TypingStateManager(5000, 250, clock::get, false);
+        manager.markTypingStart(TEST_ROOM_1, TEST_USER_1, SESSION_1);
+        manager.markTypingStop(TEST_ROOM_1, TEST_USER_1, SESSION_1);
+
+        
+        clock.addAndGet(10_000);
+
+        
+        assertThat(manager.cleanupStaleTyping()).isEmpty();
+    }
+
     @Test
     void testMarkTypingStop_nonExistentUser_handlesGracefully() {
         
@@ -0,0 +1,126 @@
+package com.linkwave.app.service.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkwave.app.config.ClusterRoutingConfig;
+import com.linkwave.app.service.websocket.ClusterRouter.RemoteBatch;
+import com.linkwave.app.service.websocket.ClusterRouter.RemoteFrame;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for routing frames to users on other nodes.
+ */
+class ClusterRouterTest {
+
+    private static final String SELF = "node-a";
+    private static final String USER_1 = "+14155551111";
+    private static final String USER_2 = "+14155552222";
+    private static final String USER_3 = "+14155553333";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private NodeRegistry nodeRegistry;
+    private WsSessionManager sessionManager;
+    private RedisTemplate<String, String> redisTemplate;
+    private ClusterRoutingConfig config;
+    private SimpleMeterRegistry meterRegistry;
+    private ClusterRouter router;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        nodeRegistry = mock(NodeRegistry.class);
+        when(nodeRegistry.getNodeId()).thenReturn(SELF);
+        sessionManager = mock(WsSessionManager.class);
+        redisTemplate = mock(RedisTemplate.class);
+        config = new ClusterRoutingConfig();
+        config.setBatchWindowMs(0);
+        meterRegistry = new SimpleMeterRegistry();
+        router = new ClusterRouter(config, nodeRegistry, sessionManager, redisTemplate, objectMapper, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        router.shutdown();
+    }
+
+    @Test
+    void forward_shouldPublishOneBatchPerRemoteNode() throws Exception {
+        when(nodeRegistry.lookup(any())).thenReturn(Map.of(
+                USER_1, Set.of(SELF),
+                USER_2, Set.of("node-b"),
+                USER_3, Set.of("node-b")));
+
+        router.forward(List.of(USER_1, USER_2, USER_3), new TextMessage("{\"event\":\"typing.start\"}"),
+                OutboundFrameType.TYPING);
+
+        ArgumentCaptor<String> body = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq("linkwave:ws:node:node-b"), body.capture());
+        verify(redisTemplate, never()).convertAndSend(eq("linkwave:ws:node:" + SELF), anyString());
+
+        RemoteBatch batch = objectMapper.readValue(body.getValue(), RemoteBatch.class);
+        assertThat(batch.sourceNodeId()).isEqualTo(SELF);
+        assertThat(batch.frames()).singleElement().satisfies(frame -> {
+            assertThat(frame.type()).isEqualTo(OutboundFrameType.TYPING);
+            assertThat(frame.userIds()).containsExactlyInAnyOrder(USER_2, USER_3);
+            assertThat(frame.payload()).isEqualTo("{\"event\":\"typing.start\"}");
+        });
+        assertThat(meterRegistry.counter("linkwave.ws.cluster.forwarded").count()).isEqualTo(2);
+    }
+
+    @Test
+    void forward_toUsersWithoutRoute_shouldNotPublish() {
+        when(nodeRegistry.lookup(any())).thenReturn(Map.of());
+
+        router.forward(List.of(USER_2), new TextMessage("{}"), OutboundFrameType.RECEIPT);
+
+        verify(redisTemplate, never()).convertAndSend(anyString(), any());
+    }
+
+    @Test
+    void forward_whenDisabled_shouldSkipLookup() {
+        config.setEnabled(false);
+
+        router.forward(List.of(USER_2), new TextMessage("{}"), OutboundFrameType.RECEIPT);
+
+        verifyNoInteractions(redisTemplate);
+        verify(nodeRegistry, never()).lookup(any());
+    }
+
+    @Test
+    void onBatch_shouldDeliverToLocalSessions() throws Exception {
+        String body = objectMapper.writeValueAsString(new RemoteBatch("node-b", List.of(
+                new RemoteFrame(OutboundFrameType.RECEIPT, List.of(USER_1, USER_2), "{\"event\":\"read.up_to\"}"))));
+
+        router.onBatch(body);
+
+        ArgumentCaptor<TextMessage> frame = ArgumentCaptor.forClass(TextMessage.class);
+        verify(sessionManager).sendToUser(eq(USER_1), frame.capture(), eq(OutboundFrameType.RECEIPT));
+        verify(sessionManager).sendToUser(eq(USER_2), any(), eq(OutboundFrameType.RECEIPT));
+        assertThat(frame.getValue().getPayload()).isEqualTo("{\"event\":\"read.up_to\"}");
+        assertThat(meterRegistry.counter("linkwave.ws.cluster.received").count()).isEqualTo(2);
+    }
+
+    @Test
+    void userConnectedAndDisconnected_shouldMaintainRegistry() {
+        router.userConnected(USER_1);
+        router.userDisconnected(USER_1);
+        router.userDisconnected(USER_1);
+
+        verify(nodeRegistry).register(List.of(USER_1));
+        verify(nodeRegistry, times(1)).unregister(USER_1);
+    }
+}
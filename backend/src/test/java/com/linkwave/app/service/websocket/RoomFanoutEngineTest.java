@@ -0,0 +1,181 @@
+package com.linkwave.app.service.websocket;
+
+import com.linkwave.app.service.room.RoomMembershipChangedEvent;
+import com.linkwave.app.service.room.RoomMembershipService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the room-indexed local fan-out.
+ */
+class RoomFanoutEngineTest {
+
+    private static final String ROOM_1 = "room-1";
+    private static final String ROOM_2 = "room-2";
+    private static final String USER_1 = "+14155551111";
+    private static final String USER_2 = "+14155552222";
+    private static final String USER_3 = "+14155553333";
+
+    private RoomMembershipService roomMembershipService;
+    private WsSessionManager sessionManager;
+    private ClusterRouter clusterRouter;
+    private RoomFanoutEngine fanout;
+
+    @BeforeEach
+    void setUp() {
+        roomMembershipService = mock(RoomMembershipService.class);
+        sessionManager = mock(WsSessionManager.class);
+        when(sessionManager.sendToUser(anyString(), any(), any())).thenReturn(true);
+        clusterRouter = mock(ClusterRouter.class);
+        fanout = new RoomFanoutEngine(roomMembershipService, sessionManager, clusterRouter, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void broadcast_shouldReachOnlyLocalMembersExceptSender() {
+        when(roomMembershipService.getUserRoomIds(USER_1)).thenReturn(List.of(ROOM_1));
+        when(roomMembershipService.getUserRoomIds(USER_2)).thenReturn(List.of(ROOM_1, ROOM_2));
+        fanout.userConnected(USER_1);
+        fanout.userConnected(USER_2);
+        TextMessage frame = new TextMessage("{}");
+
+        int delivered = fanout.broadcast(ROOM_1, frame, OutboundFrameType.TYPING, USER_1);
+
+        assertThat(delivered).isEqualTo(1);
+        verify(sessionManager).sendToUser(USER_2, frame, OutboundFrameType.TYPING);
+        verify(sessionManager, never()).sendToUser(eq(USER_1), any(), any());
+        verify(roomMembershipService, never()).getRoomMembers(anyString());
+    }
+
+    @Test
+    void broadcast_toRoomWithoutLocalMembers_shouldSendNothing() {
+        int delivered = fanout.broadcast(ROOM_1, new TextMessage("{}"), OutboundFrameType.CHAT, null);
+
+        assertThat(delivered).isZero();
+        verifyNoInteractions(sessionManager);
+    }
+
+    @Test
+    void userDisconnected_shouldRemoveUserFromAllRooms() {
+        when(roomMembershipService.getUserRoomIds(USER_1)).thenReturn(List.of(ROOM_1, ROOM_2));
+        fanout.userConnected(USER_1);
+
+        fanout.userDisconnected(USER_1);
+
+        assertThat(fanout.getLocalMembers(ROOM_1)).isEmpty();
+        assertThat(fanout.getLocalMembers(ROOM_2)).isEmpty();
+    }
+
+    @Test
+    void membershipAdded_shouldIndexOnlyConnectedUsers() {
+        when(roomMembershipService.getUserRoomIds(USER_1)).thenReturn(List.of());
+        fanout.userConnected(USER_1);
+
+        fanout.onMembershipChanged(RoomMembershipChangedEvent.added(ROOM_1, List.of(USER_1, USER_3)));
+
+        assertThat(fanout.getLocalMembers(ROOM_1)).containsExactly(USER_1);
+    }
+
+    @Test
+    void membershipRemoved_shouldStopDeliveryToRemovedUser() {
+        when(roomMembershipService.getUserRoomIds(USER_1)).thenReturn(List.of(ROOM_1));
+        when(roomMembershipService.getUserRoomIds(USER_2)).thenReturn(List.of(ROOM_1));
+        fanout.userConnected(USER_1);
+        fanout.userConnected(USER_2);
+
+        fanout.onMembershipChanged(RoomMembershipChangedEvent.removed(ROOM_1, List.of(USER_2)));
+
+        assertThat(fanout.getLocalMembers(ROOM_1)).containsExactly(USER_1);
+    }
+
+    @Test
+    void userConnected_twice_shouldNotDuplicateDelivery() {
+        when(roomMembershipService.getUserRoomIds(USER_2)).thenReturn(List.of(ROOM_1));
+        fanout.userConnected(USER_2);
+        fanout.userConnected(USER_2);
+        TextMessage frame = new TextMessage("{}");
+
+        fanout.broadcast(ROOM_1, frame, OutboundFrameType.RECEIPT, USER_1);
+
+        verify(sessionManager, times(1)).sendToUser(USER_2, frame, OutboundFrameType.RECEIPT);
+    }
+
+    @Test
+    void broadcast_withClusterRouting_shouldForwardOtherMembersExceptSender() {
+        when(clusterRouter.isEnabled()).thenReturn(true);
+        when(roomMembershipService.getUserRoomIds(USER_2)).thenReturn(List.of(ROOM_1));
+        when(roomMembershipService.getRoomMembers(ROOM_1)).thenReturn(Set.of(USER_1, USER_2, USER_3));
+        fanout.userConnected(USER_2);
+        TextMessage frame = new TextMessage("{}");
+
+        int delivered = fanout.broadcast(ROOM_1, frame, OutboundFrameType.TYPING, USER_1);
+
+        assertThat(delivered).isEqualTo(1);
+        verify(sessionManager).sendToUser(USER_2, frame, OutboundFrameType.TYPING);
+        verify(clusterRouter).forward(argThat(users -> users.size() == 2
+                && users.containsAll(List.of(USER_2, USER_3))), eq(frame), eq(OutboundFrameType.TYPING));
+    }
+
+    @Test
+    void broadcastLocal_shouldNotForwardToOtherNodes() {
+        when(clusterRouter.isEnabled()).thenReturn(true);
+        when(roomMembershipService.getUserRoomIds(USER_2)).thenReturn(List.of(ROOM_1));
+        fanout.userConnected(USER_2);
+
+        fanout.broadcastLocal(ROOM_1, new TextMessage("{}"), OutboundFrameType.CHAT, null);
+
+        verify(clusterRouter, never()).forward(any(), any(), any());
+        verify(roomMembershipService, never()).getRoomMembers(anyString());
+    }
+
+    @Test
+    void sendToUser_whenNotConnectedLocally_shouldForward() {
+        when(clusterRouter.isEnabled()).thenReturn(true);
+        when(sessionManager.sendToUser(eq(USER_3), any(), any())).thenReturn(false);
+        TextMessage frame = new TextMessage("{}");
+
+        fanout.sendToUser(USER_3, frame, OutboundFrameType.PRESENCE);
+
+        verify(clusterRouter).forward(List.of(USER_3), frame, OutboundFrameType.PRESENCE);
+    }
+
+    @Test
+    void sendToUser_whenConnectedLocally_shouldStillForwardForOtherDevices() {
+        when(clusterRouter.isEnabled()).thenReturn(true);
+        TextMessage frame = new TextMessage("{}");
+
+        fanout.sendToUser(USER_2, frame, OutboundFrameType.PRESENCE);
+
+        verify(sessionManager).sendToUser(USER_2, frame, OutboundFrameType.PRESENCE);
+        verify(clusterRouter).forward(List.of(USER_2), frame, OutboundFrameType.PRESENCE);
+    }
+
+    @Test
+    void sendToUser_withRoutingDisabled_shouldOnlySendLocally() {
+        TextMessage frame = new TextMessage("{}");
+
+        fanout.sendToUser(USER_3, frame, OutboundFrameType.PRESENCE);
+
+        verify(clusterRouter, never()).forward(any(), any(), any());
+    }
+
+    @Test
+    void userConnectedAndDisconnected_shouldMaintainRoute() {
+        when(roomMembershipService.getUserRoomIds(USER_1)).thenReturn(List.of(ROOM_1));
+
+        fanout.userConnected(USER_1);
+        fanout.userDisconnected(USER_1);
+
+        verify(clusterRouter).userConnected(USER_1);
+        verify(clusterRouter).userDisconnected(USER_1);
+    }
+}
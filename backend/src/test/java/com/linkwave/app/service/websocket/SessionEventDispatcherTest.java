@@ -0,0 +1,129 @@
+package com.linkwave.app.service.websocket;
+
+import com.linkwave.app.config.WsDispatchConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Unit tests for per-session virtual-thread dispatch of blocking handlers.
+ */
+class SessionEventDispatcherTest {
+
+    private SessionEventDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    void dispatch_shouldRunSessionTasksInOrderOffCallerThread() {
+        dispatcher = new SessionEventDispatcher(new WsDispatchConfig(), new SimpleMeterRegistry());
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        List<Boolean> virtual = new CopyOnWriteArrayList<>();
+
+        for (int i = 0; i < 50; i++) {
+            int n = i;
+            dispatcher.dispatch("session-1", () -> {
+                virtual.add(Thread.currentThread().isVirtual());
+                order.add(n);
+            });
+        }
+
+        await().atMost(2, TimeUnit.SECONDS).until(() -> order.size() == 50);
+        assertThat(order).isSorted();
+        assertThat(virtual).containsOnly(true);
+        await().atMost(1, TimeUnit.SECONDS).until(() -> dispatcher.getPendingTasks() == 0);
+    }
+
+    @Test
+    void dispatch_blockedSession_shouldNotDelayOtherSessions() throws Exception {
+        dispatcher = new SessionEventDispatcher(new WsDispatchConfig(), new SimpleMeterRegistry());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch otherRan = new CountDownLatch(1);
+
+        dispatcher.dispatch("slow", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        dispatcher.dispatch("fast", otherRan::countDown);
+
+        assertThat(otherRan.await(1, TimeUnit.SECONDS)).isTrue();
+        release.countDown();
+    }
+
+    @Test
+    void dispatch_whenQueueFull_shouldRejectTask() throws Exception {
+        WsDispatchConfig config = new WsDispatchConfig();
+        config.setMaxPendingPerSession(1);
+        dispatcher = new SessionEventDispatcher(config, new SimpleMeterRegistry());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        dispatcher.dispatch("session-1", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await(1, TimeUnit.SECONDS);
+
+        assertThat(dispatcher.dispatch("session-1", () -> { })).isTrue();
+        assertThat(dispatcher.dispatch("session-1", () -> { })).isFalse();
+        release.countDown();
+    }
+
+    @Test
+    void sessionClosed_shouldDiscardQueuedTasks() throws Exception {
+        dispatcher = new SessionEventDispatcher(new WsDispatchConfig(), new SimpleMeterRegistry());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> ran = new CopyOnWriteArrayList<>();
+
+        dispatcher.dispatch("session-1", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await(1, TimeUnit.SECONDS);
+        dispatcher.dispatch("session-1", () -> ran.add("queued"));
+
+        dispatcher.sessionClosed("session-1");
+        release.countDown();
+
+        await().atMost(1, TimeUnit.SECONDS).until(() -> dispatcher.getPendingTasks() == 0);
+        assertThat(ran).isEmpty();
+    }
+
+    @Test
+    void dispatch_withVirtualThreadsDisabled_shouldRunInline() {
+        WsDispatchConfig config = new WsDispatchConfig();
+        config.setVirtualThreads(false);
+        dispatcher = new SessionEventDispatcher(config, new SimpleMeterRegistry());
+        Thread caller = Thread.currentThread();
+        List<Thread> ranOn = new CopyOnWriteArrayList<>();
+
+        dispatcher.dispatch("session-1", () -> ranOn.add(Thread.currentThread()));
+
+        assertThat(ranOn).containsExactly(caller);
+    }
+}
@@ -0,0 +1,160 @@
+package com.linkwave.app.service.websocket;
+
+import com.linkwave.app.config.WsOutboundConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the per-session outbound queue.
+ * Uses a manual executor so the writer only runs when the test drains it.
+ */
+class SessionOutboxTest {
+
+    private WebSocketSession session;
+    private ManualExecutor writer;
+    private OutboundMetrics metrics;
+    private WsOutboundConfig config;
+
+    @BeforeEach
+    void setUp() {
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("session-1");
+        when(session.isOpen()).thenReturn(true);
+        writer = new ManualExecutor();
+        metrics = new OutboundMetrics(new SimpleMeterRegistry());
+        config = new WsOutboundConfig();
+        config.setQueueCapacity(2);
+    }
+
+    @Test
+    void offer_shouldWriteFramesInOrderOnWriter() throws Exception {
+        SessionOutbox outbox = new SessionOutbox(session, config, writer, metrics);
+        TextMessage first = new TextMessage("1");
+        TextMessage second = new TextMessage("2");
+
+        outbox.offer(first, OutboundFrameType.CHAT);
+        outbox.offer(second, OutboundFrameType.CHAT);
+
+        // Nothing written on the caller thread
+        verify(session, never()).sendMessage(any());
+        assertThat(writer.pending()).isEqualTo(1);
+
+        writer.runAll();
+
+        InOrder inOrder = inOrder(session);
+        inOrder.verify(session).sendMessage(first);
+        inOrder.verify(session).sendMessage(second);
+        assertThat(outbox.depth()).isZero();
+        assertThat(metrics.getQueuedFrames()).isZero();
+    }
+
+    @Test
+    void offer_whenFull_shouldDropNewTypingFrame() throws Exception {
+        SessionOutbox outbox = new SessionOutbox(session, config, writer, metrics);
+        outbox.offer(new TextMessage("1"), OutboundFrameType.CHAT);
+        outbox.offer(new TextMessage("2"), OutboundFrameType.CHAT);
+
+        boolean queued = outbox.offer(new TextMessage("typing"), OutboundFrameType.TYPING);
+
+        assertThat(queued).isFalse();
+        assertThat(metrics.getDroppedFrames(OutboundFrameType.TYPING)).isEqualTo(1);
+        verify(session, never()).close(any());
+    }
+
+    @Test
+    void offer_whenFull_shouldEvictQueuedTypingBeforeDisconnecting() throws Exception {
+        SessionOutbox outbox = new SessionOutbox(session, config, writer, metrics);
+        TextMessage chat = new TextMessage("chat");
+        TextMessage typing = new TextMessage("typing");
+        TextMessage receipt = new TextMessage("receipt");
+        outbox.offer(typing, OutboundFrameType.TYPING);
+        outbox.offer(chat, OutboundFrameType.CHAT);
+
+        boolean queued = outbox.offer(receipt, OutboundFrameType.RECEIPT);
+        writer.runAll();
+
+        assertThat(queued).isTrue();
+        verify(session, never()).sendMessage(typing);
+        verify(session).sendMessage(chat);
+        verify(session).sendMessage(receipt);
+        verify(session, never()).close(any());
+    }
+
+    @Test
+    void offer_whenFullWithDisconnectPolicy_shouldCloseSlowConsumer() throws Exception {
+        SessionOutbox outbox = new SessionOutbox(session, config, writer, metrics);
+        outbox.offer(new TextMessage("1"), OutboundFrameType.CHAT);
+        outbox.offer(new TextMessage("2"), OutboundFrameType.CHAT);
+
+        boolean queued = outbox.offer(new TextMessage("3"), OutboundFrameType.CHAT);
+        writer.runAll();
+
+        assertThat(queued).isFalse();
+        assertThat(metrics.getDisconnects()).isEqualTo(1);
+        assertThat(metrics.getQueuedFrames()).isZero();
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        verify(session, never()).sendMessage(any());
+    }
+
+    @Test
+    void offer_whenFullWithDropPolicy_shouldKeepSessionOpen() throws Exception {
+        config.setOverflowPolicy(WsOutboundConfig.OverflowPolicy.DROP_NEWEST);
+        SessionOutbox outbox = new SessionOutbox(session, config, writer, metrics);
+        outbox.offer(new TextMessage("1"), OutboundFrameType.CHAT);
+        outbox.offer(new TextMessage("2"), OutboundFrameType.CHAT);
+
+        boolean queued = outbox.offer(new TextMessage("3"), OutboundFrameType.CHAT);
+
+        assertThat(queued).isFalse();
+        assertThat(metrics.getDroppedFrames(OutboundFrameType.CHAT)).isEqualTo(1);
+        assertThat(outbox.depth()).isEqualTo(2);
+        verify(session, never()).close(any());
+    }
+
+    @Test
+    void close_shouldDiscardQueuedFramesAndRejectNewOnes() throws Exception {
+        SessionOutbox outbox = new SessionOutbox(session, config, writer, metrics);
+        outbox.offer(new TextMessage("1"), OutboundFrameType.CHAT);
+
+        outbox.close();
+        boolean queued = outbox.offer(new TextMessage("2"), OutboundFrameType.CHAT);
+        writer.runAll();
+
+        assertThat(queued).isFalse();
+        assertThat(metrics.getQueuedFrames()).isZero();
+        verify(session, never()).sendMessage(any());
+    }
+
+    private static class ManualExecutor implements Executor {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        int pending() {
+            return tasks.size();
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+}
@@ -1,11 +1,22 @@
 package com.linkwave.app.service.websocket;
 
+import com.linkwave.app.config.WsOutboundConfig;
+import com.linkwave.app.config.WsSessionConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.ignoreStubs;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 /**
@@ -17,7 +28,14 @@ class WsSessionManagerTest {
     
     @BeforeEach
     void setUp() {
-        sessionManager = new WsSessionManager();
+        WsSessionConfig sessionConfig = new WsSessionConfig();
+        sessionConfig.setMaxSessionsPerUser(2);
+        sessionManager = new WsSessionManager(new WsOutboundConfig(), sessionConfig, new SimpleMeterRegistry());
+    }
+    
+    @AfterEach
+    void tearDown() {
+        sessionManager.shutdown();
     }
     
     @Test
@@ -31,26 +49,64 @@ class WsSessionManagerTest {
         
         // Then
         assertThat(sessionManager.hasActiveSession(phoneNumber)).isTrue();
-        assertThat(sessionManager.getSession(phoneNumber)).isPresent();
+        assertThat(sessionManager.getSessions(phoneNumber)).containsExactly(session);
         assertThat(sessionManager.getPhoneNumber(session)).contains(phoneNumber);
         assertThat(sessionManager.getActiveSessionCount()).isEqualTo(1);
     }
     
     @Test
-    void registerSession_withExistingSession_shouldReplaceOldSession() {
+    void registerSession_withExistingSession_shouldKeepBothDevices() {
         // Given: First session
         String phoneNumber = "+14155552671";
-        WebSocketSession oldSession = mockSession("session-1", true);
-        sessionManager.registerSession(phoneNumber, oldSession);
+        WebSocketSession phoneSession = mockSession("session-1", true);
+        sessionManager.registerSession(phoneNumber, phoneSession);
         
         // When: Second session for same user
-        WebSocketSession newSession = mockSession("session-2", true);
-        sessionManager.registerSession(phoneNumber, newSession);
+        WebSocketSession desktopSession = mockSession("session-2", true);
+        sessionManager.registerSession(phoneNumber, desktopSession);
         
-        // Then: New session should replace old one
-        assertThat(sessionManager.getSession(phoneNumber)).contains(newSession);
-        assertThat(sessionManager.getPhoneNumber(newSession)).contains(phoneNumber);
-        assertThat(sessionManager.getActiveSessionCount()).isEqualTo(1);
+        // Then: Both stay registered, neither is closed
+        assertThat(sessionManager.getSessions(phoneNumber)).containsExactly(phoneSession, desktopSession);
+        assertThat(sessionManager.getPhoneNumber(desktopSession)).contains(phoneNumber);
+        assertThat(sessionManager.getActiveSessionCount()).isEqualTo(2);
+        verifyNoMoreInteractions(ignoreStubs(phoneSession));
+    }
+    
+    @Test
+    void registerSession_overLimit_shouldCloseOldestSession() throws Exception {
+        // Given: User at the session limit
+        String phoneNumber = "+14155552671";
+        WebSocketSession first = mockSession("session-1", true);
+        WebSocketSession second = mockSession("session-2", true);
+        sessionManager.registerSession(phoneNumber, first);
+        sessionManager.registerSession(phoneNumber, second);
+        
+        // When: One more device connects
+        WebSocketSession third = mockSession("session-3", true);
+        sessionManager.registerSession(phoneNumber, third);
+        
+        // Then: The oldest is evicted
+        verify(first).close(any(CloseStatus.class));
+        assertThat(sessionManager.getSessions(phoneNumber)).containsExactly(second, third);
+        assertThat(sessionManager.getPhoneNumber(first)).isEmpty();
+        assertThat(sessionManager.getActiveSessionCount()).isEqualTo(2);
+    }
+    
+    @Test
+    void deregisterSession_withOtherDevice_shouldKeepUserActive() {
+        // Given
+        String phoneNumber = "+14155552671";
+        WebSocketSession phoneSession = mockSession("session-1", true);
+        WebSocketSession desktopSession = mockSession("session-2", true);
+        sessionManager.registerSession(phoneNumber, phoneSession);
+        sessionManager.registerSession(phoneNumber, desktopSession);
+        
+        // When
+        sessionManager.deregisterSession(phoneSession);
+        
+        // Then
+        assertThat(sessionManager.hasActiveSession(phoneNumber)).isTrue();
+        assertThat(sessionManager.getSessions(phoneNumber)).containsExactly(desktopSession);
     }
     
     @Test
@@ -65,7 +121,7 @@ class WsSessionManagerTest {
         
         // Then
         assertThat(sessionManager.hasActiveSession(phoneNumber)).isFalse();
-        assertThat(sessionManager.getSession(phoneNumber)).isEmpty();
+        assertThat(sessionManager.getSessions(phoneNumber)).isEmpty();
         assertThat(sessionManager.getPhoneNumber(session)).isEmpty();
         assertThat(sessionManager.getActiveSessionCount()).isEqualTo(0);
     }
@@ -78,7 +134,7 @@ class WsSessionManagerTest {
         sessionManager.registerSession(phoneNumber, session);
         
         // When
-        var result = sessionManager.getSession(phoneNumber);
+        var result = sessionManager.getSessions(phoneNumber);
         
         // Then: Should return empty and clean up
         assertThat(result).isEmpty();
@@ -129,6 +185,56 @@ class WsSessionManagerTest {
         assertThat(result).isEmpty();
     }
     
+    @Test
+    void sendToUser_shouldWriteThroughOutboundQueue() throws Exception {
+        // Given
+        String phoneNumber = "+14155552671";
+        WebSocketSession session = mockSession("session-1", true);
+        sessionManager.registerSession(phoneNumber, session);
+        TextMessage message = new TextMessage("{\"event\":\"pong\"}");
+        
+        // When
+        boolean queued = sessionManager.sendToUser(phoneNumber, message, OutboundFrameType.CONTROL);
+        
+        // Then
+        assertThat(queued).isTrue();
+        verify(session, timeout(1000)).sendMessage(message);
+    }
+    
+    @Test
+    void sendToUser_shouldFanOutToEveryDevice() throws Exception {
+        // Given
+        String phoneNumber = "+14155552671";
+        WebSocketSession phoneSession = mockSession("session-1", true);
+        WebSocketSession desktopSession = mockSession("session-2", true);
+        sessionManager.registerSession(phoneNumber, phoneSession);
+        sessionManager.registerSession(phoneNumber, desktopSession);
+        TextMessage message = new TextMessage("{\"event\":\"typing.start\"}");
+        
+        // When
+        boolean queued = sessionManager.sendToUser(phoneNumber, message, OutboundFrameType.TYPING);
+        
+        // Then
+        assertThat(queued).isTrue();
+        verify(phoneSession, timeout(1000)).sendMessage(message);
+        verify(desktopSession, timeout(1000)).sendMessage(message);
+    }
+    
+    @Test
+    void send_afterDeregister_shouldDropFrame() {
+        // Given
+        String phoneNumber = "+14155552671";
+        WebSocketSession session = mockSession("session-1", true);
+        sessionManager.registerSession(phoneNumber, session);
+        sessionManager.deregisterSession(session);
+        
+        // When
+        boolean queued = sessionManager.send(session, new TextMessage("{}"), OutboundFrameType.CONTROL);
+        
+        // Then
+        assertThat(queued).isFalse();
+    }
+    
     private WebSocketSession mockSession(String id, boolean isOpen) {
         WebSocketSession session = mock(WebSocketSession.class);
         when(session.getId()).thenReturn(id);
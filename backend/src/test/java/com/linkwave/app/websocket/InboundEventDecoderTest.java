@@ -0,0 +1,87 @@
+package com.linkwave.app.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkwave.app.domain.websocket.InboundEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for the streaming inbound frame decoder.
+ */
+class InboundEventDecoderTest {
+
+    private final InboundEventDecoder decoder = new InboundEventDecoder(new ObjectMapper());
+
+    @Test
+    void decode_chatSend_shouldBindTargetAndBody() throws Exception {
+        InboundEvent event = decoder.decode(
+                "{\"event\":\"chat.send\",\"to\":\"room-1\",\"clientMessageId\":\"c-1\","
+                        + "\"payload\":{\"body\":\"Hello\",\"extra\":[1,2]}}");
+
+        assertThat(event).isEqualTo(
+                new InboundEvent.ChatSend("room-1", "c-1", new InboundEvent.ChatSend.Payload("Hello")));
+        assertThat(((InboundEvent.ChatSend) event).body()).isEqualTo("Hello");
+    }
+
+    @Test
+    void decode_typingAndReadEvents_shouldBindFields() throws Exception {
+        assertThat(decoder.decode("{\"event\":\"typing.start\",\"roomId\":\"room-1\"}"))
+                .isEqualTo(new InboundEvent.TypingStart("room-1"));
+        assertThat(decoder.decode("{\"event\":\"typing.stop\",\"roomId\":\"room-1\"}"))
+                .isEqualTo(new InboundEvent.TypingStop("room-1"));
+        assertThat(decoder.decode("{\"event\":\"read.up_to\",\"roomId\":\"room-1\",\"messageId\":\"m-1\"}"))
+                .isEqualTo(new InboundEvent.ReadUpTo("room-1", "m-1"));
+    }
+
+    @Test
+    void decode_missingFields_shouldBindNulls() throws Exception {
+        assertThat(decoder.decode("{\"event\":\"typing.start\"}"))
+                .isEqualTo(new InboundEvent.TypingStart(null));
+        assertThat(((InboundEvent.ChatSend) decoder.decode("{\"event\":\"chat.send\",\"to\":\"room-1\"}")).body())
+                .isNull();
+    }
+
+    @Test
+    void decode_eventNotFirst_shouldReplayLeadingFields() throws Exception {
+        InboundEvent event = decoder.decode(
+                "{\"roomId\":\"room-1\",\"meta\":{\"a\":1},\"event\":\"read.up_to\",\"messageId\":\"m-1\"}");
+
+        assertThat(event).isEqualTo(new InboundEvent.ReadUpTo("room-1", "m-1"));
+    }
+
+    @Test
+    void decode_presenceSubscribe_shouldBindUserIds() throws Exception {
+        assertThat(decoder.decode("{\"event\":\"presence.subscribe\",\"userIds\":[\"+1\",\"+2\"]}"))
+                .isEqualTo(new InboundEvent.PresenceSubscribe(List.of("+1", "+2")));
+    }
+
+    @Test
+    void decode_fieldlessEvents_shouldReturnTypedEvents() throws Exception {
+        assertThat(decoder.decode("{\"event\":\"ping\"}")).isInstanceOf(InboundEvent.Ping.class);
+        assertThat(decoder.decode("{\"event\":\"presence.heartbeat\",\"ts\":1}"))
+                .isInstanceOf(InboundEvent.PresenceHeartbeat.class);
+        assertThat(decoder.decode("{\"event\":\"custom\",\"payload\":{}}"))
+                .isEqualTo(new InboundEvent.Unhandled("custom"));
+    }
+
+    @Test
+    void decode_missingEvent_shouldReturnNull() throws Exception {
+        assertThat(decoder.decode("{\"roomId\":\"room-1\"}")).isNull();
+        assertThat(decoder.decode("{}")).isNull();
+    }
+
+    @Test
+    void decode_malformedFrame_shouldThrow() {
+        assertThatThrownBy(() -> decoder.decode("not json"))
+                .isInstanceOf(JsonProcessingException.class);
+        assertThatThrownBy(() -> decoder.decode("[\"event\"]"))
+                .isInstanceOf(JsonProcessingException.class);
+        assertThatThrownBy(() -> decoder.decode("{\"event\":\"ping\",\"x\":"))
+                .isInstanceOf(JsonProcessingException.class);
+    }
+}
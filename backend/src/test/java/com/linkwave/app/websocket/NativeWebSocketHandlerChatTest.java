@@ -0,0 +1,188 @@
+package com.linkwave.app.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkwave.app.config.WsDispatchConfig;
+import com.linkwave.app.domain.chat.ChatSendResult;
+import com.linkwave.app.exception.MessagePublishException;
+import com.linkwave.app.service.chat.ChatService;
+import com.linkwave.app.service.presence.PresenceService;
+import com.linkwave.app.service.presence.PresenceSubscriptionService;
+import com.linkwave.app.service.readreceipt.ReadPositionBuffer;
+import com.linkwave.app.service.readreceipt.ReadReceiptBroadcaster;
+import com.linkwave.app.service.readreceipt.ReadReceiptService;
+import com.linkwave.app.service.room.RoomMembershipService;
+import com.linkwave.app.service.typing.TypingBroadcaster;
+import com.linkwave.app.service.typing.TypingStateManager;
+import com.linkwave.app.service.websocket.OutboundFrameType;
+import com.linkwave.app.service.websocket.RoomFanoutEngine;
+import com.linkwave.app.service.websocket.SessionEventDispatcher;
+import com.linkwave.app.service.websocket.WsSessionManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NativeWebSocketHandlerChatTest {
+
+    private NativeWebSocketHandler handler;
+
+    @Mock
+    private PresenceService presenceService;
+
+    @Mock
+    private PresenceSubscriptionService presenceSubscriptionService;
+
+    @Mock
+    private TypingStateManager typingStateManager;
+
+    @Mock
+    private TypingBroadcaster typingBroadcaster;
+
+    @Mock
+    private RoomMembershipService roomMembershipService;
+
+    @Mock
+    private ReadReceiptService readReceiptService;
+
+    @Mock
+    private ReadReceiptBroadcaster readReceiptBroadcaster;
+
+    @Mock
+    private ReadPositionBuffer readPositionBuffer;
+
+    @Mock
+    private ChatService chatService;
+
+    @Mock
+    private WsSessionManager sessionManager;
+
+    @Mock
+    private RoomFanoutEngine roomFanout;
+
+    private ObjectMapper objectMapper;
+
+    @Mock
+    private WebSocketSession session;
+
+    private AutoCloseable mocks;
+
+    private static final String TEST_PHONE = "+14155551234";
+    private static final String TEST_ROOM = "room-123";
+    private static final String SESSION_ID = "test-session-id";
+    private static final String CHAT_SEND = "{\"event\":\"chat.send\",\"to\":\"" + TEST_ROOM
+            + "\",\"clientMessageId\":\"c-1\",\"payload\":{\"body\":\"Hello\"}}";
+
+    @BeforeEach
+    void setUp() throws Exception {
+        mocks = MockitoAnnotations.openMocks(this);
+        objectMapper = new ObjectMapper();
+        // Inline dispatch keeps handler effects synchronous for verification
+        WsDispatchConfig dispatchConfig = new WsDispatchConfig();
+        dispatchConfig.setVirtualThreads(false);
+        SessionEventDispatcher dispatcher = new SessionEventDispatcher(dispatchConfig, new SimpleMeterRegistry());
+        handler = new NativeWebSocketHandler(
+                presenceService,
+                presenceSubscriptionService,
+                typingStateManager,
+                typingBroadcaster,
+                roomMembershipService,
+                readReceiptService,
+                readReceiptBroadcaster,
+                readPositionBuffer,
+                chatService,
+                sessionManager,
+                roomFanout,
+                dispatcher,
+                objectMapper);
+
+        when(session.getId()).thenReturn(SESSION_ID);
+        when(session.isOpen()).thenReturn(true);
+
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("phoneNumber", TEST_PHONE);
+        when(session.getAttributes()).thenReturn(attributes);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        mocks.close();
+    }
+
+    @Test
+    void testChatSend_ackWaitsForBrokerAndCarriesRecordPosition() throws Exception {
+        CompletableFuture<ChatSendResult> published = new CompletableFuture<>();
+        when(chatService.sendMessage(TEST_ROOM, TEST_PHONE, "Hello")).thenReturn(published);
+
+        handler.handleTextMessage(session, new TextMessage(CHAT_SEND));
+
+        // Nothing acknowledged until the broker confirms
+        verify(sessionManager, never()).send(any(), any(), any());
+
+        published.complete(new ChatSendResult("msg-1", TEST_ROOM, 2, 42L, 1000L));
+
+        JsonNode ack = capturedFrame();
+        assertThat(ack.get("event").asText()).isEqualTo("chat.sent");
+        JsonNode payload = ack.get("payload");
+        assertThat(payload.get("clientMessageId").asText()).isEqualTo("c-1");
+        assertThat(payload.get("messageId").asText()).isEqualTo("msg-1");
+        assertThat(payload.get("partition").asInt()).isEqualTo(2);
+        assertThat(payload.get("offset").asLong()).isEqualTo(42L);
+        assertThat(payload.get("sentAt").asLong()).isEqualTo(1000L);
+        assertThat(payload.has("error")).isFalse();
+    }
+
+    @Test
+    void testChatSend_publishFailure_sendsErrorWithMessageId() throws Exception {
+        when(chatService.sendMessage(TEST_ROOM, TEST_PHONE, "Hello")).thenReturn(
+                CompletableFuture.failedFuture(new MessagePublishException("msg-1", new RuntimeException("timeout"))));
+
+        handler.handleTextMessage(session, new TextMessage(CHAT_SEND));
+
+        JsonNode error = capturedFrame();
+        assertThat(error.get("event").asText()).isEqualTo("chat.error");
+        assertThat(error.get("payload").get("messageId").asText()).isEqualTo("msg-1");
+        assertThat(error.get("payload").get("error").asText()).isEqualTo("publish_failed");
+    }
+
+    @Test
+    void testChatSend_notMember_sendsError() throws Exception {
+        when(chatService.sendMessage(TEST_ROOM, TEST_PHONE, "Hello"))
+                .thenThrow(new SecurityException("User is not a member of this room"));
+
+        handler.handleTextMessage(session, new TextMessage(CHAT_SEND));
+
+        JsonNode error = capturedFrame();
+        assertThat(error.get("event").asText()).isEqualTo("chat.error");
+        assertThat(error.get("payload").get("clientMessageId").asText()).isEqualTo("c-1");
+        assertThat(error.get("payload").get("error").asText()).isEqualTo("not_a_member");
+    }
+
+    @Test
+    void testChatSend_missingBody_sendsErrorWithoutPublishing() throws Exception {
+        handler.handleTextMessage(session,
+                new TextMessage("{\"event\":\"chat.send\",\"to\":\"" + TEST_ROOM + "\"}"));
+
+        verify(chatService, never()).sendMessage(anyString(), anyString(), anyString());
+        assertThat(capturedFrame().get("payload").get("error").asText()).isEqualTo("invalid_message");
+    }
+
+    private JsonNode capturedFrame() throws Exception {
+        ArgumentCaptor<TextMessage> frame = ArgumentCaptor.forClass(TextMessage.class);
+        verify(sessionManager).send(eq(session), frame.capture(), eq(OutboundFrameType.CONTROL));
+        return objectMapper.readTree(frame.getValue().getPayload());
+    }
+}
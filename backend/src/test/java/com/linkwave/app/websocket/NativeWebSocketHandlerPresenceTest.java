@@ -1,11 +1,22 @@
 package com.linkwave.app.websocket;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkwave.app.config.WsDispatchConfig;
+import com.linkwave.app.config.WsOutboundConfig;
+import com.linkwave.app.config.WsSessionConfig;
+import com.linkwave.app.domain.presence.PresenceUpdate;
 import com.linkwave.app.service.presence.PresenceService;
+import com.linkwave.app.service.presence.PresenceSubscriptionService;
+import com.linkwave.app.service.readreceipt.ReadPositionBuffer;
+import com.linkwave.app.service.readreceipt.ReadReceiptBroadcaster;
 import com.linkwave.app.service.readreceipt.ReadReceiptService;
 import com.linkwave.app.service.room.RoomMembershipService;
+import com.linkwave.app.service.typing.TypingBroadcaster;
 import com.linkwave.app.service.typing.TypingStateManager;
+import com.linkwave.app.service.websocket.RoomFanoutEngine;
+import com.linkwave.app.service.websocket.SessionEventDispatcher;
 import com.linkwave.app.service.websocket.WsSessionManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,6 +27,7 @@ import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.anyString;
@@ -28,20 +40,34 @@ class NativeWebSocketHandlerPresenceTest {
     @Mock
     private PresenceService presenceService;
 
+    @Mock
+    private PresenceSubscriptionService presenceSubscriptionService;
+
     @Mock
     private TypingStateManager typingStateManager;
 
+    @Mock
+    private TypingBroadcaster typingBroadcaster;
+
     @Mock
     private RoomMembershipService roomMembershipService;
 
     @Mock
     private ReadReceiptService readReceiptService;
 
+    @Mock
+    private ReadReceiptBroadcaster readReceiptBroadcaster;
+
+    @Mock
+    private ReadPositionBuffer readPositionBuffer;
+
     @Mock
     private com.linkwave.app.service.chat.ChatService chatService;
 
+    private WsSessionManager sessionManager; // Real manager so acks reach the session
+
     @Mock
-    private WsSessionManager sessionManager;
+    private RoomFanoutEngine roomFanout;
 
     private ObjectMapper objectMapper;
 
@@ -56,13 +82,24 @@ class NativeWebSocketHandlerPresenceTest {
     void setUp() {
         mocks = MockitoAnnotations.openMocks(this);
         objectMapper = new ObjectMapper();
+        sessionManager = new WsSessionManager(new WsOutboundConfig(), new WsSessionConfig(), new SimpleMeterRegistry());
+        // Inline dispatch keeps handler effects synchronous for verification
+        WsDispatchConfig dispatchConfig = new WsDispatchConfig();
+        dispatchConfig.setVirtualThreads(false);
+        SessionEventDispatcher dispatcher = new SessionEventDispatcher(dispatchConfig, new SimpleMeterRegistry());
         handler = new NativeWebSocketHandler(
                 presenceService,
+                presenceSubscriptionService,
                 typingStateManager,
+                typingBroadcaster,
                 roomMembershipService,
                 readReceiptService,
+                readReceiptBroadcaster,
+                readPositionBuffer,
                 chatService,
                 sessionManager,
+                roomFanout,
+                dispatcher,
                 objectMapper);
 
         when(session.getId()).thenReturn("test-session-id");
@@ -75,6 +112,7 @@ class NativeWebSocketHandlerPresenceTest {
 
     @AfterEach
     void tearDown() throws Exception {
+        sessionManager.shutdown();
         mocks.close();
     }
 
@@ -117,7 +155,7 @@ class NativeWebSocketHandlerPresenceTest {
         TextMessage heartbeatMsg = new TextMessage("{\"event\":\"presence.heartbeat\"}");
         handler.handleTextMessage(session, heartbeatMsg);
 
-        verify(session, atLeastOnce()).sendMessage(argThat(msg -> {
+        verify(session, timeout(1000).atLeastOnce()).sendMessage(argThat(msg -> {
             if (msg instanceof TextMessage) {
                 String payload = ((TextMessage) msg).getPayload();
                 return payload.contains("presence.heartbeat.ack") && payload.contains("\"status\":\"ok\"");
@@ -135,7 +173,7 @@ class NativeWebSocketHandlerPresenceTest {
         TextMessage heartbeatMsg = new TextMessage("{\"event\":\"presence.heartbeat\"}");
         handler.handleTextMessage(session, heartbeatMsg);
 
-        verify(session, atLeastOnce()).sendMessage(argThat(msg -> {
+        verify(session, timeout(1000).atLeastOnce()).sendMessage(argThat(msg -> {
             if (msg instanceof TextMessage) {
                 String payload = ((TextMessage) msg).getPayload();
                 return payload.contains("presence.heartbeat.ack") && payload.contains("\"status\":\"rate_limited\"");
@@ -144,6 +182,31 @@ class NativeWebSocketHandlerPresenceTest {
         }));
     }
 
+    @Test
+    void testPresenceSubscribe_sendsSnapshot() throws Exception {
+
+        handler.afterConnectionEstablished(session);
+        when(presenceSubscriptionService.subscribe(session, List.of("+14155550001"))).thenReturn(
+                PresenceUpdate.snapshot(List.of(new PresenceUpdate.UserPresence("+14155550001", true, 1L))));
+
+        handler.handleTextMessage(session,
+                new TextMessage("{\"event\":\"presence.subscribe\",\"userIds\":[\"+14155550001\"]}"));
+
+        verify(session, timeout(1000).atLeastOnce()).sendMessage(argThat(msg -> msg instanceof TextMessage text
+                && text.getPayload().contains("\"event\":\"presence.snapshot\"")
+                && text.getPayload().contains("\"online\":true")));
+    }
+
+    @Test
+    void testConnectionClosed_dropsPresenceSubscriptions() throws Exception {
+
+        handler.afterConnectionEstablished(session);
+
+        handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+
+        verify(presenceSubscriptionService).unsubscribe(session);
+    }
+
     @Test
     void testMultipleConnections_eachMarkedOnline() throws Exception {
 
@@ -1,18 +1,31 @@
 package com.linkwave.app.websocket;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.linkwave.app.domain.chat.ReadReceiptEntity;
+import com.linkwave.app.domain.chat.ReadReceiptEvent;
+import com.linkwave.app.domain.chat.ReadUpToEvent;
 import com.linkwave.app.exception.NotFoundException;
 import com.linkwave.app.exception.UnauthorizedException;
+import com.linkwave.app.config.ReadReceiptConfig;
+import com.linkwave.app.config.WsDispatchConfig;
 import com.linkwave.app.service.presence.PresenceService;
+import com.linkwave.app.service.presence.PresenceSubscriptionService;
+import com.linkwave.app.service.readreceipt.ReadPositionBuffer;
+import com.linkwave.app.service.readreceipt.ReadReceiptBroadcaster;
 import com.linkwave.app.service.readreceipt.ReadReceiptService;
 import com.linkwave.app.service.readreceipt.ReadReceiptService.ReadReceiptResult;
 import com.linkwave.app.service.room.RoomMembershipService;
+import com.linkwave.app.service.typing.TypingBroadcaster;
 import com.linkwave.app.service.typing.TypingStateManager;
+import com.linkwave.app.service.websocket.OutboundFrameType;
+import com.linkwave.app.service.websocket.RoomFanoutEngine;
+import com.linkwave.app.service.websocket.SessionEventDispatcher;
 import com.linkwave.app.service.websocket.WsSessionManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.web.socket.TextMessage;
@@ -21,6 +34,7 @@ import org.springframework.web.socket.WebSocketSession;
 import java.time.Instant;
 import java.util.*;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -31,9 +45,15 @@ class NativeWebSocketHandlerReadReceiptTest {
         @Mock
         private PresenceService presenceService;
 
+        @Mock
+        private PresenceSubscriptionService presenceSubscriptionService;
+
         @Mock
         private TypingStateManager typingStateManager;
 
+        @Mock
+        private TypingBroadcaster typingBroadcaster;
+
         @Mock
         private RoomMembershipService roomMembershipService;
 
@@ -46,8 +66,13 @@ class NativeWebSocketHandlerReadReceiptTest {
         @Mock
         private WsSessionManager sessionManager;
 
+        @Mock
+        private RoomFanoutEngine roomFanout;
+
         private ObjectMapper objectMapper; // Real ObjectMapper for JSON parsing
 
+        private ReadReceiptConfig readReceiptConfig;
+
         @Mock
         private WebSocketSession session;
 
@@ -63,13 +88,32 @@ class NativeWebSocketHandlerReadReceiptTest {
         void setUp() throws Exception {
                 mocks = MockitoAnnotations.openMocks(this);
                 objectMapper = new ObjectMapper(); // Use real ObjectMapper
+                // Inline dispatch keeps handler effects synchronous for verification
+                WsDispatchConfig dispatchConfig = new WsDispatchConfig();
+                dispatchConfig.setVirtualThreads(false);
+                SessionEventDispatcher dispatcher = new SessionEventDispatcher(dispatchConfig, new SimpleMeterRegistry());
+                // Per-message events by default here; write through and broadcast without delay
+                readReceiptConfig = new ReadReceiptConfig();
+                readReceiptConfig.setLegacyPerMessageEvents(true);
+                readReceiptConfig.setBroadcastWindowMs(0);
+                readReceiptConfig.setFlushIntervalMs(0);
+                ReadReceiptBroadcaster readReceiptBroadcaster = new ReadReceiptBroadcaster(
+                                readReceiptConfig, roomFanout, objectMapper, new SimpleMeterRegistry());
+                ReadPositionBuffer readPositionBuffer = new ReadPositionBuffer(
+                                readReceiptConfig, readReceiptService, readReceiptBroadcaster, new SimpleMeterRegistry());
                 handler = new NativeWebSocketHandler(
                                 presenceService,
+                                presenceSubscriptionService,
                                 typingStateManager,
+                                typingBroadcaster,
                                 roomMembershipService,
                                 readReceiptService,
+                                readReceiptBroadcaster,
+                                readPositionBuffer,
                                 chatService,
                                 sessionManager,
+                                roomFanout,
+                                dispatcher,
                                 objectMapper);
 
                 when(session.getId()).thenReturn(SESSION_ID);
@@ -88,16 +132,11 @@ class NativeWebSocketHandlerReadReceiptTest {
         @Test
         void testReadUpTo_validMessage_shouldPersistAndBroadcast() throws Exception {
                 // Arrange
-                ReadReceiptEntity receipt = new ReadReceiptEntity();
-                receipt.setMessageId(TEST_MESSAGE);
-                receipt.setRoomId(TEST_ROOM);
-                receipt.setReaderPhoneNumber(TEST_PHONE);
-                receipt.setReadAt(Instant.now());
+                ReadReceiptEvent receipt = new ReadReceiptEvent(
+                                TEST_ROOM, TEST_MESSAGE, TEST_PHONE, Instant.now().toEpochMilli());
 
                 when(readReceiptService.markReadUpTo(TEST_ROOM, TEST_MESSAGE, TEST_PHONE))
                                 .thenReturn(List.of(ReadReceiptResult.newRead(receipt)));
-                when(roomMembershipService.getRoomMembers(TEST_ROOM))
-                                .thenReturn(Set.of(TEST_PHONE, TEST_PHONE_2));
 
                 TextMessage message = new TextMessage(
                                 "{\"event\":\"read.up_to\",\"roomId\":\"" + TEST_ROOM + "\",\"messageId\":\""
@@ -109,7 +148,8 @@ class NativeWebSocketHandlerReadReceiptTest {
 
                 // Assert
                 verify(readReceiptService).markReadUpTo(TEST_ROOM, TEST_MESSAGE, TEST_PHONE);
-                verify(roomMembershipService).getRoomMembers(TEST_ROOM);
+                verify(roomFanout).broadcast(eq(TEST_ROOM), any(TextMessage.class),
+                                eq(OutboundFrameType.RECEIPT), eq(TEST_PHONE));
         }
 
         @Test
@@ -128,7 +168,7 @@ class NativeWebSocketHandlerReadReceiptTest {
 
                 // Assert
                 verify(readReceiptService).markReadUpTo(TEST_ROOM, TEST_MESSAGE, TEST_PHONE);
-                verify(roomMembershipService, never()).getRoomMembers(anyString());
+                verify(roomFanout, never()).broadcast(anyString(), any(), any(), any());
         }
 
         @Test
@@ -147,7 +187,7 @@ class NativeWebSocketHandlerReadReceiptTest {
 
                 // Assert
                 verify(readReceiptService).markReadUpTo(TEST_ROOM, TEST_MESSAGE, TEST_PHONE);
-                verify(roomMembershipService, never()).getRoomMembers(anyString());
+                verify(roomFanout, never()).broadcast(anyString(), any(), any(), any());
         }
 
         @Test
@@ -166,7 +206,7 @@ class NativeWebSocketHandlerReadReceiptTest {
 
                 // Assert
                 verify(readReceiptService).markReadUpTo(TEST_ROOM, TEST_MESSAGE, TEST_PHONE);
-                verify(roomMembershipService, never()).getRoomMembers(anyString());
+                verify(roomFanout, never()).broadcast(anyString(), any(), any(), any());
         }
 
         @Test
@@ -199,24 +239,16 @@ class NativeWebSocketHandlerReadReceiptTest {
         @Test
         void testReadUpTo_groupChat_multipleReaders() throws Exception {
                 // Arrange
-                ReadReceiptEntity receipt1 = new ReadReceiptEntity();
-                receipt1.setMessageId("msg-1");
-                receipt1.setRoomId(TEST_ROOM);
-                receipt1.setReaderPhoneNumber(TEST_PHONE);
-                receipt1.setReadAt(Instant.now());
-
-                ReadReceiptEntity receipt2 = new ReadReceiptEntity();
-                receipt2.setMessageId("msg-2");
-                receipt2.setRoomId(TEST_ROOM);
-                receipt2.setReaderPhoneNumber(TEST_PHONE);
-                receipt2.setReadAt(Instant.now());
+                ReadReceiptEvent receipt1 = new ReadReceiptEvent(
+                                TEST_ROOM, "msg-1", TEST_PHONE, Instant.now().toEpochMilli());
+
+                ReadReceiptEvent receipt2 = new ReadReceiptEvent(
+                                TEST_ROOM, "msg-2", TEST_PHONE, Instant.now().toEpochMilli());
 
                 when(readReceiptService.markReadUpTo(TEST_ROOM, TEST_MESSAGE, TEST_PHONE))
                                 .thenReturn(List.of(
                                                 ReadReceiptResult.newRead(receipt1),
                                                 ReadReceiptResult.newRead(receipt2)));
-                when(roomMembershipService.getRoomMembers(TEST_ROOM))
-                                .thenReturn(Set.of(TEST_PHONE, TEST_PHONE_2, "+14155559999"));
 
                 TextMessage message = new TextMessage(
                                 "{\"event\":\"read.up_to\",\"roomId\":\"" + TEST_ROOM + "\",\"messageId\":\""
@@ -228,22 +260,19 @@ class NativeWebSocketHandlerReadReceiptTest {
 
                 // Assert
                 verify(readReceiptService).markReadUpTo(TEST_ROOM, TEST_MESSAGE, TEST_PHONE);
-                verify(roomMembershipService, times(1)).getRoomMembers(TEST_ROOM);
+                verify(roomFanout, times(2)).broadcast(eq(TEST_ROOM), any(TextMessage.class),
+                                eq(OutboundFrameType.RECEIPT), eq(TEST_PHONE));
+                verify(roomMembershipService, never()).getRoomMembers(anyString());
         }
 
         @Test
         void testBroadcastExcludesReader() throws Exception {
                 // Arrange
-                ReadReceiptEntity receipt = new ReadReceiptEntity();
-                receipt.setMessageId(TEST_MESSAGE);
-                receipt.setRoomId(TEST_ROOM);
-                receipt.setReaderPhoneNumber(TEST_PHONE);
-                receipt.setReadAt(Instant.now());
+                ReadReceiptEvent receipt = new ReadReceiptEvent(
+                                TEST_ROOM, TEST_MESSAGE, TEST_PHONE, Instant.now().toEpochMilli());
 
                 when(readReceiptService.markReadUpTo(TEST_ROOM, TEST_MESSAGE, TEST_PHONE))
                                 .thenReturn(List.of(ReadReceiptResult.newRead(receipt)));
-                when(roomMembershipService.getRoomMembers(TEST_ROOM))
-                                .thenReturn(Set.of(TEST_PHONE, TEST_PHONE_2));
 
                 TextMessage message = new TextMessage(
                                 "{\"event\":\"read.up_to\",\"roomId\":\"" + TEST_ROOM + "\",\"messageId\":\""
@@ -254,8 +283,55 @@ class NativeWebSocketHandlerReadReceiptTest {
                 handler.handleTextMessage(session, message);
 
                 // Assert
-                verify(roomMembershipService).getRoomMembers(TEST_ROOM);
-                // The reader (TEST_PHONE) should not receive the broadcast
-                // Only TEST_PHONE_2 should receive it
+                // The reader (TEST_PHONE) is excluded from the room fan-out
+                verify(roomFanout).broadcast(eq(TEST_ROOM), any(TextMessage.class),
+                                eq(OutboundFrameType.RECEIPT), eq(TEST_PHONE));
+        }
+
+        @Test
+        void testReadUpTo_coalesced_shouldBroadcastSingleReadUpToFrame() throws Exception {
+                // Arrange
+                readReceiptConfig.setLegacyPerMessageEvents(false);
+                long now = Instant.now().toEpochMilli();
+                when(readReceiptService.advanceReadUpTo(TEST_ROOM, TEST_MESSAGE, TEST_PHONE))
+                                .thenReturn(Optional.of(new ReadUpToEvent(TEST_ROOM, TEST_PHONE, TEST_MESSAGE,
+                                                now - 1000, now)));
+
+                TextMessage message = new TextMessage(
+                                "{\"event\":\"read.up_to\",\"roomId\":\"" + TEST_ROOM + "\",\"messageId\":\""
+                                                + TEST_MESSAGE + "\"}");
+
+                // Act
+                handler.afterConnectionEstablished(session);
+                handler.handleTextMessage(session, message);
+
+                // Assert
+                verify(readReceiptService, never()).markReadUpTo(anyString(), anyString(), anyString());
+                ArgumentCaptor<TextMessage> frame = ArgumentCaptor.forClass(TextMessage.class);
+                verify(roomFanout, times(1)).broadcast(eq(TEST_ROOM), frame.capture(),
+                                eq(OutboundFrameType.RECEIPT), eq(TEST_PHONE));
+                JsonNode json = objectMapper.readTree(frame.getValue().getPayload());
+                assertThat(json.get("type").asText()).isEqualTo("read.up_to");
+                assertThat(json.get("messageId").asText()).isEqualTo(TEST_MESSAGE);
+                assertThat(json.get("readerId").asText()).isEqualTo(TEST_PHONE);
+        }
+
+        @Test
+        void testReadUpTo_coalesced_alreadyRead_shouldNotBroadcast() throws Exception {
+                // Arrange
+                readReceiptConfig.setLegacyPerMessageEvents(false);
+                when(readReceiptService.advanceReadUpTo(TEST_ROOM, TEST_MESSAGE, TEST_PHONE))
+                                .thenReturn(Optional.empty());
+
+                TextMessage message = new TextMessage(
+                                "{\"event\":\"read.up_to\",\"roomId\":\"" + TEST_ROOM + "\",\"messageId\":\""
+                                                + TEST_MESSAGE + "\"}");
+
+                // Act
+                handler.afterConnectionEstablished(session);
+                handler.handleTextMessage(session, message);
+
+                // Assert
+                verify(roomFanout, never()).broadcast(anyString(), any(), any(), any());
         }
 }
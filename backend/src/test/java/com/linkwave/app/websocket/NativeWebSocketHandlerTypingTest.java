@@ -1,14 +1,26 @@
 package com.linkwave.app.websocket;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkwave.app.config.NodeConfig;
+import com.linkwave.app.config.TypingConfig;
+import com.linkwave.app.config.WsDispatchConfig;
 import com.linkwave.app.service.presence.PresenceService;
+import com.linkwave.app.service.presence.PresenceSubscriptionService;
+import com.linkwave.app.service.readreceipt.ReadPositionBuffer;
+import com.linkwave.app.service.readreceipt.ReadReceiptBroadcaster;
 import com.linkwave.app.service.readreceipt.ReadReceiptService;
 import com.linkwave.app.service.room.RoomMembershipService;
+import com.linkwave.app.service.typing.TypingBroadcaster;
 import com.linkwave.app.service.typing.TypingStateManager;
+import com.linkwave.app.service.websocket.OutboundFrameType;
+import com.linkwave.app.service.websocket.RoomFanoutEngine;
+import com.linkwave.app.service.websocket.SessionEventDispatcher;
 import com.linkwave.app.service.websocket.WsSessionManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.web.socket.CloseStatus;
@@ -20,6 +32,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -30,6 +43,9 @@ class NativeWebSocketHandlerTypingTest {
     @Mock
     private PresenceService presenceService;
 
+    @Mock
+    private PresenceSubscriptionService presenceSubscriptionService;
+
     @Mock
     private TypingStateManager typingStateManager;
 
@@ -39,12 +55,21 @@ class NativeWebSocketHandlerTypingTest {
     @Mock
     private ReadReceiptService readReceiptService;
 
+    @Mock
+    private ReadReceiptBroadcaster readReceiptBroadcaster;
+
+    @Mock
+    private ReadPositionBuffer readPositionBuffer;
+
     @Mock
     private com.linkwave.app.service.chat.ChatService chatService;
 
     @Mock
     private WsSessionManager sessionManager;
 
+    @Mock
+    private RoomFanoutEngine roomFanout;
+
     private ObjectMapper objectMapper; // Real ObjectMapper for JSON parsing
 
     @Mock
@@ -61,14 +86,10 @@ class NativeWebSocketHandlerTypingTest {
     void setUp() throws Exception {
         mocks = MockitoAnnotations.openMocks(this);
         objectMapper = new ObjectMapper(); // Use real ObjectMapper
-        handler = new NativeWebSocketHandler(
-                presenceService,
-                typingStateManager,
-                roomMembershipService,
-                readReceiptService,
-                chatService,
-                sessionManager,
-                objectMapper);
+        // No roster interval keeps broadcasts synchronous for verification
+        TypingConfig typingConfig = new TypingConfig();
+        typingConfig.setRosterIntervalMs(0);
+        handler = newHandler(typingConfig);
 
         when(session.getId()).thenReturn(SESSION_ID);
         when(session.isOpen()).thenReturn(true);
@@ -78,24 +99,71 @@ class NativeWebSocketHandlerTypingTest {
         when(session.getAttributes()).thenReturn(attributes);
     }
 
+    private NativeWebSocketHandler newHandler(TypingConfig typingConfig) {
+        // Inline dispatch keeps handler effects synchronous for verification
+        WsDispatchConfig dispatchConfig = new WsDispatchConfig();
+        dispatchConfig.setVirtualThreads(false);
+        SessionEventDispatcher dispatcher = new SessionEventDispatcher(dispatchConfig, new SimpleMeterRegistry());
+        NodeConfig nodeConfig = new NodeConfig();
+        nodeConfig.setId("node-a");
+        TypingBroadcaster typingBroadcaster = new TypingBroadcaster(typingConfig, typingStateManager,
+                roomFanout, nodeConfig, objectMapper, new SimpleMeterRegistry());
+        return new NativeWebSocketHandler(
+                presenceService,
+                presenceSubscriptionService,
+                typingStateManager,
+                typingBroadcaster,
+                roomMembershipService,
+                readReceiptService,
+                readReceiptBroadcaster,
+                readPositionBuffer,
+                chatService,
+                sessionManager,
+                roomFanout,
+                dispatcher,
+                objectMapper);
+    }
+
     @AfterEach
     void tearDown() throws Exception {
         mocks.close();
     }
 
     @Test
-    void testTypingStart_validRoom_broadcastsToMembers() throws Exception {
+    void testTypingStart_validRoom_broadcastsRosterToMembers() throws Exception {
 
         when(roomMembershipService.isUserInRoom(TEST_PHONE, TEST_ROOM)).thenReturn(true);
         when(typingStateManager.markTypingStart(TEST_ROOM, TEST_PHONE, SESSION_ID)).thenReturn(true);
-        when(roomMembershipService.getRoomMembers(TEST_ROOM))
-                .thenReturn(Set.of(TEST_PHONE, TEST_PHONE_2));
+        when(typingStateManager.getTypingUsers(TEST_ROOM)).thenReturn(Set.of(TEST_PHONE_2, TEST_PHONE));
 
         TextMessage message = new TextMessage("{\"event\":\"typing.start\",\"roomId\":\"" + TEST_ROOM + "\"}");
         handler.afterConnectionEstablished(session);
         handler.handleTextMessage(session, message);
 
         verify(typingStateManager).markTypingStart(TEST_ROOM, TEST_PHONE, SESSION_ID);
+        ArgumentCaptor<TextMessage> frame = ArgumentCaptor.forClass(TextMessage.class);
+        verify(roomFanout).broadcast(eq(TEST_ROOM), frame.capture(), eq(OutboundFrameType.TYPING), isNull());
+
+        var json = objectMapper.readTree(frame.getValue().getPayload());
+        assertThat(json.get("type").asText()).isEqualTo("typing.update");
+        assertThat(json.get("roomId").asText()).isEqualTo(TEST_ROOM);
+        assertThat(json.get("nodeId").asText()).isEqualTo("node-a");
+        assertThat(json.get("userIds").toString()).isEqualTo("[\"" + TEST_PHONE + "\",\"" + TEST_PHONE_2 + "\"]");
+    }
+
+    @Test
+    void testTypingStart_unchangedRoster_notBroadcastAgain() throws Exception {
+
+        when(roomMembershipService.isUserInRoom(TEST_PHONE, TEST_ROOM)).thenReturn(true);
+        when(typingStateManager.markTypingStart(anyString(), anyString(), anyString())).thenReturn(true);
+        when(typingStateManager.getTypingUsers(TEST_ROOM)).thenReturn(Set.of(TEST_PHONE));
+
+        TextMessage message = new TextMessage("{\"event\":\"typing.start\",\"roomId\":\"" + TEST_ROOM + "\"}");
+        handler.afterConnectionEstablished(session);
+        handler.handleTextMessage(session, message);
+        handler.handleTextMessage(session, message);
+
+        verify(roomFanout, times(1)).broadcast(anyString(), any(), any(), any());
     }
 
     @Test
@@ -120,34 +188,58 @@ class NativeWebSocketHandlerTypingTest {
         handler.afterConnectionEstablished(session);
         handler.handleTextMessage(session, message);
 
-        verify(roomMembershipService, never()).getRoomMembers(anyString());
+        verify(roomFanout, never()).broadcast(anyString(), any(), any(), any());
     }
 
     @Test
-    void testTypingStop_broadcastsToMembers() throws Exception {
+    void testTypingStop_broadcastsEmptyRoster() throws Exception {
 
-        when(roomMembershipService.getRoomMembers(TEST_ROOM))
-                .thenReturn(Set.of(TEST_PHONE, TEST_PHONE_2));
+        when(roomMembershipService.isUserInRoom(TEST_PHONE, TEST_ROOM)).thenReturn(true);
+        when(typingStateManager.markTypingStart(TEST_ROOM, TEST_PHONE, SESSION_ID)).thenReturn(true);
+        when(typingStateManager.getTypingUsers(TEST_ROOM)).thenReturn(Set.of(TEST_PHONE), Set.of());
+
+        handler.afterConnectionEstablished(session);
+        handler.handleTextMessage(session,
+                new TextMessage("{\"event\":\"typing.start\",\"roomId\":\"" + TEST_ROOM + "\"}"));
+        handler.handleTextMessage(session,
+                new TextMessage("{\"event\":\"typing.stop\",\"roomId\":\"" + TEST_ROOM + "\"}"));
+
+        verify(typingStateManager).markTypingStop(TEST_ROOM, TEST_PHONE, SESSION_ID);
+        ArgumentCaptor<TextMessage> frames = ArgumentCaptor.forClass(TextMessage.class);
+        verify(roomFanout, times(2)).broadcast(eq(TEST_ROOM), frames.capture(),
+                eq(OutboundFrameType.TYPING), isNull());
+        assertThat(objectMapper.readTree(frames.getValue().getPayload()).get("userIds")).isEmpty();
+    }
+
+    @Test
+    void testTypingStop_withoutShownRoster_notBroadcast() throws Exception {
 
         TextMessage message = new TextMessage("{\"event\":\"typing.stop\",\"roomId\":\"" + TEST_ROOM + "\"}");
         handler.afterConnectionEstablished(session);
         handler.handleTextMessage(session, message);
 
         verify(typingStateManager).markTypingStop(TEST_ROOM, TEST_PHONE, SESSION_ID);
+        verify(roomFanout, never()).broadcast(anyString(), any(), any(), any());
     }
 
     @Test
     void testDisconnect_clearsTypingAndBroadcasts() throws Exception {
 
+        when(roomMembershipService.isUserInRoom(TEST_PHONE, TEST_ROOM)).thenReturn(true);
+        when(typingStateManager.markTypingStart(TEST_ROOM, TEST_PHONE, SESSION_ID)).thenReturn(true);
+        when(typingStateManager.getTypingUsers(TEST_ROOM)).thenReturn(Set.of(TEST_PHONE), Set.of());
         when(typingStateManager.clearUserTyping(TEST_PHONE, SESSION_ID))
                 .thenReturn(List.of(TEST_ROOM));
-        when(roomMembershipService.getRoomMembers(TEST_ROOM))
-                .thenReturn(Set.of(TEST_PHONE, TEST_PHONE_2));
 
         handler.afterConnectionEstablished(session);
+        handler.handleTextMessage(session,
+                new TextMessage("{\"event\":\"typing.start\",\"roomId\":\"" + TEST_ROOM + "\"}"));
         handler.afterConnectionClosed(session, CloseStatus.NORMAL);
 
         verify(typingStateManager).clearUserTyping(TEST_PHONE, SESSION_ID);
+        verify(roomFanout, times(2)).broadcast(eq(TEST_ROOM), any(TextMessage.class),
+                eq(OutboundFrameType.TYPING), isNull());
+        verify(roomFanout).userDisconnected(TEST_PHONE);
     }
 
     @Test
@@ -171,17 +263,21 @@ class NativeWebSocketHandlerTypingTest {
     }
 
     @Test
-    void testSenderDoesNotReceiveOwnTypingEvent() throws Exception {
+    void testLegacyEvents_senderDoesNotReceiveOwnTypingEvent() throws Exception {
 
+        TypingConfig legacyConfig = new TypingConfig();
+        legacyConfig.setLegacyPerUserEvents(true);
+        handler = newHandler(legacyConfig);
         when(roomMembershipService.isUserInRoom(TEST_PHONE, TEST_ROOM)).thenReturn(true);
         when(typingStateManager.markTypingStart(TEST_ROOM, TEST_PHONE, SESSION_ID)).thenReturn(true);
-        when(roomMembershipService.getRoomMembers(TEST_ROOM))
-                .thenReturn(Set.of(TEST_PHONE, TEST_PHONE_2));
 
         TextMessage message = new TextMessage("{\"event\":\"typing.start\",\"roomId\":\"" + TEST_ROOM + "\"}");
         handler.afterConnectionEstablished(session);
         handler.handleTextMessage(session, message);
 
-        verify(roomMembershipService).getRoomMembers(TEST_ROOM);
+        // Sender is excluded from the room fan-out, no database member load
+        verify(roomFanout).broadcast(eq(TEST_ROOM), any(TextMessage.class),
+                eq(OutboundFrameType.TYPING), eq(TEST_PHONE));
+        verify(roomMembershipService, never()).getRoomMembers(anyString());
     }
 }
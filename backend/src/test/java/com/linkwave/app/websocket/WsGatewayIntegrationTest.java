@@ -1,8 +1,11 @@
 package com.linkwave.app.websocket;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.linkwave.app.domain.auth.AuthenticatedUserContext;
+import com.linkwave.app.domain.chat.ChatRoomEntity;
 import com.linkwave.app.domain.websocket.WsMessageEnvelope;
+import com.linkwave.app.service.chat.ChatService;
 import com.linkwave.app.service.session.SessionService;
 import com.linkwave.app.service.websocket.WsSessionManager;
 import org.junit.jupiter.api.BeforeEach;
@@ -27,6 +30,7 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.mockito.Mockito.when;
 
 /**
@@ -36,7 +40,7 @@ import static org.mockito.Mockito.when;
  * - Connection rejection for unauthenticated users
  * - Connection acceptance for authenticated users
  * - ping/pong messaging
- * - chat.send acceptance (without delivery in C1)
+ * - chat.send acknowledgment after the broker write, chat.error on failure
  * - Invalid JSON handling
  * - Missing event field handling
  * - Unknown event handling
@@ -61,6 +65,9 @@ class WsGatewayIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ChatService chatService;
+
     private String wsUrl;
 
     @BeforeEach
@@ -100,9 +107,10 @@ class WsGatewayIntegrationTest {
         WebSocketSession session = client.execute(handler, new WebSocketHttpHeaders(), URI.create(wsUrl))
                 .get(5, TimeUnit.SECONDS);
 
-        // Then: Connection accepted
+        // Then: Connection accepted (server registers the session after the handshake completes)
         assertThat(session.isOpen()).isTrue();
-        assertThat(sessionManager.hasActiveSession(phoneNumber)).isTrue();
+        await().atMost(2, TimeUnit.SECONDS)
+                .untilAsserted(() -> assertThat(sessionManager.hasActiveSession(phoneNumber)).isTrue());
 
         // Cleanup
         session.close();
@@ -143,11 +151,12 @@ class WsGatewayIntegrationTest {
     }
 
     @Test
-    void sendChatSend_shouldBeAccepted() throws Exception {
-        // Given: Authenticated WebSocket connection
+    void sendChatSend_shouldBeAcknowledgedAfterBrokerWrite() throws Exception {
+        // Given: Authenticated WebSocket connection and a room the user belongs to
         String phoneNumber = "+14155552673";
         AuthenticatedUserContext userContext = new AuthenticatedUserContext(phoneNumber, Instant.now());
         when(sessionService.getAuthenticatedUser()).thenReturn(Optional.of(userContext));
+        ChatRoomEntity room = chatService.createDirectRoom(phoneNumber, "+14155559999");
 
         StandardWebSocketClient client = new StandardWebSocketClient();
         TestWebSocketHandler handler = new TestWebSocketHandler();
@@ -159,28 +168,58 @@ class WsGatewayIntegrationTest {
         handler.messages.poll(5, TimeUnit.SECONDS);
 
         // When: Send chat.send message with proper body field
+        String chatJson = "{\"event\":\"chat.send\",\"to\":\"" + room.getId()
+                + "\",\"clientMessageId\":\"c-1\",\"payload\":{\"body\":\"Hello World\"}}";
+        session.sendMessage(new TextMessage(chatJson));
+
+        // Then: chat.sent carries the real message ID and broker position
+        JsonNode ack = pollEvent(handler, "chat.sent");
+        assertThat(ack).isNotNull();
+        JsonNode payload = ack.get("payload");
+        assertThat(payload.get("clientMessageId").asText()).isEqualTo("c-1");
+        assertThat(payload.get("messageId").asText()).isNotBlank();
+        assertThat(payload.get("roomId").asText()).isEqualTo(room.getId());
+        assertThat(payload.get("partition").asInt()).isGreaterThanOrEqualTo(0);
+        assertThat(payload.get("offset").asLong()).isGreaterThanOrEqualTo(0);
+        assertThat(payload.get("sentAt").asLong()).isPositive();
+
+        // Connection should remain open
+        assertThat(session.isOpen()).isTrue();
+
+        // Cleanup
+        session.close();
+    }
+
+    @Test
+    void sendChatSend_toUnknownRoom_shouldReturnError() throws Exception {
+        // Given: Authenticated WebSocket connection
+        String phoneNumber = "+14155552679";
+        AuthenticatedUserContext userContext = new AuthenticatedUserContext(phoneNumber, Instant.now());
+        when(sessionService.getAuthenticatedUser()).thenReturn(Optional.of(userContext));
+
+        StandardWebSocketClient client = new StandardWebSocketClient();
+        TestWebSocketHandler handler = new TestWebSocketHandler();
+
+        WebSocketSession session = client.execute(handler, new WebSocketHttpHeaders(), URI.create(wsUrl))
+                .get(5, TimeUnit.SECONDS);
+
+        // Drain connection.ack
+        handler.messages.poll(5, TimeUnit.SECONDS);
+
+        // When: Send chat.send to a room that does not exist
         String chatPayload = "{\"body\":\"Hello World\"}";
         WsMessageEnvelope chatSend = new WsMessageEnvelope(
                 "chat.send",
                 "+14155559999",
                 objectMapper.readTree(chatPayload));
-        String chatJson = objectMapper.writeValueAsString(chatSend);
-        session.sendMessage(new TextMessage(chatJson));
+        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(chatSend)));
 
-        // Then: Should receive chat.sent acknowledgment (C2 behavior)
-        String ackResponse = handler.messages.poll(5, TimeUnit.SECONDS);
-        if (ackResponse != null) {
-            WsMessageEnvelope ack = objectMapper.readValue(ackResponse, WsMessageEnvelope.class);
-            assertThat(ack.getEvent()).isEqualTo("chat.sent");
-            assertThat(ack.getPayload().has("messageId")).isTrue();
-        }
-
-        // Connection should remain open
+        // Then: chat.error instead of a fake acknowledgment
+        JsonNode error = pollEvent(handler, "chat.error");
+        assertThat(error).isNotNull();
+        assertThat(error.get("payload").get("error").asText()).isEqualTo("room_not_found");
         assertThat(session.isOpen()).isTrue();
 
-        // Note: In C2, chat.send is published to Kafka and acknowledged
-        // C3 will add persistence, C4 will add delivery
-
         // Cleanup
         session.close();
     }
@@ -260,6 +299,24 @@ class WsGatewayIntegrationTest {
     /**
      * Test handler to capture WebSocket messages.
      */
+    /**
+     * Poll frames until one with the given event arrives, skipping others
+     * (e.g. chat.receive delivered back to the sender).
+     */
+    private JsonNode pollEvent(TestWebSocketHandler handler, String event) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            String frame = handler.messages.poll(100, TimeUnit.MILLISECONDS);
+            if (frame != null) {
+                JsonNode json = objectMapper.readTree(frame);
+                if (event.equals(json.path("event").asText())) {
+                    return json;
+                }
+            }
+        }
+        return null;
+    }
+
     private static class TestWebSocketHandler extends TextWebSocketHandler {
 
         final BlockingQueue<String> messages = new ArrayBlockingQueue<>(10);